@@ -0,0 +1,14 @@
+#!/bin/sh
+# Starts the packaged application (./mvnw package) with the Java Vector API module,
+# so the RAG vector kernels use SIMD instead of the scalar fallback.
+# Extra arguments are passed to the application, e.g. --server.port=8081
+set -e
+cd "$(dirname "$0")"
+
+JAR=$(ls target/*.jar 2>/dev/null | head -n 1)
+if [ -z "$JAR" ]; then
+    echo "No jar in target/, build it first with ./mvnw package" >&2
+    exit 1
+fi
+
+exec java --add-modules jdk.incubator.vector $JAVA_OPTS -jar "$JAR" "$@"
@@ -1,25 +1,42 @@
 package com.vijay.config;
 
+import com.vijay.event.McpToolsChangedEvent;
+import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpSyncClient;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import com.vijay.service.McpToolCatalog;
+import com.vijay.service.PromptLibraryService;
 import com.vijay.service.SystemMessageService;
+import com.vijay.service.ToolExecutionEngine;
+import com.vijay.tool.McpAsyncToolCallbackProvider;
+import com.vijay.tool.ParallelToolCallingManager;
 // import org.springframework.ai.huggingface.HuggingFaceChatModel; // Not available in Spring AI 1.0.1
 import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.mcp.customizer.McpAsyncClientCustomizer;
+import org.springframework.ai.mcp.customizer.McpSyncClientCustomizer;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
 import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.anthropic.AnthropicChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -36,7 +53,14 @@ public class AIProviderConfig {
     // Merge all MCP servers (only if MCP is enabled)
     @Bean
     @Primary
-    public ToolCallbackProvider mcpToolCallbackProvider(@Autowired(required = false) List<McpSyncClient> mcpSyncClients) {
+    public ToolCallbackProvider mcpToolCallbackProvider(@Autowired(required = false) List<McpSyncClient> mcpSyncClients,
+                                                        @Autowired(required = false) List<McpAsyncClient> mcpAsyncClients,
+                                                        @Value("${spring.ai.mcp.client.request-timeout:20s}") Duration requestTimeout) {
+        // spring.ai.mcp.client.type=ASYNC: tool calls do not block a thread while the server works
+        if (mcpAsyncClients != null && !mcpAsyncClients.isEmpty()) {
+            logger.info("Creating async MCP Tool Callback Provider with {} clients", mcpAsyncClients.size());
+            return new McpAsyncToolCallbackProvider(mcpAsyncClients, requestTimeout);
+        }
         if (mcpSyncClients == null || mcpSyncClients.isEmpty()) {
             logger.info("No MCP clients available, creating empty tool callback provider");
             return new SyncMcpToolCallbackProvider(List.of());
@@ -45,6 +69,36 @@ public class AIProviderConfig {
         return new SyncMcpToolCallbackProvider(mcpSyncClients);
     }
 
+    // Publish tools/list_changed notifications from every MCP server as an application event
+    @Bean
+    McpSyncClientCustomizer mcpToolsChangeCustomizer(ApplicationEventPublisher eventPublisher) {
+        return (name, spec) -> spec.toolsChangeConsumer(tools -> {
+            logger.info("MCP client {} reported {} tools after list change", name, tools.size());
+            eventPublisher.publishEvent(new McpToolsChangedEvent(this, name));
+        });
+    }
+
+    @Bean
+    McpAsyncClientCustomizer mcpAsyncToolsChangeCustomizer(ApplicationEventPublisher eventPublisher) {
+        return (name, spec) -> spec.toolsChangeConsumer(tools -> Mono.fromRunnable(() -> {
+            logger.info("MCP client {} reported {} tools after list change", name, tools.size());
+            eventPublisher.publishEvent(new McpToolsChangedEvent(this, name));
+        }));
+    }
+
+    // Execute the tool calls of a model turn concurrently, with per-tool timeouts
+    @Bean
+    ToolCallingManager toolCallingManager(ToolExecutionEngine toolExecutionEngine,
+                                          McpToolCatalog toolCatalog,
+                                          ObjectProvider<ToolCallbackResolver> toolCallbackResolver) {
+        ToolCallbackResolver resolver = toolCallbackResolver.getIfAvailable();
+        DefaultToolCallingManager.Builder delegate = DefaultToolCallingManager.builder();
+        if (resolver != null) {
+            delegate.toolCallbackResolver(resolver);
+        }
+        return new ParallelToolCallingManager(delegate.build(), resolver, toolExecutionEngine, toolCatalog);
+    }
+
     // Chat Memory for conversation context
     @Bean
     ChatMemory chatMemory() {
@@ -55,29 +109,28 @@ public class AIProviderConfig {
 
     // System message service for all providers
     @Bean
-    SystemMessageService systemMessageService() {
-        return new SystemMessageService();
+    SystemMessageService systemMessageService(PromptLibraryService promptLibraryService) {
+        return new SystemMessageService(promptLibraryService);
     }
 
+    // MCP tools are not registered as defaults: providers attach the tools selected
+    // for each message (ToolSelector), so a request only carries relevant schemas.
+
     // OpenAI client with MCP tools
     @Bean(name = "openAiChatClient")
-    ChatClient openAiChatClient(OpenAiChatModel openAiChatModel,
-                               ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient openAiChatClient(OpenAiChatModel openAiChatModel, ChatMemory chatMemory) {
         logger.info("Creating OpenAI Chat Client with MCP tools");
         return ChatClient.builder(openAiChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
 
     // Anthropic Claude client with MCP tools
     @Bean(name = "anthropicChatClient")
-    ChatClient anthropicChatClient(AnthropicChatModel anthropicChatModel,
-                                  ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient anthropicChatClient(AnthropicChatModel anthropicChatModel, ChatMemory chatMemory) {
         logger.info("Creating Anthropic Chat Client with MCP tools");
         return ChatClient.builder(anthropicChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
 
@@ -85,60 +138,54 @@ public class AIProviderConfig {
     
     // Groq client with MCP tools (for tool access only, API calls use WebClient)
     @Bean(name = "groqChatClient")
-    ChatClient groqChatClient(OpenAiChatModel openAiChatModel, ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient groqChatClient(OpenAiChatModel openAiChatModel, ChatMemory chatMemory) {
         logger.info("Creating Groq Chat Client with MCP tools");
         // Create a dummy model for tool access - actual API calls use WebClient
         // We'll use OpenAI model as a placeholder since we need a ChatModel
         return ChatClient.builder(openAiChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
     
     // Gemini client with MCP tools (for tool access only, API calls use WebClient)
     @Bean(name = "geminiChatClient")
-    ChatClient geminiChatClient(OpenAiChatModel openAiChatModel, ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient geminiChatClient(OpenAiChatModel openAiChatModel, ChatMemory chatMemory) {
         logger.info("Creating Gemini Chat Client with MCP tools");
         // Create a dummy model for tool access - actual API calls use WebClient
         // We'll use OpenAI model as a placeholder since we need a ChatModel
         return ChatClient.builder(openAiChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
     
     // OpenRouter client with MCP tools (for tool access only, API calls use WebClient)
     @Bean(name = "openRouterChatClient")
-    ChatClient openRouterChatClient(OpenAiChatModel openAiChatModel, ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient openRouterChatClient(OpenAiChatModel openAiChatModel, ChatMemory chatMemory) {
         logger.info("Creating OpenRouter Chat Client with MCP tools");
         // Create a dummy model for tool access - actual API calls use WebClient
         // We'll use OpenAI model as a placeholder since we need a ChatModel
         return ChatClient.builder(openAiChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
 
     // Ollama client with MCP tools
     @Bean(name = "ollamaChatClient")
-    ChatClient ollamaChatClient(OllamaChatModel ollamaChatModel,
-                               ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient ollamaChatClient(OllamaChatModel ollamaChatModel, ChatMemory chatMemory) {
         logger.info("Creating Ollama Chat Client with MCP tools");
         return ChatClient.builder(ollamaChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
 
     // Hugging Face client with MCP tools (for tool access only, API calls use WebClient)
     @Bean(name = "huggingFaceChatClient")
-    ChatClient huggingFaceChatClient(OpenAiChatModel openAiChatModel, ToolCallbackProvider mcp, ChatMemory chatMemory) {
+    ChatClient huggingFaceChatClient(OpenAiChatModel openAiChatModel, ChatMemory chatMemory) {
         logger.info("Creating HuggingFace Chat Client with MCP tools");
         // Create a dummy model for tool access - actual API calls use WebClient
         // We'll use OpenAI model as a placeholder since we need a ChatModel
         return ChatClient.builder(openAiChatModel)
                 .defaultAdvisors(MessageChatMemoryAdvisor.builder(chatMemory).build())
-                .defaultToolCallbacks(mcp.getToolCallbacks())
                 .build();
     }
 }
@@ -0,0 +1,31 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Async MVC handling of chat requests.
+ * <pre>
+ * chat.async.request-timeout=120s
+ * chat.async.core-pool-size=16
+ * chat.async.max-pool-size=64
+ * chat.async.queue-capacity=100
+ * </pre>
+ * {@code request-timeout} bounds a whole chat turn including its tool loop; past it
+ * the request fails with 503 and its task is interrupted, which cancels its tool calls.
+ * Requests beyond the pool and queue are rejected instead of each starting a thread.
+ * Bound here because {@code @EnableWebMvc} turns off Boot's {@code spring.mvc.async.*} properties.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.async")
+public class ChatAsyncProperties {
+
+    private Duration requestTimeout = Duration.ofSeconds(120);
+    private int corePoolSize = 16;
+    private int maxPoolSize = 64;
+    private int queueCapacity = 100;
+}
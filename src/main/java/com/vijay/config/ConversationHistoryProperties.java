@@ -0,0 +1,20 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Searchable conversation history.
+ * <p>
+ * History is held in memory. Once it reaches {@code max-messages} each new
+ * message evicts the oldest one from the index, so memory stays bounded
+ * without ever rebuilding the index.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.history")
+public class ConversationHistoryProperties {
+
+    private int maxMessages = 100_000;
+}
@@ -0,0 +1,23 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Embedding cache keyed by model and content hash.
+ * <p>
+ * {@code max-entries} bounds the in-memory LRU tier. The disk tier holds
+ * {@code disk-entries} vectors per model in a memory-mapped file under
+ * {@code disk-directory}; leave the directory empty to cache in memory only.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.rag.embedding-cache")
+public class EmbeddingCacheProperties {
+
+    private boolean enabled = true;
+    private int maxEntries = 10_000;
+    private String diskDirectory = "data/rag/embedding-cache";
+    private long diskEntries = 100_000;
+}
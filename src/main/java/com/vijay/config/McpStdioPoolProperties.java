@@ -0,0 +1,38 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * STDIO MCP servers run as a pool of identical processes.
+ * <pre>
+ * chat.mcp.stdio-pool.connections.coding-assistant.command=python
+ * chat.mcp.stdio-pool.connections.coding-assistant.args[0]=coding_assistant_mcp.py
+ * chat.mcp.stdio-pool.connections.coding-assistant.size=4
+ * </pre>
+ * A pooled connection replaces the same entry under
+ * {@code spring.ai.mcp.client.stdio.connections}; do not configure it in both places.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.mcp.stdio-pool")
+public class McpStdioPoolProperties {
+
+    private Duration requestTimeout = Duration.ofSeconds(20);
+    private Map<String, Connection> connections = new LinkedHashMap<>();
+
+    @Data
+    public static class Connection {
+        private String command;
+        private List<String> args = new ArrayList<>();
+        private Map<String, String> env = new LinkedHashMap<>();
+        private int size = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+}
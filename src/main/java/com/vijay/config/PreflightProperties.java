@@ -0,0 +1,28 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Request preparation before the model call.
+ * <pre>
+ * chat.preflight.timeout=3s
+ * chat.preflight.parallelism=8
+ * </pre>
+ * {@code timeout} is the deadline, from the start of a request, for retrieval
+ * running alongside tool routing and prompt rendering; past it the request
+ * goes ahead without RAG context. {@code parallelism} bounds the retrievals in
+ * flight across requests. With reranking enabled, keep {@code timeout} above
+ * {@code chat.rag.rerank.timeout-ms} plus the time to embed the message.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.preflight")
+public class PreflightProperties {
+
+    private Duration timeout = Duration.ofSeconds(3);
+    private int parallelism = 8;
+}
@@ -0,0 +1,150 @@
+package com.vijay.config;
+
+import com.vijay.rag.VectorEncoding;
+import com.vijay.rag.VectorMath;
+import com.vijay.rag.VectorMetric;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retrieval-augmented generation settings.
+ * <pre>
+ * chat.rag.top-k=4
+ * chat.rag.vector-kernels=AUTO
+ * chat.rag.hnsw.metric=COSINE
+ * chat.rag.hnsw.m=16
+ * chat.rag.hnsw.ef-construction=200
+ * chat.rag.hnsw.ef-search=64
+ * chat.rag.store.directory=data/rag/segments
+ * chat.rag.store.flush-threshold=50000
+ * chat.rag.store.max-segments=8
+ * chat.rag.store.encoding=INT8
+ * chat.rag.store.rerank-factor=4
+ * chat.rag.hybrid.enabled=true
+ * chat.rag.hybrid.candidates=20
+ * chat.rag.context.max-tokens=1500
+ * chat.rag.context.model-max-tokens[llama-3.1-8b-instant]=1000
+ * chat.rag.rerank.enabled=true
+ * chat.rag.rerank.provider=openai
+ * chat.rag.ingest.allowed-roots=data/rag/documents
+ * chat.rag.ingest.chunk-tokens=400
+ * chat.rag.ingest.batch-size=64
+ * chat.rag.ingest.parallelism=4
+ * </pre>
+ * {@code embedding-model} names the EmbeddingModel bean to use when more than one is configured.
+ * {@code embedding-model-version} is part of the embedding cache key; change it
+ * when the model behind the bean changes, so cached vectors are not reused.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.rag")
+public class RagProperties {
+
+    private boolean enabled = true;
+    private String embeddingModel = "";
+    private String embeddingModelVersion = "";
+    private int topK = 4;
+    private double similarityThreshold = 0.0;
+    private VectorMath.Kernels vectorKernels = VectorMath.Kernels.AUTO;
+    private Hnsw hnsw = new Hnsw();
+    private Store store = new Store();
+    private Hybrid hybrid = new Hybrid();
+    private Context context = new Context();
+    private Rerank rerank = new Rerank();
+    private Ingest ingest = new Ingest();
+
+    @Data
+    public static class Hnsw {
+        private VectorMetric metric = VectorMetric.COSINE;
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+    }
+
+    /**
+     * Segment files; an empty directory keeps the index in memory only.
+     * {@code encoding} applies to segments as they are flushed or merged:
+     * FLOAT32, INT8 (4x smaller) or PQ ({@code pq-subvectors} bytes per vector,
+     * by default one per 8 dimensions, 32x smaller). Segments keep bitmap
+     * indexes of the {@code filter-fields} metadata for filtered searches.
+     */
+    @Data
+    public static class Store {
+        private String directory = "data/rag/segments";
+        private int flushThreshold = 50_000;
+        private long flushIntervalMs = 300_000;
+        private int maxSegments = 8;
+        private VectorEncoding encoding = VectorEncoding.FLOAT32;
+        private int pqSubvectors = 0;
+        private int rerankFactor = 4;
+        private List<String> filterFields = new ArrayList<>(List.of("tenant", "project", "extension"));
+    }
+
+    /**
+     * BM25 alongside vector search, fused by reciprocal rank with constant {@code rrf-k}.
+     */
+    @Data
+    public static class Hybrid {
+        private boolean enabled = true;
+        private int candidates = 20;
+        private int rrfK = 60;
+    }
+
+    /**
+     * How retrieved chunks become prompt context: {@code candidates} chunks are retrieved,
+     * near-duplicates dropped, and up to {@code top-k} picked by maximal marginal relevance
+     * within a token budget. {@code model-max-tokens} overrides {@code max-tokens} per model;
+     * use bracket keys for model names containing dots.
+     */
+    @Data
+    public static class Context {
+        private int maxTokens = 1500;
+        private Map<String, Integer> modelMaxTokens = new LinkedHashMap<>();
+        private int candidates = 12;
+        private double mmrLambda = 0.7;
+        private double duplicateSimilarity = 0.95;
+
+        public int tokenBudget(String model) {
+            return model == null ? maxTokens : modelMaxTokens.getOrDefault(model, maxTokens);
+        }
+    }
+
+    /**
+     * Optional second stage that re-scores the first {@code candidates} hits with a chat
+     * model of {@code provider} as relevance judge ({@code model} empty for its default),
+     * {@code batch-size} passages per prompt and up to {@code parallelism} prompts at once.
+     * When scoring takes longer than {@code timeout-ms} the first-stage order is kept.
+     */
+    @Data
+    public static class Rerank {
+        private boolean enabled = false;
+        private String provider = "openai";
+        private String model = "";
+        private int candidates = 20;
+        private int batchSize = 5;
+        private int parallelism = 4;
+        private long timeoutMs = 2000;
+    }
+
+    @Data
+    public static class Ingest {
+        private String stateDirectory = "data/rag";
+        private int chunkTokens = 400;
+        private int overlapTokens = 50;
+        private int batchSize = 64;
+        private int parallelism = 4;
+        private int maxAttempts = 3;
+        // Directories that may be ingested from the server's file system, with everything below them
+        private List<String> allowedRoots = new ArrayList<>();
+        // Configuration formats (properties, yaml, env, shell scripts) are left out as they tend to hold secrets
+        private List<String> extensions = new ArrayList<>(List.of(
+                "txt", "md", "markdown", "rst", "adoc", "html", "csv", "json", "xml",
+                "java", "kt", "py", "js", "ts", "go", "rs", "c", "cpp", "h", "cs", "sql"));
+    }
+}
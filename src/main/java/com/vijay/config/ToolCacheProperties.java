@@ -0,0 +1,31 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result caching for idempotent MCP tools.
+ * <p>
+ * A tool is cached when it is listed in {@code tools}, or when
+ * {@code use-read-only-hints} is on and its server annotates it with
+ * {@code readOnlyHint=true}. Tools listed in {@code never}, or annotated as
+ * destructive, are never cached. Annotations are only known once the MCP SDK
+ * reports them (0.10 does not), until then list cacheable tools in {@code tools}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.tools.cache")
+public class ToolCacheProperties {
+
+    private boolean enabled = true;
+    private List<String> tools = new ArrayList<>();
+    private List<String> never = new ArrayList<>(List.of("createNote"));
+    private boolean useReadOnlyHints = true;
+    private Duration ttl = Duration.ofMinutes(5);
+    private int maxEntries = 1000;
+}
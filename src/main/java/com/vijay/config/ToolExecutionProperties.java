@@ -0,0 +1,45 @@
+package com.vijay.config;
+
+import com.vijay.tool.ToolNames;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Limits for executing MCP tool calls.
+ * <pre>
+ * chat.tools.execution.parallelism=8
+ * chat.tools.execution.max-in-flight=64
+ * chat.tools.execution.default-timeout=10s
+ * chat.tools.execution.timeouts[listFaqs]=2s
+ * </pre>
+ * Tool names are case sensitive, so per-tool timeouts use bracket notation.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.tools.execution")
+public class ToolExecutionProperties {
+
+    private int parallelism = 8;
+    private int queueCapacity = 64;
+    private int maxInFlight = 64;
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+    private Map<String, Duration> timeouts = new LinkedHashMap<>();
+
+    public Duration timeoutFor(String toolName) {
+        Duration timeout = timeouts.get(toolName);
+        if (timeout != null) {
+            return timeout;
+        }
+        for (Map.Entry<String, Duration> entry : timeouts.entrySet()) {
+            if (ToolNames.matches(toolName, entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultTimeout;
+    }
+}
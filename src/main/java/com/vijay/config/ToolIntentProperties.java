@@ -0,0 +1,45 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trigger phrases that map a user message directly to an MCP tool.
+ * <pre>
+ * chat.tools.intents.create-note.tool=createNote
+ * chat.tools.intents.create-note.triggers=create note,take a note
+ * chat.tools.intents.create-note.arguments.title=title
+ * chat.tools.intents.create-note.arguments.body=remainder
+ * </pre>
+ * Argument values are sources: {@code message} (the whole user message),
+ * {@code remainder} (the text after the trigger phrase), {@code title} (the
+ * first words of the remainder); anything else is used as a literal.
+ * <p>
+ * A trigger only counts at the start of the message, optionally after
+ * {@code lead-ins} such as "please" or "can you", so questions that merely
+ * mention a trigger ("how do I take a note in Obsidian?") go to the model.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.tools")
+public class ToolIntentProperties {
+
+    private Map<String, Intent> intents = new LinkedHashMap<>();
+    private List<String> leadIns = new ArrayList<>(List.of(
+            "please", "kindly", "can you", "could you", "would you", "will you",
+            "i want to", "i'd like to", "i would like to", "let's"));
+
+    @Data
+    public static class Intent {
+        private String tool;
+        private List<String> triggers = new ArrayList<>();
+        private Map<String, String> arguments = new LinkedHashMap<>();
+        private String responsePrefix = "";
+    }
+}
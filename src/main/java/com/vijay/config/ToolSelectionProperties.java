@@ -0,0 +1,27 @@
+package com.vijay.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Which MCP tools are attached to a chat request.
+ * <pre>
+ * chat.tools.selection.enabled=true
+ * chat.tools.selection.top-k=5
+ * chat.tools.selection.always-on=listFaqs
+ * </pre>
+ * With selection disabled every tool is attached to every request.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "chat.tools.selection")
+public class ToolSelectionProperties {
+
+    private boolean enabled = true;
+    private int topK = 5;
+    private List<String> alwaysOn = new ArrayList<>();
+}
@@ -0,0 +1,40 @@
+package com.vijay.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timeout and executor for async MVC handlers such as {@code POST /api/chat/message}.
+ * <p>
+ * The executor is kept out of the context, so it does not replace the
+ * executor Boot configures for {@code @Async} and scheduling.
+ */
+@Configuration
+public class WebMvcAsyncConfig implements WebMvcConfigurer {
+
+    private final ChatAsyncProperties properties;
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public WebMvcAsyncConfig(ChatAsyncProperties properties) {
+        this.properties = properties;
+        executor.setCorePoolSize(Math.max(1, properties.getCorePoolSize()));
+        executor.setMaxPoolSize(Math.max(executor.getCorePoolSize(), properties.getMaxPoolSize()));
+        executor.setQueueCapacity(Math.max(0, properties.getQueueCapacity()));
+        executor.setThreadNamePrefix("chat-request-");
+        executor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(properties.getRequestTimeout().toMillis());
+        configurer.setTaskExecutor(executor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
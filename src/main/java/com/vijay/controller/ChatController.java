@@ -2,16 +2,22 @@ package com.vijay.controller;
 
 import com.vijay.dto.ChatRequest;
 import com.vijay.dto.ChatResponse;
+import com.vijay.dto.ConversationSearchHit;
 import com.vijay.dto.ProviderInfo;
+import com.vijay.rag.MetadataFilter;
 import com.vijay.service.ChatService;
+import com.vijay.service.ConversationSearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Slf4j
 @RestController
@@ -21,47 +27,64 @@ import java.util.Map;
 public class ChatController {
     
     private final ChatService chatService;
+    private final ConversationSearchService conversationSearchService;
     
     @PostMapping(value = "/message", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<ChatResponse> sendMessage(@RequestBody ChatRequest request) {
+    public Callable<ResponseEntity<ChatResponse>> sendMessage(@RequestBody ChatRequest request) {
         log.info("Received chat request: provider={}, model={}, message={}", 
                 request.getProvider(), request.getModel(), request.getMessage());
         
-        try {
-            // Validate required fields
-            if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
-                log.warn("Empty message received");
-                return ResponseEntity.badRequest().body(ChatResponse.builder()
-                        .response("Message cannot be empty")
-                        .provider(request.getProvider())
-                        .conversationId(request.getConversationId())
-                        .error("Empty message")
-                        .build());
-            }
+        // Handled on the MVC async executor, which frees the servlet thread. When the request times out or the
+        // container reports the connection as failed, Spring interrupts this task, which cancels its tool calls
+        return () -> {
+            try {
+                // Validate required fields
+                if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
+                    log.warn("Empty message received");
+                    return ResponseEntity.badRequest().body(ChatResponse.builder()
+                            .response("Message cannot be empty")
+                            .provider(request.getProvider())
+                            .conversationId(request.getConversationId())
+                            .error("Empty message")
+                            .build());
+                }
             
-            if (request.getProvider() == null || request.getProvider().trim().isEmpty()) {
-                log.warn("No provider specified");
-                return ResponseEntity.badRequest().body(ChatResponse.builder()
-                        .response("Provider must be specified")
+                if (request.getProvider() == null || request.getProvider().trim().isEmpty()) {
+                    log.warn("No provider specified");
+                    return ResponseEntity.badRequest().body(ChatResponse.builder()
+                            .response("Provider must be specified")
+                            .provider(request.getProvider())
+                            .conversationId(request.getConversationId())
+                            .error("No provider specified")
+                            .build());
+                }
+
+                try {
+                    MetadataFilter.of(request.getRagFilter());
+                } catch (IllegalArgumentException e) {
+                    log.warn("Invalid RAG filter: {}", e.getMessage());
+                    return ResponseEntity.badRequest().body(ChatResponse.builder()
+                            .response("Invalid RAG filter")
+                            .provider(request.getProvider())
+                            .conversationId(request.getConversationId())
+                            .error(e.getMessage())
+                            .build());
+                }
+            
+                ChatResponse response = chatService.generateResponse(request);
+                log.info("Generated response successfully for provider: {}", request.getProvider());
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                log.error("Error processing chat request", e);
+                ChatResponse errorResponse = ChatResponse.builder()
+                        .response("An error occurred while processing your request.")
                         .provider(request.getProvider())
                         .conversationId(request.getConversationId())
-                        .error("No provider specified")
-                        .build());
+                        .error(e.getMessage())
+                        .build();
+                return ResponseEntity.internalServerError().body(errorResponse);
             }
-            
-            ChatResponse response = chatService.generateResponse(request);
-            log.info("Generated response successfully for provider: {}", request.getProvider());
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error processing chat request", e);
-            ChatResponse errorResponse = ChatResponse.builder()
-                    .response("An error occurred while processing your request.")
-                    .provider(request.getProvider())
-                    .conversationId(request.getConversationId())
-                    .error(e.getMessage())
-                    .build();
-            return ResponseEntity.internalServerError().body(errorResponse);
-        }
+        };
     }
     
     @GetMapping("/providers")
@@ -78,6 +101,22 @@ public class ChatController {
         return ResponseEntity.ok(models);
     }
     
+    @GetMapping("/conversations/search")
+    public ResponseEntity<List<ConversationSearchHit>> searchConversations(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String provider,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "10") int limit) {
+        log.info("Searching conversations: q={}, provider={}, model={}, from={}, to={}", query, provider, model, from, to);
+        if (query == null || query.isBlank() || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ConversationSearchHit> hits = conversationSearchService.search(query, provider, model, from, to, Math.min(limit, 100));
+        return ResponseEntity.ok(hits);
+    }
+    
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         return ResponseEntity.ok("Chat service is running");
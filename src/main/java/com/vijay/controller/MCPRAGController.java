@@ -1,14 +1,26 @@
 package com.vijay.controller;
 
+import com.vijay.rag.IngestionJob;
+import com.vijay.rag.MetadataFilter;
+import com.vijay.service.DocumentIngestionService;
 import com.vijay.service.MCPService;
 import com.vijay.service.RAGService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -19,6 +31,7 @@ public class MCPRAGController {
 
     private final MCPService mcpService;
     private final RAGService ragService;
+    private final DocumentIngestionService documentIngestionService;
 
     @GetMapping("/mcp/status")
     public Map<String, Object> getMCPStatus() {
@@ -53,8 +66,10 @@ public class MCPRAGController {
         try {
             boolean ragAvailable = ragService.isRAGAvailable();
             status.put("available", ragAvailable);
-            status.put("vectorStore", "PostgreSQL with pgvector");
-            status.put("embeddingModel", "text-embedding-3-small");
+            status.put("vectorStore", ragService.isPersistent() ? "Memory-mapped HNSW segments" : "In-process HNSW index");
+            status.put("documents", ragService.getDocumentCount());
+            status.put("store", ragService.getStoreStats());
+            status.put("embeddingCache", ragService.getEmbeddingCacheStats());
             
         } catch (Exception e) {
             log.error("Error checking RAG status: {}", e.getMessage());
@@ -65,6 +80,81 @@ public class MCPRAGController {
         return status;
     }
 
+    /**
+     * Ingest uploaded files; each {@code metadata} entry is a {@code key:value} pair added to every chunk.
+     * Files are stored as documents {@code upload:<collection>/<file name>}; re-uploading a file to the same
+     * collection replaces it. Without a collection the files are new documents under the job id.
+     */
+    @PostMapping("/rag/ingest")
+    public ResponseEntity<Map<String, Object>> ingestUploads(@RequestParam("files") List<MultipartFile> files,
+                                                             @RequestParam(required = false) String collection,
+                                                             @RequestParam(required = false) List<String> metadata) throws IOException {
+        try {
+            return ResponseEntity.ok(documentIngestionService.ingestUploads(files, collection, parseMetadata(metadata)).toMap());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected upload ingestion: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ingest a server directory; it must be below one of {@code chat.rag.ingest.allowed-roots}.
+     */
+    @PostMapping("/rag/ingest/directory")
+    public ResponseEntity<Map<String, Object>> ingestDirectory(@RequestParam String path,
+                                                               @RequestParam(required = false) List<String> metadata) {
+        try {
+            return ResponseEntity.ok(documentIngestionService.ingestDirectory(Path.of(path), parseMetadata(metadata)).toMap());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected directory ingestion of {}: {}", path, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/rag/ingest")
+    public List<Map<String, Object>> getIngestionJobs() {
+        return documentIngestionService.getJobs().stream().map(IngestionJob::toMap).toList();
+    }
+
+    @GetMapping("/rag/ingest/{jobId}")
+    public ResponseEntity<Map<String, Object>> getIngestionJob(@PathVariable String jobId) {
+        return documentIngestionService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/rag/ingest/{jobId}")
+    public ResponseEntity<Void> cancelIngestionJob(@PathVariable String jobId) {
+        return documentIngestionService.cancel(jobId) ? ResponseEntity.accepted().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Remove a document from the index by id: the absolute path of an ingested file, or the name of an uploaded one.
+     */
+    @DeleteMapping("/rag/documents")
+    public ResponseEntity<Void> deleteDocument(@RequestParam String id) {
+        return ragService.deleteDocument(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Retrieve chunks for a query; each {@code filter} is a {@code field:value} term, and terms on the same field
+     * are alternatives.
+     */
+    @GetMapping("/rag/search")
+    public List<Map<String, Object>> search(@RequestParam String query,
+                                            @RequestParam(defaultValue = "5") int topK,
+                                            @RequestParam(required = false) List<String> filter) {
+        return ragService.searchRelevantDocuments(query, topK, MetadataFilter.parse(filter)).stream()
+                .map(document -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("text", document.getText());
+                    result.put("score", document.getScore());
+                    result.put("metadata", document.getMetadata());
+                    return result;
+                })
+                .toList();
+    }
+
     @GetMapping("/mcp-rag/status")
     public Map<String, Object> getMCPRAGStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -84,4 +174,18 @@ public class MCPRAGController {
         
         return status;
     }
+
+    private static Map<String, String> parseMetadata(List<String> entries) {
+        Map<String, String> metadata = new HashMap<>();
+        if (entries != null) {
+            for (String entry : entries) {
+                int colon = entry.indexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Expected key:value, got " + entry);
+                }
+                metadata.put(entry.substring(0, colon).strip(), entry.substring(colon + 1).strip());
+            }
+        }
+        return metadata;
+    }
 }
@@ -1,10 +1,19 @@
 package com.vijay.controller;
 
+import com.vijay.service.McpStdioProcessPool;
+import com.vijay.service.McpToolCatalog;
+import com.vijay.service.ToolResultCache;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolCatalogSnapshot;
+import com.vijay.tool.ToolDescriptor;
+import io.modelcontextprotocol.client.McpAsyncClient;
 import io.modelcontextprotocol.client.McpSyncClient;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,11 +28,23 @@ import java.util.Map;
 public class MCPToolsController {
 
     @Autowired
-    private SyncMcpToolCallbackProvider mcpToolCallbackProvider;
+    private McpToolCatalog toolCatalog;
+
+    @Autowired
+    private ToolResultCache toolResultCache;
+
+    @Autowired
+    private McpStdioProcessPool stdioProcessPool;
+
+    @Autowired
+    private ToolTelemetry toolTelemetry;
 
     @Autowired(required = false)
     private List<McpSyncClient> mcpSyncClients;
 
+    @Autowired(required = false)
+    private List<McpAsyncClient> mcpAsyncClients;
+
     @GetMapping("/tools")
     public Map<String, Object> getAvailableTools() {
         log.info("Getting available MCP tools");
@@ -32,47 +53,23 @@ public class MCPToolsController {
         List<Map<String, Object>> tools = new ArrayList<>();
         
         try {
-            // Get tools from MCP clients directly
-            if (mcpSyncClients == null || mcpSyncClients.isEmpty()) {
-                log.info("No MCP clients available");
-            } else {
-                for (McpSyncClient client : mcpSyncClients) {
-                    try {
-                        // Get tools from the MCP client
-                        var mcpTools = client.listTools();
-                        if (mcpTools != null && mcpTools.tools() != null) {
-                            for (var tool : mcpTools.tools()) {
-                                Map<String, Object> toolInfo = new HashMap<>();
-                                toolInfo.put("name", tool.name());
-                                toolInfo.put("description", tool.description());
-                                toolInfo.put("inputSchema", tool.inputSchema());
-                                toolInfo.put("clientId", client.toString());
-                                tools.add(toolInfo);
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("Error getting tools from MCP client {}: {}", client, e.getMessage());
-                    }
-                }
-            }
-            
-            // If no tools found from MCP clients, show callback info
-            if (tools.isEmpty()) {
-                var toolCallbacks = mcpToolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    Map<String, Object> toolInfo = new HashMap<>();
-                    toolInfo.put("name", toolCallback.getClass().getSimpleName());
-                    toolInfo.put("description", "MCP Tool Callback");
-                    toolInfo.put("type", toolCallback.getClass().getName());
-                    toolInfo.put("status", "callback");
-                    tools.add(toolInfo);
-                }
+            // Served from the cached catalog snapshot - no MCP round trip per request
+            ToolCatalogSnapshot snapshot = toolCatalog.snapshot();
+            for (ToolDescriptor tool : snapshot.getTools()) {
+                Map<String, Object> toolInfo = new HashMap<>();
+                toolInfo.put("name", tool.name());
+                toolInfo.put("description", tool.description());
+                toolInfo.put("inputSchema", tool.inputSchema());
+                toolInfo.put("clientId", tool.clientName());
+                tools.add(toolInfo);
             }
             
             response.put("status", "success");
             response.put("totalTools", tools.size());
             response.put("tools", tools);
-            response.put("mcpClients", mcpSyncClients != null ? mcpSyncClients.size() : 0);
+            response.put("mcpClients", mcpClientCount());
+            response.put("catalogVersion", snapshot.getVersion());
+            response.put("refreshedAt", snapshot.getRefreshedAt().toString());
             
             log.info("Found {} MCP tools", tools.size());
             
@@ -86,6 +83,44 @@ public class MCPToolsController {
         return response;
     }
 
+    @PostMapping("/tools/refresh")
+    public Map<String, Object> refreshTools() {
+        log.info("Refreshing MCP tool catalog");
+        toolCatalog.refresh();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("totalTools", toolCatalog.snapshot().size());
+        response.put("catalogVersion", toolCatalog.snapshot().getVersion());
+        return response;
+    }
+
+    @GetMapping("/tools/stats")
+    public Map<String, Object> getToolStats() {
+        return toolTelemetry.getStats();
+    }
+
+    @GetMapping("/tools/cache")
+    public Map<String, Object> getToolCacheStats() {
+        return toolResultCache.getStats();
+    }
+
+    @DeleteMapping("/tools/cache")
+    public Map<String, Object> clearToolCache() {
+        toolResultCache.invalidateAll();
+        return toolResultCache.getStats();
+    }
+
+    @DeleteMapping("/tools/cache/{toolName}")
+    public Map<String, Object> clearToolCache(@PathVariable String toolName) {
+        toolResultCache.invalidate(toolName);
+        return toolResultCache.getStats();
+    }
+
+    @GetMapping("/stdio-pool")
+    public Map<String, Object> getStdioPoolStats() {
+        return stdioProcessPool.getStats();
+    }
+
     @GetMapping("/tools-status")
     public Map<String, Object> getMCPStatus() {
         log.info("Getting MCP status");
@@ -94,8 +129,8 @@ public class MCPToolsController {
         
         try {
             response.put("status", "connected");
-            response.put("mcpClients", mcpSyncClients != null ? mcpSyncClients.size() : 0);
-            response.put("toolCallbackProvider", mcpToolCallbackProvider != null ? "available" : "not available");
+            response.put("mcpClients", mcpClientCount());
+            response.put("toolCallbackProvider", toolCatalog != null ? "available" : "not available");
             
             // Get basic info about MCP clients
             List<Map<String, Object>> clientInfo = new ArrayList<>();
@@ -107,6 +142,14 @@ public class MCPToolsController {
                     clientInfo.add(info);
                 }
             }
+            if (mcpAsyncClients != null && !mcpAsyncClients.isEmpty()) {
+                for (McpAsyncClient client : mcpAsyncClients) {
+                    Map<String, Object> info = new HashMap<>();
+                    info.put("connected", true);
+                    info.put("clientClass", client.getClass().getSimpleName());
+                    clientInfo.add(info);
+                }
+            }
             response.put("clients", clientInfo);
             
         } catch (Exception e) {
@@ -117,4 +160,9 @@ public class MCPToolsController {
         
         return response;
     }
-}
\ No newline at end of file
+
+    private int mcpClientCount() {
+        return (mcpSyncClients != null ? mcpSyncClients.size() : 0)
+                + (mcpAsyncClients != null ? mcpAsyncClients.size() : 0);
+    }
+}
@@ -2,6 +2,9 @@ package com.vijay.dto;
 
 import lombok.Data;
 
+import java.util.List;
+import java.util.Map;
+
 @Data
 public class ChatRequest {
     private String message;
@@ -11,6 +14,9 @@ public class ChatRequest {
     private Double temperature = 0.7;
     private Integer maxTokens = 1000;
     private String conversationId;
+
+    // Restrict RAG retrieval to chunks whose metadata field has one of the listed values
+    private Map<String, List<String>> ragFilter;
     
     // API Keys for dynamic provider configuration
     private String openaiApiKey;
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ConversationMessage {
     private String id;
+    private String conversationId;
     private String role; // "user" or "assistant"
     private String content;
     private String provider;
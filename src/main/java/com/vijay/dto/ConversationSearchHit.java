@@ -0,0 +1,23 @@
+package com.vijay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSearchHit {
+    private String messageId;
+    private String conversationId;
+    private String role;
+    private String content;
+    private String provider;
+    private String model;
+    private LocalDateTime timestamp;
+    private Float score;
+}
@@ -0,0 +1,20 @@
+package com.vijay.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when an MCP server reports that its tool list has changed.
+ */
+public class McpToolsChangedEvent extends ApplicationEvent {
+
+    private final String clientName;
+
+    public McpToolsChangedEvent(Object source, String clientName) {
+        super(source);
+        this.clientName = clientName;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+}
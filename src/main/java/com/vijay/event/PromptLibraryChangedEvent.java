@@ -0,0 +1,20 @@
+package com.vijay.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after the external prompt library has been reloaded.
+ */
+public class PromptLibraryChangedEvent extends ApplicationEvent {
+
+    private final int promptCount;
+
+    public PromptLibraryChangedEvent(Object source, int promptCount) {
+        super(source);
+        this.promptCount = promptCount;
+    }
+
+    public int getPromptCount() {
+        return promptCount;
+    }
+}
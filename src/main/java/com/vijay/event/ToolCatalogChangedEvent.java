@@ -0,0 +1,21 @@
+package com.vijay.event;
+
+import com.vijay.tool.ToolCatalogSnapshot;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by the MCP tool catalog after a refresh that changed the tool set.
+ */
+public class ToolCatalogChangedEvent extends ApplicationEvent {
+
+    private final ToolCatalogSnapshot snapshot;
+
+    public ToolCatalogChangedEvent(Object source, ToolCatalogSnapshot snapshot) {
+        super(source);
+        this.snapshot = snapshot;
+    }
+
+    public ToolCatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
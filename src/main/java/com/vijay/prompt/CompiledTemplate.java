@@ -0,0 +1,126 @@
+package com.vijay.prompt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STErrorListener;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.compiler.STException;
+import org.stringtemplate.v4.misc.STMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A StringTemplate prompt that is parsed once and rendered many times.
+ * <p>
+ * Templates use {@code {variable}} delimiters, the same syntax as Spring AI's
+ * PromptTemplate. The attribute set is declared up front so rendering never
+ * mutates the shared compiled template and references to unknown variables
+ * fail at compile time instead of silently rendering as empty.
+ */
+@Slf4j
+public final class CompiledTemplate {
+
+    /**
+     * Variables every prompt template may reference.
+     */
+    public static final List<String> VARIABLES = List.of("provider", "model", "toolCount", "tools");
+
+    private final String name;
+    private final STGroup group;
+
+    private CompiledTemplate(String name, STGroup group) {
+        this.name = name;
+        this.group = group;
+    }
+
+    /**
+     * Parse and validate the template source.
+     *
+     * @throws IllegalArgumentException if the template does not compile
+     */
+    public static CompiledTemplate compile(String name, String source) {
+        CollectingErrorListener errors = new CollectingErrorListener();
+        STGroup group = new STGroup('{', '}');
+        group.setListener(errors);
+        try {
+            group.defineTemplate(name, String.join(",", VARIABLES), source);
+        } catch (STException e) {
+            // Syntax errors are reported to the listener and then thrown
+            throw new IllegalArgumentException("Invalid prompt template '" + name + "': " + errors.messages, e);
+        }
+        if (!errors.messages.isEmpty()) {
+            throw new IllegalArgumentException("Invalid prompt template '" + name + "': " + errors.messages);
+        }
+        CompiledTemplate template = new CompiledTemplate(name, group);
+        // Render once with empty attributes so undefined references surface now
+        template.render(Map.of());
+        if (!errors.messages.isEmpty()) {
+            throw new IllegalArgumentException("Invalid prompt template '" + name + "': " + errors.messages);
+        }
+        group.setListener(new LoggingErrorListener());
+        return template;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String render(Map<String, ?> variables) {
+        ST st = group.getInstanceOf(name);
+        for (Map.Entry<String, ?> entry : variables.entrySet()) {
+            if (VARIABLES.contains(entry.getKey())) {
+                st.add(entry.getKey(), entry.getValue());
+            }
+        }
+        return st.render();
+    }
+
+    private static final class LoggingErrorListener implements STErrorListener {
+
+        @Override
+        public void compileTimeError(STMessage msg) {
+            log.warn("Prompt template error: {}", msg);
+        }
+
+        @Override
+        public void runTimeError(STMessage msg) {
+            log.warn("Prompt template error: {}", msg);
+        }
+
+        @Override
+        public void IOError(STMessage msg) {
+            log.warn("Prompt template error: {}", msg);
+        }
+
+        @Override
+        public void internalError(STMessage msg) {
+            log.warn("Prompt template error: {}", msg);
+        }
+    }
+
+    private static final class CollectingErrorListener implements STErrorListener {
+        private final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void compileTimeError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+
+        @Override
+        public void runTimeError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+
+        @Override
+        public void IOError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+
+        @Override
+        public void internalError(STMessage msg) {
+            messages.add(msg.toString());
+        }
+    }
+}
@@ -12,4 +12,22 @@ public interface AIProvider {
     ChatResponse generateResponse(ChatRequest request);
     List<String> getAvailableModels();
     boolean isAvailable();
+
+    /**
+     * Answer one self-contained prompt without conversation memory, retrieval or tools, for internal
+     * judgements such as reranking retrieved chunks.
+     *
+     * @param model model to use, or null for the provider's default
+     * @throws UnsupportedOperationException if the provider has no model of its own to answer with
+     */
+    default String complete(String prompt, String model) {
+        throw new UnsupportedOperationException(getProviderName() + " does not support standalone completions");
+    }
+
+    /**
+     * Whether {@link #complete(String, String)} is implemented.
+     */
+    default boolean supportsCompletion() {
+        return false;
+    }
 }
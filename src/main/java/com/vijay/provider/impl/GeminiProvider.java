@@ -4,19 +4,21 @@ import com.vijay.dto.ChatRequest;
 import com.vijay.dto.ChatResponse;
 import com.vijay.dto.ProviderInfo;
 import com.vijay.provider.AIProvider;
+import com.vijay.service.ChatPreflight;
 import com.vijay.service.DynamicApiKeyService;
-import com.vijay.service.RAGService;
+import com.vijay.service.PromptTemplateService;
+import com.vijay.service.ToolRouter;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolSelection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -24,20 +26,17 @@ public class GeminiProvider implements AIProvider {
 
     private final String defaultApiKey;
     private final DynamicApiKeyService dynamicApiKeyService;
-    private final RAGService ragService;
     private final ChatClient chatClient;
-    private final ToolCallbackProvider toolCallbackProvider;
+    private final ChatPreflight preflight;
 
     public GeminiProvider(@Value("${gemini.api-key:}") String apiKey,
                           DynamicApiKeyService dynamicApiKeyService,
-                          RAGService ragService,
                           @Qualifier("geminiChatClient") ChatClient chatClient,
-                          ToolCallbackProvider toolCallbackProvider) {
+                          ChatPreflight preflight) {
         this.defaultApiKey = apiKey != null ? apiKey : "";
         this.dynamicApiKeyService = dynamicApiKeyService;
-        this.ragService = ragService;
         this.chatClient = chatClient;
-        this.toolCallbackProvider = toolCallbackProvider;
+        this.preflight = preflight;
         
         System.out.println("🔧 Gemini Provider Initialization:");
         System.out.println("   Default API Key: " + (this.defaultApiKey != null && !this.defaultApiKey.isEmpty() ? this.defaultApiKey.substring(0, Math.min(8, this.defaultApiKey.length())) + "..." : "NULL"));
@@ -62,8 +61,25 @@ public class GeminiProvider implements AIProvider {
     public ChatResponse generateResponse(ChatRequest request) {
         long startTime = System.currentTimeMillis();
         try {
-            // Generate RAG context
-            String ragContext = ragService.generateRAGContext(request.getMessage());
+            // Tool fast path, RAG retrieval and system prompt rendering run concurrently
+            ChatPreflight.Prepared prepared = preflight.prepare(request, getProviderName(), request.getModel(), ChatPreflight.Plan.FULL);
+            
+            // Deterministic tool requests are answered by the tool alone, without a model round trip
+            Optional<ToolRouter.RoutedResponse> routed = prepared.routed();
+            if (routed.isPresent()) {
+                return ChatResponse.builder()
+                        .response(routed.get().content())
+                        .provider(getProviderName())
+                        .model(request.getModel() != null ? request.getModel() : "gemini-1.5-flash")
+                        .conversationId(request.getConversationId())
+                        .timestamp(LocalDateTime.now())
+                        .tokensUsed(0L)
+                        .responseTimeMs(System.currentTimeMillis() - startTime)
+                        .build();
+            }
+            
+            // RAG context retrieved during preflight
+            String ragContext = prepared.ragContext();
             
             // Build enhanced prompt with RAG context
             String enhancedPrompt = buildEnhancedPrompt(request.getMessage(), ragContext);
@@ -74,24 +90,20 @@ public class GeminiProvider implements AIProvider {
                 apiKey = defaultApiKey;
             }
             
-            // Load system message from resources
-            String systemMessage = loadSystemMessage();
-            
-            // Enhanced system message with MCP tool information
-            int mcpToolCount = getMCPToolCount();
-            String toolInfo = getMCPToolInfo();
-            String enhancedSystemMessage = systemMessage + "\n\nAvailable MCP Tools (" + mcpToolCount + "):\n" + toolInfo;
+            // Rendered system message listing the MCP tools selected for this message (cached)
+            ToolSelection tools = prepared.tools();
+            PromptTemplateService.SystemPrompt systemPrompt = prepared.systemPrompt();
+            int mcpToolCount = systemPrompt.toolCount();
             
             // Use ChatClient for memory management, then WebClient for API call
-            String response = chatClient.prompt()
-                    .system(enhancedSystemMessage)
+            String content = chatClient.prompt()
+                    .system(systemPrompt.text())
                     .user(enhancedPrompt)
+                    .toolCallbacks(tools.callbacks())
+                    .toolContext(ToolTelemetry.toolContext(request.getConversationId()))
                     .call()
                     .content();
             
-            // Check if AI is requesting MCP tool usage and execute if needed
-            String content = processAIToolRequests(response, request.getMessage());
-
             long responseTime = System.currentTimeMillis() - startTime;
             
             // Print API key information to console
@@ -102,7 +114,7 @@ public class GeminiProvider implements AIProvider {
             System.out.println("   Key Source: " + (dynamicApiKeyService.hasValidApiKey("gemini", request) ? "DYNAMIC (from frontend)" : "DEFAULT (from environment)"));
             System.out.println("   RAG Context: " + (ragContext.isEmpty() ? "None" : "Enhanced"));
             System.out.println("   MCP Tools: " + mcpToolCount + " available");
-            System.out.println("   MCP Server: Connected via ToolCallbackProvider");
+            System.out.println("   MCP Server: Connected via MCP tool catalog");
             System.out.println("   Response Time: " + responseTime + "ms");
             System.out.println("   Response: " + (content.length() > 100 ? content.substring(0, 100) + "..." : content));
             System.out.println("");
@@ -174,88 +186,4 @@ public class GeminiProvider implements AIProvider {
         return prompt.toString();
     }
     
-    private int getMCPToolCount() {
-        try {
-            // Get MCP tools from the ToolCallbackProvider
-            return toolCallbackProvider.getToolCallbacks().length;
-        } catch (Exception e) {
-            log.warn("Could not get MCP tool count: {}", e.getMessage());
-            return 0;
-        }
-    }
-    
-    private String loadSystemMessage() {
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("prompts/tool-only.st");
-            if (inputStream != null) {
-                String systemMessage = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-                log.info("Successfully loaded system message from tool-only.st: {} characters", systemMessage.length());
-                log.debug("System message content: {}", systemMessage);
-                return systemMessage;
-            } else {
-                log.warn("Could not find prompts/tool-only.st in resources");
-            }
-        } catch (Exception e) {
-            log.warn("Could not load system message: {}", e.getMessage());
-        }
-        String fallbackMessage = "You are an AI assistant with access to MCP tools.";
-        log.info("Using fallback system message: {}", fallbackMessage);
-        return fallbackMessage;
-    }
-    
-    private String getMCPToolInfo() {
-        try {
-            var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-            if (toolCallbacks.length == 0) {
-                return "No MCP tools available.";
-            }
-            
-            StringBuilder toolInfo = new StringBuilder();
-            for (var toolCallback : toolCallbacks) {
-                String toolName = toolCallback.getToolDefinition().name();
-                String toolDescription = toolCallback.getToolDefinition().description();
-                toolInfo.append("- ").append(toolName).append(": ").append(toolDescription).append("\n");
-            }
-            return toolInfo.toString();
-        } catch (Exception e) {
-            log.error("Error getting MCP tool info: {}", e.getMessage());
-            return "Error retrieving MCP tool information.";
-        }
-    }
-    
-    private String processAIToolRequests(String aiResponse, String userMessage) {
-        try {
-            // Check if user is asking for FAQs and we have the listFaqs tool
-            if (userMessage.toLowerCase().contains("faq") || userMessage.toLowerCase().contains("list sample faqs")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("listFaqs")) {
-                        log.info("Executing listFaqs tool for Gemini based on user request");
-                        var result = toolCallback.call("{}");
-                        return "Here are the sample FAQs:\n" + result;
-                    }
-                }
-            }
-            
-            // Check if user is asking to create a note and we have the createNote tool
-            if (userMessage.toLowerCase().contains("create note") || userMessage.toLowerCase().contains("note")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("createNote")) {
-                        log.info("Executing createNote tool for Gemini based on user request");
-                        var result = toolCallback.call("{\"title\":\"Sample Note\",\"body\":\"" + userMessage + "\"}");
-                        return "Note created:\n" + result;
-                    }
-                }
-            }
-            
-            return aiResponse;
-        } catch (Exception e) {
-            log.error("Error processing AI tool requests: {}", e.getMessage());
-            return aiResponse;
-        }
-    }
-    
 }
\ No newline at end of file
@@ -4,10 +4,13 @@ import com.vijay.dto.ChatRequest;
 import com.vijay.dto.ChatResponse;
 import com.vijay.dto.ProviderInfo;
 import com.vijay.provider.AIProvider;
-import com.vijay.service.SystemMessageService;
+import com.vijay.service.PromptTemplateService;
+import com.vijay.service.ToolRouter;
+import com.vijay.service.ToolSelector;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolSelection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -15,24 +18,28 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
 public class HuggingFaceProvider implements AIProvider {
 
     private final String apiKey;
-    private final SystemMessageService systemMessageService;
-    private final ToolCallbackProvider toolCallbackProvider;
+    private final PromptTemplateService promptTemplateService;
+    private final ToolRouter toolRouter;
     private final ChatClient chatClient;
+    private final ToolSelector toolSelector;
 
     public HuggingFaceProvider(@Value("${spring.ai.huggingface.chat.api-key:}") String apiKey,
-                               SystemMessageService systemMessageService,
-                               ToolCallbackProvider toolCallbackProvider,
-                               @Qualifier("huggingFaceChatClient") ChatClient chatClient) {
+                               PromptTemplateService promptTemplateService,
+                               ToolRouter toolRouter,
+                               @Qualifier("huggingFaceChatClient") ChatClient chatClient,
+                               ToolSelector toolSelector) {
         this.apiKey = apiKey != null ? apiKey : "";
-        this.systemMessageService = systemMessageService;
-        this.toolCallbackProvider = toolCallbackProvider;
+        this.promptTemplateService = promptTemplateService;
+        this.toolRouter = toolRouter;
         this.chatClient = chatClient;
+        this.toolSelector = toolSelector;
         
         System.out.println("🔧 HuggingFace Provider Initialization:");
         System.out.println("   API Key: " + (apiKey != null && !apiKey.isEmpty() ? apiKey.substring(0, Math.min(8, apiKey.length())) + "..." : "NOT SET"));
@@ -61,24 +68,33 @@ public class HuggingFaceProvider implements AIProvider {
             // Use a simple, reliable model for text generation
             final String originalModel = request.getModel() != null ? request.getModel() : "gpt2";
             
-            // Load system message
-            String systemMessage = systemMessageService.getSystemMessage();
+            // Deterministic tool requests are answered by the tool alone, without a model round trip
+            Optional<ToolRouter.RoutedResponse> routed = toolRouter.route(request.getMessage());
+            if (routed.isPresent()) {
+                return ChatResponse.builder()
+                        .response(routed.get().content())
+                        .provider(getProviderName())
+                        .model(originalModel)
+                        .conversationId(request.getConversationId())
+                        .timestamp(LocalDateTime.now())
+                        .tokensUsed(0L)
+                        .responseTimeMs(System.currentTimeMillis() - startTime)
+                        .build();
+            }
             
-            // Enhanced system message with MCP tool information
-            int mcpToolCount = getMCPToolCount();
-            String toolInfo = getMCPToolInfo();
-            String enhancedSystemMessage = systemMessage + "\n\nAvailable MCP Tools (" + mcpToolCount + "):\n" + toolInfo;
+            // Rendered system message listing the MCP tools selected for this message (cached)
+            ToolSelection tools = toolSelector.select(request.getMessage());
+            PromptTemplateService.SystemPrompt systemPrompt = promptTemplateService.getSystemPrompt(getProviderName(), originalModel, tools);
             
             // Use ChatClient for memory management and MCP tools
-            String response = chatClient.prompt()
-                    .system(enhancedSystemMessage)
+            String content = chatClient.prompt()
+                    .system(systemPrompt.text())
                     .user(request.getMessage())
+                    .toolCallbacks(tools.callbacks())
+                    .toolContext(ToolTelemetry.toolContext(request.getConversationId()))
                     .call()
                     .content();
             
-            // Check if AI is requesting MCP tool usage and execute if needed
-            String content = processAIToolRequests(response, request.getMessage());
-            
             long responseTime = System.currentTimeMillis() - startTime;
             
             return ChatResponse.builder()
@@ -134,68 +150,4 @@ public class HuggingFaceProvider implements AIProvider {
         return (long) (prompt.split("\\s+").length + response.split("\\s+").length);
     }
     
-    private int getMCPToolCount() {
-        try {
-            // Get MCP tools from the ToolCallbackProvider
-            return toolCallbackProvider.getToolCallbacks().length;
-        } catch (Exception e) {
-            log.warn("Could not get MCP tool count: {}", e.getMessage());
-            return 0;
-        }
-    }
-    
-    private String getMCPToolInfo() {
-        try {
-            var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-            if (toolCallbacks.length == 0) {
-                return "No MCP tools available.";
-            }
-            
-            StringBuilder toolInfo = new StringBuilder();
-            for (var toolCallback : toolCallbacks) {
-                String toolName = toolCallback.getToolDefinition().name();
-                String toolDescription = toolCallback.getToolDefinition().description();
-                toolInfo.append("- ").append(toolName).append(": ").append(toolDescription).append("\n");
-            }
-            return toolInfo.toString();
-        } catch (Exception e) {
-            log.error("Error getting MCP tool info: {}", e.getMessage());
-            return "Error retrieving MCP tool information.";
-        }
-    }
-    
-    private String processAIToolRequests(String aiResponse, String userMessage) {
-        try {
-            // Check if user is asking for FAQs and we have the listFaqs tool
-            if (userMessage.toLowerCase().contains("faq") || userMessage.toLowerCase().contains("list sample faqs")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("listFaqs")) {
-                        log.info("Executing listFaqs tool for HuggingFace based on user request");
-                        var result = toolCallback.call("{}");
-                        return "Here are the sample FAQs:\n" + result;
-                    }
-                }
-            }
-            
-            // Check if user is asking to create a note and we have the createNote tool
-            if (userMessage.toLowerCase().contains("create note") || userMessage.toLowerCase().contains("note")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("createNote")) {
-                        log.info("Executing createNote tool for HuggingFace based on user request");
-                        var result = toolCallback.call("{\"title\":\"Sample Note\",\"body\":\"" + userMessage + "\"}");
-                        return "Note created:\n" + result;
-                    }
-                }
-            }
-            
-            return aiResponse;
-        } catch (Exception e) {
-            log.error("Error processing AI tool requests: {}", e.getMessage());
-            return aiResponse;
-        }
-    }
 }
\ No newline at end of file
@@ -5,9 +5,14 @@ import com.vijay.dto.ChatResponse;
 import com.vijay.dto.ProviderInfo;
 import com.vijay.provider.AIProvider;
 import com.vijay.service.SystemMessageService;
+import com.vijay.service.ToolSelector;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolSelection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
@@ -20,12 +25,19 @@ import java.util.List;
 public class OllamaProvider implements AIProvider {
 
     private final ChatClient chatClient;
+    // Without the memory advisor, for standalone completions
+    private final ChatClient completionClient;
     private final SystemMessageService systemMessageService;
+    private final ToolSelector toolSelector;
     
     public OllamaProvider(@Qualifier("ollamaChatClient") ChatClient chatClient,
-                          SystemMessageService systemMessageService) {
+                          OllamaChatModel chatModel,
+                          SystemMessageService systemMessageService,
+                          ToolSelector toolSelector) {
         this.chatClient = chatClient;
+        this.completionClient = ChatClient.create(chatModel);
         this.systemMessageService = systemMessageService;
+        this.toolSelector = toolSelector;
     }
     
     @Override
@@ -50,10 +62,13 @@ public class OllamaProvider implements AIProvider {
         long startTime = System.currentTimeMillis();
         
         try {
-            String systemMessage = systemMessageService.getSystemMessage();
+            String systemMessage = systemMessageService.getSystemMessage(getProviderName(), request.getModel());
+            ToolSelection tools = toolSelector.select(request.getMessage());
             String response = chatClient.prompt()
                     .system(systemMessage)
                     .user(request.getMessage())
+                    .toolCallbacks(tools.callbacks())
+                    .toolContext(ToolTelemetry.toolContext(request.getConversationId()))
                     .call()
                     .content();
             
@@ -83,6 +98,24 @@ public class OllamaProvider implements AIProvider {
         }
     }
     
+    @Override
+    public boolean supportsCompletion() {
+        return true;
+    }
+
+    @Override
+    public String complete(String prompt, String model) {
+        ChatOptions.Builder options = ChatOptions.builder().temperature(0.0);
+        if (model != null) {
+            options.model(model);
+        }
+        return completionClient.prompt()
+                .user(prompt)
+                .options(options.build())
+                .call()
+                .content();
+    }
+    
     @Override
     public List<String> getAvailableModels() {
         return Arrays.asList(
@@ -4,12 +4,15 @@ import com.vijay.dto.ChatRequest;
 import com.vijay.dto.ChatResponse;
 import com.vijay.dto.ProviderInfo;
 import com.vijay.provider.AIProvider;
+import com.vijay.service.ChatPreflight;
 import com.vijay.service.MCPService;
-import com.vijay.service.RAGService;
-import com.vijay.service.SystemMessageService;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolSelection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -22,19 +25,23 @@ import java.util.List;
 @Component
 public class OpenAIProvider implements AIProvider {
 
+    // No tool fast path, and the plain system message without a tool listing
+    private static final ChatPreflight.Plan PREFLIGHT = new ChatPreflight.Plan(false, true, false);
+
     private final ChatClient chatClient;
+    // Without the memory advisor, for standalone completions
+    private final ChatClient completionClient;
     private final MCPService mcpService;
-    private final RAGService ragService;
-    private final SystemMessageService systemMessageService;
+    private final ChatPreflight preflight;
     
     public OpenAIProvider(@Qualifier("openAiChatClient") ChatClient chatClient,
+                          OpenAiChatModel chatModel,
                           MCPService mcpService,
-                          RAGService ragService,
-                          SystemMessageService systemMessageService) {
+                          ChatPreflight preflight) {
         this.chatClient = chatClient;
+        this.completionClient = ChatClient.create(chatModel);
         this.mcpService = mcpService;
-        this.ragService = ragService;
-        this.systemMessageService = systemMessageService;
+        this.preflight = preflight;
     }
     
     @Override
@@ -59,17 +66,20 @@ public class OpenAIProvider implements AIProvider {
         long startTime = System.currentTimeMillis();
         
         try {
-            // Generate RAG context
-            String ragContext = ragService.generateRAGContext(request.getMessage());
+            // RAG retrieval runs concurrently with tool selection and system message rendering
+            ChatPreflight.Prepared prepared = preflight.prepare(request, getProviderName(), request.getModel(), PREFLIGHT);
+            String ragContext = prepared.ragContext();
             
             // Build enhanced prompt with RAG context
             String enhancedPrompt = buildEnhancedPrompt(request.getMessage(), ragContext);
             
             // Generate response using Spring AI ChatClient with system message
-            String systemMessage = systemMessageService.getSystemMessage();
+            ToolSelection tools = prepared.tools();
             String response = chatClient.prompt()
-                    .system(systemMessage)
+                    .system(prepared.systemPrompt().text())
                     .user(enhancedPrompt)
+                    .toolCallbacks(tools.callbacks())
+                    .toolContext(ToolTelemetry.toolContext(request.getConversationId()))
                     .call()
                     .content();
             
@@ -112,6 +122,24 @@ public class OpenAIProvider implements AIProvider {
         return prompt.toString();
     }
     
+    @Override
+    public boolean supportsCompletion() {
+        return true;
+    }
+
+    @Override
+    public String complete(String prompt, String model) {
+        ChatOptions.Builder options = ChatOptions.builder().temperature(0.0);
+        if (model != null) {
+            options.model(model);
+        }
+        return completionClient.prompt()
+                .user(prompt)
+                .options(options.build())
+                .call()
+                .content();
+    }
+    
     @Override
     public List<String> getAvailableModels() {
         return Arrays.asList(
@@ -4,37 +4,36 @@ import com.vijay.dto.ChatRequest;
 import com.vijay.dto.ChatResponse;
 import com.vijay.dto.ProviderInfo;
 import com.vijay.provider.AIProvider;
-import com.vijay.service.RAGService;
+import com.vijay.service.ChatPreflight;
+import com.vijay.service.PromptTemplateService;
+import com.vijay.service.ToolRouter;
+import com.vijay.service.ToolTelemetry;
+import com.vijay.tool.ToolSelection;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Component
 public class OpenRouterProvider implements AIProvider {
 
     private final String apiKey;
-    private final RAGService ragService;
-    private final ToolCallbackProvider toolCallbackProvider;
     private final ChatClient chatClient;
+    private final ChatPreflight preflight;
 
     public OpenRouterProvider(@Value("${spring.ai.openrouter.api-key:}") String apiKey,
-                             RAGService ragService,
-                             ToolCallbackProvider toolCallbackProvider,
-                             @Qualifier("openRouterChatClient") ChatClient chatClient) {
+                             @Qualifier("openRouterChatClient") ChatClient chatClient,
+                             ChatPreflight preflight) {
         this.apiKey = apiKey;
-        this.ragService = ragService;
-        this.toolCallbackProvider = toolCallbackProvider;
         this.chatClient = chatClient;
+        this.preflight = preflight;
         
         System.out.println("🔧 OpenRouter Provider Initialization:");
         System.out.println("   API Key: " + (apiKey != null && !apiKey.isEmpty() ? apiKey.substring(0, Math.min(8, apiKey.length())) + "..." : "NOT SET"));
@@ -59,33 +58,45 @@ public class OpenRouterProvider implements AIProvider {
     public ChatResponse generateResponse(ChatRequest request) {
         long startTime = System.currentTimeMillis();
         try {
-            // Generate RAG context
-            String ragContext = ragService.generateRAGContext(request.getMessage());
+            String model = request.getModel() != null ? request.getModel() : "openai/gpt-3.5-turbo";
+            
+            // Tool fast path, RAG retrieval and system prompt rendering run concurrently
+            ChatPreflight.Prepared prepared = preflight.prepare(request, getProviderName(), model, ChatPreflight.Plan.FULL);
+            
+            // Deterministic tool requests are answered by the tool alone, without a model round trip
+            Optional<ToolRouter.RoutedResponse> routed = prepared.routed();
+            if (routed.isPresent()) {
+                return ChatResponse.builder()
+                        .response(routed.get().content())
+                        .provider(getProviderName())
+                        .model(request.getModel() != null ? request.getModel() : "openai/gpt-3.5-turbo")
+                        .conversationId(request.getConversationId())
+                        .timestamp(LocalDateTime.now())
+                        .tokensUsed(0L)
+                        .responseTimeMs(System.currentTimeMillis() - startTime)
+                        .build();
+            }
+            
+            // RAG context retrieved during preflight
+            String ragContext = prepared.ragContext();
             
             // Build enhanced prompt with RAG context
             String enhancedPrompt = buildEnhancedPrompt(request.getMessage(), ragContext);
-            
-            // Model for logging purposes
-            String model = request.getModel() != null ? request.getModel() : "openai/gpt-3.5-turbo";
 
-            // Load system message from resources
-            String systemMessage = loadSystemMessage();
-            
-            // Enhanced system message with MCP tool information
-            int mcpToolCount = getMCPToolCount();
-            String toolInfo = getMCPToolInfo();
-            String enhancedSystemMessage = systemMessage + "\n\nAvailable MCP Tools (" + mcpToolCount + "):\n" + toolInfo;
+            // Rendered system message listing the MCP tools selected for this message (cached)
+            ToolSelection tools = prepared.tools();
+            PromptTemplateService.SystemPrompt systemPrompt = prepared.systemPrompt();
+            int mcpToolCount = systemPrompt.toolCount();
             
             // Use ChatClient for memory management and MCP tools
-            String response = chatClient.prompt()
-                    .system(enhancedSystemMessage)
+            String content = chatClient.prompt()
+                    .system(systemPrompt.text())
                     .user(enhancedPrompt)
+                    .toolCallbacks(tools.callbacks())
+                    .toolContext(ToolTelemetry.toolContext(request.getConversationId()))
                     .call()
                     .content();
             
-            // Check if AI is requesting MCP tool usage and execute if needed
-            String content = processAIToolRequests(response, request.getMessage());
-
             long responseTime = System.currentTimeMillis() - startTime;
 
             // Print API key information to console
@@ -158,80 +169,4 @@ public class OpenRouterProvider implements AIProvider {
         return prompt.toString();
     }
     
-    private int getMCPToolCount() {
-        try {
-            // Get MCP tools from the ToolCallbackProvider
-            return toolCallbackProvider.getToolCallbacks().length;
-        } catch (Exception e) {
-            log.warn("Could not get MCP tool count: {}", e.getMessage());
-            return 0;
-        }
-    }
-    
-    private String loadSystemMessage() {
-        try {
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream("prompts/tool-only.st");
-            if (inputStream != null) {
-                return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            }
-        } catch (Exception e) {
-            log.warn("Could not load system message: {}", e.getMessage());
-        }
-        return "You are an AI assistant with access to MCP tools.";
-    }
-    
-    private String getMCPToolInfo() {
-        try {
-            var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-            if (toolCallbacks.length == 0) {
-                return "No MCP tools available.";
-            }
-            
-            StringBuilder toolInfo = new StringBuilder();
-            for (var toolCallback : toolCallbacks) {
-                String toolName = toolCallback.getToolDefinition().name();
-                String toolDescription = toolCallback.getToolDefinition().description();
-                toolInfo.append("- ").append(toolName).append(": ").append(toolDescription).append("\n");
-            }
-            return toolInfo.toString();
-        } catch (Exception e) {
-            log.error("Error getting MCP tool info: {}", e.getMessage());
-            return "Error retrieving MCP tool information.";
-        }
-    }
-    
-    private String processAIToolRequests(String aiResponse, String userMessage) {
-        try {
-            // Check if user is asking for FAQs and we have the listFaqs tool
-            if (userMessage.toLowerCase().contains("faq") || userMessage.toLowerCase().contains("list sample faqs")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("listFaqs")) {
-                        log.info("Executing listFaqs tool for OpenRouter based on user request");
-                        var result = toolCallback.call("{}");
-                        return "Here are the sample FAQs:\n" + result;
-                    }
-                }
-            }
-            
-            // Check if user is asking to create a note and we have the createNote tool
-            if (userMessage.toLowerCase().contains("create note") || userMessage.toLowerCase().contains("note")) {
-                var toolCallbacks = toolCallbackProvider.getToolCallbacks();
-                for (var toolCallback : toolCallbacks) {
-                    String toolName = toolCallback.getToolDefinition().name();
-                    if (toolName.equals("createNote")) {
-                        log.info("Executing createNote tool for OpenRouter based on user request");
-                        var result = toolCallback.call("{\"title\":\"Sample Note\",\"body\":\"" + userMessage + "\"}");
-                        return "Note created:\n" + result;
-                    }
-                }
-            }
-            
-            return aiResponse;
-        } catch (Exception e) {
-            log.error("Error processing AI tool requests: {}", e.getMessage());
-            return aiResponse;
-        }
-    }
 }
@@ -0,0 +1,56 @@
+package com.vijay.rag;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Growable array of references addressed by a dense ordinal.
+ * <p>
+ * Storage grows in fixed-size chunks, so growing never copies existing
+ * elements. Reads are lock free and see a fully constructed element once
+ * {@link #set(int, Object)} has returned on the writing thread.
+ */
+final class ChunkedArray<T> {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile AtomicReferenceArray<T>[] chunks;
+
+    @SuppressWarnings("unchecked")
+    ChunkedArray() {
+        this.chunks = new AtomicReferenceArray[0];
+    }
+
+    T get(int index) {
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk >= current.length) {
+            return null;
+        }
+        return current[chunk].get(index & CHUNK_MASK);
+    }
+
+    void set(int index, T value) {
+        int chunk = index >>> CHUNK_BITS;
+        AtomicReferenceArray<T>[] current = chunks;
+        if (chunk >= current.length) {
+            current = grow(chunk);
+        }
+        current[chunk].set(index & CHUNK_MASK, value);
+    }
+
+    private synchronized AtomicReferenceArray<T>[] grow(int chunk) {
+        AtomicReferenceArray<T>[] current = chunks;
+        if (chunk < current.length) {
+            return current;
+        }
+        AtomicReferenceArray<T>[] grown = Arrays.copyOf(current, chunk + 1);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+        }
+        chunks = grown;
+        return grown;
+    }
+}
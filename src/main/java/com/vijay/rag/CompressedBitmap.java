@@ -0,0 +1,421 @@
+package com.vijay.rag;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints in the style of Roaring bitmaps.
+ * <p>
+ * Values are grouped by their high 16 bits. A group is stored as a sorted
+ * array of its low 16 bits while it holds at most {@value #ARRAY_MAX}
+ * values, and as a 65536-bit bitmap once it holds more, so sparse sets cost
+ * about two bytes per value and dense ones one bit. Intersections and unions
+ * work group by group and never touch groups only one side has.
+ * <p>
+ * Not thread safe; {@link #and} and {@link #or} return new bitmaps and leave
+ * their arguments unchanged.
+ */
+final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1 << 10;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        char key = (char) (value >>> 16);
+        int index = size > 0 && keys[size - 1] == key ? size - 1 : Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        containers[index] = containers[index].add((char) value);
+    }
+
+    boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Every value in ascending order.
+     */
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insert(result.size, a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || i < a.size && a.keys[i] < b.keys[j]) {
+                result.insert(result.size, a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.insert(result.size, b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.insert(result.size, a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Group count, then per group its key, cardinality and either the sorted low bits or 1024 bitmap words.
+     */
+    int serializedBytes() {
+        int bytes = Integer.BYTES;
+        for (int i = 0; i < size; i++) {
+            bytes += 2 * Integer.BYTES + containers[i].serializedBytes();
+        }
+        return bytes;
+    }
+
+    void write(ByteBuffer out) {
+        out.putInt(size);
+        for (int i = 0; i < size; i++) {
+            out.putInt(keys[i]).putInt(containers[i].cardinality());
+            containers[i].write(out);
+        }
+    }
+
+    static CompressedBitmap read(ByteBuffer in) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            char key = (char) in.getInt();
+            int cardinality = in.getInt();
+            Container container;
+            if (cardinality <= ARRAY_MAX) {
+                char[] values = new char[cardinality];
+                for (int v = 0; v < cardinality; v++) {
+                    values[v] = in.getChar();
+                }
+                container = new ArrayContainer(values, cardinality);
+            } else {
+                long[] words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] = in.getLong();
+                }
+                container = new BitmapContainer(words, cardinality);
+            }
+            bitmap.insert(i, key, container);
+        }
+        return bitmap;
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private abstract static class Container {
+
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract int serializedBytes();
+
+        abstract void write(ByteBuffer out);
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            // Ordinals usually arrive in ascending order
+            if (cardinality > 0 && values[cardinality - 1] == value) {
+                return this;
+            }
+            int index = cardinality > 0 && values[cardinality - 1] < value
+                    ? -cardinality - 1 : Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || i < cardinality && values[i] < array.values[j]) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_MAX ? union.toBitmap() : union;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, cardinality)), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        int serializedBytes() {
+            return cardinality * Character.BYTES;
+        }
+
+        @Override
+        void write(ByteBuffer out) {
+            for (int i = 0; i < cardinality; i++) {
+                out.putChar(values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long bit = 1L << value;
+            if ((words[value >>> 6] & bit) == 0) {
+                words[value >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[WORDS];
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer intersection = new BitmapContainer(result, count);
+            return count <= ARRAY_MAX ? intersection.toArray() : intersection;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            BitmapContainer union = new BitmapContainer(result, 0);
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] |= bitmap.words[i];
+                }
+            } else {
+                other.forEach(0, value -> result[value >>> 6] |= 1L << value);
+            }
+            for (long word : result) {
+                union.cardinality += Long.bitCount(word);
+            }
+            return union;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int serializedBytes() {
+            return WORDS * Long.BYTES;
+        }
+
+        @Override
+        void write(ByteBuffer out) {
+            for (long word : words) {
+                out.putLong(word);
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int[] count = new int[1];
+            forEach(0, value -> values[count[0]++] = (char) value);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
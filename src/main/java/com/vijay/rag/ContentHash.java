@@ -0,0 +1,29 @@
+package com.vijay.rag;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Short content fingerprints for de-duplicating chunks.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * First 128 bits of the SHA-256 of the whitespace-normalized text, URL-safe Base64 encoded.
+     */
+    public static String of(String text) {
+        String normalized = text.strip().replaceAll("\\s+", " ");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
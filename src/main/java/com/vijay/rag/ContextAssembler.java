@@ -0,0 +1,144 @@
+package com.vijay.rag;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs retrieved chunks into a prompt context of at most a given number of tokens.
+ * <p>
+ * Candidates are taken best first. A chunk whose embedding is at least
+ * {@code duplicateSimilarity} similar to a more relevant one is dropped as a
+ * near-duplicate. Maximal marginal relevance then picks up to {@code maxChunks}
+ * of the rest: each step takes the chunk maximising
+ * {@code lambda * relevance - (1 - lambda) * (similarity to the closest picked chunk)},
+ * with relevance scaled so the best candidate scores 1. A chunk that does not
+ * fit the remaining budget is passed over so a smaller one can still use it.
+ * The picked chunks are written in relevance order, numbered and followed by
+ * their source so answers can cite them.
+ */
+public class ContextAssembler {
+
+    /**
+     * A retrieved chunk. {@code embedding} may be null, in which case only identical text counts as a duplicate.
+     */
+    public record Chunk(String text, String source, double relevance, float[] embedding) {
+    }
+
+    /**
+     * The assembled context, the chunks it holds in order, and how many candidates were dropped as near-duplicates.
+     */
+    public record Context(String text, int tokens, List<Chunk> chunks, int duplicates) {
+
+        public static final Context EMPTY = new Context("", 0, List.of(), 0);
+    }
+
+    // Allows for the widest "[n]" a context will have
+    private static final int HEADER_NUMBER = 99;
+
+    private final int maxChunks;
+    private final double lambda;
+    private final double duplicateSimilarity;
+
+    public ContextAssembler(int maxChunks, double lambda, double duplicateSimilarity) {
+        if (maxChunks <= 0 || lambda < 0 || lambda > 1) {
+            throw new IllegalArgumentException("Need maxChunks > 0 and 0 <= lambda <= 1");
+        }
+        this.maxChunks = maxChunks;
+        this.lambda = lambda;
+        this.duplicateSimilarity = duplicateSimilarity;
+    }
+
+    public Context assemble(List<Chunk> candidates, int tokenBudget) {
+        List<Chunk> ranked = new ArrayList<>(candidates.size());
+        for (Chunk chunk : candidates) {
+            if (chunk.text() != null && !chunk.text().isBlank()) {
+                ranked.add(chunk);
+            }
+        }
+        if (ranked.isEmpty() || tokenBudget <= 0) {
+            return Context.EMPTY;
+        }
+        ranked.sort(Comparator.comparingDouble(Chunk::relevance).reversed());
+
+        List<Chunk> distinct = new ArrayList<>(ranked.size());
+        for (Chunk chunk : ranked) {
+            if (maxSimilarity(chunk, distinct) < duplicateSimilarity) {
+                distinct.add(chunk);
+            }
+        }
+        int duplicates = ranked.size() - distinct.size();
+
+        double best = distinct.get(0).relevance();
+        double scale = best > 0 ? 1.0 / best : 1.0;
+        // Similarity of each remaining candidate to its closest picked chunk
+        double[] closest = new double[distinct.size()];
+        boolean[] done = new boolean[distinct.size()];
+        List<Chunk> picked = new ArrayList<>(maxChunks);
+        int tokens = 0;
+        while (picked.size() < maxChunks) {
+            int next = -1;
+            double nextScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < distinct.size(); i++) {
+                if (done[i]) {
+                    continue;
+                }
+                double score = lambda * distinct.get(i).relevance() * scale - (1 - lambda) * closest[i];
+                if (score > nextScore) {
+                    next = i;
+                    nextScore = score;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            done[next] = true;
+            Chunk chunk = distinct.get(next);
+            int chunkTokens = TextChunker.estimateTokens(entry(HEADER_NUMBER, chunk));
+            if (tokens + chunkTokens > tokenBudget) {
+                continue;
+            }
+            tokens += chunkTokens;
+            picked.add(chunk);
+            for (int i = 0; i < distinct.size(); i++) {
+                if (!done[i]) {
+                    closest[i] = Math.max(closest[i], similarity(distinct.get(i), chunk));
+                }
+            }
+        }
+        if (picked.isEmpty()) {
+            return new Context("", 0, List.of(), duplicates);
+        }
+
+        picked.sort(Comparator.comparingDouble(Chunk::relevance).reversed());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < picked.size(); i++) {
+            text.append(entry(i + 1, picked.get(i)));
+        }
+        String context = text.toString().strip();
+        return new Context(context, TextChunker.estimateTokens(context), List.copyOf(picked), duplicates);
+    }
+
+    private static String entry(int number, Chunk chunk) {
+        StringBuilder entry = new StringBuilder().append('[').append(number).append(']');
+        if (chunk.source() != null && !chunk.source().isBlank()) {
+            entry.append(" (").append(chunk.source()).append(')');
+        }
+        return entry.append('\n').append(chunk.text().strip()).append("\n\n").toString();
+    }
+
+    private static double maxSimilarity(Chunk chunk, List<Chunk> others) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (Chunk other : others) {
+            max = Math.max(max, similarity(chunk, other));
+        }
+        return max;
+    }
+
+    private static double similarity(Chunk a, Chunk b) {
+        if (a.embedding() != null && b.embedding() != null && a.embedding().length == b.embedding().length) {
+            return VectorMath.cosine(a.embedding(), b.embedding());
+        }
+        return a.text().strip().equals(b.text().strip()) ? 1.0 : 0.0;
+    }
+}
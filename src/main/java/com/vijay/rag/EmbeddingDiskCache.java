@@ -0,0 +1,216 @@
+package com.vijay.rag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-capacity embedding cache in a memory-mapped file, for one model.
+ * <p>
+ * The file is an open-addressing hash table of {@code capacity} slots, each
+ * holding a 16-byte content hash, a CRC32 of the vector and the vector
+ * itself. A key may live in any of {@value #PROBES} consecutive slots from its
+ * home slot; when all are taken one of them is overwritten, so the file never
+ * grows and no index is kept on heap. The file is created sparse, so only
+ * written slots take disk space. A slot whose CRC does not match (a write
+ * torn by a crash) reads as a miss.
+ */
+public class EmbeddingDiskCache implements Closeable {
+
+    private static final int MAGIC = 0x454D4243;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int PROBES = 8;
+    private static final int KEY_BYTES = 16;
+    private static final int VECTOR_OFFSET = KEY_BYTES + 8;
+    private static final long MAX_PAGE_BYTES = 1L << 30;
+
+    private final Path path;
+    private final int dimensions;
+    private final long capacity;
+    private final int slotBytes;
+    private final long slotsPerPage;
+    private final MappedByteBuffer[] pages;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int victim;
+
+    private EmbeddingDiskCache(Path path, int dimensions, long capacity, MappedByteBuffer[] pages) {
+        this.path = path;
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.slotBytes = VECTOR_OFFSET + dimensions * Float.BYTES;
+        this.slotsPerPage = Math.max(1, MAX_PAGE_BYTES / slotBytes);
+        this.pages = pages;
+    }
+
+    /**
+     * Open the cache file, creating it, or recreating it if it was made for other dimensions or capacity.
+     */
+    public static EmbeddingDiskCache open(Path path, int dimensions, long capacity) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        int slotBytes = VECTOR_OFFSET + dimensions * Float.BYTES;
+        long slotsPerPage = Math.max(1, MAX_PAGE_BYTES / slotBytes);
+        long length = HEADER_BYTES + capacity * slotBytes;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            boolean compatible = channel.size() == length && channel.read(header, 0) == HEADER_BYTES
+                    && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getInt(8) == dimensions && header.getLong(16) == capacity;
+            if (!compatible) {
+                file.setLength(0);
+                file.setLength(length);
+                header.clear();
+                header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(0).putLong(capacity).flip();
+                channel.write(header, 0);
+            }
+            int pageCount = (int) ((capacity + slotsPerPage - 1) / slotsPerPage);
+            MappedByteBuffer[] pages = new MappedByteBuffer[pageCount];
+            for (int i = 0; i < pageCount; i++) {
+                long first = i * slotsPerPage;
+                long slots = Math.min(slotsPerPage, capacity - first);
+                pages[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first * slotBytes, slots * slotBytes);
+                pages[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new EmbeddingDiskCache(path, dimensions, capacity, pages);
+        }
+    }
+
+    /**
+     * Dimensions of an existing cache file, or 0 if there is none.
+     */
+    public static int storedDimensions(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_BYTES || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return 0;
+            }
+            return header.getInt(8);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Cached vector for a content hash, or null.
+     */
+    public float[] get(String contentHash) {
+        byte[] key = Base64.getUrlDecoder().decode(contentHash);
+        byte[] stored = new byte[KEY_BYTES];
+        lock.readLock().lock();
+        try {
+            long home = home(key);
+            for (int probe = 0; probe < PROBES; probe++) {
+                long slot = (home + probe) % capacity;
+                ByteBuffer page = page(slot);
+                int offset = offset(slot);
+                page.get(offset, stored);
+                if (Arrays.equals(stored, key)) {
+                    ByteBuffer vectorBytes = page.slice(offset + VECTOR_OFFSET, dimensions * Float.BYTES);
+                    if (crc(vectorBytes) != page.getInt(offset + KEY_BYTES)) {
+                        return null;
+                    }
+                    float[] vector = new float[dimensions];
+                    vectorBytes.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+                    return vector;
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String contentHash, float[] vector) {
+        if (vector.length != dimensions) {
+            return;
+        }
+        byte[] key = Base64.getUrlDecoder().decode(contentHash);
+        byte[] stored = new byte[KEY_BYTES];
+        lock.writeLock().lock();
+        try {
+            long home = home(key);
+            long target = -1;
+            for (int probe = 0; probe < PROBES && target < 0; probe++) {
+                long slot = (home + probe) % capacity;
+                page(slot).get(offset(slot), stored);
+                if (Arrays.equals(stored, key) || isEmpty(stored)) {
+                    target = slot;
+                }
+            }
+            if (target < 0) {
+                victim = (victim + 1) % PROBES;
+                target = (home + victim) % capacity;
+            }
+            ByteBuffer page = page(target);
+            int offset = offset(target);
+            ByteBuffer vectorBytes = page.slice(offset + VECTOR_OFFSET, dimensions * Float.BYTES);
+            vectorBytes.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().put(vector);
+            page.putInt(offset + KEY_BYTES, crc(vectorBytes));
+            page.put(offset, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (MappedByteBuffer page : pages) {
+                page.force();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EmbeddingDiskCache[" + path + ", " + dimensions + " dimensions, " + capacity + " slots]";
+    }
+
+    private long home(byte[] key) {
+        return Long.remainderUnsigned(ByteBuffer.wrap(key).getLong(), capacity);
+    }
+
+    private ByteBuffer page(long slot) {
+        return pages[(int) (slot / slotsPerPage)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot % slotsPerPage) * slotBytes;
+    }
+
+    private static boolean isEmpty(byte[] key) {
+        for (byte b : key) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,31 @@
+package com.vijay.rag;
+
+/**
+ * Read access to an HNSW graph, on heap or memory-mapped.
+ */
+public interface HnswGraph {
+
+    /**
+     * Current entry point, or null while the graph is empty.
+     */
+    EntryPoint entryPoint();
+
+    /**
+     * Highest level the node appears on.
+     */
+    int level(int node);
+
+    /**
+     * Largest neighbour list on the level.
+     */
+    int maxConnections(int level);
+
+    /**
+     * Copy the node's neighbours on a level into the buffer and return how many there are.
+     * The buffer must hold at least {@link #maxConnections(int)} entries.
+     */
+    int neighbours(int node, int level, int[] buffer);
+
+    record EntryPoint(int node, int level) {
+    }
+}
@@ -0,0 +1,296 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory Hierarchical Navigable Small World graph for approximate nearest
+ * neighbour search (Malkov and Yashunin, 2016).
+ * <p>
+ * Every vector is a node on level 0 and, with exponentially decreasing
+ * probability, on higher levels. A search descends greedily from the top
+ * level's entry point and finishes with a best-first search of width
+ * {@code ef} on level 0. Neighbour lists are chosen with the diversity
+ * heuristic, so the graph stays navigable on clustered data.
+ * <p>
+ * Inserts may run concurrently with each other and with searches. Neighbour
+ * lists are copy-on-write arrays replaced under the owning node's monitor, so
+ * a search always reads a complete list without locking.
+ * <p>
+ * Vectors are normally added to the index and kept on heap. An index made
+ * with {@link #over(VectorValues, VectorMetric, int, int)} instead links
+ * vectors that are already stored, such as a segment file being written.
+ */
+public class HnswIndex implements HnswGraph {
+
+    private static final int MAX_LEVEL = 16;
+
+    private final VectorMetric metric;
+    private final VectorValues vectors;
+    // Null when the graph is built over vectors stored elsewhere
+    private final OnHeapVectorValues heapVectors;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final ChunkedArray<Node> nodes = new ChunkedArray<>();
+    private final Object entryLock = new Object();
+
+    private volatile EntryPoint entryPoint;
+
+    /**
+     * @param m              neighbours per node on upper levels (twice as many on level 0)
+     * @param efConstruction search width used while inserting
+     */
+    public HnswIndex(int dimensions, VectorMetric metric, int m, int efConstruction) {
+        this(new OnHeapVectorValues(dimensions), metric, m, efConstruction, true);
+    }
+
+    private HnswIndex(VectorValues vectors, VectorMetric metric, int m, int efConstruction, boolean onHeap) {
+        if (m < 2) {
+            throw new IllegalArgumentException("m must be at least 2");
+        }
+        this.metric = metric;
+        this.vectors = vectors;
+        this.heapVectors = onHeap ? (OnHeapVectorValues) vectors : null;
+        this.maxConnections = m;
+        this.maxConnectionsLevel0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    /**
+     * A graph over vectors already prepared for the metric and stored elsewhere; nodes are added with
+     * {@link #insert(int)}. Its size is the number of stored vectors, inserted or not.
+     */
+    static HnswIndex over(VectorValues stored, VectorMetric metric, int m, int efConstruction) {
+        return new HnswIndex(stored, metric, m, efConstruction, false);
+    }
+
+    public int dimensions() {
+        return vectors.dimensions();
+    }
+
+    public int size() {
+        return vectors.size();
+    }
+
+    public VectorMetric metric() {
+        return metric;
+    }
+
+    /**
+     * Insert a vector and return its ordinal. Ordinals are dense and assigned in insertion order.
+     */
+    public int add(float[] vector) {
+        if (heapVectors == null) {
+            throw new UnsupportedOperationException("The index links stored vectors; use insert");
+        }
+        float[] prepared = metric.prepare(vector);
+        int ordinal = heapVectors.append(prepared);
+        insert(ordinal, prepared);
+        return ordinal;
+    }
+
+    /**
+     * Link a stored vector into the graph of an index made with {@link #over}.
+     */
+    void insert(int ordinal) {
+        insert(ordinal, vectors.vector(ordinal));
+    }
+
+    private void insert(int ordinal, float[] prepared) {
+        int level = randomLevel();
+        Node node = new Node(level);
+        nodes.set(ordinal, node);
+
+        EntryPoint entry = entryPoint;
+        if (entry == null) {
+            synchronized (entryLock) {
+                if (entryPoint == null) {
+                    entryPoint = new EntryPoint(ordinal, level);
+                    return;
+                }
+                entry = entryPoint;
+            }
+        }
+
+        VectorScorer scorer = vectors.scorer(prepared);
+        int current = entry.node();
+        for (int lc = entry.level(); lc > level; lc--) {
+            current = HnswSearcher.greedyClosest(this, scorer, current, lc);
+        }
+
+        int[] entryPoints = {current};
+        for (int lc = Math.min(level, entry.level()); lc >= 0; lc--) {
+            NeighborQueue found = HnswSearcher.searchLayer(this, scorer, vectors.size(), entryPoints, efConstruction, lc, null);
+            List<ScoredDoc> candidates = found.drainDescending();
+            int connections = lc == 0 ? maxConnectionsLevel0 : maxConnections;
+            int[] neighbours = selectNeighbours(candidates, connections);
+            int[] early;
+            synchronized (node) {
+                // Concurrent inserts may already have linked to this node through an upper level
+                early = node.neighbours(lc);
+                node.setNeighbours(lc, neighbours);
+            }
+            for (int neighbour : neighbours) {
+                link(neighbour, ordinal, lc, connections);
+            }
+            for (int neighbour : early) {
+                if (Arrays.stream(neighbours).noneMatch(n -> n == neighbour)) {
+                    link(ordinal, neighbour, lc, connections);
+                }
+            }
+            entryPoints = new int[candidates.size()];
+            for (int i = 0; i < entryPoints.length; i++) {
+                entryPoints[i] = candidates.get(i).doc();
+            }
+        }
+
+        if (level > entry.level()) {
+            synchronized (entryLock) {
+                if (level > entryPoint.level()) {
+                    entryPoint = new EntryPoint(ordinal, level);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return up to k nearest neighbours of the query, best first.
+     *
+     * @param ef     search width on level 0; larger is slower and more accurate
+     * @param filter optional predicate over ordinals; rejected nodes are traversed but not returned
+     */
+    public List<ScoredDoc> search(float[] query, int k, int ef, IntPredicate filter) {
+        if (query.length != dimensions()) {
+            throw new IllegalArgumentException("Expected " + dimensions() + " dimensions, got " + query.length);
+        }
+        return HnswSearcher.search(this, vectors, metric.prepare(query), k, ef, filter);
+    }
+
+    /**
+     * Stored (prepared) vector of an ordinal.
+     */
+    public float[] vector(int ordinal) {
+        return vectors.vector(ordinal);
+    }
+
+    /**
+     * Stored vectors, in the form they are scored in.
+     */
+    public VectorValues vectors() {
+        return vectors;
+    }
+
+    @Override
+    public EntryPoint entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int level(int node) {
+        return nodes.get(node).level();
+    }
+
+    @Override
+    public int maxConnections(int level) {
+        return level == 0 ? maxConnectionsLevel0 : maxConnections;
+    }
+
+    @Override
+    public int neighbours(int node, int level, int[] buffer) {
+        int[] list = nodes.get(node).neighbours(level);
+        System.arraycopy(list, 0, buffer, 0, list.length);
+        return list.length;
+    }
+
+    /**
+     * Diversity heuristic: keep a candidate only if it is closer to the base
+     * than to every neighbour kept so far; top up with the closest rejected
+     * candidates if fewer than {@code max} survive.
+     */
+    private int[] selectNeighbours(List<ScoredDoc> candidates, int max) {
+        List<Integer> selected = new ArrayList<>(max);
+        List<Integer> rejected = new ArrayList<>();
+        for (ScoredDoc candidate : candidates) {
+            if (selected.size() >= max) {
+                break;
+            }
+            float[] candidateVector = vectors.vector(candidate.doc());
+            boolean diverse = true;
+            for (int kept : selected) {
+                if (metric.score(candidateVector, vectors.vector(kept)) > candidate.score()) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected.add(candidate.doc());
+            } else {
+                rejected.add(candidate.doc());
+            }
+        }
+        for (int i = 0; i < rejected.size() && selected.size() < max; i++) {
+            selected.add(rejected.get(i));
+        }
+        return selected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void link(int from, int to, int level, int max) {
+        Node node = nodes.get(from);
+        synchronized (node) {
+            int[] current = node.neighbours(level);
+            int[] next;
+            if (current.length < max) {
+                next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = to;
+            } else {
+                float[] base = vectors.vector(from);
+                NeighborQueue ranked = new NeighborQueue(current.length + 1, true);
+                for (int neighbour : current) {
+                    ranked.push(neighbour, metric.score(base, vectors.vector(neighbour)));
+                }
+                ranked.push(to, metric.score(base, vectors.vector(to)));
+                next = selectNeighbours(ranked.drainDescending(), max);
+            }
+            node.setNeighbours(level, next);
+        }
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1 - r) * levelMultiplier));
+    }
+
+    private static final class Node {
+        private static final int[] EMPTY = new int[0];
+
+        private final AtomicReferenceArray<int[]> neighbours;
+
+        Node(int level) {
+            this.neighbours = new AtomicReferenceArray<>(level + 1);
+            for (int i = 0; i <= level; i++) {
+                neighbours.set(i, EMPTY);
+            }
+        }
+
+        int level() {
+            return neighbours.length() - 1;
+        }
+
+        int[] neighbours(int level) {
+            return level < neighbours.length() ? neighbours.get(level) : EMPTY;
+        }
+
+        void setNeighbours(int level, int[] list) {
+            neighbours.set(level, list);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Search over any {@link HnswGraph}: greedy descent through the upper levels,
+ * then a best-first search of width {@code ef} on level 0.
+ */
+final class HnswSearcher {
+
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    private HnswSearcher() {
+    }
+
+    /**
+     * Return up to k nearest neighbours of a prepared query, best first.
+     */
+    static List<ScoredDoc> search(HnswGraph graph, VectorValues vectors, float[] query, int k, int ef, IntPredicate filter) {
+        return search(graph, vectors, query, k, ef, filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #search(HnswGraph, VectorValues, float[], int, int, IntPredicate)}, but gives up and
+     * returns null once level 0 has scored more than {@code visitLimit} nodes. A selective filter makes
+     * the search wander until it finds enough matches; past that many visits scoring the matches directly
+     * is cheaper.
+     */
+    static List<ScoredDoc> search(HnswGraph graph, VectorValues vectors, float[] query, int k, int ef,
+                                  IntPredicate filter, int visitLimit) {
+        HnswGraph.EntryPoint entry = graph.entryPoint();
+        if (entry == null || k <= 0) {
+            return List.of();
+        }
+        VectorScorer scorer = vectors.scorer(query);
+        int current = entry.node();
+        for (int level = entry.level(); level > 0; level--) {
+            current = greedyClosest(graph, scorer, current, level);
+        }
+        NeighborQueue results = searchLayer(graph, scorer, vectors.size(), new int[]{current}, Math.max(ef, k), 0, filter, visitLimit);
+        if (results == null) {
+            return null;
+        }
+        while (results.size() > k) {
+            results.pop();
+        }
+        return results.drainDescending();
+    }
+
+    static int greedyClosest(HnswGraph graph, VectorScorer scorer, int start, int level) {
+        int[] buffer = new int[graph.maxConnections(level)];
+        int best = start;
+        float bestScore = scorer.score(start);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int count = graph.neighbours(best, level, buffer);
+            for (int i = 0; i < count; i++) {
+                float s = scorer.score(buffer[i]);
+                if (s > bestScore) {
+                    bestScore = s;
+                    best = buffer[i];
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Best-first search of one level. Returns a min-queue of at most ef results.
+     *
+     * @param filter optional predicate over ordinals; rejected nodes are traversed but not returned
+     */
+    static NeighborQueue searchLayer(HnswGraph graph, VectorScorer scorer, int size, int[] entryPoints,
+                                     int ef, int level, IntPredicate filter) {
+        return searchLayer(graph, scorer, size, entryPoints, ef, level, filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return null if more than {@code visitLimit} nodes were scored
+     */
+    private static NeighborQueue searchLayer(HnswGraph graph, VectorScorer scorer, int size, int[] entryPoints,
+                                             int ef, int level, IntPredicate filter, int visitLimit) {
+        Visited seen = VISITED.get();
+        seen.reset(size);
+        int[] buffer = new int[graph.maxConnections(level)];
+        NeighborQueue candidates = new NeighborQueue(ef, true);
+        NeighborQueue results = new NeighborQueue(ef + 1, false);
+        int visits = 0;
+
+        for (int entry : entryPoints) {
+            if (seen.visit(entry)) {
+                float s = scorer.score(entry);
+                candidates.push(entry, s);
+                if (filter == null || filter.test(entry)) {
+                    results.push(entry, s);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            if (results.size() >= ef && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int count = graph.neighbours(candidate, level, buffer);
+            for (int i = 0; i < count; i++) {
+                int neighbour = buffer[i];
+                if (!seen.visit(neighbour)) {
+                    continue;
+                }
+                if (++visits > visitLimit) {
+                    return null;
+                }
+                float s = scorer.score(neighbour);
+                if (results.size() < ef || s > results.topScore()) {
+                    candidates.push(neighbour, s);
+                    if (filter == null || filter.test(neighbour)) {
+                        results.push(neighbour, s);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Generation-stamped visited set, reused per thread so searches do not allocate per node.
+     */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean visit(int node) {
+            if (node >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(node + 1, marks.length * 2));
+            }
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.vijay.rag;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one document ingestion run. Counters are updated concurrently
+ * by the reading thread and the embedding workers.
+ */
+public class IngestionJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private static final int MAX_ERRORS = 20;
+
+    private final String id;
+    private final String source;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong filesSeen = new AtomicLong();
+    private final AtomicLong filesIndexed = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong filesFailed = new AtomicLong();
+    private final AtomicLong filesDeleted = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong embedded = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong embeddingNanos = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile long finishedNanos;
+
+    public IngestionJob(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public void finish(Status status) {
+        this.finishedNanos = System.nanoTime();
+        this.status = status;
+    }
+
+    public void fileSeen(long bytes) {
+        filesSeen.incrementAndGet();
+        bytesRead.addAndGet(bytes);
+    }
+
+    public void fileIndexed() {
+        filesIndexed.incrementAndGet();
+    }
+
+    public void fileDeleted() {
+        filesDeleted.incrementAndGet();
+    }
+
+    public void fileSkipped() {
+        filesSkipped.incrementAndGet();
+    }
+
+    public void fileFailed(String file, Throwable error) {
+        filesFailed.incrementAndGet();
+        error(file + ": " + error.getMessage());
+    }
+
+    public void chunk() {
+        chunks.incrementAndGet();
+    }
+
+    public void duplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    public void batchEmbedded(int size, long nanos) {
+        embedded.addAndGet(size);
+        batches.incrementAndGet();
+        embeddingNanos.addAndGet(nanos);
+    }
+
+    public void error(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        double seconds = Math.max(1e-3, (end - startNanos) / 1e9);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("source", source);
+        map.put("status", status);
+        map.put("startedAt", startedAt.toString());
+        map.put("elapsedSeconds", seconds);
+        map.put("filesSeen", filesSeen.get());
+        map.put("filesIndexed", filesIndexed.get());
+        map.put("filesSkipped", filesSkipped.get());
+        map.put("filesFailed", filesFailed.get());
+        map.put("filesDeleted", filesDeleted.get());
+        map.put("chunks", chunks.get());
+        map.put("duplicateChunks", duplicates.get());
+        map.put("embeddedChunks", embedded.get());
+        map.put("chunksPerSecond", embedded.get() / seconds);
+        map.put("megabytesPerSecond", bytesRead.get() / 1e6 / seconds);
+        long batchCount = batches.get();
+        map.put("meanBatchMs", batchCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(embeddingNanos.get() / batchCount));
+        synchronized (errors) {
+            map.put("errors", List.copyOf(errors));
+        }
+        return map;
+    }
+}
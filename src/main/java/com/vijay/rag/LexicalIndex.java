@@ -0,0 +1,85 @@
+package com.vijay.rag;
+
+import com.vijay.search.Bm25Index;
+import com.vijay.search.CodeTokenizer;
+import com.vijay.search.ScoredDoc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BM25 index over chunk text, for the exact identifiers, error codes and
+ * paths that vector search tends to miss. Chunks are referred to by content
+ * hash, so persisted documents do not have to be held on heap; the hash
+ * resolves to a document in whichever segment holds it.
+ * <p>
+ * Each content hash is indexed once, however many chunks share the text, so
+ * it is counted once in the term statistics and ranked once.
+ */
+public class LexicalIndex {
+
+    private final Bm25Index index = new Bm25Index(new CodeTokenizer());
+    private final ChunkedArray<String> contentHashes = new ChunkedArray<>();
+    // Guarded by this
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    /**
+     * Index a chunk's text under its content hash, unless that hash is already indexed.
+     *
+     * @return whether the chunk was added
+     */
+    public synchronized boolean add(String contentHash, String text) {
+        if (ordinals.containsKey(contentHash)) {
+            return false;
+        }
+        int ordinal = index.add(text);
+        contentHashes.set(ordinal, contentHash);
+        ordinals.put(contentHash, ordinal);
+        return true;
+    }
+
+    /**
+     * Remove a content hash from the index.
+     *
+     * @param text the chunk text the hash was added with
+     * @return whether the hash was indexed
+     */
+    public synchronized boolean remove(String contentHash, String text) {
+        Integer ordinal = ordinals.remove(contentHash);
+        if (ordinal == null) {
+            return false;
+        }
+        index.remove(ordinal, text);
+        contentHashes.set(ordinal, null);
+        return true;
+    }
+
+    public synchronized boolean contains(String contentHash) {
+        return ordinals.containsKey(contentHash);
+    }
+
+    /**
+     * Content hashes of the best matching chunks, best first.
+     */
+    public List<String> search(String query, int k) {
+        List<ScoredDoc> hits = index.search(query, k, null);
+        List<String> result = new ArrayList<>(hits.size());
+        for (ScoredDoc hit : hits) {
+            String contentHash = contentHashes.get(hit.doc());
+            if (contentHash != null) {
+                result.add(contentHash);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public int termCount() {
+        return index.termCount();
+    }
+}
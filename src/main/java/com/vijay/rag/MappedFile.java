@@ -0,0 +1,108 @@
+package com.vijay.rag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only, little-endian memory mapping of a whole file.
+ * <p>
+ * A single mapping is limited to 2 GB, so larger files are mapped as several
+ * regions of {@code pageSize} bytes. Callers keep multi-byte values aligned to
+ * their size so that none straddles two regions. Nothing is read into the
+ * heap; the OS page cache holds whatever is in use.
+ */
+final class MappedFile {
+
+    static final long DEFAULT_PAGE_SIZE = 1L << 30;
+
+    private final Path path;
+    private final long length;
+    private final long pageSize;
+    private final long headerSize;
+    private final ByteBuffer[] pages;
+
+    private MappedFile(Path path, long length, long headerSize, long pageSize, ByteBuffer[] pages) {
+        this.path = path;
+        this.length = length;
+        this.headerSize = headerSize;
+        this.pageSize = pageSize;
+        this.pages = pages;
+    }
+
+    static MappedFile open(Path path) throws IOException {
+        return open(path, 0, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Map a file whose body, after {@code headerSize} bytes, is paged in regions of {@code pageSize} bytes.
+     * The header is mapped as its own region.
+     */
+    static MappedFile open(Path path, long headerSize, long pageSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long body = Math.max(0, length - headerSize);
+            int bodyPages = (int) ((body + pageSize - 1) / pageSize);
+            ByteBuffer[] pages = new ByteBuffer[bodyPages + 1];
+            pages[0] = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(headerSize, length)).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < bodyPages; i++) {
+                long offset = headerSize + i * pageSize;
+                pages[i + 1] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(pageSize, length - offset))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedFile(path, length, headerSize, pageSize, pages);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long length() {
+        return length;
+    }
+
+    /**
+     * Header region.
+     */
+    ByteBuffer header() {
+        return pages[0];
+    }
+
+    /**
+     * Body region holding the given body offset; use with {@link #offsetInPage(long)}.
+     */
+    ByteBuffer page(long bodyOffset) {
+        return pages[(int) (bodyOffset / pageSize) + 1];
+    }
+
+    int offsetInPage(long bodyOffset) {
+        return (int) (bodyOffset % pageSize);
+    }
+
+    int getInt(long bodyOffset) {
+        return page(bodyOffset).getInt(offsetInPage(bodyOffset));
+    }
+
+    long getLong(long bodyOffset) {
+        return page(bodyOffset).getLong(offsetInPage(bodyOffset));
+    }
+
+    /**
+     * Copy bytes starting at a body offset; the range may span regions.
+     */
+    void get(long bodyOffset, byte[] destination) {
+        int copied = 0;
+        while (copied < destination.length) {
+            long position = bodyOffset + copied;
+            ByteBuffer page = page(position);
+            int offset = offsetInPage(position);
+            int n = Math.min(destination.length - copied, page.limit() - offset);
+            page.get(offset, destination, copied, n);
+            copied += n;
+        }
+    }
+}
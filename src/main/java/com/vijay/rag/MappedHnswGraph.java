@@ -0,0 +1,95 @@
+package com.vijay.rag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * HNSW graph of a segment's {@code .hnsw} file, read through a memory mapping.
+ * <p>
+ * Body layout, all little-endian:
+ * <pre>
+ * int[count]                 level of each node
+ * int[count][1 + m0]         level-0 neighbour count and neighbours
+ * (padding to 8 bytes)
+ * long[count]                offset of the node's upper levels in the upper area, in ints, or -1
+ * int[...][1 + m]            upper-level neighbour counts and neighbours, levels 1..level of each node
+ * </pre>
+ */
+final class MappedHnswGraph implements HnswGraph {
+
+    static final int MAGIC = 0x484E5357;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private final MappedFile file;
+    private final int size;
+    private final int maxConnections;
+    private final int maxConnectionsLevel0;
+    private final EntryPoint entryPoint;
+    private final long level0Offset;
+    private final long upperOffsetsOffset;
+    private final long upperOffset;
+
+    private MappedHnswGraph(MappedFile file, int size, int maxConnections, int maxConnectionsLevel0, EntryPoint entryPoint) {
+        this.file = file;
+        this.size = size;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsLevel0 = maxConnectionsLevel0;
+        this.entryPoint = entryPoint;
+        this.level0Offset = (long) size * Integer.BYTES;
+        this.upperOffsetsOffset = align8(level0Offset + (long) size * (1 + maxConnectionsLevel0) * Integer.BYTES);
+        this.upperOffset = upperOffsetsOffset + (long) size * Long.BYTES;
+    }
+
+    static MappedHnswGraph open(Path path) throws IOException {
+        MappedFile file = MappedFile.open(path, HEADER_BYTES, MappedFile.DEFAULT_PAGE_SIZE);
+        ByteBuffer h = file.header();
+        if (h.getInt(0) != MAGIC || h.getInt(4) != VERSION) {
+            throw new IOException("Not an HNSW graph file: " + path);
+        }
+        int size = h.getInt(8);
+        int entryNode = h.getInt(20);
+        EntryPoint entryPoint = entryNode < 0 ? null : new EntryPoint(entryNode, h.getInt(24));
+        return new MappedHnswGraph(file, size, h.getInt(12), h.getInt(16), entryPoint);
+    }
+
+    static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public EntryPoint entryPoint() {
+        return entryPoint;
+    }
+
+    @Override
+    public int level(int node) {
+        return file.getInt((long) node * Integer.BYTES);
+    }
+
+    @Override
+    public int maxConnections(int level) {
+        return level == 0 ? maxConnectionsLevel0 : maxConnections;
+    }
+
+    @Override
+    public int neighbours(int node, int level, int[] buffer) {
+        long offset;
+        if (level == 0) {
+            offset = level0Offset + (long) node * (1 + maxConnectionsLevel0) * Integer.BYTES;
+        } else {
+            long upper = file.getLong(upperOffsetsOffset + (long) node * Long.BYTES);
+            offset = upperOffset + (upper + (long) (level - 1) * (1 + maxConnections)) * Integer.BYTES;
+        }
+        int count = file.getInt(offset);
+        for (int i = 0; i < count; i++) {
+            buffer[i] = file.getInt(offset + (long) (i + 1) * Integer.BYTES);
+        }
+        return count;
+    }
+}
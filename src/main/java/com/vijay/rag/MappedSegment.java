@@ -0,0 +1,297 @@
+package com.vijay.rag;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.search.ScoredDoc;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * A flushed, immutable segment read through memory mappings.
+ * Documents are decoded from {@code .meta} only when a search returns them.
+ * <p>
+ * When the segment has quantized codes, the graph is searched on the codes
+ * and the best {@code k * rerankFactor} candidates are re-scored against the
+ * full-precision vectors; with a factor of 0 the approximate scores are returned.
+ */
+final class MappedSegment implements Segment {
+
+    private static final TypeReference<Map<String, Object>> JSON = new TypeReference<>() {
+    };
+
+    private final String name;
+    private final MappedVectorValues vectors;
+    private final MappedHnswGraph graph;
+    private final QuantizedVectorValues codes;
+    private final int rerankFactor;
+    private final MappedFile documents;
+    private final MappedFile hashes;
+    private final ObjectMapper mapper;
+    private final int size;
+    // Per ordinal; null for segments written before documents had versions
+    private final String[] documentIds;
+    private final long[] versions;
+    private final MetadataIndex metadata;
+
+    private MappedSegment(String name, MappedVectorValues vectors, MappedHnswGraph graph, QuantizedVectorValues codes,
+                          int rerankFactor, MappedFile documents, MappedFile hashes, String[] documentIds, long[] versions,
+                          MetadataIndex metadata, ObjectMapper mapper) {
+        this.name = name;
+        this.vectors = vectors;
+        this.graph = graph;
+        this.codes = codes;
+        this.rerankFactor = rerankFactor;
+        this.documents = documents;
+        this.hashes = hashes;
+        this.mapper = mapper;
+        this.size = vectors.size();
+        this.documentIds = documentIds;
+        this.versions = versions;
+        this.metadata = metadata;
+    }
+
+    static MappedSegment open(Path directory, String name, int rerankFactor, ObjectMapper mapper) throws IOException {
+        MappedVectorValues vectors = MappedVectorValues.open(directory.resolve(name + SegmentWriter.VECTORS));
+        MappedHnswGraph graph = MappedHnswGraph.open(directory.resolve(name + SegmentWriter.GRAPH));
+        Path codesPath = directory.resolve(name + SegmentWriter.CODES);
+        QuantizedVectorValues codes = Files.exists(codesPath) ? QuantizedVectorValues.open(codesPath) : null;
+        if (codes != null && codes.size() != vectors.size()) {
+            throw new IOException("Segment " + name + " has " + vectors.size() + " vectors but " + codes.size() + " codes");
+        }
+        MappedFile documents = MappedFile.open(directory.resolve(name + SegmentWriter.DOCUMENTS),
+                SegmentWriter.HEADER_BYTES, MappedFile.DEFAULT_PAGE_SIZE);
+        MappedFile hashes = MappedFile.open(directory.resolve(name + SegmentWriter.HASHES),
+                SegmentWriter.HEADER_BYTES, MappedFile.DEFAULT_PAGE_SIZE);
+        check(documents, SegmentWriter.DOCUMENTS_MAGIC, SegmentWriter.VERSION, vectors.size());
+        check(hashes, SegmentWriter.HASHES_MAGIC, SegmentWriter.HASHES_VERSION, vectors.size());
+        if (graph.size() != vectors.size()) {
+            throw new IOException("Segment " + name + " has " + vectors.size() + " vectors but " + graph.size() + " graph nodes");
+        }
+        String[] documentIds = null;
+        long[] versions = null;
+        Path versionsPath = directory.resolve(name + SegmentWriter.DOCUMENT_VERSIONS);
+        if (Files.exists(versionsPath)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(versionsPath)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != SegmentWriter.DOCUMENT_VERSIONS_MAGIC || buffer.getInt(4) != SegmentWriter.VERSION
+                    || buffer.getInt(8) != vectors.size()) {
+                throw new IOException("Corrupt segment file " + versionsPath);
+            }
+            int size = vectors.size();
+            String[] ids = new String[buffer.getInt(12)];
+            buffer.position(SegmentWriter.HEADER_BYTES);
+            versions = new long[size];
+            for (int i = 0; i < size; i++) {
+                versions[i] = buffer.getLong();
+            }
+            int[] idIndexes = new int[size];
+            for (int i = 0; i < size; i++) {
+                idIndexes[i] = buffer.getInt();
+            }
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = getString(buffer);
+            }
+            documentIds = new String[size];
+            for (int i = 0; i < size; i++) {
+                documentIds[i] = idIndexes[i] < 0 ? null : ids[idIndexes[i]];
+            }
+        }
+        Path fieldsPath = directory.resolve(name + SegmentWriter.FIELDS);
+        MetadataIndex metadata = Files.exists(fieldsPath) ? readFields(fieldsPath, vectors.size()) : new MetadataIndex(Set.of());
+        return new MappedSegment(name, vectors, graph, codes, rerankFactor, documents, hashes, documentIds, versions,
+                metadata, mapper);
+    }
+
+    private static MetadataIndex readFields(Path path, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != SegmentWriter.FIELDS_MAGIC || buffer.getInt(4) != SegmentWriter.VERSION
+                || buffer.getInt(8) != size) {
+            throw new IOException("Corrupt segment file " + path);
+        }
+        int fieldCount = buffer.getInt(12);
+        buffer.position(SegmentWriter.HEADER_BYTES);
+        Map<String, Map<String, CompressedBitmap>> fields = new HashMap<>();
+        for (int f = 0; f < fieldCount; f++) {
+            String field = getString(buffer);
+            int valueCount = buffer.getInt();
+            Map<String, CompressedBitmap> values = new HashMap<>(valueCount * 2);
+            for (int v = 0; v < valueCount; v++) {
+                String value = getString(buffer);
+                int bytes = buffer.getInt();
+                int end = buffer.position() + bytes;
+                values.put(value, CompressedBitmap.read(buffer));
+                buffer.position(end);
+            }
+            fields.put(field, values);
+        }
+        return new MetadataIndex(fields);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void check(MappedFile file, int magic, int version, int size) throws IOException {
+        ByteBuffer header = file.header();
+        if (header.getInt(0) != magic || header.getInt(4) != version || header.getInt(8) != size) {
+            throw new IOException("Corrupt segment file " + file.path());
+        }
+    }
+
+    VectorMetric metric() {
+        return vectors.metric();
+    }
+
+    VectorEncoding encoding() {
+        return codes == null ? VectorEncoding.FLOAT32 : codes.encoding();
+    }
+
+    /**
+     * Bytes per vector that searches page through.
+     */
+    int searchBytesPerVector() {
+        return codes == null ? vectors.dimensions() * Float.BYTES : codes.codeBytes();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public VectorValues vectors() {
+        return vectors;
+    }
+
+    @Override
+    public HnswGraph graph() {
+        return graph;
+    }
+
+    @Override
+    public List<ScoredDoc> search(float[] preparedQuery, int k, int ef, IntPredicate filter, int visitLimit) {
+        if (codes == null) {
+            return HnswSearcher.search(graph, vectors, preparedQuery, k, ef, filter, visitLimit);
+        }
+        if (rerankFactor <= 0) {
+            return HnswSearcher.search(graph, codes, preparedQuery, k, ef, filter, visitLimit);
+        }
+        int candidates = k * rerankFactor;
+        List<ScoredDoc> approximate = HnswSearcher.search(graph, codes, preparedQuery, candidates, Math.max(ef, candidates),
+                filter, visitLimit);
+        if (approximate == null) {
+            return null;
+        }
+        List<ScoredDoc> exact = new ArrayList<>(approximate.size());
+        for (ScoredDoc hit : approximate) {
+            exact.add(new ScoredDoc(hit.doc(), vectors.dot(preparedQuery, hit.doc())));
+        }
+        exact.sort(Comparator.comparingDouble(ScoredDoc::score).reversed());
+        return exact.size() > k ? exact.subList(0, k) : exact;
+    }
+
+    @Override
+    public Document document(int ordinal) {
+        long offsets = (long) (size + 1) * Long.BYTES;
+        long start = documents.getLong((long) ordinal * Long.BYTES);
+        long end = documents.getLong((long) (ordinal + 1) * Long.BYTES);
+        byte[] bytes = new byte[(int) (end - start)];
+        documents.get(offsets + start, bytes);
+        try {
+            Map<String, Object> json = mapper.readValue(bytes, JSON);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> metadata = (Map<String, Object>) json.getOrDefault("metadata", Map.of());
+            return Document.builder()
+                    .id((String) json.get("id"))
+                    .text((String) json.get("text"))
+                    .metadata(metadata)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt document " + ordinal + " in segment " + name, e);
+        }
+    }
+
+    /**
+     * Fields missing from {@code .fields} are indexed on first use by decoding every document.
+     */
+    @Override
+    public CompressedBitmap matching(MetadataFilter filter) {
+        return metadata.matching(filter, size, ordinal -> document(ordinal).getMetadata());
+    }
+
+    @Override
+    public Set<String> indexedFields() {
+        return metadata.fields().keySet();
+    }
+
+    @Override
+    public String documentId(int ordinal) {
+        return documentIds == null ? null : documentIds[ordinal];
+    }
+
+    @Override
+    public long version(int ordinal) {
+        return versions == null ? 0 : versions[ordinal];
+    }
+
+    @Override
+    public int ordinalOf(String contentHash) {
+        byte[] key = SegmentWriter.decodeHash(contentHash);
+        byte[] probe = new byte[SegmentWriter.HASH_BYTES];
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = (long) mid * SegmentWriter.HASH_ENTRY_BYTES;
+            hashes.get(entry, probe);
+            int cmp = Arrays.compareUnsigned(probe, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                // Entries with equal hashes are in ordinal order; take the last one added
+                while (mid + 1 < size && hashEquals(mid + 1, key, probe)) {
+                    mid++;
+                }
+                return readInt((long) mid * SegmentWriter.HASH_ENTRY_BYTES + SegmentWriter.HASH_BYTES);
+            }
+        }
+        return -1;
+    }
+
+    private boolean hashEquals(int index, byte[] key, byte[] probe) {
+        hashes.get((long) index * SegmentWriter.HASH_ENTRY_BYTES, probe);
+        return Arrays.equals(probe, key);
+    }
+
+    /**
+     * Hash entries are 20 bytes, so their ordinals are unaligned and may straddle mapped regions.
+     */
+    private int readInt(long offset) {
+        byte[] bytes = new byte[Integer.BYTES];
+        hashes.get(offset, bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+}
@@ -0,0 +1,92 @@
+package com.vijay.rag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+
+/**
+ * Float32 vectors of a segment's {@code .vec} file, read through a memory mapping.
+ * Vectors never straddle two mapped regions, so each is scored straight from its region.
+ */
+final class MappedVectorValues implements VectorValues {
+
+    static final int MAGIC = 0x56454353;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int ENCODING_FLOAT32 = 0;
+
+    private final MappedFile file;
+    private final int dimensions;
+    private final int size;
+    private final VectorMetric metric;
+    private final int vectorsPerPage;
+    private final FloatBuffer[] pages;
+
+    private MappedVectorValues(MappedFile file, int dimensions, int size, VectorMetric metric, int vectorsPerPage) {
+        this.file = file;
+        this.dimensions = dimensions;
+        this.size = size;
+        this.metric = metric;
+        this.vectorsPerPage = vectorsPerPage;
+        int pageCount = size == 0 ? 0 : (size - 1) / vectorsPerPage + 1;
+        this.pages = new FloatBuffer[pageCount];
+        long pageBytes = (long) vectorsPerPage * dimensions * Float.BYTES;
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = file.page(i * pageBytes).asFloatBuffer();
+        }
+    }
+
+    static MappedVectorValues open(Path path) throws IOException {
+        MappedFile header = MappedFile.open(path, HEADER_BYTES, MappedFile.DEFAULT_PAGE_SIZE);
+        ByteBuffer h = header.header();
+        if (h.getInt(0) != MAGIC || h.getInt(4) != VERSION) {
+            throw new IOException("Not a vector file: " + path);
+        }
+        int dimensions = h.getInt(8);
+        int size = h.getInt(12);
+        VectorMetric metric = VectorMetric.values()[h.getInt(16)];
+        if (h.getInt(20) != ENCODING_FLOAT32) {
+            throw new IOException("Unsupported vector encoding " + h.getInt(20) + " in " + path);
+        }
+        long stride = (long) dimensions * Float.BYTES;
+        int vectorsPerPage = (int) Math.max(1, MappedFile.DEFAULT_PAGE_SIZE / stride);
+        MappedFile file = MappedFile.open(path, HEADER_BYTES, vectorsPerPage * stride);
+        return new MappedVectorValues(file, dimensions, size, metric, vectorsPerPage);
+    }
+
+    VectorMetric metric() {
+        return metric;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public float[] vector(int ordinal) {
+        float[] vector = new float[dimensions];
+        pages[ordinal / vectorsPerPage].get((ordinal % vectorsPerPage) * dimensions, vector);
+        return vector;
+    }
+
+    /**
+     * Copies each stored vector into a scratch array so it is scored by the
+     * selected {@link VectorKernels}; the copy is a bulk move from the mapping.
+     */
+    @Override
+    public VectorScorer scorer(float[] query) {
+        float[] scratch = new float[dimensions];
+        VectorKernels kernels = VectorMath.kernels();
+        return ordinal -> {
+            pages[ordinal / vectorsPerPage].get((ordinal % vectorsPerPage) * dimensions, scratch);
+            return kernels.dot(query, scratch);
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.vijay.rag;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Restricts a search to documents whose metadata matches: for every field,
+ * the document's value must be one of the allowed values. Values are
+ * compared as strings.
+ */
+public final class MetadataFilter {
+
+    private final Map<String, Set<String>> clauses;
+
+    private MetadataFilter(Map<String, Set<String>> clauses) {
+        this.clauses = clauses;
+    }
+
+    public static MetadataFilter where(String field, String... values) {
+        return new MetadataFilter(Map.of()).and(field, values);
+    }
+
+    /**
+     * Filter from field to allowed values, or null when there is nothing to filter on.
+     */
+    public static MetadataFilter of(Map<String, ? extends Collection<String>> clauses) {
+        if (clauses == null || clauses.isEmpty()) {
+            return null;
+        }
+        MetadataFilter filter = new MetadataFilter(Map.of());
+        for (Map.Entry<String, ? extends Collection<String>> clause : clauses.entrySet()) {
+            // Immutable collections throw on contains(null), so nulls are looked for by hand
+            if (clause.getValue() == null || clause.getValue().stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("No values for " + clause.getKey());
+            }
+            filter = filter.and(clause.getKey(), clause.getValue().toArray(String[]::new));
+        }
+        return filter;
+    }
+
+    /**
+     * Parse {@code field:value} terms; terms on the same field are alternatives.
+     */
+    public static MetadataFilter parse(List<String> terms) {
+        if (terms == null || terms.isEmpty()) {
+            return null;
+        }
+        Map<String, Set<String>> clauses = new LinkedHashMap<>();
+        for (String term : terms) {
+            int colon = term.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Expected field:value, got " + term);
+            }
+            clauses.computeIfAbsent(term.substring(0, colon).strip(), field -> new LinkedHashSet<>())
+                    .add(term.substring(colon + 1).strip());
+        }
+        return new MetadataFilter(Map.copyOf(clauses));
+    }
+
+    /**
+     * This filter with one more field restricted to the given values.
+     */
+    public MetadataFilter and(String field, String... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No values for " + field);
+        }
+        Map<String, Set<String>> next = new LinkedHashMap<>(clauses);
+        next.put(field, Set.copyOf(List.of(values)));
+        return new MetadataFilter(Map.copyOf(next));
+    }
+
+    public Map<String, Set<String>> clauses() {
+        return clauses;
+    }
+
+    public boolean matches(Map<String, Object> metadata) {
+        for (Map.Entry<String, Set<String>> clause : clauses.entrySet()) {
+            Object value = metadata.get(clause.getKey());
+            if (value == null || !clause.getValue().contains(value.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return clauses.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.vijay.rag;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Per segment, a {@link CompressedBitmap} of the ordinals holding each value
+ * of the indexed metadata fields.
+ * <p>
+ * A filter on a field that is not indexed yet indexes it first by reading
+ * the metadata of every ordinal, so fields can be filtered on without being
+ * configured; configuring them indexes them as chunks are added and stores
+ * the bitmaps with the segment. Access is synchronized, and
+ * {@link #matching} returns fresh bitmaps, so an on-heap segment can keep
+ * adding while searches use earlier results.
+ */
+final class MetadataIndex {
+
+    private final Map<String, Map<String, CompressedBitmap>> fields;
+
+    MetadataIndex(Collection<String> fields) {
+        this.fields = new HashMap<>();
+        for (String field : fields) {
+            this.fields.put(field, new HashMap<>());
+        }
+    }
+
+    MetadataIndex(Map<String, Map<String, CompressedBitmap>> fields) {
+        this.fields = new HashMap<>(fields);
+    }
+
+    synchronized void add(int ordinal, Map<String, Object> metadata) {
+        for (Map.Entry<String, Map<String, CompressedBitmap>> field : fields.entrySet()) {
+            Object value = metadata.get(field.getKey());
+            if (value != null) {
+                field.getValue().computeIfAbsent(value.toString(), v -> new CompressedBitmap()).add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Ordinals below {@code size} matching the filter.
+     *
+     * @param metadata metadata of an ordinal, or null if it is not visible yet; only used to index new fields
+     */
+    synchronized CompressedBitmap matching(MetadataFilter filter, int size, IntFunction<Map<String, Object>> metadata) {
+        CompressedBitmap result = null;
+        for (Map.Entry<String, Set<String>> clause : filter.clauses().entrySet()) {
+            Map<String, CompressedBitmap> values = fields.get(clause.getKey());
+            if (values == null) {
+                values = index(clause.getKey(), size, metadata);
+            }
+            CompressedBitmap union = new CompressedBitmap();
+            for (String value : clause.getValue()) {
+                CompressedBitmap ordinals = values.get(value);
+                if (ordinals != null) {
+                    union = CompressedBitmap.or(union, ordinals);
+                }
+            }
+            result = result == null ? union : CompressedBitmap.and(result, union);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new CompressedBitmap() : result;
+    }
+
+    /**
+     * The indexed fields with their value bitmaps; callers must not modify them.
+     */
+    synchronized Map<String, Map<String, CompressedBitmap>> fields() {
+        return Map.copyOf(fields);
+    }
+
+    private Map<String, CompressedBitmap> index(String field, int size, IntFunction<Map<String, Object>> metadata) {
+        Map<String, CompressedBitmap> values = new HashMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Map<String, Object> document = metadata.apply(ordinal);
+            Object value = document == null ? null : document.get(field);
+            if (value != null) {
+                values.computeIfAbsent(value.toString(), v -> new CompressedBitmap()).add(ordinal);
+            }
+        }
+        fields.put(field, values);
+        return values;
+    }
+}
@@ -0,0 +1,112 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary heap of (node, score) pairs on primitive arrays.
+ * A min-queue keeps the worst score on top (result sets); a max-queue keeps
+ * the best on top (candidate frontiers).
+ */
+final class NeighborQueue {
+
+    private final boolean maxOnTop;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NeighborQueue(int initialCapacity, boolean maxOnTop) {
+        this.maxOnTop = maxOnTop;
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.scores = new float[Math.max(1, initialCapacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float score = scores[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                    child++;
+                }
+                if (!before(scores[child], score)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+        return top;
+    }
+
+    /**
+     * Drain the queue into a list ordered by descending score.
+     */
+    List<ScoredDoc> drainDescending() {
+        ScoredDoc[] drained = new ScoredDoc[size];
+        if (maxOnTop) {
+            for (int i = 0; i < drained.length; i++) {
+                float score = topScore();
+                drained[i] = new ScoredDoc(pop(), score);
+            }
+        } else {
+            for (int i = drained.length - 1; i >= 0; i--) {
+                float score = topScore();
+                drained[i] = new ScoredDoc(pop(), score);
+            }
+        }
+        return new ArrayList<>(List.of(drained));
+    }
+
+    private boolean before(float a, float b) {
+        return maxOnTop ? a > b : a < b;
+    }
+}
@@ -0,0 +1,123 @@
+package com.vijay.rag;
+
+import org.springframework.ai.document.Document;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The segment new documents are added to, held on heap until it is flushed.
+ */
+final class OnHeapSegment implements Segment {
+
+    private final String name;
+    private final HnswIndex index;
+    private final ChunkedArray<Document> documents = new ChunkedArray<>();
+    private final ChunkedArray<DocumentVersion> versions = new ChunkedArray<>();
+    private final Map<String, Integer> contentHashes = new ConcurrentHashMap<>();
+    private final MetadataIndex metadata;
+
+    OnHeapSegment(String name, HnswIndex index) {
+        this(name, index, Set.of());
+    }
+
+    /**
+     * @param filterFields metadata fields to keep bitmap indexes for as documents are added
+     */
+    OnHeapSegment(String name, HnswIndex index, Set<String> filterFields) {
+        this.name = name;
+        this.index = index;
+        this.metadata = new MetadataIndex(filterFields);
+    }
+
+    /**
+     * Add a chunk, taking its document id and version from the store's metadata keys.
+     */
+    void add(Document document, float[] vector) {
+        Object documentId = document.getMetadata().get(SegmentedVectorStore.DOCUMENT_ID);
+        Object version = document.getMetadata().get(SegmentedVectorStore.DOCUMENT_VERSION);
+        add(document, vector, documentId == null ? null : documentId.toString(),
+                version instanceof Number number ? number.longValue() : 0);
+    }
+
+    void add(Document document, float[] vector, String documentId, long version) {
+        int ordinal = index.add(vector);
+        // Set before the document, so a chunk whose document is visible has its version visible too
+        if (documentId != null) {
+            versions.set(ordinal, new DocumentVersion(documentId, version));
+        }
+        documents.set(ordinal, document);
+        contentHashes.put(ContentHash.of(document.getText()), ordinal);
+        metadata.add(ordinal, document.getMetadata());
+    }
+
+    HnswIndex index() {
+        return index;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public VectorValues vectors() {
+        return index.vectors();
+    }
+
+    @Override
+    public HnswGraph graph() {
+        return index;
+    }
+
+    @Override
+    public Document document(int ordinal) {
+        return documents.get(ordinal);
+    }
+
+    @Override
+    public CompressedBitmap matching(MetadataFilter filter) {
+        return metadata.matching(filter, size(), ordinal -> {
+            Document document = documents.get(ordinal);
+            return document == null ? null : document.getMetadata();
+        });
+    }
+
+    @Override
+    public Set<String> indexedFields() {
+        return metadata.fields().keySet();
+    }
+
+    /**
+     * The metadata bitmaps, for writing the segment.
+     */
+    Map<String, Map<String, CompressedBitmap>> metadataIndex() {
+        return metadata.fields();
+    }
+
+    @Override
+    public String documentId(int ordinal) {
+        DocumentVersion version = versions.get(ordinal);
+        return version == null ? null : version.documentId();
+    }
+
+    @Override
+    public long version(int ordinal) {
+        DocumentVersion version = versions.get(ordinal);
+        return version == null ? 0 : version.version();
+    }
+
+    @Override
+    public int ordinalOf(String contentHash) {
+        return contentHashes.getOrDefault(contentHash, -1);
+    }
+
+    private record DocumentVersion(String documentId, long version) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.vijay.rag;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only vectors on the Java heap.
+ */
+public class OnHeapVectorValues implements VectorValues {
+
+    private final int dimensions;
+    private final ChunkedArray<float[]> vectors = new ChunkedArray<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public OnHeapVectorValues(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Reserve the next ordinal and store the vector under it.
+     */
+    public int append(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + vector.length);
+        }
+        int ordinal = size.getAndIncrement();
+        vectors.set(ordinal, vector);
+        return ordinal;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public float[] vector(int ordinal) {
+        return vectors.get(ordinal);
+    }
+}
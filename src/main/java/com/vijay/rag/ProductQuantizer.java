@@ -0,0 +1,225 @@
+package com.vijay.rag;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Product quantization: vectors are split into {@code m} subvectors and each
+ * subvector is replaced by the index of its nearest of up to 256 centroids,
+ * learnt by k-means on a sample of the segment.
+ * <p>
+ * For a query, the dot product of each query subvector with every centroid is
+ * tabulated once; scoring a code is then {@code m} table lookups.
+ */
+final class ProductQuantizer extends VectorQuantizer {
+
+    private static final int CENTROIDS = 256;
+    private static final int TRAINING_SAMPLE = 5_000;
+    private static final int ITERATIONS = 10;
+
+    private final int dimensions;
+    private final int[] starts;
+    private final int centroids;
+    /**
+     * Per subvector {@code j}, {@code centroids} rows of {@code starts[j + 1] - starts[j]} floats.
+     */
+    private final float[][] codebooks;
+
+    private ProductQuantizer(int dimensions, int subvectors, int centroids, float[][] codebooks) {
+        this.dimensions = dimensions;
+        this.starts = starts(dimensions, subvectors);
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+    }
+
+    static ProductQuantizer train(VectorValues vectors, int subvectors) {
+        int dimensions = vectors.dimensions();
+        subvectors = Math.max(1, Math.min(subvectors, dimensions));
+        int[] starts = starts(dimensions, subvectors);
+        float[][] sample = sample(vectors, new Random(42));
+        int centroids = Math.min(CENTROIDS, sample.length);
+        float[][] codebooks = new float[subvectors][];
+        for (int j = 0; j < subvectors; j++) {
+            codebooks[j] = kMeans(sample, starts[j], starts[j + 1] - starts[j], centroids, new Random(42 + j));
+        }
+        return new ProductQuantizer(dimensions, subvectors, centroids, codebooks);
+    }
+
+    static ProductQuantizer read(int dimensions, int[] parameters, float[] codebook) {
+        int subvectors = parameters[0];
+        int centroids = parameters[1];
+        int[] starts = starts(dimensions, subvectors);
+        float[][] codebooks = new float[subvectors][];
+        int offset = 0;
+        for (int j = 0; j < subvectors; j++) {
+            int length = centroids * (starts[j + 1] - starts[j]);
+            codebooks[j] = Arrays.copyOfRange(codebook, offset, offset + length);
+            offset += length;
+        }
+        return new ProductQuantizer(dimensions, subvectors, centroids, codebooks);
+    }
+
+    private static int[] starts(int dimensions, int subvectors) {
+        int[] starts = new int[subvectors + 1];
+        for (int j = 0; j <= subvectors; j++) {
+            starts[j] = (int) ((long) j * dimensions / subvectors);
+        }
+        return starts;
+    }
+
+    private static float[][] sample(VectorValues vectors, Random random) {
+        int size = vectors.size();
+        int n = Math.min(size, TRAINING_SAMPLE);
+        float[][] sample = new float[n][];
+        // Reservoir sampling keeps the sample uniform without materializing all ordinals
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (ordinal < n) {
+                sample[ordinal] = vectors.vector(ordinal);
+            } else {
+                int slot = random.nextInt(ordinal + 1);
+                if (slot < n) {
+                    sample[slot] = vectors.vector(ordinal);
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * Lloyd's k-means over one subvector of the sample; empty clusters are reseeded from a random point.
+     */
+    private static float[] kMeans(float[][] sample, int start, int length, int k, Random random) {
+        float[] centroids = new float[k * length];
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(sample[c * sample.length / k], start, centroids, c * length, length);
+        }
+        int[] assignment = new int[sample.length];
+        float[] sums = new float[k * length];
+        int[] counts = new int[k];
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            boolean changed = false;
+            for (int i = 0; i < sample.length; i++) {
+                int nearest = nearest(centroids, k, sample[i], start, length);
+                changed |= nearest != assignment[i] || iteration == 0;
+                assignment[i] = nearest;
+            }
+            if (!changed) {
+                break;
+            }
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < sample.length; i++) {
+                int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < length; d++) {
+                    sums[c * length + d] += sample[i][start + d];
+                }
+            }
+            for (int c = 0; c < k; c++) {
+                if (counts[c] == 0) {
+                    System.arraycopy(sample[random.nextInt(sample.length)], start, centroids, c * length, length);
+                    continue;
+                }
+                for (int d = 0; d < length; d++) {
+                    centroids[c * length + d] = sums[c * length + d] / counts[c];
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearest(float[] centroids, int k, float[] vector, int start, int length) {
+        int best = 0;
+        float bestDistance = Float.MAX_VALUE;
+        for (int c = 0; c < k; c++) {
+            float distance = 0f;
+            int base = c * length;
+            for (int d = 0; d < length; d++) {
+                float diff = vector[start + d] - centroids[base + d];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    VectorEncoding encoding() {
+        return VectorEncoding.PQ;
+    }
+
+    @Override
+    int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    int codeBytes() {
+        return codebooks.length;
+    }
+
+    @Override
+    void encode(float[] vector, byte[] code) {
+        for (int j = 0; j < codebooks.length; j++) {
+            code[j] = (byte) nearest(codebooks[j], centroids, vector, starts[j], starts[j + 1] - starts[j]);
+        }
+    }
+
+    @Override
+    float[] decode(byte[] code) {
+        float[] vector = new float[dimensions];
+        for (int j = 0; j < codebooks.length; j++) {
+            int length = starts[j + 1] - starts[j];
+            System.arraycopy(codebooks[j], (code[j] & 0xFF) * length, vector, starts[j], length);
+        }
+        return vector;
+    }
+
+    @Override
+    VectorScorer scorer(float[] query, CodeReader codes) {
+        int subvectors = codebooks.length;
+        float[] table = new float[subvectors * CENTROIDS];
+        for (int j = 0; j < subvectors; j++) {
+            int length = starts[j + 1] - starts[j];
+            for (int c = 0; c < centroids; c++) {
+                float dot = 0f;
+                for (int d = 0; d < length; d++) {
+                    dot += query[starts[j] + d] * codebooks[j][c * length + d];
+                }
+                table[j * CENTROIDS + c] = dot;
+            }
+        }
+        byte[] code = new byte[subvectors];
+        return ordinal -> {
+            codes.read(ordinal, code);
+            float sum = 0f;
+            for (int j = 0; j < subvectors; j++) {
+                sum += table[j * CENTROIDS + (code[j] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    int[] parameters() {
+        return new int[]{codebooks.length, centroids};
+    }
+
+    @Override
+    float[] codebook() {
+        int total = 0;
+        for (float[] codebook : codebooks) {
+            total += codebook.length;
+        }
+        float[] flat = new float[total];
+        int offset = 0;
+        for (float[] codebook : codebooks) {
+            System.arraycopy(codebook, 0, flat, offset, codebook.length);
+            offset += codebook.length;
+        }
+        return flat;
+    }
+}
@@ -0,0 +1,102 @@
+package com.vijay.rag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+/**
+ * Quantized codes of a segment's {@code .codes} file, read through a memory
+ * mapping. The codebook follows the header and is loaded on heap; the codes
+ * are paged so that none straddles two mapped regions.
+ * <p>
+ * Header: magic, version, encoding, count, dimensions, code bytes, two
+ * quantizer parameters and the codebook length in floats.
+ */
+final class QuantizedVectorValues implements VectorValues {
+
+    static final int MAGIC = 0x434F4445;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 48;
+
+    private final VectorQuantizer quantizer;
+    private final int size;
+    private final int codeBytes;
+    private final int codesPerPage;
+    private final ByteBuffer[] pages;
+    private final VectorQuantizer.CodeReader reader;
+
+    private QuantizedVectorValues(MappedFile file, VectorQuantizer quantizer, int size, int codesPerPage) {
+        this.quantizer = quantizer;
+        this.size = size;
+        this.codeBytes = quantizer.codeBytes();
+        this.codesPerPage = codesPerPage;
+        int pageCount = size == 0 ? 0 : (size - 1) / codesPerPage + 1;
+        this.pages = new ByteBuffer[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pages[i] = file.page((long) i * codesPerPage * codeBytes);
+        }
+        this.reader = (ordinal, code) -> pages[ordinal / codesPerPage].get((ordinal % codesPerPage) * codeBytes, code);
+    }
+
+    static QuantizedVectorValues open(Path path) throws IOException {
+        ByteBuffer h = MappedFile.open(path, HEADER_BYTES, MappedFile.DEFAULT_PAGE_SIZE).header();
+        if (h.getInt(0) != MAGIC || h.getInt(4) != VERSION) {
+            throw new IOException("Not a vector code file: " + path);
+        }
+        VectorEncoding encoding = VectorEncoding.values()[h.getInt(8)];
+        int size = h.getInt(12);
+        int dimensions = h.getInt(16);
+        int codeBytes = h.getInt(20);
+        int[] parameters = {h.getInt(24), h.getInt(28)};
+        int codebookLength = h.getInt(32);
+
+        int codesPerPage = (int) Math.max(1, MappedFile.DEFAULT_PAGE_SIZE / codeBytes);
+        MappedFile file = MappedFile.open(path, HEADER_BYTES + (long) codebookLength * Float.BYTES, (long) codesPerPage * codeBytes);
+        float[] codebook = new float[codebookLength];
+        file.header().duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_BYTES).asFloatBuffer().get(codebook);
+        VectorQuantizer quantizer = VectorQuantizer.read(encoding, dimensions, parameters, codebook);
+        if (quantizer.codeBytes() != codeBytes) {
+            throw new IOException("Corrupt vector code file: " + path);
+        }
+        return new QuantizedVectorValues(file, quantizer, size, codesPerPage);
+    }
+
+    VectorEncoding encoding() {
+        return quantizer.encoding();
+    }
+
+    /**
+     * Bytes one encoded vector takes.
+     */
+    int codeBytes() {
+        return codeBytes;
+    }
+
+    @Override
+    public int dimensions() {
+        return quantizer.dimensions();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public float[] vector(int ordinal) {
+        byte[] code = new byte[codeBytes];
+        reader.read(ordinal, code);
+        return quantizer.decode(code);
+    }
+
+    @Override
+    public float dot(float[] query, int ordinal) {
+        return scorer(query).score(ordinal);
+    }
+
+    @Override
+    public VectorScorer scorer(float[] query) {
+        return quantizer.scorer(query, reader);
+    }
+}
@@ -0,0 +1,109 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+import com.vijay.search.TopK;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Second retrieval stage: re-scores first-stage candidates with a slower,
+ * more accurate {@link Scorer} such as a cross-encoder or an LLM judge.
+ * <p>
+ * Candidates are split into batches of {@code batchSize} that are scored in
+ * parallel on the given executor, and the best {@code k} are kept in a
+ * bounded heap. The whole stage has a latency budget: if any batch is still
+ * running when it runs out, or fails, {@link #rerank} returns null so the
+ * caller keeps the first-stage order. Batches not started yet are then
+ * dropped from the queue and running ones are interrupted; a scorer that
+ * blocks without responding to interrupts keeps its thread until it returns.
+ */
+@Slf4j
+public class Reranker {
+
+    /**
+     * Relevance of each passage to the query, higher is better, in passage order.
+     */
+    @FunctionalInterface
+    public interface Scorer {
+
+        float[] score(String query, List<String> passages) throws Exception;
+    }
+
+    private final Scorer scorer;
+    private final int batchSize;
+    private final ExecutorService executor;
+
+    public Reranker(Scorer scorer, int batchSize, ExecutorService executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.scorer = scorer;
+        this.batchSize = batchSize;
+        this.executor = executor;
+    }
+
+    /**
+     * The {@code k} best candidates as indexes into {@code passages} with their new scores, best first,
+     * or null if scoring failed or did not finish within {@code budgetMillis}.
+     */
+    public List<ScoredDoc> rerank(String query, List<String> passages, int k, long budgetMillis) {
+        if (passages.isEmpty()) {
+            return List.of();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        // Submitted rather than run as CompletableFutures, whose cancel does not interrupt the scoring thread
+        List<Future<float[]>> batches = new ArrayList<>();
+        for (int start = 0; start < passages.size(); start += batchSize) {
+            List<String> batch = passages.subList(start, Math.min(passages.size(), start + batchSize));
+            batches.add(executor.submit(() -> score(query, batch)));
+        }
+        List<float[]> scored = new ArrayList<>(batches.size());
+        try {
+            for (Future<float[]> batch : batches) {
+                scored.add(batch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            return null;
+        } catch (ExecutionException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            log.warn("RAG: Rerank batch failed: {}", e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        TopK top = new TopK(Math.max(1, k));
+        for (int b = 0; b < scored.size(); b++) {
+            float[] scores = scored.get(b);
+            for (int i = 0; i < scores.length; i++) {
+                top.offer(b * batchSize + i, scores[i]);
+            }
+        }
+        return top.toSortedList();
+    }
+
+    private float[] score(String query, List<String> batch) {
+        float[] scores;
+        try {
+            scores = scorer.score(query, batch);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        if (scores.length != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size() + " scores, got " + scores.length);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,113 @@
+package com.vijay.rag;
+
+import java.util.Arrays;
+
+/**
+ * int8 scalar quantization: each dimension is mapped linearly from its
+ * observed range onto 0..255.
+ * <p>
+ * A stored value is approximately {@code min[i] + scale[i] * code[i]}, so a
+ * query's dot product with it is {@code sum(q[i] * min[i]) + sum(q[i] * scale[i] * code[i])};
+ * the first term and the weights are computed once per query.
+ */
+final class ScalarQuantizer extends VectorQuantizer {
+
+    private final float[] min;
+    private final float[] scale;
+
+    private ScalarQuantizer(float[] min, float[] scale) {
+        this.min = min;
+        this.scale = scale;
+    }
+
+    static ScalarQuantizer train(VectorValues vectors) {
+        int dimensions = vectors.dimensions();
+        float[] min = new float[dimensions];
+        float[] max = new float[dimensions];
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            float[] vector = vectors.vector(ordinal);
+            for (int i = 0; i < dimensions; i++) {
+                min[i] = Math.min(min[i], vector[i]);
+                max[i] = Math.max(max[i], vector[i]);
+            }
+        }
+        float[] scale = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            if (min[i] > max[i]) {
+                min[i] = 0f;
+            } else {
+                scale[i] = (max[i] - min[i]) / 255f;
+            }
+        }
+        return new ScalarQuantizer(min, scale);
+    }
+
+    static ScalarQuantizer read(int dimensions, float[] codebook) {
+        return new ScalarQuantizer(Arrays.copyOfRange(codebook, 0, dimensions),
+                Arrays.copyOfRange(codebook, dimensions, 2 * dimensions));
+    }
+
+    @Override
+    VectorEncoding encoding() {
+        return VectorEncoding.INT8;
+    }
+
+    @Override
+    int dimensions() {
+        return min.length;
+    }
+
+    @Override
+    int codeBytes() {
+        return min.length;
+    }
+
+    @Override
+    void encode(float[] vector, byte[] code) {
+        for (int i = 0; i < min.length; i++) {
+            int q = scale[i] == 0f ? 0 : Math.round((vector[i] - min[i]) / scale[i]);
+            code[i] = (byte) Math.max(0, Math.min(255, q));
+        }
+    }
+
+    @Override
+    float[] decode(byte[] code) {
+        float[] vector = new float[min.length];
+        for (int i = 0; i < min.length; i++) {
+            vector[i] = min[i] + scale[i] * (code[i] & 0xFF);
+        }
+        return vector;
+    }
+
+    @Override
+    VectorScorer scorer(float[] query, CodeReader codes) {
+        int dimensions = min.length;
+        float[] weights = new float[dimensions];
+        float base = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            weights[i] = query[i] * scale[i];
+            base += query[i] * min[i];
+        }
+        float offset = base;
+        byte[] code = new byte[dimensions];
+        return ordinal -> {
+            codes.read(ordinal, code);
+            return offset + VectorMath.kernels().dotUnsigned(weights, code);
+        };
+    }
+
+    @Override
+    int[] parameters() {
+        return new int[]{0, 0};
+    }
+
+    @Override
+    float[] codebook() {
+        float[] codebook = new float[2 * min.length];
+        System.arraycopy(min, 0, codebook, 0, min.length);
+        System.arraycopy(scale, 0, codebook, min.length, scale.length);
+        return codebook;
+    }
+}
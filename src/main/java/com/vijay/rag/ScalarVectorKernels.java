@@ -0,0 +1,69 @@
+package com.vijay.rag;
+
+/**
+ * Plain Java loops; always available.
+ */
+final class ScalarVectorKernels implements VectorKernels {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        float dot = 0f;
+        float normA = 0f;
+        float normB = 0f;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0f || normB == 0f ? 0f : (float) (dot / Math.sqrt((double) normA * normB));
+    }
+
+    @Override
+    public float squareDistance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotUnsigned(float[] weights, byte[] codes) {
+        float sum = 0f;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i] * (codes[i] & 0xFF);
+        }
+        return sum;
+    }
+
+    @Override
+    public void dotMany(float[] query, float[][] vectors, float[] scores) {
+        for (int i = 0; i < vectors.length; i++) {
+            scores[i] = dot(query, vectors[i]);
+        }
+    }
+}
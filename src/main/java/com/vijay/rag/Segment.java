@@ -0,0 +1,73 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * A searchable group of documents with their vectors and HNSW graph.
+ * Ordinals are local to the segment.
+ */
+interface Segment {
+
+    String name();
+
+    int size();
+
+    VectorValues vectors();
+
+    HnswGraph graph();
+
+    /**
+     * Nearest neighbours of a query already prepared for the store's metric, best first.
+     */
+    default List<ScoredDoc> search(float[] preparedQuery, int k, int ef, IntPredicate filter) {
+        return search(preparedQuery, k, ef, filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #search(float[], int, int, IntPredicate)}, or null if the graph search scored more than
+     * {@code visitLimit} nodes.
+     */
+    default List<ScoredDoc> search(float[] preparedQuery, int k, int ef, IntPredicate filter, int visitLimit) {
+        return HnswSearcher.search(graph(), vectors(), preparedQuery, k, ef, filter, visitLimit);
+    }
+
+    /**
+     * Ordinals whose metadata matches a filter, whether or not their documents are visible.
+     */
+    CompressedBitmap matching(MetadataFilter filter);
+
+    /**
+     * Metadata fields with bitmap indexes.
+     */
+    Set<String> indexedFields();
+
+    /**
+     * Document of an ordinal, or null if it is not visible yet.
+     */
+    Document document(int ordinal);
+
+    /**
+     * Id of the source document a chunk belongs to, or null for chunks added without one.
+     */
+    String documentId(int ordinal);
+
+    /**
+     * Version of its source document a chunk was indexed under; 0 without a document id.
+     */
+    long version(int ordinal);
+
+    /**
+     * Ordinal of the document with this content hash, or -1.
+     * When several chunks share the content, the most recently added one.
+     */
+    int ordinalOf(String contentHash);
+
+    default boolean containsContent(String contentHash) {
+        return ordinalOf(contentHash) >= 0;
+    }
+}
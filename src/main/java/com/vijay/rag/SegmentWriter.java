@@ -0,0 +1,493 @@
+package com.vijay.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a segment as files sharing its name:
+ * <ul>
+ * <li>{@code .vec}: prepared float32 vectors, one stride per ordinal</li>
+ * <li>{@code .hnsw}: the graph, see {@link MappedHnswGraph}</li>
+ * <li>{@code .meta}: document offsets followed by one JSON document per ordinal</li>
+ * <li>{@code .hash}: sorted 16-byte content hashes with their ordinals, to find documents by content without loading them</li>
+ * <li>{@code .codes}: quantized vectors and their codebook, only for INT8 and PQ encodings</li>
+ * <li>{@code .ver}: the document id and version of each ordinal, loaded on heap so searches can skip
+ * deleted and replaced chunks without decoding documents</li>
+ * <li>{@code .fields}: a {@link CompressedBitmap} of ordinals per value of each indexed metadata field</li>
+ * </ul>
+ * Every file starts with a header of magic, version and counts. Files
+ * are forced to disk before returning; the segment becomes part of the store
+ * only once it is listed in the manifest.
+ * <p>
+ * Chunks are read one vector or document at a time, so writing needs little
+ * heap beyond per-chunk offsets and hashes, whether they come from an on-heap
+ * segment or from the mapped segments being merged.
+ */
+final class SegmentWriter {
+
+    static final String VECTORS = ".vec";
+    static final String GRAPH = ".hnsw";
+    static final String DOCUMENTS = ".meta";
+    static final String HASHES = ".hash";
+    static final String CODES = ".codes";
+    static final String DOCUMENT_VERSIONS = ".ver";
+    static final String FIELDS = ".fields";
+    static final int DOCUMENTS_MAGIC = 0x4D455441;
+    static final int HASHES_MAGIC = 0x48415348;
+    static final int DOCUMENT_VERSIONS_MAGIC = 0x56455253;
+    static final int FIELDS_MAGIC = 0x464C4453;
+    static final int VERSION = 1;
+    static final int HASHES_VERSION = 2;
+    static final int HEADER_BYTES = 32;
+    static final int HASH_BYTES = 16;
+    static final int HASH_ENTRY_BYTES = HASH_BYTES + Integer.BYTES;
+
+    private SegmentWriter() {
+    }
+
+    static void write(Path directory, String name, VectorMetric metric, VectorEncoding encoding, int subvectors,
+                      OnHeapSegment segment, ObjectMapper mapper) throws IOException {
+        int size = segment.size();
+        writeVectors(directory.resolve(name + VECTORS), metric, segment.vectors(), size);
+        writeSearchFiles(directory, name, encoding, subvectors, segment.vectors(), segment.graph(), size);
+        writeChunks(directory, name, segment, size, null, mapper);
+        writeFields(directory.resolve(name + FIELDS), segment.metadataIndex(), size);
+    }
+
+    /**
+     * Write chunks of existing segments as one new segment with a graph built for them. The vectors are
+     * copied into the new {@code .vec} file first and the graph is built over its mapping, so only the
+     * graph's neighbour lists are held on heap, not the vectors or documents.
+     *
+     * @param sources   segments to take chunks from
+     * @param sourceOf  per ordinal of the new segment, the index of its source segment
+     * @param ordinalOf per ordinal of the new segment, its ordinal in the source segment
+     * @param fields    metadata fields to index
+     */
+    static void merge(Path directory, String name, VectorMetric metric, VectorEncoding encoding, int subvectors,
+                      int m, int efConstruction, List<? extends Segment> sources, int[] sourceOf, int[] ordinalOf,
+                      Set<String> fields, ObjectMapper mapper) throws IOException {
+        int size = ordinalOf.length;
+        Segment chunks = new MergedChunks(sources, sourceOf, ordinalOf);
+        Path vectorsPath = directory.resolve(name + VECTORS);
+        writeVectors(vectorsPath, metric, chunks.vectors(), size);
+        MappedVectorValues vectors = MappedVectorValues.open(vectorsPath);
+        HnswIndex graph = HnswIndex.over(vectors, metric, m, efConstruction);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            graph.insert(ordinal);
+        }
+        writeSearchFiles(directory, name, encoding, subvectors, vectors, graph, size);
+        MetadataIndex metadata = new MetadataIndex(fields);
+        writeChunks(directory, name, chunks, size, metadata, mapper);
+        writeFields(directory.resolve(name + FIELDS), metadata.fields(), size);
+    }
+
+    private static void writeSearchFiles(Path directory, String name, VectorEncoding encoding, int subvectors,
+                                         VectorValues vectors, HnswGraph graph, int size) throws IOException {
+        if (encoding != VectorEncoding.FLOAT32) {
+            writeCodes(directory.resolve(name + CODES), VectorQuantizer.train(encoding, vectors, subvectors), vectors, size);
+        }
+        writeGraph(directory.resolve(name + GRAPH), graph, size);
+    }
+
+    /**
+     * Documents, content hashes and document versions, decoding each document once.
+     *
+     * @param metadata index to add each document's metadata to, or null
+     */
+    private static void writeChunks(Path directory, String name, Segment segment, int size, MetadataIndex metadata,
+                                    ObjectMapper mapper) throws IOException {
+        byte[][] hashes = writeDocuments(directory.resolve(name + DOCUMENTS), segment, size, metadata, mapper);
+        writeHashes(directory.resolve(name + HASHES), hashes);
+        writeDocumentVersions(directory.resolve(name + DOCUMENT_VERSIONS), segment, size);
+    }
+
+    private static void writeVectors(Path path, VectorMetric metric, VectorValues vectors, int size) throws IOException {
+        try (Output out = new Output(path)) {
+            out.putInt(MappedVectorValues.MAGIC).putInt(MappedVectorValues.VERSION)
+                    .putInt(vectors.dimensions()).putInt(size)
+                    .putInt(metric.ordinal()).putInt(MappedVectorValues.ENCODING_FLOAT32)
+                    .pad(HEADER_BYTES);
+            for (int i = 0; i < size; i++) {
+                for (float value : vectors.vector(i)) {
+                    out.putFloat(value);
+                }
+            }
+        }
+    }
+
+    private static void writeCodes(Path path, VectorQuantizer quantizer, VectorValues vectors, int size) throws IOException {
+        float[] codebook = quantizer.codebook();
+        int[] parameters = quantizer.parameters();
+        byte[] code = new byte[quantizer.codeBytes()];
+        try (Output out = new Output(path)) {
+            out.putInt(QuantizedVectorValues.MAGIC).putInt(QuantizedVectorValues.VERSION)
+                    .putInt(quantizer.encoding().ordinal()).putInt(size)
+                    .putInt(quantizer.dimensions()).putInt(code.length)
+                    .putInt(parameters[0]).putInt(parameters[1])
+                    .putInt(codebook.length)
+                    .pad(QuantizedVectorValues.HEADER_BYTES);
+            for (float value : codebook) {
+                out.putFloat(value);
+            }
+            for (int i = 0; i < size; i++) {
+                quantizer.encode(vectors.vector(i), code);
+                out.put(code);
+            }
+        }
+    }
+
+    private static void writeGraph(Path path, HnswGraph graph, int size) throws IOException {
+        int m = graph.maxConnections(1);
+        int m0 = graph.maxConnections(0);
+        HnswGraph.EntryPoint entryPoint = graph.entryPoint();
+        int[] buffer = new int[Math.max(m, m0)];
+        try (Output out = new Output(path)) {
+            out.putInt(MappedHnswGraph.MAGIC).putInt(MappedHnswGraph.VERSION)
+                    .putInt(size).putInt(m).putInt(m0)
+                    .putInt(entryPoint == null ? -1 : entryPoint.node())
+                    .putInt(entryPoint == null ? 0 : entryPoint.level())
+                    .pad(HEADER_BYTES);
+            for (int node = 0; node < size; node++) {
+                out.putInt(graph.level(node));
+            }
+            for (int node = 0; node < size; node++) {
+                putNeighbours(out, graph, node, 0, buffer, m0);
+            }
+            out.pad(HEADER_BYTES + MappedHnswGraph.align8(out.position() - HEADER_BYTES));
+            long upper = 0;
+            for (int node = 0; node < size; node++) {
+                int level = graph.level(node);
+                out.putLong(level == 0 ? -1 : upper);
+                upper += (long) level * (1 + m);
+            }
+            for (int node = 0; node < size; node++) {
+                for (int level = 1; level <= graph.level(node); level++) {
+                    putNeighbours(out, graph, node, level, buffer, m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a fixed-size neighbour slot: the count, then the neighbours padded with -1.
+     */
+    private static void putNeighbours(Output out, HnswGraph graph, int node, int level, int[] buffer, int max) throws IOException {
+        int count = graph.neighbours(node, level, buffer);
+        out.putInt(count);
+        for (int i = 0; i < max; i++) {
+            out.putInt(i < count ? buffer[i] : -1);
+        }
+    }
+
+    /**
+     * The JSON documents go to a temporary file first, since their offsets precede them,
+     * and are then copied behind the offsets.
+     *
+     * @return the content hash of each document
+     */
+    private static byte[][] writeDocuments(Path path, Segment segment, int size, MetadataIndex metadata,
+                                           ObjectMapper mapper) throws IOException {
+        long[] offsets = new long[size + 1];
+        byte[][] hashes = new byte[size][];
+        Path bodies = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (Output out = new Output(bodies)) {
+                for (int i = 0; i < size; i++) {
+                    Document document = segment.document(i);
+                    Map<String, Object> json = new LinkedHashMap<>();
+                    json.put("id", document.getId());
+                    json.put("text", document.getText());
+                    json.put("metadata", document.getMetadata());
+                    out.put(mapper.writeValueAsBytes(json));
+                    offsets[i + 1] = out.position();
+                    hashes[i] = decodeHash(ContentHash.of(document.getText()));
+                    if (metadata != null) {
+                        metadata.add(i, document.getMetadata());
+                    }
+                }
+            }
+            try (Output out = new Output(path)) {
+                out.putInt(DOCUMENTS_MAGIC).putInt(VERSION).putInt(size).pad(HEADER_BYTES);
+                for (long offset : offsets) {
+                    out.putLong(offset);
+                }
+                out.copy(bodies);
+            }
+        } finally {
+            Files.deleteIfExists(bodies);
+        }
+        return hashes;
+    }
+
+    private static void writeHashes(Path path, byte[][] hashes) throws IOException {
+        int size = hashes.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(hashes[a], hashes[b]));
+        try (Output out = new Output(path)) {
+            out.putInt(HASHES_MAGIC).putInt(HASHES_VERSION).putInt(size).pad(HEADER_BYTES);
+            for (int ordinal : order) {
+                out.put(hashes[ordinal]).putInt(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Header, then each ordinal's version as a long, then its index into the id table as an int
+     * (-1 without a document id), then the id table as length-prefixed UTF-8 strings.
+     */
+    private static void writeDocumentVersions(Path path, Segment segment, int size) throws IOException {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        int[] idIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            String documentId = segment.documentId(i);
+            idIndexes[i] = documentId == null ? -1 : ids.computeIfAbsent(documentId, id -> ids.size());
+        }
+        try (Output out = new Output(path)) {
+            out.putInt(DOCUMENT_VERSIONS_MAGIC).putInt(VERSION).putInt(size).putInt(ids.size()).pad(HEADER_BYTES);
+            for (int i = 0; i < size; i++) {
+                out.putLong(segment.version(i));
+            }
+            for (int index : idIndexes) {
+                out.putInt(index);
+            }
+            for (String id : ids.keySet()) {
+                putString(out, id);
+            }
+        }
+    }
+
+    /**
+     * Header, then per field its name and value count, and per value the value and its bitmap,
+     * each length-prefixed.
+     */
+    private static void writeFields(Path path, Map<String, Map<String, CompressedBitmap>> fields, int size) throws IOException {
+        try (Output out = new Output(path)) {
+            out.putInt(FIELDS_MAGIC).putInt(VERSION).putInt(size).putInt(fields.size()).pad(HEADER_BYTES);
+            for (Map.Entry<String, Map<String, CompressedBitmap>> field : fields.entrySet()) {
+                putString(out, field.getKey());
+                out.putInt(field.getValue().size());
+                for (Map.Entry<String, CompressedBitmap> value : field.getValue().entrySet()) {
+                    putString(out, value.getKey());
+                    ByteBuffer bitmap = ByteBuffer.allocate(value.getValue().serializedBytes()).order(ByteOrder.LITTLE_ENDIAN);
+                    value.getValue().write(bitmap);
+                    out.putInt(bitmap.capacity()).put(bitmap.array());
+                }
+            }
+        }
+    }
+
+    private static void putString(Output out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    static byte[] decodeHash(String contentHash) {
+        return Base64.getUrlDecoder().decode(contentHash);
+    }
+
+    /**
+     * The chunks of a merge as one read-only segment, by their new ordinals; it cannot be searched.
+     */
+    private static final class MergedChunks implements Segment {
+
+        private final List<? extends Segment> sources;
+        private final int[] sourceOf;
+        private final int[] ordinalOf;
+        private final VectorValues vectors;
+
+        MergedChunks(List<? extends Segment> sources, int[] sourceOf, int[] ordinalOf) {
+            this.sources = sources;
+            this.sourceOf = sourceOf;
+            this.ordinalOf = ordinalOf;
+            int dimensions = sources.get(0).vectors().dimensions();
+            this.vectors = new VectorValues() {
+                @Override
+                public int dimensions() {
+                    return dimensions;
+                }
+
+                @Override
+                public int size() {
+                    return ordinalOf.length;
+                }
+
+                @Override
+                public float[] vector(int ordinal) {
+                    return sources.get(sourceOf[ordinal]).vectors().vector(ordinalOf[ordinal]);
+                }
+            };
+        }
+
+        @Override
+        public String name() {
+            return "merge";
+        }
+
+        @Override
+        public int size() {
+            return ordinalOf.length;
+        }
+
+        @Override
+        public VectorValues vectors() {
+            return vectors;
+        }
+
+        @Override
+        public HnswGraph graph() {
+            throw new UnsupportedOperationException("Merged chunks have no graph");
+        }
+
+        @Override
+        public CompressedBitmap matching(MetadataFilter filter) {
+            throw new UnsupportedOperationException("Merged chunks cannot be filtered");
+        }
+
+        @Override
+        public Set<String> indexedFields() {
+            return Set.of();
+        }
+
+        @Override
+        public Document document(int ordinal) {
+            return sources.get(sourceOf[ordinal]).document(ordinalOf[ordinal]);
+        }
+
+        @Override
+        public String documentId(int ordinal) {
+            return sources.get(sourceOf[ordinal]).documentId(ordinalOf[ordinal]);
+        }
+
+        @Override
+        public long version(int ordinal) {
+            return sources.get(sourceOf[ordinal]).version(ordinalOf[ordinal]);
+        }
+
+        @Override
+        public int ordinalOf(String contentHash) {
+            throw new UnsupportedOperationException("Merged chunks cannot be looked up by content");
+        }
+    }
+
+    /**
+     * Buffered little-endian writer over a file channel.
+     */
+    private static final class Output implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        long position() {
+            return position;
+        }
+
+        Output putInt(int value) throws IOException {
+            ensure(Integer.BYTES).putInt(value);
+            position += Integer.BYTES;
+            return this;
+        }
+
+        Output putLong(long value) throws IOException {
+            ensure(Long.BYTES).putLong(value);
+            position += Long.BYTES;
+            return this;
+        }
+
+        Output putFloat(float value) throws IOException {
+            ensure(Float.BYTES).putFloat(value);
+            position += Float.BYTES;
+            return this;
+        }
+
+        Output put(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int n = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, n);
+                written += n;
+            }
+            position += bytes.length;
+            return this;
+        }
+
+        /**
+         * Append the whole content of a file.
+         */
+        Output copy(Path source) throws IOException {
+            drain();
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+                long size = in.size();
+                for (long copied = 0; copied < size; ) {
+                    copied += in.transferTo(copied, size - copied, channel);
+                }
+                position += size;
+            }
+            return this;
+        }
+
+        /**
+         * Write zeros up to an absolute position.
+         */
+        Output pad(long target) throws IOException {
+            while (position < target) {
+                ensure(1).put((byte) 0);
+                position++;
+            }
+            return this;
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+            return buffer;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,860 @@
+package com.vijay.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.search.ScoredDoc;
+import com.vijay.search.TopK;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Vector store made of HNSW segments, persisted as memory-mapped files.
+ * <p>
+ * New documents go into an on-heap segment. Once it holds
+ * {@code flushThreshold} documents it is written to disk in the background
+ * and reopened as a {@link MappedSegment}, so the index survives restarts and
+ * its size is bounded by disk rather than heap. The set of live segments is
+ * recorded in a {@code segments} manifest that is replaced atomically; files
+ * not listed there are leftovers of an interrupted flush or merge and are
+ * deleted on open. When more than {@code maxSegments} mapped segments exist,
+ * the smallest are merged into one by rebuilding the graph from their vectors.
+ * A merge streams the chunks into the new segment's files and builds the graph
+ * over its mapped vectors; flushes go on meanwhile, and only the swap of the
+ * merged segments for the new one waits for them.
+ * <p>
+ * Flushed segments can also carry INT8 or PQ codes; searches then traverse
+ * the graph on the codes and re-rank the best candidates in full precision.
+ * <p>
+ * Chunks may belong to a source document, named by the {@value #DOCUMENT_ID}
+ * and {@value #DOCUMENT_VERSION} metadata keys. Re-indexing a document adds
+ * its chunks under a new version from {@link #nextVersion()}; they stay
+ * invisible until {@link #commit(String, long)} makes that version current,
+ * which hides every older chunk of the document in one step. Deleting a
+ * document records a tombstone. Chunks of superseded or deleted versions are
+ * skipped during graph traversal and dropped when their segment is merged;
+ * a segment is also rewritten on its own once 30% of its chunks are dead.
+ * So are chunks of a version given up with {@link #abandon(String, long)},
+ * and uncommitted chunks found on open, which nothing can commit any more. The current version of
+ * every document is stored in a {@code versions} file written with the
+ * manifest at each flush, so an unflushed replacement is never visible after
+ * a restart without its chunks.
+ * <p>
+ * Each segment keeps a bitmap of ordinals per value of the {@code filterFields}
+ * metadata, so a {@link MetadataFilter} narrows a search before any vector is
+ * scored. When few chunks of a segment match, they are scored exhaustively;
+ * otherwise the graph search skips the rest, and falls back to the exhaustive
+ * scan if it visits more nodes than there are matches.
+ * <p>
+ * Searches run against every segment and merge the per-segment top-k. Without
+ * a directory the store is purely in memory: nothing is written, but a flush
+ * still compacts the on-heap segments once enough of their chunks are dead.
+ */
+@Slf4j
+public class SegmentedVectorStore implements Closeable {
+
+    /**
+     * Metadata key naming the source document of a chunk.
+     */
+    public static final String DOCUMENT_ID = "documentId";
+    /**
+     * Metadata key holding the document version a chunk was indexed under, a long.
+     */
+    public static final String DOCUMENT_VERSION = "documentVersion";
+
+    private static final String MANIFEST = "segments";
+    private static final String VERSIONS = "versions";
+    private static final double COMPACT_DEAD_RATIO = 0.3;
+
+    private final Path directory;
+    private final VectorMetric metric;
+    private final int m;
+    private final int efConstruction;
+    private final int flushThreshold;
+    private final int maxSegments;
+    private final VectorEncoding encoding;
+    private final int subvectors;
+    private final int rerankFactor;
+    private final Set<String> filterFields;
+    private final ObjectMapper mapper;
+    private final ReentrantReadWriteLock activeLock = new ReentrantReadWriteLock();
+    private final Object structureLock = new Object();
+    // One merge at a time; held while merged segment files are written, without the structure lock
+    private final Object mergeLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService background;
+    private final Map<String, DocumentVersion> versions = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong();
+    private final AtomicBoolean versionsChanged = new AtomicBoolean();
+    private final AtomicBoolean compactionDue = new AtomicBoolean();
+    private final AtomicBoolean mergeDue = new AtomicBoolean();
+    // Uncommitted versions given up by their ingestion, until a later version or tombstone supersedes them
+    private final Map<String, Set<Long>> abandoned = new ConcurrentHashMap<>();
+
+    private volatile OnHeapSegment active;
+    private volatile List<Segment> sealed = List.of();
+    private volatile int dimensions;
+    // Every version up to this one was handed out before the store was opened
+    private volatile long recoveredVersion;
+    private int generation;
+
+    public SegmentedVectorStore(Path directory, VectorMetric metric, int m, int efConstruction,
+                                int flushThreshold, int maxSegments, ObjectMapper mapper) {
+        this(directory, metric, m, efConstruction, flushThreshold, maxSegments, VectorEncoding.FLOAT32, 0, 0, Set.of(),
+                mapper);
+    }
+
+    /**
+     * @param encoding     how flushed segments encode vectors for search
+     * @param subvectors   PQ subvectors per vector; 0 for one per 8 dimensions
+     * @param rerankFactor re-score {@code k * rerankFactor} quantized candidates in full precision; 0 to skip
+     * @param filterFields metadata fields to keep bitmap indexes for; others are indexed when first filtered on
+     */
+    public SegmentedVectorStore(Path directory, VectorMetric metric, int m, int efConstruction,
+                                int flushThreshold, int maxSegments, VectorEncoding encoding, int subvectors,
+                                int rerankFactor, Set<String> filterFields, ObjectMapper mapper) {
+        this.directory = directory;
+        this.metric = metric;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.encoding = encoding;
+        this.subvectors = subvectors;
+        this.rerankFactor = Math.max(0, rerankFactor);
+        this.filterFields = Set.copyOf(filterFields);
+        this.mapper = mapper;
+        this.background = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rag-segments");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the segments listed in the manifest and delete files that are not.
+     */
+    public void open() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        List<String> names = Files.exists(manifest)
+                ? Files.readAllLines(manifest, StandardCharsets.UTF_8).stream().map(String::strip).filter(s -> !s.isEmpty()).toList()
+                : List.of();
+        List<Segment> segments = new ArrayList<>(names.size());
+        for (String name : names) {
+            MappedSegment segment = MappedSegment.open(directory, name, rerankFactor, mapper);
+            if (segment.metric() != metric) {
+                throw new IOException("Segment " + name + " uses " + segment.metric() + " but the store is configured for " + metric);
+            }
+            if (dimensions != 0 && segment.vectors().dimensions() != dimensions) {
+                throw new IOException("Segment " + name + " has " + segment.vectors().dimensions() + " dimensions, expected " + dimensions);
+            }
+            dimensions = segment.vectors().dimensions();
+            segments.add(segment);
+            generation = Math.max(generation, generationOf(name));
+        }
+        sealed = List.copyOf(segments);
+        readVersions();
+        for (Segment segment : segments) {
+            for (int ordinal = 0; ordinal < segment.size(); ordinal++) {
+                lastVersion.accumulateAndGet(segment.version(ordinal), Math::max);
+            }
+        }
+        recoveredVersion = lastVersion.get();
+        deleteUnreferenced(Set.copyOf(names));
+        log.info("RAG: Opened {} segments with {} documents from {}", segments.size(), size(), directory);
+    }
+
+    public boolean isPersistent() {
+        return directory != null;
+    }
+
+    /**
+     * Add documents with their embeddings to the on-heap segment.
+     */
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        activeLock.readLock().lock();
+        OnHeapSegment segment;
+        try {
+            segment = active(embeddings.get(0).length);
+            for (int i = 0; i < documents.size(); i++) {
+                segment.add(documents.get(i), embeddings.get(i));
+            }
+        } finally {
+            activeLock.readLock().unlock();
+        }
+        if (directory != null && segment.size() >= flushThreshold) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * A new version for a document's chunks, greater than every version handed out or stored before.
+     */
+    public long nextVersion() {
+        return lastVersion.incrementAndGet();
+    }
+
+    /**
+     * Make a version current once all of its chunks have been added, hiding the document's older chunks.
+     *
+     * @return false if a later version was committed or the document was deleted meanwhile
+     */
+    public boolean commit(String documentId, long version) {
+        DocumentVersion committed = new DocumentVersion(version, false);
+        activeLock.readLock().lock();
+        try {
+            if (versions.merge(documentId, committed, (current, next) -> next.version() > current.version() ? next : current) != committed) {
+                return false;
+            }
+        } finally {
+            activeLock.readLock().unlock();
+        }
+        forgetAbandoned(documentId, version);
+        versionsChanged.set(true);
+        return true;
+    }
+
+    /**
+     * Give up a version that will never be committed, such as one whose ingestion failed part-way,
+     * so compaction drops the chunks already added under it.
+     */
+    public void abandon(String documentId, long version) {
+        abandoned.computeIfAbsent(documentId, id -> ConcurrentHashMap.newKeySet()).add(version);
+        compactionDue.set(true);
+        scheduleFlush();
+    }
+
+    /**
+     * Hide every chunk of a document with a tombstone; their space is reclaimed by compaction.
+     *
+     * @return whether the document had a current version
+     */
+    public boolean delete(String documentId) {
+        DocumentVersion tombstone = new DocumentVersion(nextVersion(), true);
+        boolean[] existed = new boolean[1];
+        activeLock.readLock().lock();
+        try {
+            versions.compute(documentId, (id, current) -> {
+                existed[0] = current != null && !current.deleted();
+                return current != null && current.version() > tombstone.version() ? current : tombstone;
+            });
+        } finally {
+            activeLock.readLock().unlock();
+        }
+        forgetAbandoned(documentId, tombstone.version());
+        versionsChanged.set(true);
+        scheduleFlush();
+        return existed[0];
+    }
+
+    /**
+     * Abandoned versions older than the current one are dead anyway.
+     */
+    private void forgetAbandoned(String documentId, long current) {
+        abandoned.computeIfPresent(documentId, (id, given) -> {
+            given.removeIf(version -> version < current);
+            return given.isEmpty() ? null : given;
+        });
+    }
+
+    /**
+     * Most similar documents across all segments, best first, with their similarity as score.
+     */
+    public List<Document> search(float[] query, int k, int ef) {
+        return search(query, k, ef, null);
+    }
+
+    /**
+     * Most similar documents whose metadata matches a filter; a null filter matches every document.
+     */
+    public List<Document> search(float[] query, int k, int ef, MetadataFilter filter) {
+        if (dimensions == 0) {
+            return List.of();
+        }
+        if (query.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + query.length);
+        }
+        float[] prepared = metric.prepare(query);
+        List<Hit> hits = new ArrayList<>();
+        for (Segment segment : segments()) {
+            for (ScoredDoc hit : search(segment, prepared, k, ef, filter)) {
+                hits.add(new Hit(segment, hit.doc(), hit.score()));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        List<Document> results = new ArrayList<>(Math.min(k, hits.size()));
+        for (Hit hit : hits) {
+            if (results.size() == k) {
+                break;
+            }
+            Document document = hit.segment().document(hit.ordinal());
+            // Checked again now the document is visible: an on-heap chunk's version is set before its document
+            if (document != null && isVisible(hit.segment(), hit.ordinal())) {
+                results.add(document.mutate().score((double) hit.score()).build());
+            }
+        }
+        return results;
+    }
+
+    private List<ScoredDoc> search(Segment segment, float[] prepared, int k, int ef, MetadataFilter filter) {
+        if (filter == null) {
+            return segment.search(prepared, k, ef, ordinal -> isVisible(segment, ordinal));
+        }
+        CompressedBitmap allowed = segment.matching(filter);
+        if (allowed.isEmpty()) {
+            return List.of();
+        }
+        int matches = allowed.cardinality();
+        if (matches > Math.max(k, ef)) {
+            List<ScoredDoc> hits = segment.search(prepared, k, ef,
+                    ordinal -> allowed.contains(ordinal) && isVisible(segment, ordinal), matches);
+            if (hits != null) {
+                return hits;
+            }
+        }
+        return exactSearch(segment, prepared, k, allowed);
+    }
+
+    private List<ScoredDoc> exactSearch(Segment segment, float[] prepared, int k, CompressedBitmap allowed) {
+        VectorScorer scorer = segment.vectors().scorer(prepared);
+        TopK top = new TopK(k);
+        allowed.forEach(ordinal -> {
+            if (isVisible(segment, ordinal)) {
+                top.offer(ordinal, scorer.score(ordinal));
+            }
+        });
+        return top.toSortedList();
+    }
+
+    /**
+     * Every chunk indexed under a document id, whatever its version or visibility, until compaction drops it.
+     */
+    public List<Document> chunks(String documentId) {
+        MetadataFilter filter = MetadataFilter.where(DOCUMENT_ID, documentId);
+        List<Document> chunks = new ArrayList<>();
+        for (Segment segment : segments()) {
+            segment.matching(filter).forEach(ordinal -> {
+                Document document = segment.document(ordinal);
+                if (document != null) {
+                    chunks.add(document);
+                }
+            });
+        }
+        return chunks;
+    }
+
+    public boolean containsContent(String contentHash) {
+        return findByContent(contentHash) != null;
+    }
+
+    /**
+     * Visible document with the given content hash, or null if no segment holds one.
+     */
+    public Document findByContent(String contentHash) {
+        List<Segment> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            int ordinal = segment.ordinalOf(contentHash);
+            if (ordinal >= 0 && isVisible(segment, ordinal)) {
+                return segment.document(ordinal);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stored vector of the visible document with the given content hash, as prepared for the metric, or null.
+     * The array must not be modified.
+     */
+    public float[] findVector(String contentHash) {
+        List<Segment> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            int ordinal = segment.ordinalOf(contentHash);
+            if (ordinal >= 0 && isVisible(segment, ordinal)) {
+                return segment.vectors().vector(ordinal);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lazily decoded visible documents of the segments that exist now; documents added later are not included.
+     */
+    public Stream<Document> documents() {
+        return segments().stream()
+                .flatMap(segment -> IntStream.range(0, segment.size())
+                        .filter(ordinal -> isVisible(segment, ordinal))
+                        .mapToObj(segment::document))
+                .filter(Objects::nonNull);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments()) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int segmentCount() {
+        return segments().size();
+    }
+
+    /**
+     * Documents per vector encoding, the bytes searches page through for them,
+     * chunks awaiting compaction, and document versions and tombstones.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> documents = new TreeMap<>();
+        long searchBytes = 0;
+        int dead = 0;
+        for (Segment segment : segments()) {
+            dead += deadCount(segment);
+            if (segment instanceof MappedSegment mapped) {
+                documents.merge(mapped.encoding().name(), mapped.size(), Integer::sum);
+                searchBytes += (long) mapped.size() * mapped.searchBytesPerVector();
+            } else {
+                documents.merge("HEAP", segment.size(), Integer::sum);
+                searchBytes += (long) segment.size() * dimensions * Float.BYTES;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("encoding", encoding.name());
+        stats.put("segments", segmentCount());
+        stats.put("documents", documents);
+        stats.put("searchBytes", searchBytes);
+        stats.put("deadChunks", dead);
+        long tombstones = versions.values().stream().filter(DocumentVersion::deleted).count();
+        stats.put("documentVersions", versions.size() - tombstones);
+        stats.put("tombstones", tombstones);
+        return stats;
+    }
+
+    /**
+     * Write the on-heap segment and document versions to disk, then merge segments
+     * if there are too many or compact those with many dead chunks.
+     * Documents being added meanwhile go to a fresh on-heap segment.
+     */
+    public void flush() throws IOException {
+        if (directory == null) {
+            compactInMemory();
+            return;
+        }
+        synchronized (structureLock) {
+            Map<String, DocumentVersion> committed = null;
+            activeLock.writeLock().lock();
+            try {
+                OnHeapSegment segment = active;
+                if (segment != null && segment.size() > 0) {
+                    active = null;
+                    sealed = append(sealed, segment);
+                }
+                // Every chunk of a version committed by now is in a sealed segment
+                if (versionsChanged.getAndSet(false)) {
+                    committed = Map.copyOf(versions);
+                }
+            } finally {
+                activeLock.writeLock().unlock();
+            }
+            // Includes segments left on heap by an earlier flush that failed
+            List<OnHeapSegment> pending = sealed.stream()
+                    .filter(OnHeapSegment.class::isInstance).map(OnHeapSegment.class::cast).toList();
+            try {
+                for (OnHeapSegment segment : pending) {
+                    long start = System.nanoTime();
+                    MappedSegment mapped = write(segment);
+                    replace(List.of(segment), mapped);
+                    log.info("RAG: Flushed segment {} ({} documents) in {} ms",
+                            mapped.name(), mapped.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+                // After the manifest, so versions never point at chunks a restart would not find
+                if (committed != null) {
+                    writeVersions(committed);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (committed != null) {
+                    versionsChanged.set(true);
+                }
+                throw e;
+            }
+            boolean compact = compactionDue.getAndSet(false);
+            if (!pending.isEmpty() || committed != null || compact) {
+                mergeDue.set(true);
+            }
+        }
+        // Also waits for a merge another flush asked for before this one took the structure lock
+        mergeIfNeeded();
+    }
+
+    /**
+     * Without a directory, seal the on-heap segment once many of its chunks are dead,
+     * so the merge rebuilds it from the live ones; documents added meanwhile go to a fresh one.
+     */
+    private void compactInMemory() throws IOException {
+        synchronized (structureLock) {
+            compactionDue.set(false);
+            mergeDue.set(true);
+            OnHeapSegment segment = active;
+            if (segment != null && isMostlyDead(segment)) {
+                activeLock.writeLock().lock();
+                try {
+                    if (active == segment) {
+                        active = null;
+                        sealed = append(sealed, segment);
+                    }
+                } finally {
+                    activeLock.writeLock().unlock();
+                }
+            }
+        }
+        mergeIfNeeded();
+    }
+
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (directory != null) {
+            flush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            background.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("RAG: Segment flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merge the smallest sealed segments into one until at most {@code maxSegments} remain,
+     * together with any segment that is mostly dead, leaving out dead chunks.
+     * Searches keep using the old segments until the merged one replaces them.
+     * With a directory only mapped segments are merged and the result is written to disk;
+     * without one the result stays on heap.
+     * <p>
+     * Only merges change the set of mapped segments, so the segments to merge are chosen and
+     * written under the merge lock alone; chunks that die meanwhile go with a later compaction.
+     */
+    private void mergeIfNeeded() throws IOException {
+        synchronized (mergeLock) {
+            if (mergeDue.getAndSet(false)) {
+                merge();
+            }
+        }
+    }
+
+    private void merge() throws IOException {
+        List<Segment> candidates = sealed.stream()
+                .filter(segment -> directory == null || segment instanceof MappedSegment)
+                .sorted(Comparator.comparingInt(Segment::size))
+                .toList();
+        Set<Segment> merging = new LinkedHashSet<>();
+        if (candidates.size() > maxSegments) {
+            merging.addAll(candidates.subList(0, candidates.size() - maxSegments + 1));
+        }
+        for (Segment segment : candidates) {
+            if (isMostlyDead(segment)) {
+                merging.add(segment);
+            }
+        }
+        if (merging.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Set<String> fields = new HashSet<>(filterFields);
+        for (Segment segment : merging) {
+            fields.addAll(segment.indexedFields());
+        }
+        List<Segment> sources = List.copyOf(merging);
+        int total = sources.stream().mapToInt(Segment::size).sum();
+        int[] sourceOf = new int[total];
+        int[] ordinalOf = new int[total];
+        int live = 0;
+        for (int source = 0; source < sources.size(); source++) {
+            Segment segment = sources.get(source);
+            for (int ordinal = 0; ordinal < segment.size(); ordinal++) {
+                if (!isDead(segment, ordinal)) {
+                    sourceOf[live] = source;
+                    ordinalOf[live++] = ordinal;
+                }
+            }
+        }
+        int dropped = total - live;
+        Segment result = live == 0 ? null : directory == null
+                ? mergeOnHeap(sources, sourceOf, ordinalOf, live, fields)
+                : writeMerged(sources, Arrays.copyOf(sourceOf, live), Arrays.copyOf(ordinalOf, live), fields);
+        synchronized (structureLock) {
+            replace(sources, result);
+        }
+        if (directory != null) {
+            for (Segment segment : merging) {
+                deleteFiles(segment.name());
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (result == null) {
+            log.info("RAG: Removed {} segments holding only dead chunks ({} dropped) in {} ms", merging.size(), dropped, millis);
+        } else {
+            log.info("RAG: Merged {} segments into {} ({} documents, {} dead chunks dropped) in {} ms",
+                    merging.size(), result.name(), result.size(), dropped, millis);
+        }
+    }
+
+    /**
+     * Whether a chunk is visible: it has no document id, or belongs to the current version of its document.
+     */
+    private boolean isVisible(Segment segment, int ordinal) {
+        String documentId = segment.documentId(ordinal);
+        if (documentId == null) {
+            return true;
+        }
+        DocumentVersion current = versions.get(documentId);
+        return current != null && !current.deleted() && current.version() == segment.version(ordinal);
+    }
+
+    /**
+     * Whether a chunk can never become visible: its document has a later version or was deleted,
+     * or its version was abandoned or predates the open without being committed.
+     * Chunks of versions still being indexed are neither visible nor dead.
+     */
+    private boolean isDead(Segment segment, int ordinal) {
+        String documentId = segment.documentId(ordinal);
+        if (documentId == null) {
+            return false;
+        }
+        DocumentVersion current = versions.get(documentId);
+        long version = segment.version(ordinal);
+        if (current != null && (version < current.version() || version == current.version() && current.deleted())) {
+            return true;
+        }
+        if (current != null && version == current.version()) {
+            return false;
+        }
+        Set<Long> given = abandoned.get(documentId);
+        return version <= recoveredVersion || given != null && given.contains(version);
+    }
+
+    private boolean isMostlyDead(Segment segment) {
+        return segment.size() > 0 && deadCount(segment) >= COMPACT_DEAD_RATIO * segment.size();
+    }
+
+    private int deadCount(Segment segment) {
+        int dead = 0;
+        for (int ordinal = 0; ordinal < segment.size(); ordinal++) {
+            if (isDead(segment, ordinal)) {
+                dead++;
+            }
+        }
+        return dead;
+    }
+
+    /**
+     * One line per document: version, {@code L} for live or {@code D} for a tombstone, and the id.
+     */
+    private void readVersions() throws IOException {
+        Path path = directory.resolve(VERSIONS);
+        if (!Files.exists(path)) {
+            return;
+        }
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length < 3) {
+                continue;
+            }
+            long version = Long.parseLong(fields[0]);
+            versions.put(fields[2], new DocumentVersion(version, fields[1].equals("D")));
+            lastVersion.accumulateAndGet(version, Math::max);
+        }
+    }
+
+    private void writeVersions(Map<String, DocumentVersion> committed) throws IOException {
+        List<String> lines = new ArrayList<>(committed.size());
+        committed.forEach((documentId, version) ->
+                lines.add(version.version() + "\t" + (version.deleted() ? "D" : "L") + "\t" + documentId));
+        Path temp = directory.resolve(VERSIONS + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(VERSIONS), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private OnHeapSegment mergeOnHeap(List<Segment> sources, int[] sourceOf, int[] ordinalOf, int size, Set<String> fields) {
+        OnHeapSegment merged = new OnHeapSegment(nextName(), new HnswIndex(dimensions, metric, m, efConstruction), fields);
+        for (int i = 0; i < size; i++) {
+            Segment segment = sources.get(sourceOf[i]);
+            int ordinal = ordinalOf[i];
+            merged.add(segment.document(ordinal), segment.vectors().vector(ordinal),
+                    segment.documentId(ordinal), segment.version(ordinal));
+        }
+        return merged;
+    }
+
+    private MappedSegment writeMerged(List<Segment> sources, int[] sourceOf, int[] ordinalOf, Set<String> fields)
+            throws IOException {
+        String name = nextName();
+        try {
+            SegmentWriter.merge(directory, name, metric, encoding, subvectors, m, efConstruction,
+                    sources, sourceOf, ordinalOf, fields, mapper);
+            return MappedSegment.open(directory, name, rerankFactor, mapper);
+        } catch (IOException | RuntimeException e) {
+            deleteFiles(name);
+            throw e;
+        }
+    }
+
+    private MappedSegment write(OnHeapSegment segment) throws IOException {
+        SegmentWriter.write(directory, segment.name(), metric, encoding, subvectors, segment, mapper);
+        return MappedSegment.open(directory, segment.name(), rerankFactor, mapper);
+    }
+
+    /**
+     * Swap segments for their replacement, if any, then record the new set in the manifest.
+     */
+    private void replace(List<? extends Segment> removed, Segment replacement) throws IOException {
+        activeLock.writeLock().lock();
+        try {
+            List<Segment> next = new ArrayList<>(sealed);
+            next.removeAll(removed);
+            if (replacement != null) {
+                next.add(replacement);
+            }
+            sealed = List.copyOf(next);
+        } finally {
+            activeLock.writeLock().unlock();
+        }
+        if (directory == null) {
+            return;
+        }
+        List<String> names = sealed.stream().filter(MappedSegment.class::isInstance).map(Segment::name).toList();
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, names, StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private OnHeapSegment active(int dimensions) {
+        OnHeapSegment segment = active;
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (this) {
+            if (active == null) {
+                if (this.dimensions != 0 && dimensions != this.dimensions) {
+                    throw new IllegalArgumentException("Expected " + this.dimensions + " dimensions, got " + dimensions);
+                }
+                this.dimensions = dimensions;
+                active = new OnHeapSegment(nextName(), new HnswIndex(dimensions, metric, m, efConstruction), filterFields);
+            }
+            return active;
+        }
+    }
+
+    private List<Segment> segments() {
+        OnHeapSegment segment = active;
+        return segment == null ? sealed : append(sealed, segment);
+    }
+
+    private synchronized String nextName() {
+        return String.format("seg-%08d", ++generation);
+    }
+
+    private static int generationOf(String name) {
+        try {
+            return Integer.parseInt(name.substring(name.indexOf('-') + 1));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static List<Segment> append(List<Segment> segments, Segment segment) {
+        List<Segment> next = new ArrayList<>(segments.size() + 1);
+        next.addAll(segments);
+        next.add(segment);
+        return List.copyOf(next);
+    }
+
+    private void deleteUnreferenced(Set<String> live) throws IOException {
+        Set<String> orphans = new HashSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(file -> !file.equals(MANIFEST))
+                    .filter(file -> file.startsWith("seg-") || file.endsWith(".tmp"))
+                    .filter(file -> !live.contains(file.contains(".") ? file.substring(0, file.indexOf('.')) : file))
+                    .forEach(orphans::add);
+        }
+        for (String orphan : orphans) {
+            Files.deleteIfExists(directory.resolve(orphan));
+        }
+        if (!orphans.isEmpty()) {
+            log.info("RAG: Deleted {} unreferenced segment files", orphans.size());
+        }
+    }
+
+    /**
+     * Delete a merged segment's files. Searches still holding it keep reading
+     * the mapping; where the OS refuses to delete mapped files the leftovers
+     * are removed on the next open.
+     */
+    private void deleteFiles(String name) {
+        for (String extension : List.of(SegmentWriter.VECTORS, SegmentWriter.GRAPH, SegmentWriter.DOCUMENTS,
+                SegmentWriter.HASHES, SegmentWriter.CODES, SegmentWriter.DOCUMENT_VERSIONS,
+                SegmentWriter.FIELDS)) {
+            try {
+                Files.deleteIfExists(directory.resolve(name + extension));
+            } catch (IOException e) {
+                log.debug("RAG: Could not delete {}{}: {}", name, extension, e.getMessage());
+            }
+        }
+    }
+
+    private record Hit(Segment segment, int ordinal, float score) {
+    }
+
+    private record DocumentVersion(long version, boolean deleted) {
+    }
+}
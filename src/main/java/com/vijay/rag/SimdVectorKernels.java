@@ -0,0 +1,191 @@
+package com.vijay.rag;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels on the incubating Java Vector API, using the widest vectors the CPU
+ * supports (8 floats with AVX2, 16 with AVX-512). Tails shorter than a vector
+ * are finished with scalar loops.
+ * <p>
+ * Only loaded when the JVM runs with {@code --add-modules jdk.incubator.vector};
+ * {@link VectorMath} loads it reflectively so nothing else links against the module.
+ */
+final class SimdVectorKernels implements VectorKernels {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    /**
+     * Bytes that widen to one full vector of ints or floats.
+     */
+    private static final VectorSpecies<Byte> BYTES_FOR_INTS =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+    private static final VectorSpecies<Byte> BYTES_FOR_FLOATS =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(FLOATS.length() * Byte.SIZE));
+    private static final VectorSpecies<Integer> INTS_FOR_FLOATS =
+            VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+    SimdVectorKernels() {
+        if (FLOATS.length() < 8) {
+            throw new UnsupportedOperationException("Vector width " + FLOATS.vectorBitSize() + " bits is too narrow to pay off");
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + FLOATS.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        int length = a.length;
+        int step = FLOATS.length();
+        int bound = FLOATS.loopBound(length);
+        FloatVector acc0 = FloatVector.zero(FLOATS);
+        FloatVector acc1 = FloatVector.zero(FLOATS);
+        int i = 0;
+        // Two accumulators hide the FMA latency
+        for (; i + step < bound; i += 2 * step) {
+            acc0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), acc0);
+            acc1 = FloatVector.fromArray(FLOATS, a, i + step).fma(FloatVector.fromArray(FLOATS, b, i + step), acc1);
+        }
+        for (; i < bound; i += step) {
+            acc0 = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), acc0);
+        }
+        float sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        int length = a.length;
+        int bound = FLOATS.loopBound(length);
+        FloatVector dot = FloatVector.zero(FLOATS);
+        FloatVector normA = FloatVector.zero(FLOATS);
+        FloatVector normB = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, i);
+            dot = va.fma(vb, dot);
+            normA = va.fma(va, normA);
+            normB = vb.fma(vb, normB);
+        }
+        float d = dot.reduceLanes(VectorOperators.ADD);
+        float na = normA.reduceLanes(VectorOperators.ADD);
+        float nb = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            d += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return na == 0f || nb == 0f ? 0f : (float) (d / Math.sqrt((double) na * nb));
+    }
+
+    @Override
+    public float squareDistance(float[] a, float[] b) {
+        int length = a.length;
+        int bound = FLOATS.loopBound(length);
+        FloatVector acc = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector diff = FloatVector.fromArray(FLOATS, a, i).sub(FloatVector.fromArray(FLOATS, b, i));
+            acc = diff.fma(diff, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b) {
+        int length = a.length;
+        int bound = BYTES_FOR_INTS.loopBound(length);
+        IntVector acc = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < bound; i += BYTES_FOR_INTS.length()) {
+            IntVector va = (IntVector) ByteVector.fromArray(BYTES_FOR_INTS, a, i).convertShape(VectorOperators.B2I, INTS, 0);
+            IntVector vb = (IntVector) ByteVector.fromArray(BYTES_FOR_INTS, b, i).convertShape(VectorOperators.B2I, INTS, 0);
+            acc = acc.add(va.mul(vb));
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dotUnsigned(float[] weights, byte[] codes) {
+        int length = weights.length;
+        int bound = BYTES_FOR_FLOATS.loopBound(length);
+        FloatVector acc = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < bound; i += BYTES_FOR_FLOATS.length()) {
+            IntVector widened = (IntVector) ByteVector.fromArray(BYTES_FOR_FLOATS, codes, i)
+                    .convertShape(VectorOperators.B2I, INTS_FOR_FLOATS, 0);
+            FloatVector values = (FloatVector) widened.and(0xFF).convertShape(VectorOperators.I2F, FLOATS, 0);
+            acc = values.fma(FloatVector.fromArray(FLOATS, weights, i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += weights[i] * (codes[i] & 0xFF);
+        }
+        return sum;
+    }
+
+    /**
+     * Scores four vectors per pass so each query lane is loaded once for all four.
+     */
+    @Override
+    public void dotMany(float[] query, float[][] vectors, float[] scores) {
+        int length = query.length;
+        int bound = FLOATS.loopBound(length);
+        int v = 0;
+        for (; v + 4 <= vectors.length; v += 4) {
+            float[] b0 = vectors[v];
+            float[] b1 = vectors[v + 1];
+            float[] b2 = vectors[v + 2];
+            float[] b3 = vectors[v + 3];
+            FloatVector acc0 = FloatVector.zero(FLOATS);
+            FloatVector acc1 = FloatVector.zero(FLOATS);
+            FloatVector acc2 = FloatVector.zero(FLOATS);
+            FloatVector acc3 = FloatVector.zero(FLOATS);
+            int i = 0;
+            for (; i < bound; i += FLOATS.length()) {
+                FloatVector q = FloatVector.fromArray(FLOATS, query, i);
+                acc0 = q.fma(FloatVector.fromArray(FLOATS, b0, i), acc0);
+                acc1 = q.fma(FloatVector.fromArray(FLOATS, b1, i), acc1);
+                acc2 = q.fma(FloatVector.fromArray(FLOATS, b2, i), acc2);
+                acc3 = q.fma(FloatVector.fromArray(FLOATS, b3, i), acc3);
+            }
+            float s0 = acc0.reduceLanes(VectorOperators.ADD);
+            float s1 = acc1.reduceLanes(VectorOperators.ADD);
+            float s2 = acc2.reduceLanes(VectorOperators.ADD);
+            float s3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; i < length; i++) {
+                s0 += query[i] * b0[i];
+                s1 += query[i] * b1[i];
+                s2 += query[i] * b2[i];
+                s3 += query[i] * b3[i];
+            }
+            scores[v] = s0;
+            scores[v + 1] = s1;
+            scores[v + 2] = s2;
+            scores[v + 3] = s3;
+        }
+        for (; v < vectors.length; v++) {
+            scores[v] = dot(query, vectors[v]);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.vijay.rag;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits text into overlapping chunks of roughly {@code chunkTokens} tokens.
+ * <p>
+ * Text is read incrementally; only the chunk being built is held in memory,
+ * so arbitrarily large files can be chunked. Token counts are estimated at
+ * four characters per token, which is close enough for sizing embedding
+ * inputs without a model-specific tokenizer. A chunk is cut at the last
+ * paragraph or sentence end in its final quarter when there is one, and the
+ * next chunk starts with up to {@code overlapTokens} tokens of the previous one.
+ */
+public class TextChunker {
+
+    private static final int MAX_WORD_CHARS = 64;
+
+    private final int chunkTokens;
+    private final int overlapTokens;
+
+    public TextChunker(int chunkTokens, int overlapTokens) {
+        if (chunkTokens <= 0 || overlapTokens < 0 || overlapTokens >= chunkTokens) {
+            throw new IllegalArgumentException("Need 0 <= overlapTokens < chunkTokens");
+        }
+        this.chunkTokens = chunkTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    /**
+     * Estimated token count of a piece of text.
+     */
+    public static int estimateTokens(String text) {
+        return Math.max(1, (text.length() + 3) / 4);
+    }
+
+    /**
+     * Chunk everything the reader returns, passing each chunk to the sink as soon as it is complete.
+     *
+     * @return the number of chunks produced
+     */
+    public int chunk(Reader reader, Consumer<String> sink) throws IOException {
+        Window window = new Window();
+        int chunks = 0;
+        StringBuilder word = new StringBuilder();
+        int newlines = 0;
+        boolean pendingSpace = false;
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (Character.isWhitespace(c)) {
+                    if (word.length() > 0) {
+                        window.add(word, newlines, pendingSpace);
+                        newlines = 0;
+                    }
+                    pendingSpace = true;
+                    if (c == '\n') {
+                        newlines++;
+                    }
+                    continue;
+                }
+                word.append(c);
+                if (word.length() >= MAX_WORD_CHARS) {
+                    window.add(word, newlines, pendingSpace);
+                    newlines = 0;
+                    pendingSpace = false;
+                }
+                if (window.tokens >= chunkTokens) {
+                    emit(window, sink);
+                    chunks++;
+                }
+            }
+        }
+        if (word.length() > 0) {
+            window.add(word, newlines, pendingSpace);
+        }
+        while (window.tokens >= chunkTokens) {
+            emit(window, sink);
+            chunks++;
+        }
+        if (window.words.size() > window.carried) {
+            sink.accept(render(window.words));
+            chunks++;
+        }
+        return chunks;
+    }
+
+    /**
+     * Emit one chunk from the front of the window and keep the overlap.
+     */
+    private void emit(Window window, Consumer<String> sink) {
+        List<Word> words = new ArrayList<>(window.words);
+        int cut = cutPoint(words);
+        List<Word> chunk = words.subList(0, cut);
+        sink.accept(render(chunk));
+
+        window.words.clear();
+        window.tokens = 0;
+        window.carried = 0;
+        for (int i = cut - 1; i >= 0 && window.tokens + chunk.get(i).tokens <= overlapTokens; i--) {
+            window.words.addFirst(chunk.get(i));
+            window.tokens += chunk.get(i).tokens;
+            window.carried++;
+        }
+        for (int i = cut; i < words.size(); i++) {
+            window.words.addLast(words.get(i));
+            window.tokens += words.get(i).tokens;
+        }
+    }
+
+    /**
+     * Number of words in the chunk: up to the chunk size, pulled back to a paragraph or sentence end if one is near.
+     */
+    private int cutPoint(List<Word> words) {
+        int sum = 0;
+        int limit = words.size();
+        for (int i = 0; i < words.size(); i++) {
+            sum += words.get(i).tokens;
+            if (sum >= chunkTokens) {
+                limit = i + 1;
+                break;
+            }
+        }
+        int floor = Math.max(1, limit * 3 / 4);
+        for (int i = limit - 1; i >= floor; i--) {
+            if (i + 1 < words.size() && words.get(i + 1).separator.startsWith("\n\n")) {
+                return i + 1;
+            }
+        }
+        for (int i = limit - 1; i >= floor; i--) {
+            String text = words.get(i).text;
+            char last = text.charAt(text.length() - 1);
+            if (last == '.' || last == '!' || last == '?') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private static String render(Iterable<Word> words) {
+        StringBuilder text = new StringBuilder();
+        for (Word word : words) {
+            if (text.length() > 0) {
+                text.append(word.separator);
+            }
+            text.append(word.text);
+        }
+        return text.toString();
+    }
+
+    private record Word(String text, String separator, int tokens) {
+    }
+
+    /**
+     * Words not yet emitted, plus the overlap carried over from the previous chunk.
+     */
+    private static final class Window {
+        private final Deque<Word> words = new ArrayDeque<>();
+        private int tokens;
+        private int carried;
+
+        void add(StringBuilder word, int newlines, boolean space) {
+            String separator = newlines >= 2 ? "\n\n" : newlines == 1 ? "\n" : space ? " " : "";
+            Word w = new Word(word.toString(), separator, estimateTokens(word.toString()));
+            words.addLast(w);
+            tokens += w.tokens;
+            word.setLength(0);
+        }
+    }
+}
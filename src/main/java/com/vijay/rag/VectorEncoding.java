@@ -0,0 +1,24 @@
+package com.vijay.rag;
+
+/**
+ * How flushed segments encode vectors for search. Full-precision vectors are
+ * always kept alongside the codes for re-ranking and merging; the codes are
+ * what a search pages through, so they set the resident memory per vector.
+ */
+public enum VectorEncoding {
+
+    /**
+     * 4 bytes per dimension; exact scores.
+     */
+    FLOAT32,
+
+    /**
+     * Scalar quantization to 1 byte per dimension, with per-dimension ranges (4x smaller).
+     */
+    INT8,
+
+    /**
+     * Product quantization: 1 byte per subvector, a centroid out of 256 (32x smaller with 8-dimension subvectors).
+     */
+    PQ
+}
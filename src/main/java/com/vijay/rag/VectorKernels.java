@@ -0,0 +1,37 @@
+package com.vijay.rag;
+
+/**
+ * Similarity kernels over float32 and int8 vectors. The implementation in use
+ * is chosen at runtime by {@link VectorMath#select(VectorMath.Kernels)}.
+ */
+public interface VectorKernels {
+
+    String name();
+
+    float dot(float[] a, float[] b);
+
+    /**
+     * Cosine similarity; 0 when either vector is zero.
+     */
+    float cosine(float[] a, float[] b);
+
+    /**
+     * Squared Euclidean distance.
+     */
+    float squareDistance(float[] a, float[] b);
+
+    /**
+     * Dot product of two signed int8 vectors.
+     */
+    int dot(byte[] a, byte[] b);
+
+    /**
+     * Dot product of float weights with unsigned int8 codes, as scalar-quantized vectors are scored.
+     */
+    float dotUnsigned(float[] weights, byte[] codes);
+
+    /**
+     * Score one query against many vectors: {@code scores[i] = dot(query, vectors[i])}.
+     */
+    void dotMany(float[] query, float[][] vectors, float[] scores);
+}
@@ -0,0 +1,71 @@
+package com.vijay.rag;
+
+/**
+ * Float vector kernels, delegating to the {@link VectorKernels} selected at runtime.
+ * <p>
+ * {@link Kernels#AUTO} uses the Java Vector API when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} and the CPU has at least 256-bit
+ * vectors, and plain loops otherwise.
+ */
+public final class VectorMath {
+
+    public enum Kernels { AUTO, SCALAR, SIMD }
+
+    private static final String SIMD_KERNELS = "com.vijay.rag.SimdVectorKernels";
+
+    private static volatile VectorKernels kernels = load(Kernels.AUTO);
+
+    private VectorMath() {
+    }
+
+    /**
+     * Switch kernels and return the implementation now in use. SIMD falls back to scalar when unavailable.
+     */
+    public static VectorKernels select(Kernels mode) {
+        kernels = load(mode);
+        return kernels;
+    }
+
+    public static VectorKernels kernels() {
+        return kernels;
+    }
+
+    private static VectorKernels load(Kernels mode) {
+        if (mode == Kernels.SCALAR) {
+            return new ScalarVectorKernels();
+        }
+        try {
+            return (VectorKernels) Class.forName(SIMD_KERNELS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // Module not added, or vectors too narrow
+            return new ScalarVectorKernels();
+        }
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return kernels.dot(a, b);
+    }
+
+    public static float cosine(float[] a, float[] b) {
+        return kernels.cosine(a, b);
+    }
+
+    public static float squareDistance(float[] a, float[] b) {
+        return kernels.squareDistance(a, b);
+    }
+
+    /**
+     * Return a unit-length copy of the vector; a zero vector is returned as a zero copy.
+     */
+    public static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0f) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] / norm;
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,40 @@
+package com.vijay.rag;
+
+/**
+ * Similarity between two vectors; higher is more similar.
+ */
+public enum VectorMetric {
+
+    /**
+     * Cosine similarity. Vectors are normalized once when stored and queried,
+     * so scoring is a plain dot product.
+     */
+    COSINE {
+        @Override
+        public float[] prepare(float[] vector) {
+            return VectorMath.normalize(vector);
+        }
+    },
+
+    /**
+     * Raw dot product, for embeddings that are already normalized or where magnitude matters.
+     */
+    DOT_PRODUCT {
+        @Override
+        public float[] prepare(float[] vector) {
+            return vector.clone();
+        }
+    };
+
+    /**
+     * Copy of the vector in the form it is stored and scored in.
+     */
+    public abstract float[] prepare(float[] vector);
+
+    /**
+     * Similarity of two prepared vectors.
+     */
+    public float score(float[] a, float[] b) {
+        return VectorMath.dot(a, b);
+    }
+}
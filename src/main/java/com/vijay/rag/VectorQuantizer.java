@@ -0,0 +1,61 @@
+package com.vijay.rag;
+
+/**
+ * Lossy fixed-size encoding of prepared vectors, trained per segment.
+ * Queries stay in full precision: scorers compare them against codes
+ * (asymmetric distance), which keeps most of the accuracy.
+ */
+abstract class VectorQuantizer {
+
+    abstract VectorEncoding encoding();
+
+    abstract int dimensions();
+
+    /**
+     * Bytes per encoded vector.
+     */
+    abstract int codeBytes();
+
+    abstract void encode(float[] vector, byte[] code);
+
+    /**
+     * Approximate vector a code stands for.
+     */
+    abstract float[] decode(byte[] code);
+
+    /**
+     * Scorer over codes; {@code codes} reads the code of an ordinal. A scorer
+     * serves one query on one thread and may reuse buffers between calls.
+     */
+    abstract VectorScorer scorer(float[] query, CodeReader codes);
+
+    /**
+     * Extra header ints persisted with the codebook.
+     */
+    abstract int[] parameters();
+
+    abstract float[] codebook();
+
+    static VectorQuantizer train(VectorEncoding encoding, VectorValues vectors, int subvectors) {
+        return switch (encoding) {
+            case INT8 -> ScalarQuantizer.train(vectors);
+            case PQ -> ProductQuantizer.train(vectors, subvectors > 0 ? subvectors : Math.max(1, vectors.dimensions() / 8));
+            case FLOAT32 -> throw new IllegalArgumentException("FLOAT32 vectors are not quantized");
+        };
+    }
+
+    static VectorQuantizer read(VectorEncoding encoding, int dimensions, int[] parameters, float[] codebook) {
+        return switch (encoding) {
+            case INT8 -> ScalarQuantizer.read(dimensions, codebook);
+            case PQ -> ProductQuantizer.read(dimensions, parameters, codebook);
+            case FLOAT32 -> throw new IllegalArgumentException("FLOAT32 vectors are not quantized");
+        };
+    }
+
+    /**
+     * Copies an ordinal's code into a buffer of {@link #codeBytes()} bytes.
+     */
+    interface CodeReader {
+        void read(int ordinal, byte[] code);
+    }
+}
@@ -0,0 +1,11 @@
+package com.vijay.rag;
+
+/**
+ * Similarity of one query to stored vectors, with any per-query work
+ * (normalization, lookup tables) done once up front.
+ */
+@FunctionalInterface
+public interface VectorScorer {
+
+    float score(int ordinal);
+}
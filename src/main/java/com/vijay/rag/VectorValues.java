@@ -0,0 +1,27 @@
+package com.vijay.rag;
+
+/**
+ * Random access to stored vectors by ordinal.
+ */
+public interface VectorValues {
+
+    int dimensions();
+
+    int size();
+
+    float[] vector(int ordinal);
+
+    /**
+     * Dot product of a query with a stored vector, without copying the stored vector.
+     */
+    default float dot(float[] query, int ordinal) {
+        return VectorMath.dot(query, vector(ordinal));
+    }
+
+    /**
+     * Scorer for a prepared query; quantized values score their codes instead of full vectors.
+     */
+    default VectorScorer scorer(float[] query) {
+        return ordinal -> dot(query, ordinal);
+    }
+}
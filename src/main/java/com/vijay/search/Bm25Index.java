@@ -0,0 +1,367 @@
+package com.vijay.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Incrementally maintained inverted index with BM25 ranking.
+ * <p>
+ * Documents receive dense ordinals in insertion order, so every postings list
+ * is naturally sorted and can be appended to without re-sorting. Queries are
+ * evaluated document-at-a-time over the query terms' postings and keep only a
+ * bounded top-k heap, which avoids allocating per-document accumulators.
+ * <p>
+ * Evaluation uses MaxScore pruning: each postings list knows the highest
+ * score any of its documents can contribute. Once the heap is full, terms
+ * whose combined bounds cannot beat its lowest score only score documents
+ * found through the other terms, and stop being read as soon as a document
+ * can no longer make it into the heap. Common terms are mostly skipped, so
+ * queries stay fast as the index grows.
+ * <p>
+ * Removal is incremental: the document is marked deleted, its terms' document
+ * frequencies and the collection statistics are decremented, and a postings
+ * list drops its deleted entries once they make up half of it. Ordinals are
+ * never reused; the per-document lengths below the oldest live ordinal are
+ * released as the front of the index is removed.
+ */
+public class Bm25Index {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int DELETED = -1;
+
+    private final Tokenizer tokenizer;
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Length of each document from ordinal `base` on, or DELETED
+    private int[] docLengths = new int[1024];
+    private int base;
+    private int firstLive;
+    private int nextDoc;
+    private int docCount;
+    private long totalLength;
+
+    public Bm25Index(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Tokenizes and indexes the text, returning the ordinal assigned to it.
+     */
+    public int add(String text) {
+        List<String> terms = tokenizer.tokenize(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int doc = nextDoc;
+            if (doc - base == docLengths.length) {
+                releaseFront();
+                if (doc - base == docLengths.length) {
+                    docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+                }
+            }
+            docLengths[doc - base] = terms.size();
+            totalLength += terms.size();
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new PostingList()).add(doc, entry.getValue(), terms.size());
+            }
+            nextDoc++;
+            docCount++;
+            return doc;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document, which is no longer returned or counted in the statistics.
+     *
+     * @param text the text the document was added with, which names the postings lists it is in
+     * @return false when the ordinal is unknown or already removed
+     */
+    public boolean remove(int doc, String text) {
+        Set<String> terms = new HashSet<>(tokenizer.tokenize(text));
+
+        lock.writeLock().lock();
+        try {
+            if (doc >= nextDoc || isDeleted(doc)) {
+                return false;
+            }
+            totalLength -= docLengths[doc - base];
+            docLengths[doc - base] = DELETED;
+            docCount--;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                list.live--;
+                if (list.live <= 0) {
+                    postings.remove(term);
+                } else if (list.live * 2 < list.size) {
+                    purge(list);
+                }
+            }
+            while (firstLive < nextDoc && isDeleted(firstLive)) {
+                firstLive++;
+            }
+            if ((firstLive - base) * 2 > nextDoc - base) {
+                releaseFront();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the k best matching documents accepted by the filter.
+     *
+     * @param filter optional predicate over ordinals, applied before scoring
+     */
+    public List<ScoredDoc> search(String query, int k, IntPredicate filter) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>(tokenizer.tokenize(query));
+        if (terms.isEmpty() || k <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (docCount == 0) {
+                return List.of();
+            }
+            float avgDocLength = (float) totalLength / docCount;
+            List<Cursor> cursors = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    float idf = idf(list.live);
+                    cursors.add(new Cursor(list, idf, maxScore(idf, list, avgDocLength)));
+                }
+            }
+            if (cursors.isEmpty()) {
+                return List.of();
+            }
+
+            // Cheapest terms first; bounds[i] is the most terms 0..i can add to a document's score
+            cursors.sort(Comparator.comparingDouble(cursor -> cursor.maxScore));
+            float[] bounds = new float[cursors.size()];
+            float sum = 0f;
+            for (int i = 0; i < bounds.length; i++) {
+                sum += cursors.get(i).maxScore;
+                bounds[i] = sum;
+            }
+
+            TopK topK = new TopK(k);
+            int essential = 0;
+            while (true) {
+                // Documents that only contain terms before `essential` cannot beat the heap
+                float threshold = topK.threshold();
+                while (essential < bounds.length && bounds[essential] <= threshold) {
+                    essential++;
+                }
+                if (essential == bounds.length) {
+                    break;
+                }
+                int doc = Integer.MAX_VALUE;
+                for (int i = essential; i < cursors.size(); i++) {
+                    Cursor cursor = cursors.get(i);
+                    if (cursor.hasNext() && cursor.doc() < doc) {
+                        doc = cursor.doc();
+                    }
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                boolean accepted = !isDeleted(doc) && (filter == null || filter.test(doc));
+                float score = 0f;
+                for (int i = essential; i < cursors.size(); i++) {
+                    Cursor cursor = cursors.get(i);
+                    if (cursor.hasNext() && cursor.doc() == doc) {
+                        if (accepted) {
+                            score += termScore(cursor.idf, cursor.tf(), docLengths[doc - base], avgDocLength);
+                        }
+                        cursor.position++;
+                    }
+                }
+                if (!accepted) {
+                    continue;
+                }
+                boolean competitive = true;
+                for (int i = essential - 1; i >= 0; i--) {
+                    if (score + bounds[i] <= threshold) {
+                        competitive = false;
+                        break;
+                    }
+                    Cursor cursor = cursors.get(i);
+                    cursor.advance(doc);
+                    if (cursor.hasNext() && cursor.doc() == doc) {
+                        score += termScore(cursor.idf, cursor.tf(), docLengths[doc - base], avgDocLength);
+                    }
+                }
+                if (competitive) {
+                    topK.offer(doc, score);
+                }
+            }
+            return topK.toSortedList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isDeleted(int doc) {
+        return doc < firstLive || docLengths[doc - base] == DELETED;
+    }
+
+    /**
+     * Drops the lengths of the removed documents before the oldest live one.
+     */
+    private void releaseFront() {
+        int released = firstLive - base;
+        if (released > 0) {
+            System.arraycopy(docLengths, released, docLengths, 0, nextDoc - firstLive);
+            base = firstLive;
+        }
+    }
+
+    /**
+     * Compacts a postings list to its live entries and tightens its score bounds.
+     */
+    private void purge(PostingList list) {
+        int kept = 0;
+        int maxFreq = 0;
+        int minLength = Integer.MAX_VALUE;
+        for (int i = 0; i < list.size; i++) {
+            int doc = list.docs[i];
+            if (!isDeleted(doc)) {
+                list.docs[kept] = doc;
+                list.freqs[kept] = list.freqs[i];
+                maxFreq = Math.max(maxFreq, list.freqs[i]);
+                minLength = Math.min(minLength, docLengths[doc - base]);
+                kept++;
+            }
+        }
+        list.size = kept;
+        list.maxFreq = maxFreq;
+        list.minLength = minLength;
+    }
+
+    private float idf(int docFreq) {
+        return (float) Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    private static float termScore(float idf, int tf, int docLength, float avgDocLength) {
+        float norm = K1 * (1 - B + B * docLength / avgDocLength);
+        return idf * (tf * (K1 + 1)) / (tf + norm);
+    }
+
+    /**
+     * Upper bound of the term's score in any document of the list: the score grows with term frequency and
+     * shrinks with document length. Scaled up a hair so float rounding never prunes a document it should not.
+     */
+    private static float maxScore(float idf, PostingList list, float avgDocLength) {
+        return termScore(idf, list.maxFreq, list.minLength, avgDocLength) * 1.0001f;
+    }
+
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        // Entries, including removed documents until the list is purged
+        private int size;
+        private int live;
+        // Bounds over every entry since the last purge, so they still bound the live ones
+        private int maxFreq;
+        private int minLength = Integer.MAX_VALUE;
+
+        void add(int doc, int freq, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            live++;
+            maxFreq = Math.max(maxFreq, freq);
+            minLength = Math.min(minLength, length);
+        }
+    }
+
+    private static final class Cursor {
+        private final PostingList list;
+        private final int limit;
+        private final float idf;
+        private final float maxScore;
+        private int position;
+
+        Cursor(PostingList list, float idf, float maxScore) {
+            this.list = list;
+            this.limit = list.size;
+            this.idf = idf;
+            this.maxScore = maxScore;
+        }
+
+        boolean hasNext() {
+            return position < limit;
+        }
+
+        int doc() {
+            return list.docs[position];
+        }
+
+        int tf() {
+            return list.freqs[position];
+        }
+
+        /**
+         * Moves to the first posting at or after {@code target}, galloping then binary searching.
+         */
+        void advance(int target) {
+            if (position >= limit || list.docs[position] >= target) {
+                return;
+            }
+            int low = position;
+            int step = 1;
+            while (low + step < limit && list.docs[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int high = Math.min(limit, low + step + 1);
+            int found = Arrays.binarySearch(list.docs, low + 1, high, target);
+            position = found >= 0 ? found : -found - 1;
+        }
+    }
+}
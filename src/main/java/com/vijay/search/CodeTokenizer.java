@@ -0,0 +1,118 @@
+package com.vijay.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer for text that mixes prose and code.
+ * <p>
+ * Identifiers such as {@code RAGService}, {@code ERR_CONN_RESET},
+ * {@code java.util.List} or {@code api/rag/ingest} are kept whole, lower-cased,
+ * so exact lookups score highly, and are also split into their camelCase,
+ * snake_case, dotted and path parts so partial names still match. Each term
+ * is emitted once per identifier. Stop words are dropped only when they stand alone.
+ */
+public class CodeTokenizer implements Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+    private static final int MAX_TERM_LENGTH = 64;
+
+    @Override
+    public List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean part = i < text.length() && isIdentifierChar(text.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                addIdentifier(terms, text, start, i);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '/';
+    }
+
+    private static boolean isJoiner(char c) {
+        return c == '_' || c == '.' || c == '/';
+    }
+
+    private void addIdentifier(List<String> terms, String text, int start, int end) {
+        // Trailing sentence punctuation and leading slashes are not part of the name
+        while (start < end && isJoiner(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isJoiner(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        String whole = text.substring(start, end).toLowerCase(Locale.ROOT);
+        Set<String> identifier = new LinkedHashSet<>();
+        identifier.add(whole);
+        int segmentStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || isJoiner(text.charAt(i))) {
+                addSegment(identifier, text, segmentStart, i);
+                segmentStart = i + 1;
+            }
+        }
+        if (identifier.size() == 1 && STOP_WORDS.contains(whole)) {
+            return;
+        }
+        for (String term : identifier) {
+            if (term.length() <= MAX_TERM_LENGTH) {
+                terms.add(term);
+            }
+        }
+    }
+
+    /**
+     * Add a segment between joiners and, if it has several words, each word.
+     */
+    private static void addSegment(Set<String> identifier, String text, int start, int end) {
+        if (start == end) {
+            return;
+        }
+        identifier.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+        int wordStart = start;
+        for (int i = start + 1; i < end; i++) {
+            if (isCaseBoundary(text, i, end)) {
+                identifier.add(text.substring(wordStart, i).toLowerCase(Locale.ROOT));
+                wordStart = i;
+            }
+        }
+        if (wordStart > start) {
+            identifier.add(text.substring(wordStart, end).toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * A new word starts at {@code i} in "userId" (lower to upper) and in "HTTPClient" (the C).
+     */
+    private static boolean isCaseBoundary(String text, int i, int end) {
+        char previous = text.charAt(i - 1);
+        char c = text.charAt(i);
+        if (!Character.isUpperCase(c)) {
+            return false;
+        }
+        if (Character.isLowerCase(previous) || Character.isDigit(previous)) {
+            return true;
+        }
+        return Character.isUpperCase(previous) && i + 1 < end && Character.isLowerCase(text.charAt(i + 1));
+    }
+}
@@ -0,0 +1,45 @@
+package com.vijay.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reciprocal rank fusion: each ranking contributes {@code 1 / (k + rank)} to
+ * an item's score, with ranks starting at 1. Only ranks are used, so rankings
+ * with incomparable scores (BM25, cosine similarity) can be combined. An item
+ * listed more than once in a ranking counts once, at its best rank.
+ */
+public final class ReciprocalRankFusion {
+
+    public static final int DEFAULT_K = 60;
+
+    private ReciprocalRankFusion() {
+    }
+
+    /**
+     * Fuse rankings of item keys, best first, into one ranking with fused scores.
+     */
+    public static List<Fused> fuse(int k, List<List<String>> rankings) {
+        Map<String, Float> scores = new LinkedHashMap<>();
+        for (List<String> ranking : rankings) {
+            Set<String> seen = new HashSet<>();
+            for (String key : ranking) {
+                if (seen.add(key)) {
+                    // Repeats are skipped, so the items after them keep consecutive ranks
+                    scores.merge(key, 1f / (k + seen.size()), Float::sum);
+                }
+            }
+        }
+        List<Fused> fused = new ArrayList<>(scores.size());
+        scores.forEach((key, score) -> fused.add(new Fused(key, score)));
+        fused.sort((a, b) -> Float.compare(b.score(), a.score()));
+        return fused;
+    }
+
+    public record Fused(String key, float score) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.vijay.search;
+
+/**
+ * A document ordinal with its relevance score.
+ */
+public record ScoredDoc(int doc, float score) {
+}
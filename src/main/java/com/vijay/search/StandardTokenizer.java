@@ -0,0 +1,49 @@
+package com.vijay.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lower-cases text and splits it on anything that is not a letter or digit,
+ * dropping a small set of English stop words.
+ */
+public class StandardTokenizer implements Tokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+    private static final int MAX_TERM_LENGTH = 64;
+
+    @Override
+    public List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                addTerm(terms, current);
+            }
+        }
+        if (current.length() > 0) {
+            addTerm(terms, current);
+        }
+        return terms;
+    }
+
+    private void addTerm(List<String> terms, StringBuilder current) {
+        if (current.length() <= MAX_TERM_LENGTH) {
+            String term = current.toString();
+            if (!STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,12 @@
+package com.vijay.search;
+
+import java.util.List;
+
+/**
+ * Splits text into the terms stored in an inverted index.
+ */
+@FunctionalInterface
+public interface Tokenizer {
+
+    List<String> tokenize(String text);
+}
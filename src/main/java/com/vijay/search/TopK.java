@@ -0,0 +1,55 @@
+package com.vijay.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded min-heap that keeps the k highest scoring documents seen so far.
+ * Candidates that cannot enter the heap are rejected without allocating.
+ */
+public final class TopK {
+
+    private static final Comparator<ScoredDoc> BY_SCORE = Comparator.comparingDouble(ScoredDoc::score);
+
+    private final int k;
+    private final PriorityQueue<ScoredDoc> heap;
+
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.min(k, 1024) + 1, BY_SCORE);
+    }
+
+    public void offer(int doc, float score) {
+        if (heap.size() < k) {
+            heap.add(new ScoredDoc(doc, score));
+        } else if (score > heap.peek().score()) {
+            heap.poll();
+            heap.add(new ScoredDoc(doc, score));
+        }
+    }
+
+    /**
+     * Lowest score currently in the heap, or negative infinity while it is not full.
+     */
+    public float threshold() {
+        return heap.size() < k ? Float.NEGATIVE_INFINITY : heap.peek().score();
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Drains the heap into a list ordered by descending score.
+     */
+    public List<ScoredDoc> toSortedList() {
+        List<ScoredDoc> result = new ArrayList<>(heap);
+        result.sort(BY_SCORE.reversed());
+        return result;
+    }
+}
@@ -0,0 +1,156 @@
+package com.vijay.service;
+
+import com.vijay.config.PreflightProperties;
+import com.vijay.dto.ChatRequest;
+import com.vijay.rag.MetadataFilter;
+import com.vijay.tool.ToolSelection;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares a chat request for the model call.
+ * <p>
+ * RAG retrieval, the slowest step since it embeds the message, is started in
+ * the background first. Meanwhile the calling thread runs the tool fast path
+ * and selects tools and renders the system prompt, so preparation takes about
+ * as long as the slowest step rather than the sum of all of them. Retrieval
+ * has to finish within {@code chat.preflight.timeout} of the start; if it
+ * runs late or fails the request continues without RAG context. When the fast
+ * path answers the message, retrieval is cancelled. Conversation memory is
+ * read by the chat client's memory advisor during the call and needs no step
+ * here.
+ */
+@Slf4j
+@Service
+public class ChatPreflight {
+
+    /**
+     * The steps a provider uses. Without {@code listTools} the system prompt is the provider's plain system
+     * message rather than the template listing the selected tools.
+     */
+    public record Plan(boolean route, boolean retrieve, boolean listTools) {
+
+        public static final Plan FULL = new Plan(true, true, true);
+    }
+
+    /**
+     * A prepared request: the fast-path answer if there is one, otherwise what the model call needs.
+     */
+    public record Prepared(Optional<ToolRouter.RoutedResponse> routed, String ragContext, ToolSelection tools,
+                           PromptTemplateService.SystemPrompt systemPrompt) {
+
+        static Prepared routed(ToolRouter.RoutedResponse response) {
+            return new Prepared(Optional.of(response), "", new ToolSelection(List.of(), List.of(), 0), null);
+        }
+    }
+
+    private final RAGService ragService;
+    private final ToolRouter toolRouter;
+    private final ToolSelector toolSelector;
+    private final PromptTemplateService promptTemplateService;
+    private final SystemMessageService systemMessageService;
+    private final PreflightProperties properties;
+    private final ExecutorService executor;
+
+    public ChatPreflight(RAGService ragService,
+                         ToolRouter toolRouter,
+                         ToolSelector toolSelector,
+                         PromptTemplateService promptTemplateService,
+                         SystemMessageService systemMessageService,
+                         PreflightProperties properties) {
+        this.ragService = ragService;
+        this.toolRouter = toolRouter;
+        this.toolSelector = toolSelector;
+        this.promptTemplateService = promptTemplateService;
+        this.systemMessageService = systemMessageService;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "chat-preflight-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Prepared prepare(ChatRequest request, String provider, String model, Plan plan) {
+        long start = System.nanoTime();
+        long deadline = start + properties.getTimeout().toNanos();
+        String message = request.getMessage();
+        // Built here so an invalid filter fails the request instead of being logged as a failed retrieval
+        MetadataFilter filter = plan.retrieve() ? MetadataFilter.of(request.getRagFilter()) : null;
+        Future<String> retrieval = plan.retrieve()
+                ? executor.submit(() -> ragService.generateRAGContext(message, model, filter))
+                : null;
+
+        if (plan.route()) {
+            Optional<ToolRouter.RoutedResponse> routed;
+            try {
+                routed = toolRouter.route(message);
+            } catch (RuntimeException e) {
+                cancel(retrieval);
+                throw e;
+            }
+            if (routed.isPresent()) {
+                cancel(retrieval);
+                return Prepared.routed(routed.get());
+            }
+        }
+
+        ToolSelection tools;
+        PromptTemplateService.SystemPrompt systemPrompt;
+        try {
+            tools = toolSelector.select(message);
+            systemPrompt = plan.listTools()
+                    ? promptTemplateService.getSystemPrompt(provider, model, tools)
+                    : new PromptTemplateService.SystemPrompt(systemMessageService.getSystemMessage(provider, model), tools.tools().size());
+        } catch (RuntimeException e) {
+            cancel(retrieval);
+            throw e;
+        }
+
+        String ragContext = retrieval == null ? "" : await(retrieval, deadline);
+        log.debug("Prepared {} request in {} ms (RAG context: {} characters, {} tools)",
+                provider, (System.nanoTime() - start) / 1_000_000, ragContext.length(), tools.tools().size());
+        return new Prepared(Optional.empty(), ragContext, tools, systemPrompt);
+    }
+
+    private String await(Future<String> retrieval, long deadline) {
+        try {
+            String context = retrieval.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return context != null ? context : "";
+        } catch (TimeoutException e) {
+            retrieval.cancel(true);
+            log.warn("RAG retrieval exceeded {} ms, continuing without context", properties.getTimeout().toMillis());
+            return "";
+        } catch (ExecutionException e) {
+            log.warn("RAG retrieval failed, continuing without context: {}", e.getCause().getMessage(), e.getCause());
+            return "";
+        } catch (InterruptedException e) {
+            retrieval.cancel(true);
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    private static void cancel(Future<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+}
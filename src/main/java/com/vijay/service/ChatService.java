@@ -17,6 +17,7 @@ import java.util.UUID;
 public class ChatService {
     
     private final AIProviderFactory providerFactory;
+    private final ConversationSearchService conversationSearchService;
     
     public ChatResponse generateResponse(ChatRequest request) {
         log.info("Generating response for provider: {}, model: {}", request.getProvider(), request.getModel());
@@ -45,7 +46,9 @@ public class ChatService {
                     .build();
         }
         
-        return provider.generateResponse(request);
+        ChatResponse response = provider.generateResponse(request);
+        conversationSearchService.recordExchange(request, response);
+        return response;
     }
     
     public List<ProviderInfo> getAvailableProviders() {
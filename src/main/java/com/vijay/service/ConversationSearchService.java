@@ -0,0 +1,236 @@
+package com.vijay.service;
+
+import com.vijay.config.ConversationHistoryProperties;
+import com.vijay.dto.ChatRequest;
+import com.vijay.dto.ChatResponse;
+import com.vijay.dto.ConversationMessage;
+import com.vijay.dto.ConversationSearchHit;
+import com.vijay.search.Bm25Index;
+import com.vijay.search.ScoredDoc;
+import com.vijay.search.StandardTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Stores conversation messages and keeps a BM25 inverted index over their content.
+ * <p>
+ * Messages are indexed as they are appended, so searching never scans the stored
+ * history. Provider, model and timestamp are kept in parallel primitive arrays
+ * keyed by the index ordinal, which lets filters run inside the postings walk.
+ * History is bounded by {@code chat.history.max-messages}; when it is full each
+ * append removes the oldest message from the index. Live ordinals then always
+ * form a window no wider than the bound, so messages and their attributes sit
+ * in ring buffers indexed by ordinal modulo their capacity.
+ */
+@Slf4j
+@Service
+public class ConversationSearchService {
+
+    private static final int NO_VALUE = -1;
+    private static final IntPredicate ACCEPT_ALL = doc -> true;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxMessages;
+
+    private final Bm25Index index = new Bm25Index(new StandardTokenizer());
+    private final Map<String, Integer> providerIds = new HashMap<>();
+    private final Map<String, Integer> modelIds = new HashMap<>();
+    // Ring buffers keyed by ordinal % capacity; they only grow before the first eviction
+    private ConversationMessage[] messageByDoc;
+    private int[] providerByDoc;
+    private int[] modelByDoc;
+    private long[] timestampByDoc;
+    private int oldestDoc;
+    private int count;
+
+    public ConversationSearchService(ConversationHistoryProperties properties) {
+        this.maxMessages = Math.max(4, properties.getMaxMessages());
+        int capacity = Math.min(1024, maxMessages);
+        messageByDoc = new ConversationMessage[capacity];
+        providerByDoc = new int[capacity];
+        modelByDoc = new int[capacity];
+        timestampByDoc = new long[capacity];
+    }
+
+    /**
+     * Record both sides of a completed chat exchange.
+     */
+    public void recordExchange(ChatRequest request, ChatResponse response) {
+        LocalDateTime now = LocalDateTime.now();
+        // The request leaves the model out when the provider default is used; the response names the one that ran
+        String model = request.getModel() == null && response != null ? response.getModel() : request.getModel();
+        append(ConversationMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .conversationId(request.getConversationId())
+                .role("user")
+                .content(request.getMessage())
+                .provider(request.getProvider())
+                .model(model)
+                .timestamp(now)
+                .build());
+
+        if (response != null && response.getError() == null && response.getResponse() != null) {
+            append(ConversationMessage.builder()
+                    .id(UUID.randomUUID().toString())
+                    .conversationId(response.getConversationId())
+                    .role("assistant")
+                    .content(response.getResponse())
+                    .provider(response.getProvider())
+                    .model(response.getModel())
+                    .timestamp(response.getTimestamp() != null ? response.getTimestamp() : now)
+                    .tokensUsed(response.getTokensUsed())
+                    .build());
+        }
+    }
+
+    /**
+     * Append a message to the history and index its content.
+     */
+    public void append(ConversationMessage message) {
+        if (message.getContent() == null || message.getContent().isBlank()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (count >= maxMessages) {
+                evictOldest();
+            }
+            index(message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(ConversationMessage message) {
+        int doc = index.add(message.getContent());
+        if (count == messageByDoc.length) {
+            // Nothing has been evicted yet, so ordinals still equal slots
+            int capacity = Math.min(messageByDoc.length * 2, maxMessages);
+            messageByDoc = Arrays.copyOf(messageByDoc, capacity);
+            providerByDoc = Arrays.copyOf(providerByDoc, capacity);
+            modelByDoc = Arrays.copyOf(modelByDoc, capacity);
+            timestampByDoc = Arrays.copyOf(timestampByDoc, capacity);
+        }
+        int slot = doc % messageByDoc.length;
+        messageByDoc[slot] = message;
+        providerByDoc[slot] = intern(providerIds, message.getProvider());
+        modelByDoc[slot] = intern(modelIds, message.getModel());
+        timestampByDoc[slot] = toEpochMillis(message.getTimestamp() != null ? message.getTimestamp() : LocalDateTime.now());
+        count++;
+    }
+
+    /**
+     * Removes the oldest message from the index, which only touches the postings of its own terms.
+     */
+    private void evictOldest() {
+        int slot = oldestDoc % messageByDoc.length;
+        index.remove(oldestDoc, messageByDoc[slot].getContent());
+        messageByDoc[slot] = null;
+        oldestDoc++;
+        count--;
+    }
+
+    /**
+     * Search message content, optionally restricted to a provider, model and time range.
+     */
+    public List<ConversationSearchHit> search(String query, String provider, String model,
+                                              LocalDateTime from, LocalDateTime to, int limit) {
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            IntPredicate filter = buildFilter(provider, model, from, to);
+            if (filter == null) {
+                return List.of();
+            }
+            List<ScoredDoc> docs = index.search(query, limit, filter == ACCEPT_ALL ? null : filter);
+            List<ConversationSearchHit> hits = new ArrayList<>(docs.size());
+            for (ScoredDoc doc : docs) {
+                ConversationMessage message = messageByDoc[doc.doc() % messageByDoc.length];
+                hits.add(ConversationSearchHit.builder()
+                        .messageId(message.getId())
+                        .conversationId(message.getConversationId())
+                        .role(message.getRole())
+                        .content(message.getContent())
+                        .provider(message.getProvider())
+                        .model(message.getModel())
+                        .timestamp(message.getTimestamp())
+                        .score(doc.score())
+                        .build());
+            }
+            log.debug("Conversation search '{}' returned {} hits in {}µs",
+                    query, hits.size(), (System.nanoTime() - start) / 1000);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getIndexedMessageCount() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns null when a filter value is unknown and therefore nothing can match.
+     */
+    private IntPredicate buildFilter(String provider, String model, LocalDateTime from, LocalDateTime to) {
+        int providerId = NO_VALUE;
+        if (provider != null && !provider.isBlank()) {
+            Integer id = providerIds.get(provider.toLowerCase());
+            if (id == null) {
+                return null;
+            }
+            providerId = id;
+        }
+        int modelId = NO_VALUE;
+        if (model != null && !model.isBlank()) {
+            Integer id = modelIds.get(model.toLowerCase());
+            if (id == null) {
+                return null;
+            }
+            modelId = id;
+        }
+        long fromMillis = from != null ? toEpochMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? toEpochMillis(to) : Long.MAX_VALUE;
+
+        if (providerId == NO_VALUE && modelId == NO_VALUE && from == null && to == null) {
+            return ACCEPT_ALL;
+        }
+        int[] providers = providerByDoc;
+        int[] models = modelByDoc;
+        long[] timestamps = timestampByDoc;
+        int capacity = providers.length;
+        int wantedProvider = providerId;
+        int wantedModel = modelId;
+        return doc -> (wantedProvider == NO_VALUE || providers[doc % capacity] == wantedProvider)
+                && (wantedModel == NO_VALUE || models[doc % capacity] == wantedModel)
+                && timestamps[doc % capacity] >= fromMillis
+                && timestamps[doc % capacity] <= toMillis;
+    }
+
+    private static int intern(Map<String, Integer> dictionary, String value) {
+        if (value == null || value.isBlank()) {
+            return NO_VALUE;
+        }
+        return dictionary.computeIfAbsent(value.toLowerCase(), v -> dictionary.size());
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,541 @@
+package com.vijay.service;
+
+import com.vijay.config.RagProperties;
+import com.vijay.rag.ContentHash;
+import com.vijay.rag.IngestionJob;
+import com.vijay.rag.SegmentedVectorStore;
+import com.vijay.rag.TextChunker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Streams files into the RAG index.
+ * <p>
+ * A job walks a directory lazily and chunks each file as it is read
+ * ({@link TextChunker}), so neither the file list nor any file is held in
+ * memory. Repeated chunks within a file are dropped. The rest are grouped
+ * into batches of {@code batch-size} and embedded by {@code parallelism} workers; the reading thread blocks while all workers are
+ * busy, which keeps at most {@code parallelism} batches in memory and the
+ * embedding backend saturated. Failed batches are retried with backoff.
+ * <p>
+ * Each file is a document in the index, identified by its absolute path,
+ * or for uploads by {@code upload:<collection>/<file name>}, and its chunks
+ * are indexed under a new document version. Once all of them are indexed the version is committed, replacing
+ * the chunks of the file's previous version in one step; a file that fails
+ * keeps its previous version. Unchanged chunks of a changed file are added
+ * again, but their embeddings come from the embedding cache. Files that
+ * have disappeared from an ingested directory are deleted from the index.
+ * Chunks carry their file's {@code extension} and the metadata given to the
+ * job, such as a tenant or project, for filtered retrieval.
+ * <p>
+ * A file is recorded as done once its version is committed, and files
+ * already done with the same size and modification time are skipped, so an
+ * interrupted or cancelled job can simply be run again. When the index is
+ * persistent the record of finished files is kept in {@code state-directory}
+ * across restarts as well. Uploads are staged below {@code state-directory}
+ * only while their job runs and are not recorded, as their staged copies are
+ * never seen again.
+ * <p>
+ * Server-side directories can only be ingested below one of
+ * {@code allowed-roots}, compared after resolving symbolic links, so the
+ * endpoint cannot be pointed at the application's own configuration or any
+ * other file the process can read.
+ */
+@Slf4j
+@Service
+public class DocumentIngestionService {
+
+    private static final String MANIFEST = "ingested-files.tsv";
+    private static final String UPLOAD_PREFIX = "upload:";
+    private static final Pattern COLLECTION = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+
+    private final RAGService ragService;
+    private final RagProperties.Ingest properties;
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    // Absolute path to the key (path, size and modification time) of the file as last ingested
+    private final Map<String, String> completedFiles = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor = Executors.newCachedThreadPool(daemon("rag-ingest"));
+    private final ExecutorService embeddingExecutor;
+
+    public DocumentIngestionService(RAGService ragService, RagProperties properties) {
+        this.ragService = ragService;
+        this.properties = properties.getIngest();
+        this.embeddingExecutor = Executors.newFixedThreadPool(Math.max(1, this.properties.getParallelism()), daemon("rag-embed"));
+    }
+
+    @PostConstruct
+    public void init() {
+        // Staged uploads of jobs that did not finish before the last shutdown
+        deleteQuietly(uploadsDirectory());
+        Path manifest = manifest();
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try {
+            if (ragService.isPersistent()) {
+                String staged = uploadsDirectory().toAbsolutePath().normalize() + File.separator;
+                try (Stream<String> lines = Files.lines(manifest)) {
+                    // Earlier runs recorded staged uploads too
+                    lines.filter(line -> !line.isBlank() && !line.startsWith(staged))
+                            .forEach(key -> completedFiles.put(pathOf(key), key));
+                }
+                log.info("RAG: {} files already ingested", completedFiles.size());
+            } else {
+                // The index starts empty, so files recorded by an earlier run must be ingested again
+                Files.delete(manifest);
+            }
+        } catch (IOException e) {
+            log.warn("RAG: Could not read ingestion manifest {}: {}", manifest, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(IngestionJob::cancel);
+        jobExecutor.shutdownNow();
+        embeddingExecutor.shutdownNow();
+    }
+
+    /**
+     * Start ingesting every supported file below a directory.
+     *
+     * @param metadata added to every chunk, e.g. {@code tenant} or {@code project}
+     */
+    public IngestionJob ingestDirectory(Path directory, Map<String, String> metadata) {
+        Path root = allowedDirectory(directory);
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), root.toString());
+        jobs.put(job.getId(), job);
+        jobExecutor.submit(() -> run(job, root, null, Map.copyOf(metadata)));
+        return job;
+    }
+
+    /**
+     * The real path of the directory, if it is below an allowed root.
+     */
+    private Path allowedDirectory(Path directory) {
+        Path real;
+        try {
+            real = directory.toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        if (!Files.isDirectory(real)) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        for (String allowed : properties.getAllowedRoots()) {
+            try {
+                if (!allowed.isBlank() && real.startsWith(Path.of(allowed).toRealPath())) {
+                    return real;
+                }
+            } catch (IOException e) {
+                log.debug("RAG: Allowed ingest root {} does not exist", allowed);
+            }
+        }
+        throw new IllegalArgumentException("Directory is outside chat.rag.ingest.allowed-roots: " + directory);
+    }
+
+    /**
+     * Stage uploaded files in the state directory and ingest them.
+     * Uploads are copied first because the request's temporary files disappear when it completes.
+     * <p>
+     * A file becomes document {@code upload:<collection>/<file name>}, so uploading a file with the same
+     * name to the same collection replaces it. Without a collection the job id is used, and the upload
+     * replaces nothing.
+     *
+     * @param collection optional namespace for the uploaded documents, letters, digits, {@code .}, {@code _} and {@code -}
+     * @throws IllegalArgumentException if the collection is malformed or two files have the same name
+     */
+    public IngestionJob ingestUploads(List<MultipartFile> files, String collection, Map<String, String> metadata) throws IOException {
+        if (collection != null && !collection.isBlank() && !COLLECTION.matcher(collection).matches()) {
+            throw new IllegalArgumentException("Invalid collection: " + collection);
+        }
+        Map<String, MultipartFile> named = new LinkedHashMap<>();
+        for (MultipartFile file : files) {
+            String name = Path.of(Optional.ofNullable(file.getOriginalFilename()).orElse("upload.txt")).getFileName().toString();
+            if (named.put(name, file) != null) {
+                throw new IllegalArgumentException("More than one uploaded file is named " + name);
+            }
+        }
+        String jobId = UUID.randomUUID().toString();
+        String namespace = UPLOAD_PREFIX + (collection == null || collection.isBlank() ? jobId : collection) + "/";
+        Path staging = uploadsDirectory().resolve(jobId);
+        IngestionJob job = new IngestionJob(jobId, namespace);
+        jobs.put(job.getId(), job);
+        try {
+            Files.createDirectories(staging);
+            for (Map.Entry<String, MultipartFile> entry : named.entrySet()) {
+                try (InputStream in = entry.getValue().getInputStream()) {
+                    Files.copy(in, staging.resolve(entry.getKey()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            // The job deletes the staging directory when it ends
+            jobExecutor.submit(() -> run(job, staging, namespace, Map.copyOf(metadata)));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(staging);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<IngestionJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public Collection<IngestionJob> getJobs() {
+        return jobs.values();
+    }
+
+    public boolean cancel(String id) {
+        IngestionJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    /**
+     * @param uploadNamespace for staged uploads, the prefix of their document ids; null for a directory
+     * @param metadata        added to every chunk
+     */
+    private void run(IngestionJob job, Path directory, String uploadNamespace, Map<String, String> metadata) {
+        boolean uploads = uploadNamespace != null;
+        log.info("RAG: Ingestion {} started for {}", job.getId(), directory);
+        Semaphore workers = new Semaphore(Math.max(1, properties.getParallelism()));
+        TextChunker chunker = new TextChunker(properties.getChunkTokens(), properties.getOverlapTokens());
+        List<Chunk> batch = new ArrayList<>(properties.getBatchSize());
+        Set<String> seenFiles = new HashSet<>();
+        IngestionJob.Status status;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Path root = directory.toRealPath();
+            Iterator<Path> files = paths.filter(Files::isRegularFile).filter(this::isSupported).iterator();
+            while (files.hasNext() && !job.isCancelRequested()) {
+                Path file = files.next();
+                if (!isInside(file, root)) {
+                    // A symbolic link to a file outside the directory being ingested
+                    log.warn("RAG: Skipping {}, it links outside {}", file, directory);
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                job.fileSeen(attributes.size());
+                String path = file.toAbsolutePath().normalize().toString();
+                // Staged uploads are not recorded, so they have no key
+                String key = uploads ? null : path + "\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis();
+                seenFiles.add(path);
+                if (key != null && key.equals(completedFiles.get(path))) {
+                    job.fileSkipped();
+                    continue;
+                }
+                String source = directory.relativize(file).toString();
+                String extension = extension(file);
+                FileProgress progress = new FileProgress(key, uploads ? uploadNamespace + source : path, ragService.nextDocumentVersion());
+                AtomicInteger index = new AtomicInteger();
+                Set<String> fileHashes = new HashSet<>();
+                try (Reader reader = reader(file)) {
+                    chunker.chunk(reader, text -> {
+                        String hash = ContentHash.of(text);
+                        if (!fileHashes.add(hash)) {
+                            job.duplicate();
+                            return;
+                        }
+                        job.chunk();
+                        progress.pending.incrementAndGet();
+                        Map<String, Object> chunkMetadata = new HashMap<>(metadata);
+                        chunkMetadata.put("source", source);
+                        chunkMetadata.put("extension", extension);
+                        chunkMetadata.put("chunk", index.getAndIncrement());
+                        chunkMetadata.put("contentHash", hash);
+                        chunkMetadata.put(SegmentedVectorStore.DOCUMENT_ID, progress.documentId);
+                        chunkMetadata.put(SegmentedVectorStore.DOCUMENT_VERSION, progress.version);
+                        Document document = new Document(text, chunkMetadata);
+                        batch.add(new Chunk(document, progress));
+                        if (batch.size() >= properties.getBatchSize()) {
+                            submitFromReader(job, batch, workers);
+                        }
+                    });
+                } catch (IOException | RuntimeException e) {
+                    progress.failed = true;
+                    job.fileFailed(source, e);
+                }
+                progress.produced = true;
+                complete(job, progress);
+            }
+            if (!batch.isEmpty()) {
+                if (job.isCancelRequested()) {
+                    // These files will never be committed
+                    batch.stream().map(Chunk::progress).distinct()
+                            .forEach(progress -> ragService.abandonDocument(progress.documentId, progress.version));
+                } else {
+                    submit(job, List.copyOf(batch), workers);
+                }
+            }
+            // Wait for the batches in flight
+            workers.acquire(Math.max(1, properties.getParallelism()));
+            if (!uploads && !job.isCancelRequested()) {
+                deleteVanished(job, directory, seenFiles);
+            }
+            ragService.flush();
+            status = job.isCancelRequested() ? IngestionJob.Status.CANCELLED : IngestionJob.Status.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = IngestionJob.Status.CANCELLED;
+        } catch (Exception e) {
+            log.error("RAG: Ingestion {} failed: {}", job.getId(), e.getMessage(), e);
+            job.error(e.getMessage());
+            status = IngestionJob.Status.FAILED;
+        } finally {
+            if (uploads) {
+                deleteQuietly(directory);
+            }
+        }
+        // Only once the staged uploads are gone
+        job.finish(status);
+        log.info("RAG: Ingestion {} {}: {}", job.getId(), job.getStatus(), job.toMap());
+    }
+
+    private void submitFromReader(IngestionJob job, List<Chunk> batch, Semaphore workers) {
+        try {
+            submit(job, List.copyOf(batch), workers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.cancel();
+        }
+        batch.clear();
+    }
+
+    /**
+     * Hand a batch to an embedding worker, blocking while all workers are busy.
+     */
+    private void submit(IngestionJob job, List<Chunk> batch, Semaphore workers) throws InterruptedException {
+        workers.acquire();
+        try {
+            embeddingExecutor.submit(() -> {
+                try {
+                    embed(job, batch);
+                } finally {
+                    workers.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            workers.release();
+            throw e;
+        }
+    }
+
+    private void embed(IngestionJob job, List<Chunk> batch) {
+        List<Document> documents = batch.stream().map(Chunk::document).toList();
+        List<String> texts = documents.stream().map(Document::getText).toList();
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                ragService.add(documents, ragService.embed(texts));
+                job.batchEmbedded(batch.size(), System.nanoTime() - start);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getMaxAttempts() || job.isCancelRequested()) {
+                    log.warn("RAG: Embedding batch of {} chunks failed: {}", batch.size(), e.getMessage());
+                    job.error("Embedding failed: " + e.getMessage());
+                    batch.forEach(chunk -> chunk.progress().failed = true);
+                    break;
+                }
+                try {
+                    Thread.sleep(500L << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        for (Chunk chunk : batch) {
+            chunk.progress().pending.decrementAndGet();
+            complete(job, chunk.progress());
+        }
+    }
+
+    /**
+     * Commit a file's version and record it as ingested once it has been fully read and all of its chunks are indexed.
+     */
+    private void complete(IngestionJob job, FileProgress progress) {
+        if (!progress.produced || progress.pending.get() > 0 || !progress.completed.compareAndSet(false, true)) {
+            return;
+        }
+        if (progress.failed) {
+            ragService.abandonDocument(progress.documentId, progress.version);
+            return;
+        }
+        if (!ragService.commitDocument(progress.documentId, progress.version)) {
+            // Deleted, or a newer version was committed by another job meanwhile
+            log.debug("RAG: Version {} of {} was superseded", progress.version, progress.documentId);
+            return;
+        }
+        job.fileIndexed();
+        if (progress.key == null) {
+            return;
+        }
+        completedFiles.put(pathOf(progress.key), progress.key);
+        try {
+            synchronized (completedFiles) {
+                Files.createDirectories(manifest().getParent());
+                Files.writeString(manifest(), progress.key + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            log.warn("RAG: Could not record ingested file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete files recorded under a directory that its walk no longer found, and rewrite the manifest without them.
+     */
+    private void deleteVanished(IngestionJob job, Path directory, Set<String> seenFiles) {
+        String prefix = directory.toAbsolutePath().normalize() + File.separator;
+        List<String> vanished = completedFiles.keySet().stream()
+                .filter(path -> path.startsWith(prefix) && !seenFiles.contains(path))
+                .toList();
+        if (vanished.isEmpty()) {
+            return;
+        }
+        for (String path : vanished) {
+            completedFiles.remove(path);
+            ragService.deleteDocument(path);
+            job.fileDeleted();
+        }
+        try {
+            synchronized (completedFiles) {
+                Path temp = manifest().resolveSibling(MANIFEST + ".tmp");
+                Files.write(temp, completedFiles.values(), StandardCharsets.UTF_8);
+                Files.move(temp, manifest(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.warn("RAG: Could not rewrite ingestion manifest: {}", e.getMessage());
+        }
+    }
+
+    private static String pathOf(String key) {
+        int tab = key.indexOf('\t');
+        return tab < 0 ? key : key.substring(0, tab);
+    }
+
+    private static boolean isInside(Path file, Path root) {
+        try {
+            return file.toRealPath().startsWith(root);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isSupported(Path file) {
+        String extension = extension(file);
+        return !extension.isEmpty() && properties.getExtensions().contains(extension);
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private Path manifest() {
+        return Path.of(properties.getStateDirectory(), MANIFEST);
+    }
+
+    private Path uploadsDirectory() {
+        return Path.of(properties.getStateDirectory(), "uploads");
+    }
+
+    /**
+     * Delete a file or directory tree, logging what could not be deleted.
+     */
+    private static void deleteQuietly(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            // Children before their parents
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("RAG: Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("RAG: Could not delete {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static Reader reader(Path file) throws IOException {
+        return new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Chunk(Document document, FileProgress progress) {
+    }
+
+    private static final class FileProgress {
+        // Null for staged uploads, which are not recorded
+        private final String key;
+        private final String documentId;
+        private final long version;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean produced;
+        private volatile boolean failed;
+
+        FileProgress(String key, String documentId, long version) {
+            this.key = key;
+            this.documentId = documentId;
+            this.version = version;
+        }
+    }
+}
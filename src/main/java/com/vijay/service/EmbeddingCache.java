@@ -0,0 +1,187 @@
+package com.vijay.service;
+
+import com.vijay.config.EmbeddingCacheProperties;
+import com.vijay.rag.ContentHash;
+import com.vijay.rag.EmbeddingDiskCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Content-addressed cache of embeddings.
+ * <p>
+ * Entries are keyed by model and the {@link ContentHash} of the text, so the
+ * same chunk or query is embedded once per model however often it is seen.
+ * Lookups go to an in-memory LRU tier, then to the model's
+ * {@link EmbeddingDiskCache}; disk hits are promoted to memory. Misses in a
+ * batch are embedded together in a single model call.
+ */
+@Slf4j
+@Service
+public class EmbeddingCache {
+
+    private final EmbeddingCacheProperties properties;
+    private final LinkedHashMap<String, float[]> entries;
+    private final Map<String, EmbeddingDiskCache> diskCaches = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EmbeddingCache(EmbeddingCacheProperties properties) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                boolean evict = size() > properties.getMaxEntries();
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Embeddings of the texts, in order, calling {@code embedder} once with the texts not cached.
+     *
+     * @param model identifies the embedding model; vectors of different models never mix
+     */
+    public List<float[]> embed(String model, List<String> texts, Function<List<String>, List<float[]>> embedder) {
+        if (!properties.isEnabled()) {
+            return embedder.apply(texts);
+        }
+        float[][] vectors = new float[texts.size()][];
+        String[] hashes = new String[texts.size()];
+        Map<String, List<Integer>> missing = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            hashes[i] = ContentHash.of(texts.get(i));
+            vectors[i] = lookup(model, hashes[i]);
+            if (vectors[i] == null) {
+                missing.computeIfAbsent(hashes[i], h -> new ArrayList<>()).add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<String> batch = new ArrayList<>(missing.size());
+            for (List<Integer> positions : missing.values()) {
+                batch.add(texts.get(positions.get(0)));
+            }
+            List<float[]> embedded = embedder.apply(batch);
+            int n = 0;
+            for (Map.Entry<String, List<Integer>> entry : missing.entrySet()) {
+                float[] vector = embedded.get(n++);
+                store(model, entry.getKey(), vector);
+                for (int position : entry.getValue()) {
+                    vectors[position] = vector;
+                }
+            }
+        }
+        return List.of(vectors);
+    }
+
+    public float[] embed(String model, String text, Function<List<String>, List<float[]>> embedder) {
+        return embed(model, List.of(text), embedder).get(0);
+    }
+
+    private float[] lookup(String model, String contentHash) {
+        String key = model + "|" + contentHash;
+        synchronized (entries) {
+            float[] vector = entries.get(key);
+            if (vector != null) {
+                memoryHits.incrementAndGet();
+                return vector;
+            }
+        }
+        EmbeddingDiskCache disk = diskCache(model, 0);
+        float[] vector = disk == null ? null : disk.get(contentHash);
+        if (vector != null) {
+            diskHits.incrementAndGet();
+            synchronized (entries) {
+                entries.put(key, vector);
+            }
+            return vector;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void store(String model, String contentHash, float[] vector) {
+        synchronized (entries) {
+            entries.put(model + "|" + contentHash, vector);
+        }
+        EmbeddingDiskCache disk = diskCache(model, vector.length);
+        if (disk != null) {
+            disk.put(contentHash, vector);
+        }
+    }
+
+    /**
+     * The model's disk tier. With {@code dimensions} of 0 only an existing file is opened,
+     * so lookups find vectors stored before a restart; otherwise it is created if needed.
+     */
+    private EmbeddingDiskCache diskCache(String model, int dimensions) {
+        EmbeddingDiskCache open = diskCaches.get(model);
+        if (open != null) {
+            return dimensions == 0 || open.dimensions() == dimensions ? open : null;
+        }
+        String directory = properties.getDiskDirectory();
+        if (directory == null || directory.isBlank() || properties.getDiskEntries() <= 0) {
+            return null;
+        }
+        Path file = Path.of(directory, model.replaceAll("[^A-Za-z0-9._-]", "_") + ".emb");
+        int size = dimensions > 0 ? dimensions : EmbeddingDiskCache.storedDimensions(file);
+        if (size == 0) {
+            return null;
+        }
+        synchronized (diskCaches) {
+            open = diskCaches.get(model);
+            if (open == null) {
+                try {
+                    open = EmbeddingDiskCache.open(file, size, properties.getDiskEntries());
+                    diskCaches.put(model, open);
+                    log.info("RAG: Opened embedding cache {}", open);
+                } catch (IOException e) {
+                    log.warn("RAG: Embedding disk cache unavailable at {}: {}", file, e.getMessage());
+                    return null;
+                }
+            }
+        }
+        return open.dimensions() == size ? open : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        long memory = memoryHits.get();
+        long disk = diskHits.get();
+        long missCount = misses.get();
+        long total = memory + disk + missCount;
+        stats.put("memoryHits", memory);
+        stats.put("diskHits", disk);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) (memory + disk) / total);
+        stats.put("maxEntries", properties.getMaxEntries());
+        stats.put("diskModels", diskCaches.keySet());
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        diskCaches.values().forEach(EmbeddingDiskCache::close);
+    }
+}
@@ -0,0 +1,73 @@
+package com.vijay.service;
+
+import com.vijay.provider.AIProvider;
+import com.vijay.rag.Reranker;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scores passages for a query by asking a chat model to rate each one from 0
+ * to 10 in a single prompt per batch. Scores are returned divided by 10;
+ * passages the model does not rate score -1 so they rank last.
+ */
+final class LlmRelevanceJudge implements Reranker.Scorer {
+
+    // Long chunks are cut so a batch stays well inside small context windows
+    private static final int MAX_PASSAGE_CHARACTERS = 1500;
+    private static final Pattern RATING = Pattern.compile("(?im)^\\W*(?:passage\\s*)?(\\d+)\\W+(\\d+(?:\\.\\d+)?)");
+
+    private final Supplier<AIProvider> provider;
+    private final String model;
+
+    /**
+     * @param provider resolved on each call, so the judge can be created before the providers exist
+     * @param model    model to judge with, or null for the provider's default
+     */
+    LlmRelevanceJudge(Supplier<AIProvider> provider, String model) {
+        this.provider = provider;
+        this.model = model;
+    }
+
+    @Override
+    public float[] score(String query, List<String> passages) {
+        AIProvider judge = provider.get();
+        if (judge == null) {
+            throw new IllegalStateException("No provider to rerank with");
+        }
+        String answer = judge.complete(prompt(query, passages), model);
+        float[] scores = new float[passages.size()];
+        Arrays.fill(scores, -1f);
+        int rated = 0;
+        Matcher matcher = RATING.matcher(answer == null ? "" : answer);
+        while (matcher.find()) {
+            int passage = Integer.parseInt(matcher.group(1)) - 1;
+            if (passage >= 0 && passage < scores.length && scores[passage] < 0) {
+                scores[passage] = Math.min(10f, Float.parseFloat(matcher.group(2))) / 10f;
+                rated++;
+            }
+        }
+        if (rated == 0) {
+            throw new IllegalStateException("Judge returned no ratings");
+        }
+        return scores;
+    }
+
+    private static String prompt(String query, List<String> passages) {
+        StringBuilder prompt = new StringBuilder()
+                .append("Rate how well each passage helps answer the question, from 0 (irrelevant) to 10 (answers it).\n")
+                .append("Reply with one line per passage in the form <passage number>: <rating> and nothing else.\n\n")
+                .append("Question: ").append(query.strip()).append("\n\n");
+        for (int i = 0; i < passages.size(); i++) {
+            String passage = passages.get(i).strip();
+            if (passage.length() > MAX_PASSAGE_CHARACTERS) {
+                passage = passage.substring(0, MAX_PASSAGE_CHARACTERS) + "...";
+            }
+            prompt.append("Passage ").append(i + 1).append(":\n").append(passage).append("\n\n");
+        }
+        return prompt.toString();
+    }
+}
@@ -2,11 +2,9 @@ package com.vijay.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.util.Map;
 import java.util.HashMap;
@@ -16,39 +14,24 @@ import java.util.HashMap;
 @RequiredArgsConstructor
 public class MCPService {
 
-    private final WebClient.Builder webClientBuilder;
-    
-    @Value("${spring.ai.mcp.client.sse.connections.my-mcp-server.url:http://localhost:8081}")
-    private String mcpServerUrl;
+    private final McpHealthMonitor mcpHealthMonitor;
 
     /**
      * Connect to MCP server and check availability
      */
     public boolean connectToMCPServer(String serverName) {
-        try {
-            String serverUrl = getAvailableMCPServers().get(serverName);
-            if (serverUrl == null) {
-                log.warn("MCP server {} not found in configuration", serverName);
-                return false;
-            }
-            
-            WebClient webClient = webClientBuilder.baseUrl(serverUrl).build();
-            
-            // Test connection with a simple health check
-            Mono<String> response = webClient.get()
-                    .uri("/health")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(java.time.Duration.ofSeconds(5));
-            
-            response.block(); // Test the connection
-            log.info("Successfully connected to MCP server: {}", serverName);
-            return true;
-            
-        } catch (Exception e) {
-            log.warn("Failed to connect to MCP server {}: {}", serverName, e.getMessage());
+        if (!getAvailableMCPServers().containsKey(serverName)) {
+            log.warn("MCP server {} not found in configuration", serverName);
             return false;
         }
+        boolean available = Boolean.TRUE.equals(mcpHealthMonitor.probe(serverName).block());
+        if (available) {
+            log.info("Successfully connected to MCP server: {}", serverName);
+        } else {
+            log.warn("Failed to connect to MCP server {}: {}", serverName,
+                    mcpHealthMonitor.getStatus(serverName).get("error"));
+        }
+        return available;
     }
 
     /**
@@ -56,14 +39,12 @@ public class MCPService {
      */
     public Flux<String> sendToMCPServer(String serverName, String message) {
         try {
-            String serverUrl = getAvailableMCPServers().get(serverName);
-            if (serverUrl == null) {
+            WebClient webClient = mcpHealthMonitor.getClient(serverName);
+            if (webClient == null) {
                 log.warn("MCP server {} not found in configuration", serverName);
                 return Flux.empty();
             }
             
-            WebClient webClient = webClientBuilder.baseUrl(serverUrl).build();
-            
             Map<String, String> requestBody = new HashMap<>();
             requestBody.put("message", message);
             requestBody.put("timestamp", String.valueOf(System.currentTimeMillis()));
@@ -88,58 +69,20 @@ public class MCPService {
      * Get available MCP servers from Spring properties
      */
     public Map<String, String> getAvailableMCPServers() {
-        // Read from Spring properties instead of hardcoding
-        Map<String, String> servers = new HashMap<>();
-        
-        // Use the injected MCP server URL from properties
-        servers.put("my-mcp-server", mcpServerUrl);
-        
-        return servers;
+        return mcpHealthMonitor.getServers();
     }
 
     /**
-     * Check if MCP server is available
+     * Check if MCP server is available, using the last background health check
      */
     public boolean isMCPServerAvailable(String serverName) {
-        return connectToMCPServer(serverName);
+        return mcpHealthMonitor.isAvailable(serverName);
     }
     
     /**
-     * Get MCP server status with detailed information
+     * Get MCP server status with detailed information from the last background health check
      */
     public Map<String, Object> getMCPServerStatus(String serverName) {
-        Map<String, Object> status = new HashMap<>();
-        String serverUrl = getAvailableMCPServers().get(serverName);
-        
-        status.put("name", serverName);
-        status.put("url", serverUrl);
-        status.put("available", false);
-        status.put("lastChecked", System.currentTimeMillis());
-        
-        if (serverUrl != null) {
-            try {
-                WebClient webClient = webClientBuilder.baseUrl(serverUrl).build();
-                Mono<String> response = webClient.get()
-                        .uri("")
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .timeout(java.time.Duration.ofSeconds(3));
-                
-                String healthResponse = response.block();
-                status.put("available", true);
-                status.put("healthResponse", healthResponse);
-                status.put("status", "healthy");
-                
-            } catch (Exception e) {
-                status.put("available", false);
-                status.put("error", e.getMessage());
-                status.put("status", "unhealthy");
-            }
-        } else {
-            status.put("error", "Server not configured");
-            status.put("status", "not_configured");
-        }
-        
-        return status;
+        return mcpHealthMonitor.getStatus(serverName);
     }
 }
@@ -0,0 +1,241 @@
+package com.vijay.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background health monitor for the HTTP MCP servers.
+ * <p>
+ * Each server gets one WebClient, built once and reused for probes and
+ * requests. Servers are probed on a schedule without blocking any thread; the
+ * result and a short latency history are kept per server, so status endpoints
+ * answer from memory instead of waiting seconds for a slow or dead server.
+ */
+@Slf4j
+@Service
+public class McpHealthMonitor {
+
+    private static final int LATENCY_HISTORY = 50;
+    private static final int MAX_RESPONSE_LENGTH = 500;
+
+    private final WebClient.Builder webClientBuilder;
+    private final Duration probeTimeout;
+    private final Map<String, String> servers = new LinkedHashMap<>();
+    private final Map<String, WebClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ServerState> states = new ConcurrentHashMap<>();
+
+    public McpHealthMonitor(WebClient.Builder webClientBuilder,
+                            @Value("${spring.ai.mcp.client.sse.connections.my-mcp-server.url:http://localhost:8081}") String mcpServerUrl,
+                            @Value("${chat.mcp.health.timeout-ms:3000}") long probeTimeoutMs) {
+        this.webClientBuilder = webClientBuilder;
+        this.probeTimeout = Duration.ofMillis(probeTimeoutMs);
+        this.servers.put("my-mcp-server", mcpServerUrl);
+    }
+
+    @PostConstruct
+    public void init() {
+        servers.forEach((name, url) -> states.put(name, new ServerState(name, url)));
+        probeAll();
+    }
+
+    /**
+     * Configured MCP servers by name.
+     */
+    public Map<String, String> getServers() {
+        return Map.copyOf(servers);
+    }
+
+    /**
+     * Pooled WebClient for a server, or null if the server is not configured.
+     */
+    public WebClient getClient(String serverName) {
+        String url = servers.get(serverName);
+        if (url == null) {
+            return null;
+        }
+        return clients.computeIfAbsent(serverName, name -> webClientBuilder.clone().baseUrl(url).build());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.mcp.health.interval-ms:15000}",
+            initialDelayString = "${chat.mcp.health.interval-ms:15000}")
+    public void probeAll() {
+        for (String serverName : servers.keySet()) {
+            probe(serverName).subscribe();
+        }
+    }
+
+    /**
+     * Probe one server when subscribed. A subscriber that arrives while a probe of the same server is running
+     * joins it and gets its result, so explicit checks always see a fresh answer without doubling the traffic.
+     */
+    public Mono<Boolean> probe(String serverName) {
+        ServerState state = states.get(serverName);
+        WebClient client = getClient(serverName);
+        if (state == null || client == null) {
+            return Mono.just(false);
+        }
+        return Mono.defer(() -> {
+            while (true) {
+                Mono<Boolean> running = state.probe.get();
+                if (running != null) {
+                    return running;
+                }
+                // Shared so every subscriber gets the one result; it also runs on if the first one cancels.
+                // The slot is freed before the result is delivered, so a probe started after it sends a new request.
+                AtomicReference<Mono<Boolean>> self = new AtomicReference<>();
+                Mono<Boolean> probe = request(state, client)
+                        .doOnEach(signal -> state.probe.compareAndSet(self.get(), null))
+                        .share();
+                self.set(probe);
+                if (state.probe.compareAndSet(null, probe)) {
+                    return probe;
+                }
+            }
+        });
+    }
+
+    private Mono<Boolean> request(ServerState state, WebClient client) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return client.get()
+                    .uri("")
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .defaultIfEmpty("")
+                    .timeout(probeTimeout)
+                    .map(body -> {
+                        state.recordSuccess((System.nanoTime() - start) / 1_000_000, body);
+                        return true;
+                    })
+                    .onErrorResume(e -> {
+                        state.recordFailure((System.nanoTime() - start) / 1_000_000, e);
+                        return Mono.just(false);
+                    });
+        });
+    }
+
+    /**
+     * Last known availability, without contacting the server.
+     */
+    public boolean isAvailable(String serverName) {
+        ServerState state = states.get(serverName);
+        return state != null && state.available;
+    }
+
+    /**
+     * Cached status of a server in the shape served by {@code /api/mcp/status}.
+     */
+    public Map<String, Object> getStatus(String serverName) {
+        ServerState state = states.get(serverName);
+        if (state == null) {
+            Map<String, Object> status = new HashMap<>();
+            status.put("name", serverName);
+            status.put("available", false);
+            status.put("error", "Server not configured");
+            status.put("status", "not_configured");
+            return status;
+        }
+        return state.toMap();
+    }
+
+    private static final class ServerState {
+        private final String name;
+        private final String url;
+        private final AtomicReference<Mono<Boolean>> probe = new AtomicReference<>();
+        private final long[] latencies = new long[LATENCY_HISTORY];
+        private int latencyCount;
+        private int latencyIndex;
+
+        private volatile boolean available;
+        private volatile String status = "unknown";
+        private volatile String error;
+        private volatile String healthResponse;
+        private volatile long lastChecked;
+        private volatile long lastLatencyMs;
+        private volatile int consecutiveFailures;
+
+        ServerState(String name, String url) {
+            this.name = name;
+            this.url = url;
+        }
+
+        void recordSuccess(long latencyMs, String body) {
+            if (!available) {
+                log.info("MCP server {} is healthy ({}ms)", name, latencyMs);
+            }
+            recordLatency(latencyMs);
+            healthResponse = body.length() > MAX_RESPONSE_LENGTH ? body.substring(0, MAX_RESPONSE_LENGTH) : body;
+            error = null;
+            consecutiveFailures = 0;
+            status = "healthy";
+            available = true;
+            lastChecked = System.currentTimeMillis();
+        }
+
+        void recordFailure(long latencyMs, Throwable e) {
+            if (available || consecutiveFailures == 0) {
+                log.warn("MCP server {} is unhealthy: {}", name, e.getMessage());
+            }
+            recordLatency(latencyMs);
+            error = e.getMessage();
+            consecutiveFailures++;
+            status = "unhealthy";
+            available = false;
+            lastChecked = System.currentTimeMillis();
+        }
+
+        private synchronized void recordLatency(long latencyMs) {
+            lastLatencyMs = latencyMs;
+            latencies[latencyIndex] = latencyMs;
+            latencyIndex = (latencyIndex + 1) % LATENCY_HISTORY;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_HISTORY);
+        }
+
+        private synchronized Map<String, Object> latencyStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("samples", latencyCount);
+            if (latencyCount == 0) {
+                return stats;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            stats.put("minMs", sorted[0]);
+            stats.put("avgMs", Arrays.stream(sorted).average().orElse(0));
+            stats.put("p95Ms", sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.95) - 1)]);
+            stats.put("maxMs", sorted[sorted.length - 1]);
+            return stats;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> status = new HashMap<>();
+            status.put("name", name);
+            status.put("url", url);
+            status.put("available", available);
+            status.put("status", this.status);
+            status.put("lastChecked", lastChecked);
+            status.put("lastLatencyMs", lastLatencyMs);
+            status.put("consecutiveFailures", consecutiveFailures);
+            status.put("latency", latencyStats());
+            if (healthResponse != null) {
+                status.put("healthResponse", healthResponse);
+            }
+            if (error != null) {
+                status.put("error", error);
+            }
+            return status;
+        }
+    }
+}
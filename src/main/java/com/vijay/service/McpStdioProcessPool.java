@@ -0,0 +1,279 @@
+package com.vijay.service;
+
+import com.vijay.config.McpStdioPoolProperties;
+import com.vijay.event.McpToolsChangedEvent;
+import com.vijay.tool.PooledMcpToolCallback;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs each configured STDIO MCP server as a pool of identical processes.
+ * <p>
+ * A single STDIO server handles one pipe, so every tool call from every user
+ * queues behind the same interpreter. Here each call goes to the process with
+ * the fewest calls in flight. All processes are started and initialized at
+ * startup, so the first tool call does not pay for interpreter start-up.
+ * <p>
+ * A process is checked with a ping on a schedule and after any call that fails
+ * with a transport error (as opposed to an error returned by the tool). It
+ * gets no new calls until it has answered the ping; a process that does not
+ * answer is closed and started again in the background while calls go to the
+ * other processes of its pool.
+ */
+@Slf4j
+@Service
+public class McpStdioProcessPool {
+
+    private final McpStdioPoolProperties properties;
+    private final String clientName;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, List<Member>> pools = new LinkedHashMap<>();
+    private final ExecutorService lifecycleExecutor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "mcp-stdio-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public McpStdioProcessPool(McpStdioPoolProperties properties,
+                               @Value("${spring.ai.mcp.client.name:spring-ai-mcp-client}") String clientName,
+                               ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.clientName = clientName;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Client name a pooled connection announces, and prefixes its tool names with. Built as Spring AI builds
+     * it for its own MCP clients, so a server moved into the pool keeps the tool names the model knows.
+     */
+    public String clientName(String connectionName) {
+        return clientName + " - " + connectionName;
+    }
+
+    @PostConstruct
+    public void init() {
+        List<CompletableFuture<Void>> warmUp = new ArrayList<>();
+        properties.getConnections().forEach((name, connection) -> {
+            List<Member> members = new ArrayList<>(connection.getSize());
+            for (int i = 0; i < Math.max(1, connection.getSize()); i++) {
+                Member member = new Member(name, i, connection);
+                members.add(member);
+                warmUp.add(CompletableFuture.runAsync(member::start, lifecycleExecutor));
+            }
+            pools.put(name, List.copyOf(members));
+        });
+        if (!warmUp.isEmpty()) {
+            long start = System.currentTimeMillis();
+            CompletableFuture.allOf(warmUp.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            log.info("Started {} pooled STDIO MCP processes in {}ms", warmUp.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(members -> members.forEach(Member::close));
+        lifecycleExecutor.shutdownNow();
+    }
+
+    /**
+     * Tool callbacks for every pooled connection, listed from a healthy process of each pool.
+     */
+    public List<ToolCallback> getToolCallbacks() {
+        List<ToolCallback> callbacks = new ArrayList<>();
+        for (String name : pools.keySet()) {
+            try {
+                McpSchema.ListToolsResult result = withMember(name, McpSyncClient::listTools);
+                for (McpSchema.Tool tool : result.tools()) {
+                    callbacks.add(new PooledMcpToolCallback(this, name, clientName(name), tool));
+                }
+            } catch (Exception e) {
+                log.warn("Error getting tools from pooled MCP connection {}: {}", name, e.getMessage());
+            }
+        }
+        return callbacks;
+    }
+
+    public McpSchema.CallToolResult callTool(String connectionName, McpSchema.CallToolRequest request) {
+        return withMember(connectionName, client -> client.callTool(request));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.mcp.stdio-pool.health-check-interval-ms:30000}",
+            initialDelayString = "${chat.mcp.stdio-pool.health-check-interval-ms:30000}")
+    public void checkHealth() {
+        pools.values().forEach(members -> members.forEach(member -> lifecycleExecutor.submit(member::check)));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        pools.forEach((name, members) -> {
+            List<Map<String, Object>> processes = new ArrayList<>();
+            for (Member member : members) {
+                Map<String, Object> process = new HashMap<>();
+                process.put("index", member.index);
+                process.put("healthy", member.healthy);
+                process.put("inFlight", member.inFlight.get());
+                process.put("calls", member.calls.get());
+                process.put("restarts", member.restarts.get());
+                processes.add(process);
+            }
+            stats.put(name, processes);
+        });
+        return stats;
+    }
+
+    private <T> T withMember(String connectionName, Function<McpSyncClient, T> call) {
+        List<Member> closed = new ArrayList<>();
+        while (true) {
+            Member member = leastBusy(connectionName, closed);
+            // Read once: a restart may close the process between choosing the member and calling it
+            McpSyncClient client = member.client;
+            if (client == null) {
+                closed.add(member);
+                continue;
+            }
+            member.inFlight.incrementAndGet();
+            member.calls.incrementAndGet();
+            try {
+                return call.apply(client);
+            } catch (McpError e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Not an error answered by the server: the process may be gone
+                member.healthy = false;
+                lifecycleExecutor.submit(member::check);
+                throw e;
+            } finally {
+                member.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private Member leastBusy(String connectionName, List<Member> excluded) {
+        List<Member> members = pools.get(connectionName);
+        if (members == null) {
+            throw new IllegalArgumentException("No pooled MCP connection named " + connectionName);
+        }
+        Member best = null;
+        for (Member member : members) {
+            if (member.healthy && member.client != null && !excluded.contains(member)
+                    && (best == null || member.inFlight.get() < best.inFlight.get())) {
+                best = member;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No healthy process in MCP pool " + connectionName);
+        }
+        return best;
+    }
+
+    private final class Member {
+        private final String name;
+        private final int index;
+        private final McpStdioPoolProperties.Connection connection;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicInteger restarts = new AtomicInteger();
+        private final AtomicBoolean restarting = new AtomicBoolean();
+        private volatile McpSyncClient client;
+        private volatile boolean healthy;
+
+        Member(String name, int index, McpStdioPoolProperties.Connection connection) {
+            this.name = name;
+            this.index = index;
+            this.connection = connection;
+        }
+
+        void start() {
+            ServerParameters parameters = ServerParameters.builder(connection.getCommand())
+                    .args(connection.getArgs())
+                    .env(connection.getEnv())
+                    .build();
+            McpSyncClient next = McpClient.sync(new StdioClientTransport(parameters))
+                    .clientInfo(new McpSchema.Implementation(clientName(name), "1.0.0"))
+                    .requestTimeout(properties.getRequestTimeout())
+                    .toolsChangeConsumer(tools -> {
+                        if (index == 0) {
+                            eventPublisher.publishEvent(new McpToolsChangedEvent(this, name));
+                        }
+                    })
+                    .build();
+            try {
+                next.initialize();
+            } catch (RuntimeException e) {
+                log.warn("Could not start process {} of MCP pool {}: {}", index, name, e.getMessage());
+                next.close();
+                throw e;
+            }
+            client = next;
+            healthy = true;
+        }
+
+        void check() {
+            McpSyncClient current = client;
+            if (current != null) {
+                try {
+                    current.ping();
+                    healthy = true;
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Process {} of MCP pool {} did not answer a ping: {}", index, name, e.getMessage());
+                }
+            }
+            restart();
+        }
+
+        private void restart() {
+            if (!restarting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                healthy = false;
+                close();
+                start();
+                restarts.incrementAndGet();
+                log.info("Restarted process {} of MCP pool {}", index, name);
+            } catch (RuntimeException e) {
+                // Retried by the next health check
+            } finally {
+                restarting.set(false);
+            }
+        }
+
+        void close() {
+            McpSyncClient current = client;
+            client = null;
+            if (current != null) {
+                try {
+                    current.closeGracefully();
+                } catch (RuntimeException e) {
+                    current.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.vijay.service;
+
+import com.vijay.event.McpToolsChangedEvent;
+import com.vijay.event.ToolCatalogChangedEvent;
+import com.vijay.tool.PooledMcpToolCallback;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolCatalogSnapshot;
+import com.vijay.tool.ToolDescriptor;
+import com.vijay.tool.ToolNames;
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Catalog of the MCP tools available to the chat providers.
+ * <p>
+ * Tool definitions are fetched once at startup and refreshed in the background,
+ * either when an MCP server sends {@code notifications/tools/list_changed} or on
+ * a fixed schedule. Controllers and providers read an immutable
+ * {@link ToolCatalogSnapshot}, so listing tools never performs a round trip to
+ * an MCP server on the request path. Tools of pooled STDIO servers
+ * ({@link McpStdioProcessPool}) are listed alongside the MCP clients. Every
+ * callback in a snapshot has been wrapped by the registered
+ * {@link ToolCallbackDecorator}s.
+ */
+@Slf4j
+@Service
+public class McpToolCatalog {
+
+    private static final Duration LIST_TOOLS_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ToolCallbackProvider toolCallbackProvider;
+    private final List<McpSyncClient> mcpSyncClients;
+    private final List<McpAsyncClient> mcpAsyncClients;
+    private final McpStdioProcessPool stdioProcessPool;
+    private final ObjectProvider<ToolCallbackDecorator> decorators;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mcp-tool-catalog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ToolCatalogSnapshot snapshot = ToolCatalogSnapshot.empty();
+
+    // The MCP auto-configuration registers each client type as a single List bean, not one bean per client
+    public McpToolCatalog(ToolCallbackProvider toolCallbackProvider,
+                          @Autowired(required = false) List<McpSyncClient> mcpSyncClients,
+                          @Autowired(required = false) List<McpAsyncClient> mcpAsyncClients,
+                          McpStdioProcessPool stdioProcessPool,
+                          ObjectProvider<ToolCallbackDecorator> decorators,
+                          ApplicationEventPublisher eventPublisher) {
+        this.toolCallbackProvider = toolCallbackProvider;
+        this.mcpSyncClients = mcpSyncClients != null ? mcpSyncClients : List.of();
+        this.mcpAsyncClients = mcpAsyncClients != null ? mcpAsyncClients : List.of();
+        this.stdioProcessPool = stdioProcessPool;
+        this.decorators = decorators;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Current tool snapshot. Never blocks and never calls an MCP server.
+     */
+    public ToolCatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Refresh when a server reports a tool list change. The notification arrives on the
+     * MCP transport thread, so the actual listing is handed off to avoid blocking it.
+     */
+    @EventListener(McpToolsChangedEvent.class)
+    public void onToolsChanged(McpToolsChangedEvent event) {
+        log.info("MCP client {} changed its tools, scheduling catalog refresh", event.getClientName());
+        refreshExecutor.submit(this::refresh);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.mcp.tools.refresh-interval-ms:300000}",
+            initialDelayString = "${chat.mcp.tools.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Fetch the tool definitions from every MCP client and publish a new snapshot.
+     */
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        List<ToolCallback> callbacks = new ArrayList<>();
+        try {
+            callbacks.addAll(List.of(toolCallbackProvider.getToolCallbacks()));
+            callbacks.addAll(stdioProcessPool.getToolCallbacks());
+        } catch (Exception e) {
+            log.warn("Could not refresh MCP tool catalog, keeping {} tools: {}", snapshot.size(), e.getMessage());
+            return;
+        }
+
+        Map<String, ClientTool> clientTools = listClientTools();
+        List<ToolCallbackDecorator> decoratorChain = decorators.orderedStream().toList();
+        List<ToolDescriptor> tools = new ArrayList<>(callbacks.size());
+        List<ToolCallback> decorated = new ArrayList<>(callbacks.size());
+        for (ToolCallback callback : callbacks) {
+            var definition = callback.getToolDefinition();
+            ClientTool clientTool = callback instanceof PooledMcpToolCallback pooled
+                    ? new ClientTool(pooled.getClientName(), pooled.getTool())
+                    : findClientTool(clientTools, definition.name());
+            // The MCP SDK in use (0.10) does not expose tool annotations, so read-only and destructive hints are undeclared
+            ToolDescriptor descriptor = new ToolDescriptor(definition.name(), definition.description(), definition.inputSchema(),
+                    clientTool != null ? clientTool.clientName() : null, null, null);
+            tools.add(descriptor);
+
+            ToolCallback wrapped = callback;
+            for (ToolCallbackDecorator decorator : decoratorChain) {
+                wrapped = decorator.decorate(wrapped, descriptor);
+            }
+            decorated.add(wrapped);
+        }
+
+        ToolCatalogSnapshot previous = snapshot;
+        ToolCatalogSnapshot next = new ToolCatalogSnapshot(previous.getVersion() + 1, Instant.now(), decorated, tools);
+        snapshot = next;
+        log.info("MCP tool catalog refreshed: {} tools in {}ms", next.size(), System.currentTimeMillis() - start);
+
+        if (!Objects.equals(previous.getTools(), next.getTools())) {
+            eventPublisher.publishEvent(new ToolCatalogChangedEvent(this, next));
+        }
+    }
+
+    private Map<String, ClientTool> listClientTools() {
+        Map<String, ClientTool> clientTools = new HashMap<>();
+        for (McpSyncClient client : mcpSyncClients) {
+            try {
+                String clientName = client.getClientInfo() != null ? client.getClientInfo().name() : client.toString();
+                addClientTools(clientTools, clientName, client.listTools());
+            } catch (Exception e) {
+                log.warn("Error getting tools from MCP client {}: {}", client, e.getMessage());
+            }
+        }
+        for (McpAsyncClient client : mcpAsyncClients) {
+            try {
+                String clientName = client.getClientInfo() != null ? client.getClientInfo().name() : client.toString();
+                addClientTools(clientTools, clientName, client.listTools().block(LIST_TOOLS_TIMEOUT));
+            } catch (Exception e) {
+                log.warn("Error getting tools from MCP client {}: {}", client, e.getMessage());
+            }
+        }
+        return clientTools;
+    }
+
+    private static void addClientTools(Map<String, ClientTool> clientTools, String clientName, McpSchema.ListToolsResult result) {
+        if (result != null && result.tools() != null) {
+            for (McpSchema.Tool tool : result.tools()) {
+                clientTools.put(tool.name(), new ClientTool(clientName, tool));
+            }
+        }
+    }
+
+    private static ClientTool findClientTool(Map<String, ClientTool> clientTools, String toolName) {
+        ClientTool clientTool = clientTools.get(toolName);
+        if (clientTool != null) {
+            return clientTool;
+        }
+        for (Map.Entry<String, ClientTool> entry : clientTools.entrySet()) {
+            if (ToolNames.matches(toolName, entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private record ClientTool(String clientName, McpSchema.Tool tool) {
+    }
+}
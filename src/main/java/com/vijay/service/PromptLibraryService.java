@@ -0,0 +1,205 @@
+package com.vijay.service;
+
+import com.vijay.event.PromptLibraryChangedEvent;
+import com.vijay.prompt.CompiledTemplate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Prompt templates loaded from an external directory and reloaded when it changes.
+ * <p>
+ * Files are named after the prompt they define: {@code default.st},
+ * {@code <provider>.st} and {@code <provider>/<model>.st} (model names may
+ * contain slashes, e.g. {@code openrouter/openai/gpt-4.st}). Every file is
+ * parsed and validated once per change; a file that fails to compile keeps its
+ * previous version. The whole library is swapped in with a single volatile
+ * write, so readers never see a half-loaded set and never touch the disk.
+ */
+@Slf4j
+@Service
+public class PromptLibraryService {
+
+    private static final String EXTENSION = ".st";
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final String directory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<String, CompiledTemplate> prompts = Map.of();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public PromptLibraryService(@Value("${chat.prompts.directory:}") String directory,
+                                ApplicationEventPublisher eventPublisher) {
+        this.directory = directory;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (directory == null || directory.isBlank()) {
+            log.info("Prompt library directory not configured, using classpath prompts only");
+            return;
+        }
+        Path root = Paths.get(directory).toAbsolutePath();
+        if (!Files.isDirectory(root)) {
+            log.warn("Prompt library directory {} does not exist, using classpath prompts only", root);
+            return;
+        }
+        reload(root);
+        startWatcher(root);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Error closing prompt library watcher: {}", e.getMessage());
+            }
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+    }
+
+    /**
+     * Find the most specific prompt for a provider and model.
+     * Lookup order is {@code provider/model}, {@code provider}, then {@code default}.
+     */
+    public Optional<CompiledTemplate> resolve(String provider, String model) {
+        Map<String, CompiledTemplate> current = prompts;
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        if (provider != null) {
+            String providerKey = provider.toLowerCase();
+            if (model != null) {
+                CompiledTemplate template = current.get(providerKey + "/" + model);
+                if (template != null) {
+                    return Optional.of(template);
+                }
+            }
+            CompiledTemplate template = current.get(providerKey);
+            if (template != null) {
+                return Optional.of(template);
+            }
+        }
+        return Optional.ofNullable(current.get("default"));
+    }
+
+    /**
+     * Get a prompt by its exact name.
+     */
+    public Optional<CompiledTemplate> get(String name) {
+        return Optional.ofNullable(prompts.get(name));
+    }
+
+    public List<String> getPromptNames() {
+        return prompts.keySet().stream().sorted().toList();
+    }
+
+    private void reload(Path root) {
+        Map<String, CompiledTemplate> previous = prompts;
+        Map<String, CompiledTemplate> loaded = new HashMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(p -> p.toString().endsWith(EXTENSION))::iterator) {
+                String name = promptName(root, file);
+                try {
+                    String source = Files.readString(file, StandardCharsets.UTF_8);
+                    loaded.put(name, CompiledTemplate.compile(name, source));
+                } catch (Exception e) {
+                    log.warn("Rejected prompt {} from {}: {}", name, file, e.getMessage());
+                    if (previous.containsKey(name)) {
+                        loaded.put(name, previous.get(name));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not scan prompt library {}: {}", root, e.getMessage());
+            return;
+        }
+        prompts = Map.copyOf(loaded);
+        log.info("Loaded {} prompts from {}: {}", loaded.size(), root, getPromptNames());
+        eventPublisher.publishEvent(new PromptLibraryChangedEvent(this, loaded.size()));
+    }
+
+    private void startWatcher(Path root) {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            registerRecursively(root);
+        } catch (IOException e) {
+            log.error("Could not watch prompt library {}: {}", root, e.getMessage());
+            return;
+        }
+        watcherThread = new Thread(() -> watch(root), "prompt-library-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    private void watch(Path root) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // Editors often write a file in several steps; wait for them to settle
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(next);
+                }
+                if (changed) {
+                    registerRecursively(root);
+                    reload(root);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Prompt library watcher stopped");
+        } catch (IOException e) {
+            log.error("Prompt library watcher failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = !key.pollEvents().isEmpty();
+        key.reset();
+        return changed;
+    }
+
+    private void registerRecursively(Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private static String promptName(Path root, Path file) {
+        String relative = root.relativize(file).toString().replace('\\', '/');
+        return relative.substring(0, relative.length() - EXTENSION.length());
+    }
+}
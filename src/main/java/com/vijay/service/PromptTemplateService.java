@@ -0,0 +1,142 @@
+package com.vijay.service;
+
+import com.vijay.event.PromptLibraryChangedEvent;
+import com.vijay.event.ToolCatalogChangedEvent;
+import com.vijay.prompt.CompiledTemplate;
+import com.vijay.tool.ToolDescriptor;
+import com.vijay.tool.ToolSelection;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the system prompt sent to each provider.
+ * <p>
+ * The base prompt and the MCP tool block are compiled once at startup, and can
+ * be overridden per provider and model through the {@link PromptLibraryService}.
+ * The fully rendered prompt is cached per provider and model and only rebuilt
+ * after the MCP tool set or the prompt library changes, so a chat request
+ * performs no I/O and no string building to obtain its system message.
+ */
+@Slf4j
+@Service
+public class PromptTemplateService {
+
+    private static final String BASE_TEMPLATE = "prompts/tool-only.st";
+    private static final String TOOLS_TEMPLATE = "prompts/mcp-tools.st";
+    private static final String FALLBACK_PROMPT = "You are an AI assistant with access to MCP tools.";
+    private static final int MAX_CACHED_PROMPTS = 512;
+
+    private final McpToolCatalog toolCatalog;
+    private final PromptLibraryService promptLibraryService;
+    private final Map<String, SystemPrompt> renderedPrompts = new ConcurrentHashMap<>();
+
+    private CompiledTemplate baseTemplate;
+    private CompiledTemplate toolsTemplate;
+
+    public PromptTemplateService(McpToolCatalog toolCatalog,
+                                 PromptLibraryService promptLibraryService) {
+        this.toolCatalog = toolCatalog;
+        this.promptLibraryService = promptLibraryService;
+    }
+
+    @PostConstruct
+    public void init() {
+        baseTemplate = loadTemplate("base", BASE_TEMPLATE, FALLBACK_PROMPT);
+        toolsTemplate = loadTemplate("tools", TOOLS_TEMPLATE, "");
+    }
+
+    /**
+     * Get the system prompt for a provider, including the current MCP tool list.
+     */
+    public SystemPrompt getSystemPrompt(String provider) {
+        return getSystemPrompt(provider, null);
+    }
+
+    /**
+     * Get the system prompt for a provider and model, including the current MCP tool list.
+     */
+    public SystemPrompt getSystemPrompt(String provider, String model) {
+        String key = model != null ? provider + "/" + model : provider;
+        return renderedPrompts.computeIfAbsent(key, k -> render(provider, model, toolCatalog.snapshot().getTools()));
+    }
+
+    /**
+     * Get the system prompt for a provider and model, listing only the tools selected for the request.
+     * Prompts are cached per distinct tool selection; the cache is bounded by {@link #MAX_CACHED_PROMPTS}.
+     */
+    public SystemPrompt getSystemPrompt(String provider, String model, ToolSelection selection) {
+        if (selection.tools().size() == selection.catalogSize()) {
+            return getSystemPrompt(provider, model);
+        }
+        String key = (model != null ? provider + "/" + model : provider) + "|" + String.join(",", selection.toolNames());
+        if (renderedPrompts.size() >= MAX_CACHED_PROMPTS && !renderedPrompts.containsKey(key)) {
+            renderedPrompts.clear();
+        }
+        return renderedPrompts.computeIfAbsent(key, k -> render(provider, model, selection.tools()));
+    }
+
+    /**
+     * Drop every rendered prompt so the next request picks up the new tool set or prompts.
+     */
+    @EventListener({ToolCatalogChangedEvent.class, PromptLibraryChangedEvent.class})
+    public void invalidate() {
+        log.info("Prompts or MCP tool set changed, invalidating {} cached system prompts", renderedPrompts.size());
+        renderedPrompts.clear();
+    }
+
+    private SystemPrompt render(String provider, String model, List<ToolDescriptor> selectedTools) {
+        List<Map<String, String>> tools = describeTools(selectedTools);
+
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("provider", provider);
+        variables.put("model", model);
+        variables.put("toolCount", tools.size());
+        variables.put("tools", tools);
+
+        CompiledTemplate base = promptLibraryService.resolve(provider, model).orElse(baseTemplate);
+        CompiledTemplate toolBlock = promptLibraryService.get("mcp-tools").orElse(toolsTemplate);
+        String text = base.render(variables) + "\n\n" + toolBlock.render(variables);
+        log.info("Rendered system prompt for {} ({}): {} characters, {} MCP tools", provider, base.getName(), text.length(), tools.size());
+        return new SystemPrompt(text, tools.size());
+    }
+
+    private List<Map<String, String>> describeTools(List<ToolDescriptor> selectedTools) {
+        List<Map<String, String>> tools = new ArrayList<>();
+        for (ToolDescriptor descriptor : selectedTools) {
+            Map<String, String> tool = new LinkedHashMap<>();
+            tool.put("name", descriptor.name());
+            tool.put("description", descriptor.description());
+            tools.add(tool);
+        }
+        return tools;
+    }
+
+    private CompiledTemplate loadTemplate(String name, String location, String fallback) {
+        try {
+            ClassPathResource resource = new ClassPathResource(location);
+            String source = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            CompiledTemplate template = CompiledTemplate.compile(name, source);
+            log.info("Compiled prompt template {}: {} characters", location, source.length());
+            return template;
+        } catch (Exception e) {
+            log.warn("Could not load prompt template {}, using fallback: {}", location, e.getMessage());
+            return CompiledTemplate.compile(name, fallback);
+        }
+    }
+
+    /**
+     * A rendered system prompt and the number of MCP tools it advertises.
+     */
+    public record SystemPrompt(String text, int toolCount) {
+    }
+}
@@ -1,42 +1,511 @@
 package com.vijay.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.RagProperties;
+import com.vijay.provider.AIProvider;
+import com.vijay.rag.ContentHash;
+import com.vijay.rag.ContextAssembler;
+import com.vijay.rag.LexicalIndex;
+import com.vijay.rag.MetadataFilter;
+import com.vijay.rag.Reranker;
+import com.vijay.rag.SegmentedVectorStore;
+import com.vijay.rag.VectorKernels;
+import com.vijay.rag.VectorMath;
+import com.vijay.search.ReciprocalRankFusion;
+import com.vijay.search.ScoredDoc;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+/**
+ * Retrieval over document chunks held in an in-process HNSW index.
+ * <p>
+ * Chunks are embedded with the configured Spring AI {@link EmbeddingModel} and
+ * stored in a {@link SegmentedVectorStore}. With {@code chat.rag.store.directory}
+ * set, segments are flushed to memory-mapped files and reopened on startup, so
+ * the index survives restarts without re-embedding. No external vector database is needed.
+ * <p>
+ * A BM25 {@link LexicalIndex} with code-aware tokenization is kept alongside
+ * the vectors. With {@code chat.rag.hybrid.enabled} both are queried in
+ * parallel and their rankings combined by reciprocal rank fusion, so exact
+ * class names, error codes and paths are found even when their embeddings are
+ * not close to the query's. The lexical index is in memory and is rebuilt from
+ * the segments in the background on startup. It holds the content that is
+ * visible in the store: a document version's chunks enter it when the version
+ * is committed, and the chunks it hides leave it with the commit or delete.
+ * <p>
+ * A {@link MetadataFilter} restricts retrieval to chunks with matching
+ * metadata, such as a tenant or project: the store narrows vector search with
+ * its bitmap indexes, and lexical hits are checked against the filter.
+ * <p>
+ * With {@code chat.rag.rerank.enabled} the first-stage candidates are
+ * re-scored by an LLM judge from {@code chat.rag.rerank.provider} (see
+ * {@link Reranker}); if that does not finish within its latency budget the
+ * first-stage order is used.
+ */
 @Slf4j
 @Service
 public class RAGService {
 
+    private static final int FILTERED_LEXICAL_FACTOR = 4;
+
+    private final RagProperties properties;
+    private final ApplicationContext applicationContext;
+    private final SegmentedVectorStore store;
+    private final LexicalIndex lexicalIndex = new LexicalIndex();
+    private final Set<String> contentHashes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService searchExecutor;
+    private final EmbeddingCache embeddingCache;
+    // Null unless reranking is enabled
+    private final ExecutorService rerankExecutor;
+    private final Reranker reranker;
+
+    private volatile EmbeddingModel embeddingModel;
+    private volatile String embeddingModelKey;
+    private volatile boolean embeddingModelResolved;
+
+    public RAGService(RagProperties properties, ApplicationContext applicationContext, ObjectMapper objectMapper,
+                      EmbeddingCache embeddingCache) {
+        this.properties = properties;
+        this.applicationContext = applicationContext;
+        this.embeddingCache = embeddingCache;
+        VectorMath.Kernels requested = properties.getVectorKernels();
+        VectorKernels kernels = VectorMath.select(requested);
+        if (requested != VectorMath.Kernels.SCALAR && kernels.name().equals("scalar")) {
+            log.warn("RAG: SIMD vector kernels unavailable (start the JVM with --add-modules jdk.incubator.vector), using {}", kernels.name());
+        } else {
+            log.info("RAG: Using {} vector kernels", kernels.name());
+        }
+        RagProperties.Hnsw hnsw = properties.getHnsw();
+        RagProperties.Store storage = properties.getStore();
+        String directory = storage.getDirectory();
+        this.store = new SegmentedVectorStore(
+                directory == null || directory.isBlank() ? null : Path.of(directory),
+                hnsw.getMetric(), hnsw.getM(), hnsw.getEfConstruction(),
+                storage.getFlushThreshold(), storage.getMaxSegments(),
+                storage.getEncoding(), storage.getPqSubvectors(), storage.getRerankFactor(),
+                Set.copyOf(storage.getFilterFields()), objectMapper);
+        AtomicInteger threads = new AtomicInteger();
+        this.searchExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "rag-search-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        RagProperties.Rerank rerank = properties.getRerank();
+        if (rerank.isEnabled()) {
+            this.rerankExecutor = Executors.newFixedThreadPool(Math.max(1, rerank.getParallelism()), runnable -> {
+                Thread thread = new Thread(runnable, "rag-rerank-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Providers depend on this service, so the judge looks its provider up when first used
+            LlmRelevanceJudge judge = new LlmRelevanceJudge(
+                    () -> applicationContext.getBean(AIProviderFactory.class).getProvider(rerank.getProvider()),
+                    rerank.getModel() == null || rerank.getModel().isBlank() ? null : rerank.getModel());
+            this.reranker = new Reranker(judge, rerank.getBatchSize(), rerankExecutor);
+        } else {
+            this.rerankExecutor = null;
+            this.reranker = null;
+        }
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        store.open();
+        // Snapshot the persisted documents now; documents added from here on are indexed by add()
+        Stream<Document> persisted = store.documents();
+        CompletableFuture.runAsync(() -> {
+            long start = System.currentTimeMillis();
+            persisted.forEach(document -> syncLexical(List.of(document)));
+            log.info("RAG: Rebuilt lexical index ({} chunks, {} terms) in {} ms",
+                    lexicalIndex.size(), lexicalIndex.termCount(), System.currentTimeMillis() - start);
+        }, searchExecutor).exceptionally(e -> {
+            log.error("RAG: Could not rebuild lexical index: {}", e.getMessage(), e);
+            return null;
+        });
+    }
+
+    /**
+     * Fail startup if reranking is enabled with a provider that cannot judge, instead of
+     * silently falling back to the first-stage order on every search.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    void checkRerankProvider() {
+        if (reranker == null) {
+            return;
+        }
+        String name = properties.getRerank().getProvider();
+        AIProvider provider = name == null || name.isBlank() ? null
+                : applicationContext.getBean(AIProviderFactory.class).getProvider(name);
+        if (provider == null || !provider.supportsCompletion()) {
+            throw new IllegalStateException("chat.rag.rerank.provider=" + name
+                    + " cannot rerank; use a provider with standalone completions, such as openai, claude or ollama");
+        }
+    }
+
+    /**
+     * Write documents indexed since the last flush to disk.
+     */
+    @Scheduled(fixedDelayString = "${chat.rag.store.flush-interval-ms:300000}")
+    public void flush() {
+        try {
+            store.flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("RAG: Could not flush index: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searchExecutor.shutdownNow();
+        if (rerankExecutor != null) {
+            rerankExecutor.shutdownNow();
+        }
+        store.close();
+    }
+
+    /**
+     * Embed and index documents. Accepts {@link Document}s or plain text;
+     * documents whose content is already indexed are skipped.
+     */
+    public void addDocuments(List<?> documents) {
+        if (embeddingModel() == null) {
+            log.warn("RAG: No embedding model configured, ignoring {} documents", documents.size());
+            return;
+        }
+        List<Document> batch = new ArrayList<>(documents.size());
+        for (Object document : documents) {
+            Document doc = document instanceof Document d ? d : new Document(String.valueOf(document));
+            if (reserveContent(ContentHash.of(doc.getText()))) {
+                batch.add(doc);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            add(batch, embed(batch.stream().map(Document::getText).toList()));
+        } finally {
+            // Once indexed the store answers for the content, and stops doing so when it is deleted
+            batch.forEach(doc -> releaseContent(ContentHash.of(doc.getText())));
+        }
+        log.info("RAG: Indexed {} documents ({} total)", batch.size(), store.size());
+    }
+
+    /**
+     * Embed a batch of texts with the configured embedding model, reusing cached embeddings of identical texts.
+     */
+    public List<float[]> embed(List<String> texts) {
+        EmbeddingModel model = embeddingModel();
+        if (model == null) {
+            throw new IllegalStateException("No embedding model configured");
+        }
+        return embeddingCache.embed(embeddingModelKey, texts, model::embed);
+    }
+
+    /**
+     * Index documents whose embeddings have already been computed.
+     */
+    public void add(List<Document> batch, List<float[]> embeddings) {
+        store.add(batch, embeddings);
+        // Chunks of a document version become searchable when it is committed
+        syncLexical(batch.stream().filter(document -> !document.getMetadata().containsKey(SegmentedVectorStore.DOCUMENT_ID)).toList());
+    }
+
+    /**
+     * Claim a content hash for indexing. Returns false if that content is already indexed or being indexed.
+     * The claim must be released with {@link #releaseContent(String)} once the content is indexed or indexing failed.
+     */
+    public boolean reserveContent(String contentHash) {
+        return !store.containsContent(contentHash) && contentHashes.add(contentHash);
+    }
+
+    /**
+     * Release a claim made by {@link #reserveContent(String)}.
+     */
+    public void releaseContent(String contentHash) {
+        contentHashes.remove(contentHash);
+    }
+
+    /**
+     * A new version to index a document's chunks under. Chunks carry the document id and version in the
+     * {@link SegmentedVectorStore#DOCUMENT_ID} and {@link SegmentedVectorStore#DOCUMENT_VERSION} metadata keys.
+     */
+    public long nextDocumentVersion() {
+        return store.nextVersion();
+    }
+
+    /**
+     * Make a document version searchable once all of its chunks are added, replacing its previous chunks.
+     *
+     * @return false if a newer version was committed or the document was deleted meanwhile
+     */
+    public boolean commitDocument(String documentId, long version) {
+        // Listed first, so the chunks this version hides cannot be compacted away before they are unindexed
+        List<Document> chunks = store.chunks(documentId);
+        boolean committed = store.commit(documentId, version);
+        syncLexical(chunks);
+        return committed;
+    }
+
     /**
-     * Add documents to vector store for RAG (placeholder)
+     * Give up a document version that will not be committed, so its chunks added so far are compacted away.
      */
-    public void addDocuments(List<Object> documents) {
-        log.info("RAG: Would add {} documents to vector store (not implemented yet)", documents.size());
+    public void abandonDocument(String documentId, long version) {
+        store.abandon(documentId, version);
     }
 
     /**
-     * Search for relevant documents using RAG (placeholder)
+     * Remove a document's chunks from search results.
+     *
+     * @return whether the document was indexed
      */
-    public List<Object> searchRelevantDocuments(String query, int topK) {
-        log.info("RAG: Would search for '{}' with topK={} (not implemented yet)", query, topK);
-        return List.of();
+    public boolean deleteDocument(String documentId) {
+        List<Document> chunks = store.chunks(documentId);
+        boolean deleted = store.delete(documentId);
+        syncLexical(chunks);
+        if (deleted) {
+            log.info("RAG: Deleted document {}", documentId);
+        }
+        return deleted;
     }
 
     /**
-     * Generate RAG-enhanced context (placeholder)
+     * Index the chunks whose content is visible in the store and unindex the rest. Content shared with
+     * another document stays indexed while any copy is visible.
      */
-    public String generateRAGContext(String query) {
-        log.info("RAG: Would generate context for '{}' (not implemented yet)", query);
-        return ""; // Return empty context for now
+    private void syncLexical(List<Document> chunks) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        // Serialized, so a check and the update it leads to are not interleaved with another document's
+        synchronized (lexicalIndex) {
+            for (Document chunk : chunks) {
+                String contentHash = ContentHash.of(chunk.getText());
+                if (store.containsContent(contentHash)) {
+                    lexicalIndex.add(contentHash, chunk.getText());
+                } else {
+                    lexicalIndex.remove(contentHash, chunk.getText());
+                }
+            }
+        }
     }
 
     /**
-     * Check if RAG is available
+     * Whether indexed documents survive a restart.
+     */
+    public boolean isPersistent() {
+        return store.isPersistent();
+    }
+
+    /**
+     * Search for the documents most relevant to the query, best first.
+     * Scores are cosine similarities, or fused reciprocal-rank scores when hybrid retrieval is enabled.
+     */
+    public List<Document> searchRelevantDocuments(String query, int topK) {
+        return searchRelevantDocuments(query, topK, null);
+    }
+
+    /**
+     * Like {@link #searchRelevantDocuments(String, int)}, restricted to documents matching a filter; null matches all.
+     */
+    public List<Document> searchRelevantDocuments(String query, int topK, MetadataFilter filter) {
+        EmbeddingModel model = embeddingModel();
+        if (store.size() == 0 || model == null || query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (reranker == null) {
+            return firstStage(query, topK, filter);
+        }
+        RagProperties.Rerank rerank = properties.getRerank();
+        return rerank(query, firstStage(query, Math.max(topK, rerank.getCandidates()), filter), topK, rerank.getTimeoutMs());
+    }
+
+    /**
+     * The {@code topK} candidates best rated by the judge, scored by its rating from 0 to 1,
+     * or the first {@code topK} in their original order if it fails or runs out of time.
+     */
+    private List<Document> rerank(String query, List<Document> candidates, int topK, long budgetMillis) {
+        if (candidates.size() <= 1) {
+            return candidates;
+        }
+        long start = System.currentTimeMillis();
+        List<ScoredDoc> ranked = reranker.rerank(query, candidates.stream().map(Document::getText).toList(), topK, budgetMillis);
+        if (ranked == null) {
+            log.warn("RAG: Reranking {} candidates failed or exceeded {} ms, keeping first-stage order", candidates.size(), budgetMillis);
+            return candidates.subList(0, Math.min(topK, candidates.size()));
+        }
+        log.debug("RAG: Reranked {} candidates in {} ms", candidates.size(), System.currentTimeMillis() - start);
+        List<Document> results = new ArrayList<>(ranked.size());
+        for (ScoredDoc hit : ranked) {
+            results.add(candidates.get(hit.doc()).mutate().score((double) hit.score()).build());
+        }
+        return results;
+    }
+
+    private List<Document> firstStage(String query, int topK, MetadataFilter filter) {
+        RagProperties.Hybrid hybrid = properties.getHybrid();
+        if (!hybrid.isEnabled()) {
+            return vectorSearch(query, topK, filter);
+        }
+        int candidates = Math.max(topK, hybrid.getCandidates());
+        CompletableFuture<List<Document>> vector = CompletableFuture.supplyAsync(
+                () -> vectorSearch(query, candidates, filter), searchExecutor);
+        Map<String, Document> documents = new HashMap<>();
+        List<String> lexical = filter == null
+                ? lexicalIndex.search(query, candidates)
+                : lexicalSearch(query, candidates, filter, documents);
+
+        List<String> vectorRanking = new ArrayList<>(candidates);
+        for (Document document : vector.join()) {
+            String contentHash = ContentHash.of(document.getText());
+            documents.put(contentHash, document);
+            vectorRanking.add(contentHash);
+        }
+        List<Document> results = new ArrayList<>(topK);
+        for (ReciprocalRankFusion.Fused fused : ReciprocalRankFusion.fuse(hybrid.getRrfK(), List.of(vectorRanking, lexical))) {
+            if (results.size() == topK) {
+                break;
+            }
+            Document document = documents.get(fused.key());
+            if (document == null) {
+                document = store.findByContent(fused.key());
+            }
+            if (document != null) {
+                results.add(document.mutate().score((double) fused.score()).build());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The lexical index has no metadata, so filtered searches over-fetch and keep the matching hits,
+     * recording their documents.
+     */
+    private List<String> lexicalSearch(String query, int k, MetadataFilter filter, Map<String, Document> documents) {
+        List<String> matching = new ArrayList<>(k);
+        for (String contentHash : lexicalIndex.search(query, k * FILTERED_LEXICAL_FACTOR)) {
+            Document document = store.findByContent(contentHash);
+            if (document != null && filter.matches(document.getMetadata())) {
+                documents.put(contentHash, document);
+                matching.add(contentHash);
+                if (matching.size() == k) {
+                    break;
+                }
+            }
+        }
+        return matching;
+    }
+
+    private List<Document> vectorSearch(String query, int k, MetadataFilter filter) {
+        float[] embedding = embed(List.of(query)).get(0);
+        return store.search(embedding, k, properties.getHnsw().getEfSearch(), filter).stream()
+                .filter(document -> document.getScore() >= properties.getSimilarityThreshold())
+                .toList();
+    }
+
+    /**
+     * Build the context block for a query within the model's token budget, or an empty string.
+     * Retrieved chunks are deduplicated and diversified before packing; see {@link ContextAssembler}.
+     */
+    public String generateRAGContext(String query, String model) {
+        return generateRAGContext(query, model, null);
+    }
+
+    /**
+     * Like {@link #generateRAGContext(String, String)}, from documents matching a filter; null matches all.
+     */
+    public String generateRAGContext(String query, String model, MetadataFilter filter) {
+        if (!isRAGAvailable() || store.size() == 0) {
+            return "";
+        }
+        RagProperties.Context settings = properties.getContext();
+        List<Document> documents = searchRelevantDocuments(query, Math.max(properties.getTopK(), settings.getCandidates()), filter);
+        List<ContextAssembler.Chunk> chunks = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            String text = document.getText();
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            Object source = document.getMetadata().get("source");
+            chunks.add(new ContextAssembler.Chunk(text, source == null ? null : source.toString(),
+                    document.getScore() == null ? 0.0 : document.getScore(), store.findVector(ContentHash.of(text))));
+        }
+        ContextAssembler assembler = new ContextAssembler(properties.getTopK(), settings.getMmrLambda(), settings.getDuplicateSimilarity());
+        int budget = settings.tokenBudget(model);
+        ContextAssembler.Context context = assembler.assemble(chunks, budget);
+        log.debug("RAG: Assembled {} of {} chunks ({} near-duplicates) into ~{}/{} tokens for model {}",
+                context.chunks().size(), chunks.size(), context.duplicates(), context.tokens(), budget, model);
+        return context.text();
+    }
+
+    /**
+     * RAG is available when it is enabled and an embedding model is configured.
      */
     public boolean isRAGAvailable() {
-        log.info("RAG: Not available (VectorStore not configured)");
-        return false;
+        return properties.isEnabled() && embeddingModel() != null;
+    }
+
+    public int getDocumentCount() {
+        return store.size();
+    }
+
+    /**
+     * Segment count, documents per vector encoding and the bytes searches page through.
+     */
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(store.getStats());
+        stats.put("lexicalChunks", lexicalIndex.size());
+        stats.put("lexicalTerms", lexicalIndex.termCount());
+        return stats;
+    }
+
+    /**
+     * Hits per tier, misses and hit ratio of the embedding cache.
+     */
+    public Map<String, Object> getEmbeddingCacheStats() {
+        return embeddingCache.getStats();
+    }
+
+    private EmbeddingModel embeddingModel() {
+        if (!embeddingModelResolved) {
+            Map<String, EmbeddingModel> models = applicationContext.getBeansOfType(EmbeddingModel.class);
+            String name = properties.getEmbeddingModel();
+            if (name == null || name.isBlank()) {
+                name = models.size() == 1 ? models.keySet().iterator().next() : null;
+                if (models.size() > 1) {
+                    log.warn("RAG: {} embedding models found {}, set chat.rag.embedding-model", models.size(), models.keySet());
+                }
+            }
+            embeddingModel = name == null ? null : models.get(name);
+            if (embeddingModel != null) {
+                String version = properties.getEmbeddingModelVersion();
+                embeddingModelKey = version == null || version.isBlank() ? name : name + "-" + version;
+            }
+            embeddingModelResolved = true;
+        }
+        return embeddingModel;
     }
 }
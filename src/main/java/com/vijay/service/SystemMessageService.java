@@ -1,22 +1,62 @@
 package com.vijay.service;
 
+import com.vijay.event.PromptLibraryChangedEvent;
+import com.vijay.prompt.CompiledTemplate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
 public class SystemMessageService {
 
+    private final PromptLibraryService promptLibraryService;
+    private final Map<String, String> renderedMessages = new ConcurrentHashMap<>();
+
     private String cachedSystemMessage;
 
+    public SystemMessageService(PromptLibraryService promptLibraryService) {
+        this.promptLibraryService = promptLibraryService;
+    }
+
     /**
      * Get the system message from tool-only.st file
      */
     public String getSystemMessage() {
+        return getSystemMessage(null, null);
+    }
+
+    /**
+     * Get the system message for a provider and model, preferring the external prompt library
+     */
+    public String getSystemMessage(String provider, String model) {
+        String key = provider + "/" + model;
+        return renderedMessages.computeIfAbsent(key, k -> {
+            Optional<CompiledTemplate> template = promptLibraryService.resolve(provider, model);
+            if (template.isEmpty()) {
+                return getClasspathSystemMessage();
+            }
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("provider", provider);
+            variables.put("model", model);
+            return template.get().render(variables);
+        });
+    }
+
+    @EventListener(PromptLibraryChangedEvent.class)
+    public void invalidate() {
+        renderedMessages.clear();
+    }
+
+    private synchronized String getClasspathSystemMessage() {
         if (cachedSystemMessage == null) {
             loadSystemMessage();
         }
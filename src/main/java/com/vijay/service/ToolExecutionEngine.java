@@ -0,0 +1,191 @@
+package com.vijay.service;
+
+import com.vijay.config.ToolExecutionProperties;
+import com.vijay.tool.ReactiveToolCallback;
+import com.vijay.tool.ToolExecution;
+import com.vijay.tool.ToolInvocation;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the tool calls of one turn concurrently.
+ * <p>
+ * Calls run on a bounded pool; when the pool and its queue are full the caller
+ * waits for a slot, which throttles new turns instead of queueing without
+ * limit. Every call has its own deadline, measured from submission, that also
+ * covers the wait for a slot. A call that misses it is cancelled (its thread
+ * interrupted) and reported as a timeout, so the remaining results still reach
+ * the model and the turn costs roughly the slowest tool instead of the sum of
+ * all of them.
+ * <p>
+ * {@link ReactiveToolCallback}s (async MCP clients) do not take a pool thread
+ * at all; they are subscribed directly and bounded by
+ * {@code chat.tools.execution.max-in-flight}. When that limit is reached the
+ * caller waits for a permit, within the tool's deadline. Cancelling such a
+ * call, on timeout or when the waiting thread is interrupted, disposes the
+ * subscription and abandons the MCP request. Chat requests run as async MVC
+ * tasks that Spring interrupts when the request times out or fails, so every
+ * call of an abandoned request is cancelled: once the thread is interrupted,
+ * each remaining wait fails at once and cancels its call.
+ */
+@Slf4j
+@Service
+public class ToolExecutionEngine {
+
+    private final ToolExecutionProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final Semaphore inFlight;
+
+    public ToolExecutionEngine(ToolExecutionProperties properties) {
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        // One slot per thread and queue entry; a worker runs every accepted task, even a cancelled one
+        this.slots = new Semaphore(properties.getParallelism() + properties.getQueueCapacity());
+        this.executor = new ThreadPoolExecutor(
+                properties.getParallelism(), properties.getParallelism(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "tool-exec-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }) {
+            @Override
+            protected void afterExecute(Runnable task, Throwable failure) {
+                slots.release();
+            }
+        };
+        this.executor.allowCoreThreadTimeOut(true);
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ToolExecution execute(ToolInvocation invocation, ToolContext toolContext) {
+        return executeAll(List.of(invocation), toolContext).get(0);
+    }
+
+    /**
+     * Run all invocations concurrently and return their outcomes in input order.
+     */
+    public List<ToolExecution> executeAll(List<ToolInvocation> invocations, ToolContext toolContext) {
+        ToolContext context = toolContext != null ? toolContext : new ToolContext(Map.of());
+        long submittedAt = System.nanoTime();
+
+        List<Future<String>> futures = new ArrayList<>(invocations.size());
+        for (ToolInvocation invocation : invocations) {
+            if (invocation.callback() instanceof ReactiveToolCallback reactive) {
+                futures.add(subscribe(invocation, reactive, context, submittedAt));
+            } else {
+                futures.add(submit(invocation, context, submittedAt));
+            }
+        }
+
+        List<ToolExecution> executions = new ArrayList<>(invocations.size());
+        for (int i = 0; i < invocations.size(); i++) {
+            ToolInvocation invocation = invocations.get(i);
+            Future<String> future = futures.get(i);
+            long deadline = submittedAt + properties.timeoutFor(invocation.name()).toNanos();
+            executions.add(await(invocation, future, submittedAt, deadline));
+        }
+
+        if (invocations.size() > 1) {
+            log.debug("Executed {} tools in parallel in {}ms", invocations.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submittedAt));
+        }
+        return executions;
+    }
+
+    private Future<String> submit(ToolInvocation invocation, ToolContext context, long submittedAt) {
+        long deadline = submittedAt + properties.timeoutFor(invocation.name()).toNanos();
+        try {
+            if (!slots.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return CompletableFuture.failedFuture(new TimeoutException(
+                        "no free tool execution slot (" + properties.getParallelism() + " threads, "
+                                + properties.getQueueCapacity() + " queued)"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return executor.submit(() -> invocation.callback().call(invocation.arguments(), context));
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Future<String> subscribe(ToolInvocation invocation, ReactiveToolCallback callback,
+                                     ToolContext context, long submittedAt) {
+        long deadline = submittedAt + properties.timeoutFor(invocation.name()).toNanos();
+        try {
+            if (!inFlight.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return CompletableFuture.failedFuture(new TimeoutException(
+                        "too many tool calls in flight (" + properties.getMaxInFlight() + ")"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return Mono.defer(() -> callback.callAsync(invocation.arguments(), context))
+                .doFinally(signal -> inFlight.release())
+                .toFuture();
+    }
+
+    private ToolExecution await(ToolInvocation invocation, Future<String> future, long submittedAt, long deadline) {
+        try {
+            String result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return new ToolExecution(invocation, result, ToolExecution.Status.SUCCESS, elapsedMillis(submittedAt));
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return timedOut(invocation, submittedAt, "and was cancelled");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                // Saturated: the deadline passed before the call could start
+                return timedOut(invocation, submittedAt, "before it could start: " + cause.getMessage());
+            }
+            log.warn("Tool {} failed: {}", invocation.name(), cause.getMessage());
+            return new ToolExecution(invocation, "Tool " + invocation.name() + " failed: " + cause.getMessage(),
+                    ToolExecution.Status.ERROR, elapsedMillis(submittedAt));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return new ToolExecution(invocation, "Tool " + invocation.name() + " was cancelled",
+                    ToolExecution.Status.ERROR, elapsedMillis(submittedAt));
+        }
+    }
+
+    private ToolExecution timedOut(ToolInvocation invocation, long submittedAt, String detail) {
+        long timeoutMs = properties.timeoutFor(invocation.name()).toMillis();
+        log.warn("Tool {} timed out after {}ms {}", invocation.name(), timeoutMs, detail);
+        return new ToolExecution(invocation, "Tool " + invocation.name() + " timed out after " + timeoutMs + "ms",
+                ToolExecution.Status.TIMEOUT, elapsedMillis(submittedAt));
+    }
+
+    private static long elapsedMillis(long since) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+}
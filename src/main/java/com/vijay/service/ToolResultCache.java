@@ -0,0 +1,256 @@
+package com.vijay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.vijay.config.ToolCacheProperties;
+import com.vijay.event.ToolCatalogChangedEvent;
+import com.vijay.tool.CachingToolCallback;
+import com.vijay.tool.ReactiveCachingToolCallback;
+import com.vijay.tool.ReactiveToolCallback;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolDescriptor;
+import com.vijay.tool.ToolNames;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * TTL and size bounded cache of MCP tool results.
+ * <p>
+ * Entries are keyed by tool name plus the canonical form of the JSON arguments
+ * (object keys sorted, whitespace removed), so {@code {"a":1,"b":2}} and
+ * {@code { "b": 2, "a": 1 }} share an entry. Only tools that pass
+ * {@link #isCacheable(ToolDescriptor)} are wrapped; mutating tools always go
+ * to the server. Identical calls that miss while one is already in flight
+ * wait for its result instead of calling the server again.
+ */
+@Slf4j
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ToolResultCache implements ToolCallbackDecorator {
+
+    private final ToolCacheProperties properties;
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .build();
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Mono<String>> inFlightAsync = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public ToolResultCache(ToolCacheProperties properties) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > properties.getMaxEntries();
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    @Override
+    public ToolCallback decorate(ToolCallback callback, ToolDescriptor descriptor) {
+        if (!isCacheable(descriptor)) {
+            return callback;
+        }
+        log.info("Caching results of MCP tool {} for {}", descriptor.name(), properties.getTtl());
+        if (callback instanceof ReactiveToolCallback reactive) {
+            return new ReactiveCachingToolCallback(reactive, this);
+        }
+        return new CachingToolCallback(callback, this);
+    }
+
+    public boolean isCacheable(ToolDescriptor descriptor) {
+        if (!properties.isEnabled() || Boolean.TRUE.equals(descriptor.destructive())) {
+            return false;
+        }
+        String name = descriptor.name();
+        if (properties.getNever().stream().anyMatch(never -> ToolNames.matches(name, never))) {
+            return false;
+        }
+        if (properties.getTools().stream().anyMatch(tool -> ToolNames.matches(name, tool))) {
+            return true;
+        }
+        return properties.isUseReadOnlyHints() && Boolean.TRUE.equals(descriptor.readOnly());
+    }
+
+    /**
+     * Return the cached result for the call, or run it and cache the result.
+     * Failed calls are not cached. Concurrent identical calls share one execution.
+     */
+    public String get(String toolName, String arguments, Supplier<String> call) {
+        String key = key(toolName, arguments);
+        String cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<String> execution = new CompletableFuture<>();
+        CompletableFuture<String> leader = inFlight.putIfAbsent(key, execution);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+        try {
+            // The previous execution may have finished between the lookup and taking over
+            String result = peek(key);
+            if (result == null) {
+                result = call.get();
+                store(key, result);
+            }
+            execution.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(String, String, Supplier)}. A shared call runs to completion even if
+     * the caller that started it cancels, so the others still get, and the cache still keeps, its result.
+     */
+    public Mono<String> getAsync(String toolName, String arguments, Supplier<Mono<String>> call) {
+        String key = key(toolName, arguments);
+        String cached = lookup(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        Mono<String> execution = Mono.defer(() -> {
+                    // The previous execution may have finished between the lookup and this subscription
+                    String result = peek(key);
+                    return result != null ? Mono.just(result) : call.get().doOnNext(value -> store(key, value));
+                })
+                .doFinally(signal -> inFlightAsync.remove(key))
+                .share();
+        Mono<String> leader = inFlightAsync.putIfAbsent(key, execution);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return leader;
+        }
+        return execution;
+    }
+
+    private static String await(CompletableFuture<String> execution) {
+        try {
+            return execution.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a shared tool call", e);
+        }
+    }
+
+    private String key(String toolName, String arguments) {
+        return toolName + "|" + canonicalize(arguments);
+    }
+
+    private String lookup(String key) {
+        String value = peek(key);
+        if (value != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return value;
+    }
+
+    private String peek(String key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - now > 0) {
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, String result) {
+        if (result != null) {
+            synchronized (entries) {
+                entries.put(key, new Entry(result, System.nanoTime() + properties.getTtl().toNanos()));
+            }
+        }
+    }
+
+    public void invalidate(String toolName) {
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> ToolNames.matches(key.substring(0, key.indexOf('|')), toolName));
+        }
+        log.info("Invalidated cached results of MCP tool {}", toolName);
+    }
+
+    @EventListener(ToolCatalogChangedEvent.class)
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        log.info("Invalidated all cached MCP tool results");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("ttlSeconds", properties.getTtl().toSeconds());
+        stats.put("maxEntries", properties.getMaxEntries());
+        return stats;
+    }
+
+    private String canonicalize(String arguments) {
+        if (arguments == null || arguments.isBlank()) {
+            return "{}";
+        }
+        try {
+            Object value = canonicalMapper.readValue(arguments, Object.class);
+            return canonicalMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            return arguments.trim();
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+    }
+}
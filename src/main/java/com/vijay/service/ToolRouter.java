@@ -0,0 +1,137 @@
+package com.vijay.service;
+
+import com.vijay.tool.ToolExecution;
+import com.vijay.tool.ToolIntentMatch;
+import com.vijay.tool.ToolIntentMatcher;
+import com.vijay.tool.ToolInvocation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pre-dispatch router that answers tool requests without calling the chat model.
+ * <p>
+ * When a message deterministically maps to an MCP tool (see {@link ToolIntentMatcher}),
+ * the tool is executed first and its result returned directly, so the user waits for
+ * the tool instead of a full LLM round trip. Optionally a cheap ChatClient can be
+ * configured to turn the raw tool output into a friendlier answer. When several
+ * intents match, their tools run concurrently through the {@link ToolExecutionEngine}.
+ * <p>
+ * Routed exchanges are added to the chat memory the model calls read, so a
+ * follow-up question sent to the model sees the tool answer; the conversation
+ * history records them with every other response in {@link ChatService}.
+ */
+@Slf4j
+@Service
+public class ToolRouter {
+
+    private static final String FORMAT_INSTRUCTION =
+            "Present the following tool output to the user concisely. Do not call any tools.";
+
+    private final ToolIntentMatcher toolIntentMatcher;
+    private final McpToolCatalog toolCatalog;
+    private final ToolExecutionEngine toolExecutionEngine;
+    private final ApplicationContext applicationContext;
+    private final ChatMemory chatMemory;
+    private final boolean enabled;
+    private final String formatterClient;
+
+    public ToolRouter(ToolIntentMatcher toolIntentMatcher,
+                      McpToolCatalog toolCatalog,
+                      ToolExecutionEngine toolExecutionEngine,
+                      ApplicationContext applicationContext,
+                      ChatMemory chatMemory,
+                      @Value("${chat.tools.fast-path.enabled:true}") boolean enabled,
+                      @Value("${chat.tools.fast-path.formatter-client:}") String formatterClient) {
+        this.toolIntentMatcher = toolIntentMatcher;
+        this.toolCatalog = toolCatalog;
+        this.toolExecutionEngine = toolExecutionEngine;
+        this.applicationContext = applicationContext;
+        this.chatMemory = chatMemory;
+        this.enabled = enabled;
+        this.formatterClient = formatterClient;
+    }
+
+    /**
+     * Execute the tools the message maps to, if any.
+     *
+     * @return the answer to send back, or empty when the message should go to the model
+     */
+    public Optional<RoutedResponse> route(String userMessage) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        List<ToolIntentMatch> intents = new ArrayList<>();
+        List<ToolInvocation> invocations = new ArrayList<>();
+        for (ToolIntentMatch intent : toolIntentMatcher.match(userMessage)) {
+            toolCatalog.snapshot().findTool(intent.toolName()).ifPresent(toolCallback -> {
+                intents.add(intent);
+                invocations.add(new ToolInvocation(null, intent.toolName(), intent.arguments(), toolCallback));
+            });
+        }
+        if (invocations.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long start = System.currentTimeMillis();
+        List<ToolExecution> executions = toolExecutionEngine.executeAll(invocations, null);
+        StringBuilder raw = new StringBuilder();
+        List<String> toolNames = new ArrayList<>();
+        for (int i = 0; i < executions.size(); i++) {
+            ToolExecution execution = executions.get(i);
+            if (!execution.isSuccess()) {
+                log.warn("Fast path tool {} did not complete: {}", execution.invocation().name(), execution.result());
+                continue;
+            }
+            if (raw.length() > 0) {
+                raw.append("\n\n");
+            }
+            raw.append(intents.get(i).responsePrefix()).append(execution.result());
+            toolNames.add(execution.invocation().name());
+        }
+        if (toolNames.isEmpty()) {
+            log.warn("No fast path tool succeeded, falling back to the model");
+            return Optional.empty();
+        }
+
+        String content = format(String.join(", ", toolNames), raw.toString());
+        // The memory advisor of the chat clients keeps every exchange under the default conversation
+        chatMemory.add(ChatMemory.DEFAULT_CONVERSATION_ID, List.of(new UserMessage(userMessage), new AssistantMessage(content)));
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Answered via {} fast path in {}ms without calling the model", toolNames, elapsed);
+        return Optional.of(new RoutedResponse(String.join(",", toolNames), content, elapsed));
+    }
+
+    private String format(String toolNames, String raw) {
+        if (formatterClient == null || formatterClient.isBlank()) {
+            return raw;
+        }
+        try {
+            ChatClient chatClient = applicationContext.getBean(formatterClient, ChatClient.class);
+            String formatted = chatClient.prompt()
+                    .system(FORMAT_INSTRUCTION)
+                    .user(raw)
+                    .call()
+                    .content();
+            return formatted != null && !formatted.isBlank() ? formatted : raw;
+        } catch (Exception e) {
+            log.warn("Could not format {} output with {}: {}", toolNames, formatterClient, e.getMessage());
+            return raw;
+        }
+    }
+
+    /**
+     * A tool result returned in place of a model response.
+     */
+    public record RoutedResponse(String toolNames, String content, long toolLatencyMs) {
+    }
+}
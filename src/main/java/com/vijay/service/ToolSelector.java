@@ -0,0 +1,104 @@
+package com.vijay.service;
+
+import com.vijay.config.ToolSelectionProperties;
+import com.vijay.search.Bm25Index;
+import com.vijay.search.ScoredDoc;
+import com.vijay.search.StandardTokenizer;
+import com.vijay.tool.ToolCatalogSnapshot;
+import com.vijay.tool.ToolDescriptor;
+import com.vijay.tool.ToolNames;
+import com.vijay.tool.ToolSelection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Picks the MCP tools worth attaching to a chat request.
+ * <p>
+ * Tool names and descriptions are indexed with BM25; a request gets the
+ * {@code top-k} tools that best match the user message plus the configured
+ * always-on tools. Only those tools' schemas are sent to the model and listed
+ * in the system prompt, so the prompt no longer grows with every MCP server
+ * that is added. The index is rebuilt from the catalog snapshot whenever the
+ * catalog version changes.
+ */
+@Slf4j
+@Service
+public class ToolSelector {
+
+    private final McpToolCatalog toolCatalog;
+    private final ToolSelectionProperties properties;
+
+    private volatile ToolIndex index;
+
+    public ToolSelector(McpToolCatalog toolCatalog, ToolSelectionProperties properties) {
+        this.toolCatalog = toolCatalog;
+        this.properties = properties;
+    }
+
+    /**
+     * Select the tools for a user message.
+     */
+    public ToolSelection select(String message) {
+        ToolIndex current = index();
+        ToolCatalogSnapshot snapshot = current.snapshot;
+        List<ToolDescriptor> tools = snapshot.getTools();
+        if (!properties.isEnabled() || tools.size() <= properties.getTopK() + current.alwaysOn.size()) {
+            return new ToolSelection(tools, snapshot.getCallbacks(), tools.size());
+        }
+
+        Set<Integer> selected = new LinkedHashSet<>();
+        for (ScoredDoc hit : current.bm25.search(message, properties.getTopK(), doc -> !current.alwaysOn.contains(doc))) {
+            selected.add(hit.doc());
+        }
+        selected.addAll(current.alwaysOn);
+
+        List<ToolDescriptor> selectedTools = new ArrayList<>(selected.size());
+        List<ToolCallback> selectedCallbacks = new ArrayList<>(selected.size());
+        for (int doc : selected) {
+            selectedTools.add(tools.get(doc));
+            selectedCallbacks.add(snapshot.getCallbacks().get(doc));
+        }
+        log.debug("Selected {} of {} MCP tools: {}", selectedTools.size(), tools.size(),
+                selectedTools.stream().map(ToolDescriptor::name).toList());
+        return new ToolSelection(selectedTools, selectedCallbacks, tools.size());
+    }
+
+    private ToolIndex index() {
+        ToolCatalogSnapshot snapshot = toolCatalog.snapshot();
+        ToolIndex current = index;
+        if (current == null || current.snapshot.getVersion() != snapshot.getVersion()) {
+            current = build(snapshot);
+            index = current;
+        }
+        return current;
+    }
+
+    private ToolIndex build(ToolCatalogSnapshot snapshot) {
+        Bm25Index bm25 = new Bm25Index(new StandardTokenizer());
+        Set<Integer> alwaysOn = new LinkedHashSet<>();
+        List<ToolDescriptor> tools = snapshot.getTools();
+        for (int i = 0; i < tools.size(); i++) {
+            ToolDescriptor tool = tools.get(i);
+            bm25.add(splitCamelCase(tool.name()) + " " + (tool.description() != null ? tool.description() : ""));
+            if (properties.getAlwaysOn().stream().anyMatch(name -> ToolNames.matches(tool.name(), name))) {
+                alwaysOn.add(i);
+            }
+        }
+        log.info("Indexed {} MCP tools for selection ({} always on)", tools.size(), alwaysOn.size());
+        return new ToolIndex(snapshot, bm25, Collections.unmodifiableSet(alwaysOn));
+    }
+
+    private static String splitCamelCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1 $2");
+    }
+
+    private record ToolIndex(ToolCatalogSnapshot snapshot, Bm25Index bm25, Set<Integer> alwaysOn) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.vijay.service;
+
+import com.vijay.tool.InstrumentedToolCallback;
+import com.vijay.tool.ReactiveInstrumentedToolCallback;
+import com.vijay.tool.ReactiveToolCallback;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolDescriptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tool telemetry for MCP tool calls.
+ * <p>
+ * Wraps every catalog callback as the outermost decorator, so it measures what
+ * a conversation actually waits for, cache hits included. Each call records:
+ * <ul>
+ *     <li>{@code mcp.tool.calls}: a latency timer tagged with tool and outcome, with percentiles</li>
+ *     <li>{@code mcp.tool.arguments.size} and {@code mcp.tool.result.size}: payload sizes in bytes</li>
+ * </ul>
+ * Calls per conversation are kept in memory rather than as a meter tag,
+ * because conversation ids are unbounded. The conversation id travels in the
+ * tool context under {@link #CONVERSATION_ID}.
+ */
+@Slf4j
+@Service
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ToolTelemetry implements ToolCallbackDecorator {
+
+    public static final String CONVERSATION_ID = "conversationId";
+
+    private static final String CALLS = "mcp.tool.calls";
+    private static final String ARGUMENT_SIZE = "mcp.tool.arguments.size";
+    private static final String RESULT_SIZE = "mcp.tool.result.size";
+    private static final int MAX_CONVERSATIONS = 1000;
+
+    private final MeterRegistry registry;
+    private final LinkedHashMap<String, ConversationStats> conversations =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ConversationStats> eldest) {
+                    return size() > MAX_CONVERSATIONS;
+                }
+            };
+
+    public ToolTelemetry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Tool context carrying the conversation id, for {@code ChatClient.prompt().toolContext(...)}.
+     */
+    public static Map<String, Object> toolContext(String conversationId) {
+        return conversationId != null ? Map.of(CONVERSATION_ID, conversationId) : Map.of();
+    }
+
+    @Override
+    public ToolCallback decorate(ToolCallback callback, ToolDescriptor descriptor) {
+        if (callback instanceof ReactiveToolCallback reactive) {
+            return new ReactiveInstrumentedToolCallback(reactive, this);
+        }
+        return new InstrumentedToolCallback(callback, this);
+    }
+
+    public void record(String toolName, ToolContext toolContext, String arguments, String result,
+                       Throwable error, long elapsedNanos) {
+        Timer.builder(CALLS)
+                .tag("tool", toolName)
+                .tag("outcome", error == null ? "success" : "error")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(ARGUMENT_SIZE)
+                .baseUnit("bytes")
+                .tag("tool", toolName)
+                .register(registry)
+                .record(sizeOf(arguments));
+        if (result != null) {
+            DistributionSummary.builder(RESULT_SIZE)
+                    .baseUnit("bytes")
+                    .tag("tool", toolName)
+                    .register(registry)
+                    .record(sizeOf(result));
+        }
+
+        Object conversationId = toolContext != null ? toolContext.getContext().get(CONVERSATION_ID) : null;
+        if (conversationId != null) {
+            synchronized (conversations) {
+                conversations.computeIfAbsent(conversationId.toString(), id -> new ConversationStats())
+                        .add(toolName, elapsedNanos);
+            }
+        }
+        if (error != null) {
+            log.debug("Tool {} failed after {}ms: {}", toolName, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), error.getMessage());
+        }
+    }
+
+    /**
+     * Per-tool statistics, slowest total time first, and the conversations with the most tool time.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Map<String, Object>> tools = new TreeMap<>();
+        for (Timer timer : registry.find(CALLS).timers()) {
+            String tool = timer.getId().getTag("tool");
+            String outcome = timer.getId().getTag("outcome");
+            Map<String, Object> stats = tools.computeIfAbsent(tool, t -> new LinkedHashMap<>());
+            long count = timer.count();
+            stats.merge("calls", count, (a, b) -> (long) a + (long) b);
+            stats.merge("totalTimeMs", timer.totalTime(TimeUnit.MILLISECONDS), (a, b) -> (double) a + (double) b);
+            if ("error".equals(outcome)) {
+                stats.put("errors", count);
+            } else {
+                stats.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+                stats.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+                for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                    stats.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+                }
+            }
+        }
+        for (DistributionSummary summary : registry.find(ARGUMENT_SIZE).summaries()) {
+            putSize(tools, summary, "argumentBytes");
+        }
+        for (DistributionSummary summary : registry.find(RESULT_SIZE).summaries()) {
+            putSize(tools, summary, "resultBytes");
+        }
+
+        List<Map<String, Object>> toolList = new ArrayList<>();
+        tools.forEach((name, stats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("tool", name);
+            entry.putIfAbsent("errors", 0L);
+            entry.putAll(stats);
+            toolList.add(entry);
+        });
+        toolList.sort(Comparator.comparingDouble((Map<String, Object> entry) -> (double) entry.get("totalTimeMs")).reversed());
+
+        List<Map<String, Object>> conversationList = new ArrayList<>();
+        synchronized (conversations) {
+            conversations.forEach((id, stats) -> conversationList.add(stats.toMap(id)));
+        }
+        conversationList.sort(Comparator.comparingLong((Map<String, Object> entry) -> (long) entry.get("totalTimeMs")).reversed());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("tools", toolList);
+        response.put("conversations", conversationList.subList(0, Math.min(20, conversationList.size())));
+        response.put("trackedConversations", conversationList.size());
+        return response;
+    }
+
+    private static void putSize(Map<String, Map<String, Object>> tools, DistributionSummary summary, String key) {
+        Map<String, Object> stats = tools.computeIfAbsent(summary.getId().getTag("tool"), t -> new LinkedHashMap<>());
+        Map<String, Object> size = new LinkedHashMap<>();
+        size.put("mean", summary.mean());
+        size.put("max", summary.max());
+        stats.put(key, size);
+    }
+
+    private static long sizeOf(String text) {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    private static final class ConversationStats {
+        private final Map<String, Long> callsPerTool = new HashMap<>();
+        private long calls;
+        private long totalNanos;
+
+        void add(String toolName, long elapsedNanos) {
+            calls++;
+            totalNanos += elapsedNanos;
+            callsPerTool.merge(toolName, 1L, Long::sum);
+        }
+
+        Map<String, Object> toMap(String conversationId) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("conversationId", conversationId);
+            map.put("calls", calls);
+            map.put("totalTimeMs", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            map.put("callsPerTool", new HashMap<>(callsPerTool));
+            return map;
+        }
+    }
+}
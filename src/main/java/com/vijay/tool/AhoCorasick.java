@@ -0,0 +1,160 @@
+package com.vijay.tool;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho–Corasick automaton for case-insensitive multi-pattern matching.
+ * <p>
+ * All patterns are compiled into a single deterministic automaton, so scanning
+ * a text costs one table lookup per character regardless of how many patterns
+ * there are. Characters are lower-cased on the fly instead of copying the text.
+ * Matches are only reported on word boundaries: the characters on either side
+ * of a match must not be letters or digits.
+ */
+public final class AhoCorasick {
+
+    private static final int OTHER = 0;
+
+    private final String[] patterns;
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    public AhoCorasick(List<String> patterns) {
+        this.patterns = patterns.stream().map(p -> p.toLowerCase(Locale.ROOT)).toArray(String[]::new);
+
+        int nextClass = 1;
+        for (String pattern : this.patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (charClass(c) == OTHER) {
+                    if (c < 128) {
+                        asciiClasses[c] = nextClass++;
+                    } else {
+                        otherClasses.put(c, nextClass++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = nextClass;
+
+        // Build the trie
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(newNode());
+        trieOutputs.add(new ArrayList<>());
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int cls = charClass(pattern.charAt(i));
+                if (trie.get(state)[cls] < 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(newNode());
+                    trieOutputs.add(new ArrayList<>());
+                }
+                state = trie.get(state)[cls];
+            }
+            trieOutputs.get(state).add(p);
+        }
+
+        // Breadth-first construction of failure links, folded into a full transition table
+        int stateCount = trie.size();
+        int[] fail = new int[stateCount];
+        this.transitions = new int[stateCount * alphabetSize];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < alphabetSize; cls++) {
+            int child = trie.get(0)[cls];
+            if (child > 0) {
+                fail[child] = 0;
+                transitions[cls] = child;
+                queue.add(child);
+            } else {
+                transitions[cls] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            trieOutputs.get(state).addAll(trieOutputs.get(fail[state]));
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int child = trie.get(state)[cls];
+                if (child > 0) {
+                    fail[child] = transitions[fail[state] * alphabetSize + cls];
+                    transitions[state * alphabetSize + cls] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * alphabetSize + cls] = transitions[fail[state] * alphabetSize + cls];
+                }
+            }
+        }
+
+        this.outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            outputs[state] = trieOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Scan the text once and return every whole-word pattern occurrence in order of end position.
+     */
+    public List<Match> scan(CharSequence text) {
+        List<Match> matches = new ArrayList<>();
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            state = transitions[state * alphabetSize + charClass(c)];
+            int[] hits = outputs[state];
+            if (hits.length == 0) {
+                continue;
+            }
+            int end = i + 1;
+            if (end < length && Character.isLetterOrDigit(text.charAt(end))) {
+                continue;
+            }
+            for (int pattern : hits) {
+                int start = end - patterns[pattern].length();
+                if (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1))) {
+                    matches.add(new Match(pattern, start, end));
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    private int charClass(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        Integer cls = otherClasses.get(c);
+        return cls != null ? cls : OTHER;
+    }
+
+    private int[] newNode() {
+        int[] node = new int[Math.max(alphabetSize, 1)];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    /**
+     * A pattern occurrence covering {@code [start, end)} of the scanned text.
+     */
+    public record Match(int pattern, int start, int end) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.vijay.tool;
+
+import com.vijay.service.ToolResultCache;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * Serves repeated calls of an idempotent tool from the {@link ToolResultCache}.
+ */
+public class CachingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final ToolResultCache cache;
+
+    public CachingToolCallback(ToolCallback delegate, ToolResultCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return cache.get(getToolDefinition().name(), toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return cache.get(getToolDefinition().name(), toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+}
@@ -0,0 +1,49 @@
+package com.vijay.tool;
+
+import com.vijay.service.ToolTelemetry;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * Records latency, outcome and payload sizes of every call through {@link ToolTelemetry}.
+ */
+public class InstrumentedToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    protected final ToolTelemetry telemetry;
+
+    public InstrumentedToolCallback(ToolCallback delegate, ToolTelemetry telemetry) {
+        this.delegate = delegate;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        long start = System.nanoTime();
+        try {
+            String result = toolContext != null ? delegate.call(toolInput, toolContext) : delegate.call(toolInput);
+            telemetry.record(getToolDefinition().name(), toolContext, toolInput, result, null, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            telemetry.record(getToolDefinition().name(), toolContext, toolInput, null, e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+}
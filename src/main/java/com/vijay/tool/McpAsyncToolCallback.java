@@ -0,0 +1,71 @@
+package com.vijay.tool;
+
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Calls an MCP tool through an {@link McpAsyncClient}.
+ * <p>
+ * Tool names and results have the same format as Spring AI's synchronous MCP
+ * callbacks, so the model cannot tell the two modes apart. The blocking
+ * {@link #call(String)} methods exist for callers that only know
+ * {@link org.springframework.ai.tool.ToolCallback}; the tool execution engine
+ * uses {@link #callAsync(String, ToolContext)}.
+ */
+public class McpAsyncToolCallback implements ReactiveToolCallback {
+
+    private final McpAsyncClient client;
+    private final McpSchema.Tool tool;
+    private final ToolDefinition toolDefinition;
+    private final Duration blockTimeout;
+
+    public McpAsyncToolCallback(McpAsyncClient client, McpSchema.Tool tool, Duration blockTimeout) {
+        this.client = client;
+        this.tool = tool;
+        this.blockTimeout = blockTimeout;
+        this.toolDefinition = DefaultToolDefinition.builder()
+                .name(McpToolUtils.prefixedToolName(client.getClientInfo().name(), tool.name()))
+                .description(tool.description())
+                .inputSchema(ModelOptionsUtils.toJsonString(tool.inputSchema()))
+                .build();
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return toolDefinition;
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return callAsync(toolInput, toolContext).block(blockTimeout);
+    }
+
+    @Override
+    public Mono<String> callAsync(String toolInput, ToolContext toolContext) {
+        Map<String, Object> arguments = toolInput == null || toolInput.isBlank()
+                ? Map.of() : ModelOptionsUtils.jsonToMap(toolInput);
+        return client.callTool(new McpSchema.CallToolRequest(tool.name(), arguments))
+                .map(result -> {
+                    if (Boolean.TRUE.equals(result.isError())) {
+                        throw new IllegalStateException("Error calling tool: " + result.content());
+                    }
+                    return ModelOptionsUtils.toJsonString(result.content());
+                })
+                .onErrorMap(e -> !(e instanceof ToolExecutionException), e -> new ToolExecutionException(toolDefinition, e));
+    }
+}
@@ -0,0 +1,52 @@
+package com.vijay.tool;
+
+import io.modelcontextprotocol.client.McpAsyncClient;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tool callbacks for every tool of a set of {@link McpAsyncClient}s.
+ * The clients are listed concurrently; a client that fails to answer is skipped.
+ */
+@Slf4j
+public class McpAsyncToolCallbackProvider implements ToolCallbackProvider {
+
+    private final List<McpAsyncClient> clients;
+    private final Duration timeout;
+
+    public McpAsyncToolCallbackProvider(List<McpAsyncClient> clients, Duration timeout) {
+        this.clients = List.copyOf(clients);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ToolCallback[] getToolCallbacks() {
+        List<ToolCallback> callbacks = Flux.fromIterable(clients)
+                .flatMapSequential(client -> client.listTools()
+                        .timeout(timeout)
+                        .flatMapIterable(McpSchema.ListToolsResult::tools)
+                        .map(tool -> (ToolCallback) new McpAsyncToolCallback(client, tool, timeout))
+                        .onErrorResume(e -> {
+                            log.warn("Error getting tools from MCP client {}: {}", client.getClientInfo().name(), e.getMessage());
+                            return Flux.empty();
+                        }))
+                .collectList()
+                .block();
+
+        Set<String> names = new HashSet<>();
+        for (ToolCallback callback : callbacks) {
+            if (!names.add(callback.getToolDefinition().name())) {
+                throw new IllegalStateException("Multiple tools with the same name: " + callback.getToolDefinition().name());
+            }
+        }
+        return callbacks.toArray(new ToolCallback[0]);
+    }
+}
@@ -0,0 +1,125 @@
+package com.vijay.tool;
+
+import com.vijay.service.McpToolCatalog;
+import com.vijay.service.ToolExecutionEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ToolCallingManager} that runs the tool calls of one model turn concurrently.
+ * <p>
+ * Spring AI's default manager executes the calls of a turn one after another on
+ * the request thread. This implementation hands them to the
+ * {@link ToolExecutionEngine} instead, which applies per-tool timeouts; failed or
+ * timed out calls are reported to the model as tool responses so it can still
+ * answer from the partial results. Callbacks are looked up in the
+ * {@link McpToolCatalog} first so model-driven calls go through the same
+ * decorators (caching, telemetry) as direct calls. Tool definition resolution is
+ * delegated.
+ */
+@Slf4j
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private final ToolCallingManager delegate;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionEngine executionEngine;
+    private final McpToolCatalog toolCatalog;
+
+    public ParallelToolCallingManager(ToolCallingManager delegate,
+                                      ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionEngine executionEngine,
+                                      McpToolCatalog toolCatalog) {
+        this.delegate = delegate;
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.executionEngine = executionEngine;
+        this.toolCatalog = toolCatalog;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(output -> output.getToolCalls() != null && !output.getToolCalls().isEmpty())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        List<ToolCallback> availableCallbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+                ? options.getToolCallbacks() : List.of();
+
+        boolean returnDirect = true;
+        List<ToolInvocation> invocations = new ArrayList<>();
+        for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+            ToolCallback callback = findCallback(availableCallbacks, toolCall.name());
+            if (callback == null) {
+                throw new IllegalStateException("No ToolCallback found for tool name: " + toolCall.name());
+            }
+            returnDirect &= callback.getToolMetadata().returnDirect();
+            String arguments = toolCall.arguments() == null || toolCall.arguments().isBlank() ? "{}" : toolCall.arguments();
+            invocations.add(new ToolInvocation(toolCall.id(), toolCall.name(), arguments, callback));
+        }
+
+        List<ToolExecution> executions = executionEngine.executeAll(invocations, buildToolContext(prompt, assistantMessage));
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(executions.size());
+        for (ToolExecution execution : executions) {
+            ToolInvocation invocation = execution.invocation();
+            responses.add(new ToolResponseMessage.ToolResponse(invocation.id(), invocation.name(), execution.result()));
+        }
+
+        List<Message> conversationHistory = new ArrayList<>(prompt.copy().getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(new ToolResponseMessage(responses, Map.of()));
+
+        return ToolExecutionResult.builder()
+                .conversationHistory(conversationHistory)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private ToolCallback findCallback(List<ToolCallback> callbacks, String toolName) {
+        ToolCallback catalogCallback = toolCatalog.snapshot().findTool(toolName).orElse(null);
+        if (catalogCallback != null) {
+            return catalogCallback;
+        }
+        for (ToolCallback callback : callbacks) {
+            if (callback.getToolDefinition().name().equals(toolName)) {
+                return callback;
+            }
+        }
+        return toolCallbackResolver != null ? toolCallbackResolver.resolve(toolName) : null;
+    }
+
+    private static ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+                && options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+            Map<String, Object> context = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(assistantMessage);
+            context.put(ToolContext.TOOL_CALL_HISTORY, history);
+            return new ToolContext(context);
+        }
+        return new ToolContext(Map.of());
+    }
+}
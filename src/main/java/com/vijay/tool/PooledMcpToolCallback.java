@@ -0,0 +1,73 @@
+package com.vijay.tool;
+
+import com.vijay.service.McpStdioProcessPool;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.model.ModelOptionsUtils;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.DefaultToolDefinition;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.Map;
+
+/**
+ * Calls a tool of a pooled STDIO MCP server on the least busy process of its pool.
+ * Names and results have the same format as Spring AI's {@code SyncMcpToolCallback}:
+ * the tool name is prefixed with the client name, e.g.
+ * {@code spring_ai_mcp_client_coding_assistant_listFaqs}.
+ */
+public class PooledMcpToolCallback implements ToolCallback {
+
+    private final McpStdioProcessPool pool;
+    private final String connectionName;
+    private final String clientName;
+    private final McpSchema.Tool tool;
+    private final ToolDefinition toolDefinition;
+
+    public PooledMcpToolCallback(McpStdioProcessPool pool, String connectionName, String clientName, McpSchema.Tool tool) {
+        this.pool = pool;
+        this.connectionName = connectionName;
+        this.clientName = clientName;
+        this.tool = tool;
+        this.toolDefinition = DefaultToolDefinition.builder()
+                .name(McpToolUtils.prefixedToolName(clientName, tool.name()))
+                .description(tool.description())
+                .inputSchema(ModelOptionsUtils.toJsonString(tool.inputSchema()))
+                .build();
+    }
+
+    public String getConnectionName() {
+        return connectionName;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public McpSchema.Tool getTool() {
+        return tool;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return toolDefinition;
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        Map<String, Object> arguments = toolInput == null || toolInput.isBlank()
+                ? Map.of() : ModelOptionsUtils.jsonToMap(toolInput);
+        McpSchema.CallToolResult result = pool.callTool(connectionName,
+                new McpSchema.CallToolRequest(tool.name(), arguments));
+        if (Boolean.TRUE.equals(result.isError())) {
+            throw new IllegalStateException("Error calling tool: " + result.content());
+        }
+        return ModelOptionsUtils.toJsonString(result.content());
+    }
+}
@@ -0,0 +1,25 @@
+package com.vijay.tool;
+
+import com.vijay.service.ToolResultCache;
+import org.springframework.ai.chat.model.ToolContext;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CachingToolCallback} for tools that are called without blocking.
+ */
+public class ReactiveCachingToolCallback extends CachingToolCallback implements ReactiveToolCallback {
+
+    private final ReactiveToolCallback delegate;
+    private final ToolResultCache cache;
+
+    public ReactiveCachingToolCallback(ReactiveToolCallback delegate, ToolResultCache cache) {
+        super(delegate, cache);
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Mono<String> callAsync(String toolInput, ToolContext toolContext) {
+        return cache.getAsync(getToolDefinition().name(), toolInput, () -> delegate.callAsync(toolInput, toolContext));
+    }
+}
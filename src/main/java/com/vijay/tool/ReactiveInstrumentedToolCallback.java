@@ -0,0 +1,34 @@
+package com.vijay.tool;
+
+import com.vijay.service.ToolTelemetry;
+import org.springframework.ai.chat.model.ToolContext;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * {@link InstrumentedToolCallback} for tools that are called without blocking.
+ */
+public class ReactiveInstrumentedToolCallback extends InstrumentedToolCallback implements ReactiveToolCallback {
+
+    private final ReactiveToolCallback delegate;
+
+    public ReactiveInstrumentedToolCallback(ReactiveToolCallback delegate, ToolTelemetry telemetry) {
+        super(delegate, telemetry);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<String> callAsync(String toolInput, ToolContext toolContext) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            String name = getToolDefinition().name();
+            return delegate.callAsync(toolInput, toolContext)
+                    .doOnNext(result -> telemetry.record(name, toolContext, toolInput, result, null, System.nanoTime() - start))
+                    .doOnError(e -> telemetry.record(name, toolContext, toolInput, null, e, System.nanoTime() - start))
+                    // Timed out or abandoned calls are cancelled rather than failed
+                    .doOnCancel(() -> telemetry.record(name, toolContext, toolInput, null,
+                            new CancellationException("cancelled"), System.nanoTime() - start));
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.vijay.tool;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Mono;
+
+/**
+ * A tool callback that can be called without blocking a thread.
+ * Cancelling the subscription abandons the call.
+ */
+public interface ReactiveToolCallback extends ToolCallback {
+
+    Mono<String> callAsync(String toolInput, ToolContext toolContext);
+}
@@ -0,0 +1,16 @@
+package com.vijay.tool;
+
+import org.springframework.ai.tool.ToolCallback;
+
+/**
+ * Wraps the tool callbacks published by the MCP tool catalog.
+ * Decorators are applied in {@link org.springframework.core.annotation.Order} order,
+ * the first one being innermost.
+ */
+public interface ToolCallbackDecorator {
+
+    /**
+     * Return a wrapper around the callback, or the callback itself to leave it untouched.
+     */
+    ToolCallback decorate(ToolCallback callback, ToolDescriptor descriptor);
+}
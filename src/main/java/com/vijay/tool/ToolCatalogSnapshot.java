@@ -0,0 +1,88 @@
+package com.vijay.tool;
+
+import org.springframework.ai.tool.ToolCallback;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Point-in-time view of the available MCP tools. Instances are never mutated,
+ * so they can be shared freely between request threads.
+ */
+public final class ToolCatalogSnapshot {
+
+    private static final ToolCatalogSnapshot EMPTY = new ToolCatalogSnapshot(0, Instant.EPOCH, List.of(), List.of());
+
+    private final long version;
+    private final Instant refreshedAt;
+    private final List<ToolCallback> callbacks;
+    private final ToolCallback[] callbackArray;
+    private final List<ToolDescriptor> tools;
+    private final Map<String, ToolCallback> callbacksByName;
+
+    public ToolCatalogSnapshot(long version, Instant refreshedAt, List<ToolCallback> callbacks, List<ToolDescriptor> tools) {
+        this.version = version;
+        this.refreshedAt = refreshedAt;
+        this.callbacks = List.copyOf(callbacks);
+        this.callbackArray = callbacks.toArray(new ToolCallback[0]);
+        this.tools = List.copyOf(tools);
+        Map<String, ToolCallback> byName = new LinkedHashMap<>();
+        for (ToolCallback callback : callbacks) {
+            byName.putIfAbsent(callback.getToolDefinition().name(), callback);
+        }
+        this.callbacksByName = Map.copyOf(byName);
+    }
+
+    public static ToolCatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public List<ToolCallback> getCallbacks() {
+        return callbacks;
+    }
+
+    /**
+     * The callbacks as an array, for APIs such as {@code ChatClient} that take varargs.
+     * The returned array is shared and must not be modified.
+     */
+    public ToolCallback[] getCallbackArray() {
+        return callbackArray;
+    }
+
+    public List<ToolDescriptor> getTools() {
+        return tools;
+    }
+
+    public int size() {
+        return callbacks.size();
+    }
+
+    /**
+     * Find a tool by name. MCP tool names may be prefixed with the client name
+     * (e.g. {@code spring_ai_mcp_client_coding_assistant_listFaqs}), so a suffix
+     * match on {@code _name} is accepted when there is no exact match.
+     */
+    public Optional<ToolCallback> findTool(String name) {
+        ToolCallback exact = callbacksByName.get(name);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        for (ToolCallback callback : callbacks) {
+            if (ToolNames.matches(callback.getToolDefinition().name(), name)) {
+                return Optional.of(callback);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,15 @@
+package com.vijay.tool;
+
+/**
+ * Immutable description of one MCP tool as seen by the catalog.
+ *
+ * @param name        tool name as registered with the chat models
+ * @param description human readable description
+ * @param inputSchema JSON schema of the tool arguments
+ * @param clientName  MCP client that serves the tool, if known
+ * @param readOnly    the server's {@code readOnlyHint} annotation, or null if not declared
+ * @param destructive the server's {@code destructiveHint} annotation, or null if not declared
+ */
+public record ToolDescriptor(String name, String description, String inputSchema, String clientName,
+                             Boolean readOnly, Boolean destructive) {
+}
@@ -0,0 +1,18 @@
+package com.vijay.tool;
+
+/**
+ * Outcome of a {@link ToolInvocation}. Failed and timed out calls carry an
+ * explanatory result text so it can be handed back to the model as-is.
+ */
+public record ToolExecution(ToolInvocation invocation, String result, Status status, long latencyMs) {
+
+    public enum Status {
+        SUCCESS,
+        ERROR,
+        TIMEOUT
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+}
@@ -0,0 +1,12 @@
+package com.vijay.tool;
+
+/**
+ * A user message that deterministically maps to an MCP tool call.
+ *
+ * @param toolName       MCP tool to invoke
+ * @param trigger        trigger phrase that matched
+ * @param arguments      JSON arguments extracted from the message
+ * @param responsePrefix text to put in front of the tool result
+ */
+public record ToolIntentMatch(String toolName, String trigger, String arguments, String responsePrefix) {
+}
@@ -0,0 +1,176 @@
+package com.vijay.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.ToolIntentProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Detects tool intents in user messages.
+ * <p>
+ * The trigger phrases of every configured intent are compiled into one
+ * {@link AhoCorasick} automaton at startup, so each message is scanned once
+ * and matching cost does not grow with the number of tools. Triggers only
+ * match whole words: "notebook" or "denote" do not trigger {@code createNote}.
+ * They also have to start the request, possibly after configured lead-ins:
+ * "please take a note" and "can you list faqs" are tool requests, while "how
+ * do I take a note in Obsidian?" or "why does my FAQ page 404?" are not.
+ */
+@Slf4j
+@Component
+public class ToolIntentMatcher {
+
+    private static final String MESSAGE = "message";
+    private static final String REMAINDER = "remainder";
+    private static final String TITLE = "title";
+    private static final int TITLE_WORDS = 8;
+
+    private final ObjectMapper objectMapper;
+    private final AhoCorasick automaton;
+    private final List<ToolIntentProperties.Intent> intentByPattern = new ArrayList<>();
+    private final List<String> triggerByPattern = new ArrayList<>();
+    private final List<String> leadIns;
+
+    public ToolIntentMatcher(ToolIntentProperties properties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Map.Entry<String, ToolIntentProperties.Intent> entry : properties.getIntents().entrySet()) {
+            ToolIntentProperties.Intent intent = entry.getValue();
+            if (intent.getTool() == null || intent.getTool().isBlank()) {
+                log.warn("Ignoring tool intent {} without a tool name", entry.getKey());
+                continue;
+            }
+            for (String trigger : intent.getTriggers()) {
+                if (!trigger.isBlank()) {
+                    intentByPattern.add(intent);
+                    triggerByPattern.add(trigger.trim());
+                }
+            }
+        }
+        this.automaton = new AhoCorasick(triggerByPattern);
+        // Longest first, so "i would like to" is not cut short by a shorter lead-in sharing its start
+        this.leadIns = properties.getLeadIns().stream()
+                .map(leadIn -> leadIn.trim().toLowerCase(Locale.ROOT))
+                .filter(leadIn -> !leadIn.isEmpty())
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toList();
+        log.info("Compiled {} tool intent triggers for {} intents", automaton.patternCount(), properties.getIntents().size());
+    }
+
+    /**
+     * Return the tool intents the message starts with, at most one per tool.
+     */
+    public List<ToolIntentMatch> match(String message) {
+        if (message == null || message.isEmpty() || automaton.patternCount() == 0) {
+            return List.of();
+        }
+        int anchor = anchor(message);
+        List<AhoCorasick.Match> hits = automaton.scan(message).stream()
+                .filter(hit -> hit.start() == anchor)
+                .toList();
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        // Longest trigger first, so "list sample faqs" wins over a shorter trigger of another tool
+        List<ToolIntentMatch> matches = new ArrayList<>();
+        Set<String> seenTools = new HashSet<>();
+        for (AhoCorasick.Match hit : longestFirst(hits)) {
+            ToolIntentProperties.Intent intent = intentByPattern.get(hit.pattern());
+            if (seenTools.add(intent.getTool())) {
+                String remainder = remainder(message, hit.end());
+                matches.add(new ToolIntentMatch(intent.getTool(), triggerByPattern.get(hit.pattern()),
+                        buildArguments(intent, message, remainder), intent.getResponsePrefix()));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Position where a trigger has to start: the first word of the message after any lead-ins.
+     */
+    private int anchor(String message) {
+        int position = skipSeparators(message, 0);
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (String leadIn : leadIns) {
+                int end = position + leadIn.length();
+                if (message.regionMatches(true, position, leadIn, 0, leadIn.length())
+                        && (end == message.length() || !Character.isLetterOrDigit(message.charAt(end)))) {
+                    position = skipSeparators(message, end);
+                    found = true;
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    private static int skipSeparators(String message, int from) {
+        int position = from;
+        while (position < message.length() && !Character.isLetterOrDigit(message.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static List<AhoCorasick.Match> longestFirst(List<AhoCorasick.Match> hits) {
+        List<AhoCorasick.Match> ordered = new ArrayList<>(hits);
+        ordered.sort((a, b) -> Integer.compare(b.end() - b.start(), a.end() - a.start()));
+        return ordered;
+    }
+
+    private String buildArguments(ToolIntentProperties.Intent intent, String message, String remainder) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (Map.Entry<String, String> argument : intent.getArguments().entrySet()) {
+            String source = argument.getValue();
+            String value = switch (source) {
+                case MESSAGE -> message;
+                case REMAINDER -> remainder.isEmpty() ? message : remainder;
+                case TITLE -> title(remainder);
+                default -> source;
+            };
+            arguments.put(argument.getKey(), value);
+        }
+        try {
+            return objectMapper.writeValueAsString(arguments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize tool arguments", e);
+        }
+    }
+
+    private static String remainder(String message, int end) {
+        int start = end;
+        while (start < message.length()) {
+            char c = message.charAt(start);
+            if (!Character.isWhitespace(c) && c != ':' && c != '-' && c != ',') {
+                break;
+            }
+            start++;
+        }
+        return message.substring(start).trim();
+    }
+
+    private static String title(String remainder) {
+        if (remainder.isEmpty()) {
+            return "Note";
+        }
+        String firstLine = remainder.lines().findFirst().orElse(remainder);
+        String[] words = firstLine.split("\\s+");
+        if (words.length <= TITLE_WORDS) {
+            return firstLine;
+        }
+        return String.join(" ", Arrays.copyOf(words, TITLE_WORDS)) + "...";
+    }
+}
@@ -0,0 +1,14 @@
+package com.vijay.tool;
+
+import org.springframework.ai.tool.ToolCallback;
+
+/**
+ * A single tool call requested in a turn.
+ *
+ * @param id        tool call id assigned by the model, or null for direct calls
+ * @param name      tool name
+ * @param arguments JSON arguments
+ * @param callback  callback that executes the tool
+ */
+public record ToolInvocation(String id, String name, String arguments, ToolCallback callback) {
+}
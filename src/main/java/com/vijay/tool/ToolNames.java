@@ -0,0 +1,19 @@
+package com.vijay.tool;
+
+/**
+ * Helpers for comparing MCP tool names.
+ */
+public final class ToolNames {
+
+    private ToolNames() {
+    }
+
+    /**
+     * Whether a registered tool name refers to a configured one. Spring AI may prefix
+     * MCP tool names with the client name (e.g. {@code spring_ai_mcp_client_coding_assistant_listFaqs}),
+     * so a match on the {@code _name} suffix counts as well.
+     */
+    public static boolean matches(String toolName, String configuredName) {
+        return toolName.equals(configuredName) || toolName.endsWith("_" + configuredName);
+    }
+}
@@ -0,0 +1,16 @@
+package com.vijay.tool;
+
+import org.springframework.ai.tool.ToolCallback;
+
+import java.util.List;
+
+/**
+ * The MCP tools attached to one chat request, in rank order.
+ * {@code tools} and {@code callbacks} are aligned by index.
+ */
+public record ToolSelection(List<ToolDescriptor> tools, List<ToolCallback> callbacks, int catalogSize) {
+
+    public List<String> toolNames() {
+        return tools.stream().map(ToolDescriptor::name).toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.vijay.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@code @EnableWebMvc} ignores {@code spring.mvc.async.*}, so the chat
+ * timeout and a bounded executor must come from this configurer.
+ */
+class WebMvcAsyncConfigTest {
+
+    private WebMvcAsyncConfig config;
+
+    @AfterEach
+    void shutdown() {
+        if (config != null) {
+            config.shutdown();
+        }
+    }
+
+    @Test
+    void appliesTheConfiguredTimeoutAndABoundedPool() {
+        ChatAsyncProperties properties = new ChatAsyncProperties();
+        properties.setRequestTimeout(Duration.ofSeconds(90));
+        properties.setCorePoolSize(2);
+        properties.setMaxPoolSize(4);
+        properties.setQueueCapacity(10);
+        config = new WebMvcAsyncConfig(properties);
+
+        CapturingConfigurer configurer = new CapturingConfigurer();
+        config.configureAsyncSupport(configurer);
+
+        assertEquals(90_000L, configurer.timeout());
+        assertTrue(configurer.executor() instanceof ThreadPoolTaskExecutor);
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) configurer.executor();
+        assertEquals(2, executor.getCorePoolSize());
+        assertEquals(4, executor.getMaxPoolSize());
+        assertEquals(10, executor.getQueueCapacity());
+    }
+
+    @Test
+    void defaultsAllowLongToolLoops() {
+        config = new WebMvcAsyncConfig(new ChatAsyncProperties());
+        CapturingConfigurer configurer = new CapturingConfigurer();
+        config.configureAsyncSupport(configurer);
+        assertEquals(120_000L, configurer.timeout());
+    }
+
+    private static final class CapturingConfigurer extends AsyncSupportConfigurer {
+
+        Long timeout() {
+            return getTimeout();
+        }
+
+        AsyncTaskExecutor executor() {
+            return getTaskExecutor();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.vijay.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Templates are validated when compiled, and every render starts from a
+ * clean set of variables.
+ */
+class CompiledTemplateTest {
+
+    private static final String TOOLS = "{provider}/{model}: {toolCount} {tools:{t|{t.name}}; separator=\", \"}";
+
+    @Test
+    void rendersTheDeclaredVariables() {
+        CompiledTemplate template = CompiledTemplate.compile("tools", TOOLS);
+
+        assertEquals("openai/gpt-4: 2 listFaqs, createNote", template.render(Map.of(
+                "provider", "openai",
+                "model", "gpt-4",
+                "toolCount", 2,
+                "tools", List.of(Map.of("name", "listFaqs"), Map.of("name", "createNote")))));
+    }
+
+    @Test
+    void renderingLeavesNothingBehindForTheNextRender() {
+        CompiledTemplate template = CompiledTemplate.compile("tools", TOOLS);
+        template.render(Map.of("provider", "openai", "model", "gpt-4", "toolCount", 1, "tools", List.of(Map.of("name", "listFaqs"))));
+
+        assertEquals("groq/: 0 ", template.render(Map.of("provider", "groq", "toolCount", 0)));
+    }
+
+    @Test
+    void undeclaredVariablesAreIgnored() {
+        CompiledTemplate template = CompiledTemplate.compile("base", "You answer for {provider}.");
+
+        assertEquals("You answer for claude.", template.render(Map.of("provider", "claude", "apiKey", "secret")));
+    }
+
+    @Test
+    void invalidTemplatesFailToCompile() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("base", "Hello {user}"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("base", "Hello {provider"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledTemplate.compile("base", "{if(tools)}unterminated"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Set operations and serialization against a {@link BitSet} oracle, on
+ * groups that stay sparse arrays and groups that turn into bitmaps.
+ */
+class CompressedBitmapTest {
+
+    // Spans four 65536-value groups
+    private static final int RANGE = 4 * 65536;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void addAndContainsMatchBitSet() {
+        for (double density : new double[]{0.001, 0.05, 0.5}) {
+            BitSet expected = randomBits(density);
+            CompressedBitmap bitmap = of(expected);
+            assertBits(expected, bitmap);
+            for (int i = 0; i < 10_000; i++) {
+                int value = random.nextInt(RANGE + 1000);
+                assertEquals(expected.get(value), bitmap.contains(value), "contains " + value);
+            }
+        }
+    }
+
+    @Test
+    void andAndOrMatchBitSet() {
+        double[] densities = {0.0005, 0.02, 0.3, 0.9};
+        for (double left : densities) {
+            for (double right : densities) {
+                BitSet a = randomBits(left);
+                BitSet b = randomBits(right);
+                CompressedBitmap bitmapA = of(a);
+                CompressedBitmap bitmapB = of(b);
+
+                BitSet and = (BitSet) a.clone();
+                and.and(b);
+                assertBits(and, CompressedBitmap.and(bitmapA, bitmapB));
+                BitSet or = (BitSet) a.clone();
+                or.or(b);
+                assertBits(or, CompressedBitmap.or(bitmapA, bitmapB));
+
+                // The arguments are left unchanged
+                assertBits(a, bitmapA);
+                assertBits(b, bitmapB);
+            }
+        }
+    }
+
+    @Test
+    void disjointGroupsIntersectToEmpty() {
+        CompressedBitmap low = new CompressedBitmap();
+        CompressedBitmap high = new CompressedBitmap();
+        for (int i = 0; i < 5000; i++) {
+            low.add(i);
+            high.add(70_000 + i);
+        }
+        assertTrue(CompressedBitmap.and(low, high).isEmpty());
+        assertEquals(10_000, CompressedBitmap.or(low, high).cardinality());
+    }
+
+    @Test
+    void serializedBitmapsReadBackUnchanged() {
+        for (double density : new double[]{0, 0.001, 0.05, 0.5}) {
+            BitSet expected = randomBits(density);
+            CompressedBitmap bitmap = of(expected);
+            ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedBytes() + 8);
+            buffer.putInt(7);
+            bitmap.write(buffer);
+            assertEquals(4 + bitmap.serializedBytes(), buffer.position());
+            buffer.putInt(9);
+
+            buffer.flip();
+            assertEquals(7, buffer.getInt());
+            assertBits(expected, CompressedBitmap.read(buffer));
+            assertEquals(9, buffer.getInt());
+        }
+    }
+
+    @Test
+    void negativeValuesAreRejected() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+        assertFalse(bitmap.contains(-1));
+    }
+
+    private BitSet randomBits(double density) {
+        BitSet bits = new BitSet(RANGE);
+        for (int value = 0; value < RANGE; value++) {
+            // Vary the density per group so sparse and dense groups mix
+            if (random.nextDouble() < density * ((value >>> 16) + 1) / 2) {
+                bits.set(value);
+            }
+        }
+        return bits;
+    }
+
+    private static CompressedBitmap of(BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bits.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static void assertBits(BitSet expected, CompressedBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        List<Integer> values = new ArrayList<>();
+        actual.forEach(values::add);
+        assertEquals(expected.stream().boxed().toList(), values);
+    }
+}
@@ -0,0 +1,89 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The context stays within the token budget, drops near-duplicates, trades
+ * relevance for diversity as {@code lambda} asks and lists the picked chunks
+ * by relevance with their sources.
+ */
+class ContextAssemblerTest {
+
+    @Test
+    void picksAreWrittenByRelevanceWithTheirSources() {
+        ContextAssembler.Context context = new ContextAssembler(5, 1.0, 0.95).assemble(List.of(
+                chunk("second", "b.md", 0.5, null),
+                chunk("  first\n", "a.md", 0.9, null),
+                chunk("third", null, 0.1, null),
+                chunk(" ", "blank.md", 1.0, null)), 1000);
+
+        assertEquals("[1] (a.md)\nfirst\n\n[2] (b.md)\nsecond\n\n[3]\nthird", context.text());
+        assertEquals(TextChunker.estimateTokens(context.text()), context.tokens());
+        assertEquals(List.of("  first\n", "second", "third"), context.chunks().stream().map(ContextAssembler.Chunk::text).toList());
+    }
+
+    @Test
+    void chunksThatDoNotFitArePassedOverForSmallerOnes() {
+        String large = "large ".repeat(100);
+        ContextAssembler.Context context = new ContextAssembler(5, 1.0, 0.95).assemble(List.of(
+                chunk("small but relevant", "a.md", 0.9, null),
+                chunk(large, "b.md", 0.8, null),
+                chunk("tiny", "c.md", 0.1, null)), 40);
+
+        assertEquals(List.of("small but relevant", "tiny"), context.chunks().stream().map(ContextAssembler.Chunk::text).toList());
+        assertTrue(context.tokens() <= 40, context.tokens() + " tokens");
+
+        ContextAssembler.Context nothingFits = new ContextAssembler(5, 1.0, 0.95).assemble(List.of(chunk(large, "b.md", 0.8, null)), 40);
+        assertEquals("", nothingFits.text());
+        assertTrue(nothingFits.chunks().isEmpty());
+    }
+
+    @Test
+    void nearDuplicatesOfMoreRelevantChunksAreDropped() {
+        ContextAssembler.Context context = new ContextAssembler(5, 1.0, 0.95).assemble(List.of(
+                chunk("original wording", "a.md", 0.9, new float[] {1, 0}),
+                chunk("reworded copy", "b.md", 0.8, new float[] {0.99f, 0.1f}),
+                chunk("related topic", "c.md", 0.7, new float[] {0.8f, 0.6f}),
+                chunk("plain text", "d.md", 0.6, null),
+                chunk(" plain text ", "e.md", 0.5, null)), 1000);
+
+        assertEquals(List.of("a.md", "c.md", "d.md"), context.chunks().stream().map(ContextAssembler.Chunk::source).toList());
+        assertEquals(2, context.duplicates());
+    }
+
+    @Test
+    void lowerLambdaPrefersChunksUnlikeThosePicked() {
+        List<ContextAssembler.Chunk> candidates = List.of(
+                chunk("kafka retries", "a.md", 1.0, new float[] {1, 0}),
+                chunk("kafka retry backoff", "b.md", 0.9, new float[] {0.8f, 0.6f}),
+                chunk("rabbit retries", "c.md", 0.8, new float[] {0, 1}));
+
+        assertEquals(List.of("a.md", "b.md"), sources(new ContextAssembler(2, 1.0, 0.95).assemble(candidates, 1000)));
+        assertEquals(List.of("a.md", "c.md"), sources(new ContextAssembler(2, 0.5, 0.95).assemble(candidates, 1000)));
+    }
+
+    @Test
+    void nothingToAssemble() {
+        ContextAssembler assembler = new ContextAssembler(5, 0.5, 0.95);
+
+        assertSame(ContextAssembler.Context.EMPTY, assembler.assemble(List.of(), 1000));
+        assertSame(ContextAssembler.Context.EMPTY, assembler.assemble(List.of(chunk("text", null, 1.0, null)), 0));
+        assertThrows(IllegalArgumentException.class, () -> new ContextAssembler(0, 0.5, 0.95));
+        assertThrows(IllegalArgumentException.class, () -> new ContextAssembler(5, 1.5, 0.95));
+    }
+
+    private static ContextAssembler.Chunk chunk(String text, String source, double relevance, float[] embedding) {
+        return new ContextAssembler.Chunk(text, source, relevance, embedding);
+    }
+
+    private static List<String> sources(ContextAssembler.Context context) {
+        return context.chunks().stream().map(ContextAssembler.Chunk::source).toList();
+    }
+}
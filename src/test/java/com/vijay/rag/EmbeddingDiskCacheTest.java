@@ -0,0 +1,99 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The file keeps vectors across reopening, never grows, overwrites within the
+ * probe window when full and treats a torn slot or a file made for other
+ * dimensions as empty.
+ */
+class EmbeddingDiskCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void vectorsSurviveReopening() throws IOException {
+        Path file = directory.resolve("model.emb");
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 3, 100)) {
+            cache.put(ContentHash.of("alpha"), new float[] {1, 2, 3});
+            cache.put(ContentHash.of("beta"), new float[] {4, 5, 6});
+            cache.put(ContentHash.of("alpha"), new float[] {7, 8, 9});
+            cache.put(ContentHash.of("gamma"), new float[] {1, 2});
+        }
+
+        assertEquals(3, EmbeddingDiskCache.storedDimensions(file));
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 3, 100)) {
+            assertArrayEquals(new float[] {7, 8, 9}, cache.get(ContentHash.of("alpha")));
+            assertArrayEquals(new float[] {4, 5, 6}, cache.get(ContentHash.of("beta")));
+            assertNull(cache.get(ContentHash.of("gamma")));
+        }
+    }
+
+    @Test
+    void otherDimensionsStartAnEmptyFile() throws IOException {
+        Path file = directory.resolve("model.emb");
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 3, 100)) {
+            cache.put(ContentHash.of("alpha"), new float[] {1, 2, 3});
+        }
+
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 4, 100)) {
+            assertNull(cache.get(ContentHash.of("alpha")));
+        }
+        assertEquals(4, EmbeddingDiskCache.storedDimensions(file));
+        assertEquals(0, EmbeddingDiskCache.storedDimensions(directory.resolve("missing.emb")));
+    }
+
+    @Test
+    void aFullTableOverwritesButNeverMixesUpVectors() throws IOException {
+        Path file = directory.resolve("model.emb");
+        long length;
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 2, 4)) {
+            length = file.toFile().length();
+            for (int i = 0; i < 50; i++) {
+                cache.put(ContentHash.of("text " + i), new float[] {i, -i});
+                assertArrayEquals(new float[] {i, -i}, cache.get(ContentHash.of("text " + i)));
+            }
+            int found = 0;
+            for (int i = 0; i < 50; i++) {
+                float[] vector = cache.get(ContentHash.of("text " + i));
+                if (vector != null) {
+                    assertArrayEquals(new float[] {i, -i}, vector);
+                    found++;
+                }
+            }
+            assertEquals(4, found);
+        }
+        assertEquals(length, file.toFile().length());
+    }
+
+    @Test
+    void aTornSlotReadsAsAMiss() throws IOException {
+        Path file = directory.resolve("model.emb");
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 2, 1)) {
+            cache.put(ContentHash.of("alpha"), new float[] {1, 2});
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Header, then the only slot: key, CRC, padding, vector
+            raw.seek(32 + 24);
+            raw.writeInt(0x12345678);
+        }
+
+        try (EmbeddingDiskCache cache = EmbeddingDiskCache.open(file, 2, 1)) {
+            assertNull(cache.get(ContentHash.of("alpha")));
+            cache.put(ContentHash.of("alpha"), new float[] {3, 4});
+            assertArrayEquals(new float[] {3, 4}, cache.get(ContentHash.of("alpha")));
+            assertTrue(cache.toString().contains("1 slots"));
+        }
+    }
+}
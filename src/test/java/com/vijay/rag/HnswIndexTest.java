@@ -0,0 +1,117 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+import com.vijay.search.TopK;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recall of the graph search against an exhaustive scan, for sequential and
+ * concurrent inserts.
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int VECTORS = 3000;
+    private static final int QUERIES = 100;
+    private static final int K = 10;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void searchFindsTheExactNeighbours() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, VectorMetric.COSINE, 16, 100);
+        for (int i = 0; i < VECTORS; i++) {
+            assertEquals(i, index.add(randomVector()));
+        }
+        assertTrue(recall(index) >= 0.95, "recall " + recall(index));
+    }
+
+    @Test
+    void concurrentInsertsKeepTheGraphSearchable() throws Exception {
+        HnswIndex index = new HnswIndex(DIMENSIONS, VectorMetric.COSINE, 16, 100);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < VECTORS; i++) {
+            vectors.add(randomVector());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> ordinals = new ArrayList<>();
+            for (float[] vector : vectors) {
+                ordinals.add(executor.submit(() -> index.add(vector)));
+            }
+            Set<Integer> assigned = new HashSet<>();
+            for (Future<Integer> ordinal : ordinals) {
+                assigned.add(ordinal.get());
+            }
+            assertEquals(VECTORS, assigned.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(VECTORS, index.size());
+        assertTrue(recall(index) >= 0.9, "recall " + recall(index));
+    }
+
+    @Test
+    void filterOnlyReturnsAcceptedNodes() {
+        HnswIndex index = new HnswIndex(DIMENSIONS, VectorMetric.DOT_PRODUCT, 8, 50);
+        for (int i = 0; i < 500; i++) {
+            index.add(randomVector());
+        }
+        List<ScoredDoc> hits = index.search(randomVector(), K, 100, ordinal -> ordinal % 3 == 0);
+        assertEquals(K, hits.size());
+        for (ScoredDoc hit : hits) {
+            assertEquals(0, hit.doc() % 3);
+        }
+    }
+
+    private double recall(HnswIndex index) {
+        Random queries = new Random(7);
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            float[] query = randomVector(queries);
+            Set<Integer> expected = new HashSet<>();
+            for (ScoredDoc hit : exact(index, query)) {
+                expected.add(hit.doc());
+            }
+            for (ScoredDoc hit : index.search(query, K, 100, null)) {
+                if (expected.contains(hit.doc())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private static List<ScoredDoc> exact(HnswIndex index, float[] query) {
+        float[] prepared = index.metric().prepare(query);
+        TopK top = new TopK(K);
+        for (int ordinal = 0; ordinal < index.size(); ordinal++) {
+            top.offer(ordinal, index.metric().score(prepared, index.vector(ordinal)));
+        }
+        return top.toSortedList();
+    }
+
+    private float[] randomVector() {
+        return randomVector(random);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
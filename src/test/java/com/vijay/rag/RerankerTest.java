@@ -0,0 +1,97 @@
+package com.vijay.rag;
+
+import com.vijay.search.ScoredDoc;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Candidates are scored in parallel batches and the best kept; when scoring
+ * fails or runs past the budget the caller is told to keep the first-stage
+ * order and the scorers still running are interrupted.
+ */
+class RerankerTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void close() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void batchesAreScoredInParallelAndTheBestKept() {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Reranker reranker = new Reranker((query, passages) -> {
+            batches.add(passages);
+            allStarted.countDown();
+            // Only returns early if the three batches run at the same time
+            allStarted.await(5, TimeUnit.SECONDS);
+            float[] scores = new float[passages.size()];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Float.parseFloat(passages.get(i));
+            }
+            return scores;
+        }, 3, executor);
+
+        long start = System.nanoTime();
+        List<ScoredDoc> top = reranker.rerank("query", List.of("0.1", "0.7", "0.3", "0.9", "0.2", "0.5", "0.8"), 3, 2000);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "batches ran one after another");
+        assertEquals(List.of(new ScoredDoc(3, 0.9f), new ScoredDoc(6, 0.8f), new ScoredDoc(1, 0.7f)), top);
+        assertEquals(List.of(3, 3, 1), batches.stream().map(List::size).sorted((a, b) -> b - a).toList());
+    }
+
+    @Test
+    void slowScoringKeepsTheFirstStageOrderAndIsInterrupted() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Reranker reranker = new Reranker((query, passages) -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new float[passages.size()];
+        }, 2, executor);
+
+        long start = System.nanoTime();
+        assertNull(reranker.rerank("query", List.of("a", "b", "c"), 2, 100));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "waited past the budget");
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS), "scorer not interrupted");
+    }
+
+    @Test
+    void failedScoringKeepsTheFirstStageOrder() {
+        Reranker failing = new Reranker((query, passages) -> {
+            throw new Exception("judge unavailable");
+        }, 2, executor);
+        Reranker miscounting = new Reranker((query, passages) -> new float[] {1f}, 2, executor);
+
+        assertNull(failing.rerank("query", List.of("a", "b", "c"), 2, 2000));
+        assertNull(miscounting.rerank("query", List.of("a", "b", "c"), 2, 2000));
+    }
+
+    @Test
+    void nothingToRerank() {
+        Reranker reranker = new Reranker((query, passages) -> {
+            throw new AssertionError("scored nothing");
+        }, 2, executor);
+
+        assertEquals(List.of(), reranker.rerank("query", List.of(), 2, 100));
+        assertThrows(IllegalArgumentException.class, () -> new Reranker((query, passages) -> null, 0, executor));
+    }
+}
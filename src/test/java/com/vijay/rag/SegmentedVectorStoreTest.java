@@ -0,0 +1,214 @@
+package com.vijay.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Documents, versions and tombstones must read back the same after a flush,
+ * a merge or a compaction, and after the store is reopened from disk.
+ */
+class SegmentedVectorStoreTest {
+
+    private static final int DIMENSIONS = 16;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(42);
+    private final List<SegmentedVectorStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        for (SegmentedVectorStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void flushedSegmentsReopenWithTheSameDocumentsAndResults() throws IOException {
+        SegmentedVectorStore store = open(directory, VectorEncoding.FLOAT32);
+        List<float[]> vectors = add(store, chunks("plain", null, 0, 200));
+        float[] query = vectors.get(17);
+        List<String> before = texts(store.search(query, 10, 100));
+        store.flush();
+        assertEquals(before, texts(store.search(query, 10, 100)));
+        store.close();
+        opened.remove(store);
+
+        SegmentedVectorStore reopened = open(directory, VectorEncoding.FLOAT32);
+        assertEquals(200, reopened.size());
+        assertEquals(before, texts(reopened.search(query, 10, 100)));
+        assertEquals("plain 17", reopened.search(query, 1, 100).get(0).getText());
+        Document document = reopened.findByContent(ContentHash.of("plain 5"));
+        assertEquals("plain", document.getMetadata().get("source"));
+    }
+
+    @Test
+    void mergedSegmentsKeepEveryLiveDocument() throws IOException {
+        SegmentedVectorStore store = open(directory, VectorEncoding.INT8);
+        for (int batch = 0; batch < 5; batch++) {
+            add(store, chunks("batch" + batch, null, 0, 60));
+            store.flush();
+        }
+        assertTrue(store.segmentCount() <= 2, "segments " + store.segmentCount());
+        Set<String> texts = texts(store.documents().toList()).stream().collect(Collectors.toSet());
+        assertEquals(300, texts.size());
+        store.close();
+        opened.remove(store);
+
+        SegmentedVectorStore reopened = open(directory, VectorEncoding.INT8);
+        assertEquals(texts, texts(reopened.documents().toList()).stream().collect(Collectors.toSet()));
+        assertTrue(reopened.containsContent(ContentHash.of("batch3 59")));
+    }
+
+    @Test
+    void mergedSegmentsFindTheSameNeighboursAndFilterMatches() throws IOException {
+        SegmentedVectorStore store = open(directory, VectorEncoding.FLOAT32);
+        List<float[]> vectors = new ArrayList<>();
+        for (int batch = 0; batch < 5; batch++) {
+            vectors.addAll(add(store, chunks("batch" + batch, null, 0, 60)));
+            store.flush();
+        }
+        assertEquals(2, store.segmentCount());
+        store.close();
+        opened.remove(store);
+
+        SegmentedVectorStore reopened = open(directory, VectorEncoding.FLOAT32);
+        for (int i = 0; i < vectors.size(); i += 7) {
+            assertEquals("batch" + i / 60 + " " + i % 60, reopened.search(vectors.get(i), 1, 100).get(0).getText());
+        }
+        List<Document> filtered = reopened.search(vectors.get(0), 10, 100, MetadataFilter.where("source", "batch1"));
+        assertEquals(10, filtered.size());
+        assertTrue(filtered.stream().allMatch(document -> document.getText().startsWith("batch1 ")), texts(filtered).toString());
+    }
+
+    @Test
+    void replacedAndDeletedDocumentsStayHiddenAndAreCompacted() throws IOException {
+        SegmentedVectorStore store = open(directory, VectorEncoding.FLOAT32);
+        long first = store.nextVersion();
+        add(store, chunks("a", "a", first, 50));
+        assertTrue(store.commit("a", first));
+        long other = store.nextVersion();
+        add(store, chunks("b", "b", other, 50));
+        assertTrue(store.commit("b", other));
+        store.flush();
+
+        long second = store.nextVersion();
+        add(store, chunks("a2", "a", second, 10));
+        assertTrue(store.commit("a", second));
+        assertTrue(store.delete("b"));
+        store.flush();
+        assertEquals(0, store.getStats().get("deadChunks"));
+        assertEquals(10, store.size());
+        store.close();
+        opened.remove(store);
+
+        SegmentedVectorStore reopened = open(directory, VectorEncoding.FLOAT32);
+        Set<String> visible = texts(reopened.documents().toList()).stream().collect(Collectors.toSet());
+        assertEquals(10, visible.size());
+        assertTrue(visible.stream().allMatch(text -> text.startsWith("a2 ")), visible.toString());
+        assertEquals(1L, reopened.getStats().get("tombstones"));
+        assertFalse(reopened.commit("a", first), "an older version must not replace the current one");
+    }
+
+    @Test
+    void uncommittedVersionsAreDroppedAfterAbandonOrRestart() throws IOException {
+        SegmentedVectorStore store = open(directory, VectorEncoding.FLOAT32);
+        long kept = store.nextVersion();
+        add(store, chunks("kept", "kept", kept, 20));
+        store.commit("kept", kept);
+        long failed = store.nextVersion();
+        add(store, chunks("failed", "failed", failed, 20));
+        store.abandon("failed", failed);
+        long interrupted = store.nextVersion();
+        add(store, chunks("interrupted", "interrupted", interrupted, 20));
+        store.flush();
+        assertEquals(40, store.size());
+        store.close();
+        opened.remove(store);
+
+        SegmentedVectorStore reopened = open(directory, VectorEncoding.FLOAT32);
+        assertEquals(20, reopened.getStats().get("deadChunks"));
+        assertEquals(20L, reopened.documents().count());
+        long next = reopened.nextVersion();
+        add(reopened, chunks("kept2", "kept", next, 1));
+        reopened.commit("kept", next);
+        reopened.flush();
+        assertEquals(1, reopened.size());
+        assertEquals(List.of("kept2 0"), texts(reopened.documents().toList()));
+    }
+
+    @Test
+    void inMemoryStoreCompactsDeadChunks() throws IOException {
+        SegmentedVectorStore store = open(null, VectorEncoding.FLOAT32);
+        long first = store.nextVersion();
+        add(store, chunks("a", "a", first, 30));
+        store.commit("a", first);
+        long second = store.nextVersion();
+        add(store, chunks("a2", "a", second, 10));
+        store.commit("a", second);
+        assertEquals(30, store.getStats().get("deadChunks"));
+
+        store.flush();
+        assertEquals(10, store.size());
+        assertEquals(0, store.getStats().get("deadChunks"));
+        add(store, chunks("b", null, 0, 5));
+        assertEquals(15, store.documents().count());
+    }
+
+    private SegmentedVectorStore open(Path directory, VectorEncoding encoding) throws IOException {
+        SegmentedVectorStore store = new SegmentedVectorStore(directory, VectorMetric.COSINE, 8, 50,
+                1000, 2, encoding, 0, 4, Set.of("source"), new ObjectMapper());
+        store.open();
+        opened.add(store);
+        return store;
+    }
+
+    private List<float[]> add(SegmentedVectorStore store, List<Document> documents) {
+        List<float[]> vectors = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                vector[d] = (float) random.nextGaussian();
+            }
+            vectors.add(vector);
+        }
+        store.add(documents, vectors);
+        return vectors;
+    }
+
+    private static List<Document> chunks(String prefix, String documentId, long version, int count) {
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", prefix);
+            if (documentId != null) {
+                metadata.put(SegmentedVectorStore.DOCUMENT_ID, documentId);
+                metadata.put(SegmentedVectorStore.DOCUMENT_VERSION, version);
+            }
+            documents.add(new Document(prefix + " " + i, metadata));
+        }
+        return documents;
+    }
+
+    private static List<String> texts(List<Document> documents) {
+        return documents.stream().map(Document::getText).toList();
+    }
+}
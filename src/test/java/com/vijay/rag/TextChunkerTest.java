@@ -0,0 +1,118 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chunks stay within the token budget, prefer paragraph and sentence ends,
+ * overlap their neighbours and together cover the whole text, however the
+ * reader hands it over.
+ */
+class TextChunkerTest {
+
+    @Test
+    void shortTextIsOneChunk() throws IOException {
+        assertEquals(List.of("hello world"), chunk(new TextChunker(50, 10), "  hello \t world\n"));
+        assertEquals(List.of(), chunk(new TextChunker(50, 10), " \n\n "));
+    }
+
+    @Test
+    void chunksCoverTheTextWithinTheBudgetAndOverlap() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append("Sentence number ").append(i).append(" says little. ");
+        }
+        List<String> chunks = chunk(new TextChunker(50, 10), text.toString());
+
+        assertTrue(chunks.size() > 10, chunks.size() + " chunks");
+        for (String chunk : chunks) {
+            assertTrue(TextChunker.estimateTokens(chunk) <= 52, chunk);
+        }
+        for (int i = 0; i < chunks.size() - 1; i++) {
+            assertTrue(chunks.get(i).endsWith("."), chunks.get(i));
+            String next = chunks.get(i + 1);
+            String firstWords = next.substring(0, next.indexOf(' ', next.indexOf(' ') + 1));
+            assertTrue(chunks.get(i).contains(firstWords), chunks.get(i) + " | " + next);
+        }
+        for (int i = 0; i < 300; i++) {
+            String sentence = "Sentence number " + i + " says little.";
+            assertTrue(chunks.stream().anyMatch(chunk -> chunk.contains(sentence)), sentence);
+        }
+        assertTrue(chunks.get(chunks.size() - 1).endsWith("Sentence number 299 says little."));
+    }
+
+    @Test
+    void paragraphBreaksArePreferredAndKept() throws IOException {
+        String paragraph = "one two three four five six seven eight nine ten eleven twelve thirteen fourteen";
+        String text = String.join("\n\n", paragraph, paragraph, paragraph, paragraph);
+        List<String> chunks = chunk(new TextChunker(50, 0), text);
+
+        assertEquals(List.of(paragraph + "\n\n" + paragraph, paragraph + "\n\n" + paragraph), chunks);
+    }
+
+    @Test
+    void wordsLongerThanAChunkAreSplit() throws IOException {
+        String word = "x".repeat(1000);
+        List<String> chunks = chunk(new TextChunker(50, 0), word);
+
+        assertEquals(word, String.join("", chunks));
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 50 * 4 + 64, chunk.length() + " characters");
+        }
+    }
+
+    @Test
+    void theReaderMayReturnAnyAmountAtATime() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append(i % 17 == 0 ? "\n\n" : " ").append("word").append(i).append(i % 5 == 0 ? "." : "");
+        }
+        TextChunker chunker = new TextChunker(30, 8);
+        List<String> trickled = new ArrayList<>();
+        int count = chunker.chunk(new OneCharReader(text.toString()), trickled::add);
+
+        assertEquals(chunk(chunker, text.toString()), trickled);
+        assertEquals(trickled.size(), count);
+    }
+
+    @Test
+    void overlapMustBeSmallerThanTheChunk() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(10, -1));
+    }
+
+    private static List<String> chunk(TextChunker chunker, String text) throws IOException {
+        List<String> chunks = new ArrayList<>();
+        int count = chunker.chunk(new StringReader(text), chunks::add);
+        assertEquals(chunks.size(), count);
+        return chunks;
+    }
+
+    private static final class OneCharReader extends Reader {
+        private final StringReader delegate;
+
+        OneCharReader(String text) {
+            this.delegate = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return delegate.read(buffer, offset, Math.min(1, length));
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.vijay.rag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar against SIMD {@link VectorKernels} at common embedding dimensions.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.openjdk.jmh.Main -Dbenchmark.args=VectorKernelsBenchmark
+ * </pre>
+ * {@code dotMany} scores {@value #VECTORS} vectors per call, about what one
+ * HNSW search visits, so it measures the memory-bound case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorKernelsBenchmark {
+
+    private static final int VECTORS = 1000;
+
+    @Param({"384", "768", "1536"})
+    int dimensions;
+
+    private VectorKernels scalar;
+    private VectorKernels simd;
+    private float[] a;
+    private float[] b;
+    private byte[] bytesA;
+    private byte[] bytesB;
+    private float[][] vectors;
+    private float[] scores;
+
+    @Setup
+    public void setUp() {
+        scalar = VectorMath.select(VectorMath.Kernels.SCALAR);
+        simd = VectorMath.select(VectorMath.Kernels.SIMD);
+        if (simd.name().equals(scalar.name())) {
+            throw new IllegalStateException("SIMD kernels unavailable; run with --add-modules jdk.incubator.vector");
+        }
+        Random random = new Random(42);
+        a = randomVector(random, dimensions);
+        b = randomVector(random, dimensions);
+        bytesA = new byte[dimensions];
+        bytesB = new byte[dimensions];
+        random.nextBytes(bytesA);
+        random.nextBytes(bytesB);
+        vectors = new float[VECTORS][];
+        for (int i = 0; i < VECTORS; i++) {
+            vectors[i] = randomVector(random, dimensions);
+        }
+        scores = new float[VECTORS];
+    }
+
+    @Benchmark
+    public float dotScalar() {
+        return scalar.dot(a, b);
+    }
+
+    @Benchmark
+    public float dotSimd() {
+        return simd.dot(a, b);
+    }
+
+    @Benchmark
+    public float cosineScalar() {
+        return scalar.cosine(a, b);
+    }
+
+    @Benchmark
+    public float cosineSimd() {
+        return simd.cosine(a, b);
+    }
+
+    @Benchmark
+    public float squareDistanceScalar() {
+        return scalar.squareDistance(a, b);
+    }
+
+    @Benchmark
+    public float squareDistanceSimd() {
+        return simd.squareDistance(a, b);
+    }
+
+    @Benchmark
+    public int int8DotScalar() {
+        return scalar.dot(bytesA, bytesB);
+    }
+
+    @Benchmark
+    public int int8DotSimd() {
+        return simd.dot(bytesA, bytesB);
+    }
+
+    @Benchmark
+    public float uint8DotScalar() {
+        return scalar.dotUnsigned(a, bytesB);
+    }
+
+    @Benchmark
+    public float uint8DotSimd() {
+        return simd.dotUnsigned(a, bytesB);
+    }
+
+    @Benchmark
+    public float[] dotManyScalar() {
+        scalar.dotMany(a, vectors, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public float[] dotManySimd() {
+        simd.dotMany(a, vectors, scores);
+        return scores;
+    }
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,102 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SIMD kernels must agree with the scalar loops, including the tails of
+ * vectors whose length is not a multiple of the vector width.
+ */
+class VectorKernelsTest {
+
+    private static final int[] DIMENSIONS = {1, 3, 7, 16, 31, 64, 100, 384, 1537};
+
+    private final VectorKernels scalar = new ScalarVectorKernels();
+    private final Random random = new Random(42);
+
+    @Test
+    void surefireResolvesTheIncubatorModule() {
+        assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "tests must run with --add-modules jdk.incubator.vector");
+    }
+
+    @Test
+    void floatKernelsMatchScalar() {
+        VectorKernels simd = simd();
+        for (int dimensions : DIMENSIONS) {
+            float[] a = randomFloats(dimensions);
+            float[] b = randomFloats(dimensions);
+            float tolerance = 1e-4f * dimensions;
+            assertEquals(scalar.dot(a, b), simd.dot(a, b), tolerance, "dot at " + dimensions);
+            assertEquals(scalar.cosine(a, b), simd.cosine(a, b), 1e-4f, "cosine at " + dimensions);
+            assertEquals(scalar.squareDistance(a, b), simd.squareDistance(a, b), tolerance, "distance at " + dimensions);
+        }
+        assertEquals(0f, simd.cosine(new float[8], randomFloats(8)), 0f);
+    }
+
+    @Test
+    void byteKernelsMatchScalar() {
+        VectorKernels simd = simd();
+        for (int dimensions : DIMENSIONS) {
+            byte[] a = randomBytes(dimensions);
+            byte[] b = randomBytes(dimensions);
+            float[] weights = randomFloats(dimensions);
+            assertEquals(scalar.dot(a, b), simd.dot(a, b), "int8 dot at " + dimensions);
+            assertEquals(scalar.dotUnsigned(weights, a), simd.dotUnsigned(weights, a), 1e-2f * dimensions,
+                    "uint8 dot at " + dimensions);
+        }
+        // Extremes must not overflow or sign-extend the unsigned codes
+        byte[] max = new byte[100];
+        Arrays.fill(max, (byte) -1);
+        float[] ones = new float[100];
+        Arrays.fill(ones, 1f);
+        assertEquals(25500f, simd.dotUnsigned(ones, max), 0f);
+        assertEquals(scalar.dot(max, max), simd.dot(max, max));
+    }
+
+    @Test
+    void dotManyMatchesDot() {
+        VectorKernels simd = simd();
+        float[] query = randomFloats(385);
+        float[][] vectors = new float[50][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomFloats(385);
+        }
+        float[] scores = new float[vectors.length];
+        simd.dotMany(query, vectors, scores);
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(scalar.dot(query, vectors[i]), scores[i], 1e-2f, "vector " + i);
+        }
+    }
+
+    private static VectorKernels simd() {
+        VectorKernels kernels;
+        try {
+            kernels = new SimdVectorKernels();
+        } catch (LinkageError | RuntimeException e) {
+            kernels = null;
+        }
+        assumeTrue(kernels != null, "SIMD kernels unavailable on this CPU");
+        return kernels;
+    }
+
+    private float[] randomFloats(int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private byte[] randomBytes(int dimensions) {
+        byte[] vector = new byte[dimensions];
+        random.nextBytes(vector);
+        return vector;
+    }
+}
@@ -0,0 +1,146 @@
+package com.vijay.rag;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconstruction error bounds of the INT8 and PQ encodings, agreement of
+ * their scorers with the decoded vectors, and codebook round trips.
+ */
+class VectorQuantizerTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int VECTORS = 2000;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void scalarCodesAreWithinHalfAStepOfEachValue() {
+        OnHeapVectorValues vectors = randomVectors(VECTORS);
+        ScalarQuantizer quantizer = ScalarQuantizer.train(vectors);
+        float[] codebook = quantizer.codebook();
+        byte[] code = new byte[quantizer.codeBytes()];
+        for (int ordinal = 0; ordinal < vectors.size(); ordinal++) {
+            float[] vector = vectors.vector(ordinal);
+            quantizer.encode(vector, code);
+            float[] decoded = quantizer.decode(code);
+            for (int i = 0; i < DIMENSIONS; i++) {
+                float step = codebook[DIMENSIONS + i];
+                assertEquals(vector[i], decoded[i], step / 2 + 1e-5f, "dimension " + i + " of " + ordinal);
+            }
+        }
+    }
+
+    @Test
+    void scalarCodesClampValuesOutsideTheTrainedRange() {
+        OnHeapVectorValues vectors = randomVectors(100);
+        ScalarQuantizer quantizer = ScalarQuantizer.train(vectors);
+        float[] outside = new float[DIMENSIONS];
+        Arrays.fill(outside, 1000f);
+        byte[] code = new byte[quantizer.codeBytes()];
+        quantizer.encode(outside, code);
+        for (byte value : code) {
+            assertEquals(255, value & 0xFF);
+        }
+    }
+
+    @Test
+    void productCodesPickTheNearestCentroid() {
+        OnHeapVectorValues vectors = randomVectors(VECTORS);
+        ProductQuantizer quantizer = ProductQuantizer.train(vectors, 4);
+        int subvectors = quantizer.codeBytes();
+        int length = DIMENSIONS / subvectors;
+        int centroids = quantizer.parameters()[1];
+        byte[] code = new byte[subvectors];
+        double error = 0;
+        double variance = 0;
+        for (int ordinal = 0; ordinal < 200; ordinal++) {
+            float[] vector = vectors.vector(ordinal);
+            quantizer.encode(vector, code);
+            float[] decoded = quantizer.decode(code);
+            for (int j = 0; j < subvectors; j++) {
+                float chosen = distance(vector, decoded, j * length, length);
+                byte[] other = code.clone();
+                for (int c = 0; c < centroids; c++) {
+                    other[j] = (byte) c;
+                    assertTrue(chosen <= distance(vector, quantizer.decode(other), j * length, length) + 1e-5f,
+                            "subvector " + j + " of " + ordinal + " is closer to centroid " + c);
+                }
+            }
+            error += distance(vector, decoded, 0, DIMENSIONS);
+            variance += distance(vector, new float[DIMENSIONS], 0, DIMENSIONS);
+        }
+        assertTrue(error < 0.5 * variance, "reconstruction error " + error + " of " + variance);
+    }
+
+    @Test
+    void scorersMatchTheDecodedVectors() {
+        OnHeapVectorValues vectors = randomVectors(VECTORS);
+        for (VectorEncoding encoding : List.of(VectorEncoding.INT8, VectorEncoding.PQ)) {
+            VectorQuantizer quantizer = VectorQuantizer.train(encoding, vectors, 0);
+            List<byte[]> codes = new ArrayList<>();
+            for (int ordinal = 0; ordinal < 100; ordinal++) {
+                byte[] code = new byte[quantizer.codeBytes()];
+                quantizer.encode(vectors.vector(ordinal), code);
+                codes.add(code);
+            }
+            float[] query = randomVector();
+            VectorScorer scorer = quantizer.scorer(query, (ordinal, code) ->
+                    System.arraycopy(codes.get(ordinal), 0, code, 0, code.length));
+            for (int ordinal = 0; ordinal < codes.size(); ordinal++) {
+                float expected = VectorMath.dot(query, quantizer.decode(codes.get(ordinal)));
+                assertEquals(expected, scorer.score(ordinal), 1e-3f, encoding + " score of " + ordinal);
+            }
+        }
+    }
+
+    @Test
+    void codebooksReadBackToTheSameCodes() {
+        OnHeapVectorValues vectors = randomVectors(VECTORS);
+        for (VectorEncoding encoding : List.of(VectorEncoding.INT8, VectorEncoding.PQ)) {
+            VectorQuantizer trained = VectorQuantizer.train(encoding, vectors, 8);
+            VectorQuantizer read = VectorQuantizer.read(encoding, DIMENSIONS, trained.parameters(), trained.codebook());
+            byte[] expected = new byte[trained.codeBytes()];
+            byte[] actual = new byte[read.codeBytes()];
+            for (int ordinal = 0; ordinal < 100; ordinal++) {
+                trained.encode(vectors.vector(ordinal), expected);
+                read.encode(vectors.vector(ordinal), actual);
+                assertArrayEquals(expected, actual);
+                assertArrayEquals(trained.decode(expected), read.decode(actual), 0f);
+            }
+        }
+    }
+
+    private static float distance(float[] a, float[] b, int start, int length) {
+        float sum = 0f;
+        for (int i = start; i < start + length; i++) {
+            float diff = a[i] - b[i];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private OnHeapVectorValues randomVectors(int count) {
+        OnHeapVectorValues vectors = new OnHeapVectorValues(DIMENSIONS);
+        for (int i = 0; i < count; i++) {
+            vectors.append(randomVector());
+        }
+        return vectors;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
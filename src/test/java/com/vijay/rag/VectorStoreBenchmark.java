@@ -0,0 +1,156 @@
+package com.vijay.rag;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.search.ScoredDoc;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Recall, latency and memory of the segment vector encodings on synthetic embeddings.
+ * <p>
+ * Like text embeddings, the vectors are anisotropic: clustered points in a
+ * {@value #LATENT}-dimensional space projected to the full dimension, plus a
+ * little isotropic noise. Isotropic Gaussian data would understate PQ, whose
+ * codebooks rely on that structure.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.args="50000 1536 200"
+ * </pre>
+ * Arguments: documents, dimensions, queries. One graph is built and written
+ * once per encoding, so all rows search the same HNSW structure.
+ */
+public class VectorStoreBenchmark {
+
+    private static final int K = 10;
+    private static final int EF = 64;
+    private static final int LATENT = 64;
+    private static final int WARM_UP_PASSES = 5;
+
+    public static void main(String[] args) throws IOException {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int dimensions = args.length > 1 ? Integer.parseInt(args[1]) : 384;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        Random random = new Random(7);
+
+        float[][] projection = new float[dimensions][];
+        for (int i = 0; i < dimensions; i++) {
+            projection[i] = gaussian(random, LATENT, 1f);
+        }
+        float[][] centres = new float[Math.max(1, documents / 100)][];
+        for (int i = 0; i < centres.length; i++) {
+            centres[i] = gaussian(random, LATENT, 1f);
+        }
+        HnswIndex index = new HnswIndex(dimensions, VectorMetric.COSINE, 16, 200);
+        OnHeapSegment segment = new OnHeapSegment("bench", index);
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            segment.add(new Document("doc-" + i), embedding(projection, centres[random.nextInt(centres.length)], random));
+        }
+        System.out.printf("Built HNSW over %d x %d vectors in %d ms%n", documents, dimensions, (System.nanoTime() - start) / 1_000_000);
+
+        float[][] queryVectors = new float[queries][];
+        int[][] truth = new int[queries][];
+        for (int q = 0; q < queries; q++) {
+            queryVectors[q] = VectorMetric.COSINE.prepare(embedding(projection, centres[random.nextInt(centres.length)], random));
+            truth[q] = exactTopK(index.vectors(), queryVectors[q]);
+        }
+
+        Path directory = Files.createTempDirectory("rag-benchmark");
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            System.out.printf("%-8s %-7s %12s %12s %8s %10s %10s%n",
+                    "encoding", "rerank", "bytes/vector", "search MB", "recall", "p50 us", "p99 us");
+            for (VectorEncoding encoding : VectorEncoding.values()) {
+                String name = encoding.name().toLowerCase();
+                start = System.nanoTime();
+                SegmentWriter.write(directory, name, VectorMetric.COSINE, encoding, 0, segment, mapper);
+                System.out.printf("(wrote %s segment in %d ms)%n", encoding, (System.nanoTime() - start) / 1_000_000);
+                for (int rerank : encoding == VectorEncoding.FLOAT32 ? new int[]{0} : new int[]{0, 4, 10}) {
+                    MappedSegment mapped = MappedSegment.open(directory, name, rerank, mapper);
+                    report(encoding, rerank, mapped, queryVectors, truth);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void report(VectorEncoding encoding, int rerank, MappedSegment segment, float[][] queries, int[][] truth) {
+        // Warm up the mapping and the JIT before timing
+        for (int pass = 0; pass < WARM_UP_PASSES; pass++) {
+            for (float[] query : queries) {
+                segment.search(query, K, EF, null);
+            }
+        }
+        long[] latencies = new long[queries.length];
+        int found = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            List<ScoredDoc> hits = segment.search(queries[q], K, EF, null);
+            latencies[q] = System.nanoTime() - start;
+            Set<Integer> expected = new HashSet<>();
+            for (int doc : truth[q]) {
+                expected.add(doc);
+            }
+            for (ScoredDoc hit : hits) {
+                if (expected.contains(hit.doc())) {
+                    found++;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        int bytes = segment.searchBytesPerVector();
+        System.out.printf("%-8s %-7s %12d %12.1f %8.3f %10d %10d%n",
+                encoding, rerank == 0 ? "-" : "x" + rerank, bytes,
+                (double) bytes * segment.size() / (1 << 20),
+                (double) found / (queries.length * K),
+                latencies[latencies.length / 2] / 1_000, latencies[latencies.length * 99 / 100] / 1_000);
+    }
+
+    private static int[] exactTopK(VectorValues vectors, float[] query) {
+        NeighborQueue top = new NeighborQueue(K + 1, false);
+        for (int i = 0; i < vectors.size(); i++) {
+            top.push(i, vectors.dot(query, i));
+            if (top.size() > K) {
+                top.pop();
+            }
+        }
+        return top.drainDescending().stream().mapToInt(ScoredDoc::doc).toArray();
+    }
+
+    /**
+     * A point near the latent centre, projected to the full dimension, plus isotropic noise.
+     */
+    private static float[] embedding(float[][] projection, float[] centre, Random random) {
+        float[] latent = gaussian(random, LATENT, 0.5f);
+        for (int i = 0; i < LATENT; i++) {
+            latent[i] += centre[i];
+        }
+        float[] vector = gaussian(random, projection.length, 0.5f);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] += VectorMath.dot(projection[i], latent);
+        }
+        return vector;
+    }
+
+    private static float[] gaussian(Random random, int dimensions, float sigma) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian() * sigma;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,194 @@
+package com.vijay.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MaxScore pruning must return the same top-k as scoring every document, with
+ * and without a filter, on a vocabulary with a few very common terms, and
+ * must keep doing so as documents are removed.
+ */
+class Bm25IndexTest {
+
+    private static final Tokenizer WHITESPACE = text -> text.isBlank() ? List.of() : List.of(text.strip().split("\\s+"));
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void prunedSearchMatchesExhaustiveScoring() {
+        Bm25Index index = new Bm25Index(WHITESPACE);
+        List<String> documents = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String document = randomText(1 + random.nextInt(40));
+            documents.add(document);
+            assertEquals(i, index.add(document));
+        }
+        Corpus corpus = new Corpus(documents);
+        for (int q = 0; q < 200; q++) {
+            String query = randomText(1 + random.nextInt(5));
+            int k = 1 + random.nextInt(20);
+            assertTopK(corpus.search(query, k, null), index.search(query, k, null), query);
+            IntPredicate even = doc -> doc % 2 == 0;
+            assertTopK(corpus.search(query, k, even), index.search(query, k, even), query);
+        }
+    }
+
+    @Test
+    void removedDocumentsLeaveResultsAndStatisticsAsIfNeverAdded() {
+        Bm25Index index = new Bm25Index(WHITESPACE);
+        List<String> documents = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String document = randomText(1 + random.nextInt(40));
+            documents.add(document);
+            index.add(document);
+        }
+        // Sliding window from the front, as history eviction does, plus scattered removals
+        for (int round = 0; round < 6; round++) {
+            for (int i = 0; i < 300; i++) {
+                int oldest = round * 300 + i;
+                if (documents.get(oldest) != null) {
+                    assertTrue(index.remove(oldest, documents.get(oldest)));
+                    documents.set(oldest, null);
+                }
+                int any = random.nextInt(documents.size());
+                if (documents.get(any) != null) {
+                    assertTrue(index.remove(any, documents.get(any)));
+                    documents.set(any, null);
+                }
+                String document = randomText(1 + random.nextInt(40));
+                documents.add(document);
+                assertEquals(documents.size() - 1, index.add(document));
+            }
+            Corpus corpus = new Corpus(documents);
+            assertEquals(corpus.size(), index.size());
+            for (int q = 0; q < 50; q++) {
+                String query = randomText(1 + random.nextInt(5));
+                int k = 1 + random.nextInt(20);
+                List<ScoredDoc> hits = index.search(query, k, null);
+                assertTopK(corpus.search(query, k, null), hits, query);
+                hits.forEach(hit -> assertTrue(documents.get(hit.doc()) != null, "removed doc " + hit.doc()));
+            }
+        }
+        assertFalse(index.remove(0, "anything"));
+        assertFalse(index.remove(documents.size(), "anything"));
+    }
+
+    @Test
+    void removingEveryDocumentEmptiesTheIndex() {
+        Bm25Index index = new Bm25Index(WHITESPACE);
+        int first = index.add("alpha beta");
+        int second = index.add("beta gamma");
+        assertTrue(index.remove(first, "alpha beta"));
+        assertEquals(List.of(second), index.search("alpha beta", 5, null).stream().map(ScoredDoc::doc).toList());
+        assertTrue(index.remove(second, "beta gamma"));
+        assertEquals(0, index.size());
+        assertEquals(0, index.termCount());
+        assertTrue(index.search("beta", 5, null).isEmpty());
+        assertEquals(2, index.add("beta"));
+        assertEquals(1, index.search("beta", 5, null).size());
+    }
+
+    @Test
+    void unknownTermsAndEmptyQueriesFindNothing() {
+        Bm25Index index = new Bm25Index(WHITESPACE);
+        assertTrue(index.search("anything", 5, null).isEmpty());
+        index.add("alpha beta");
+        assertTrue(index.search("gamma", 5, null).isEmpty());
+        assertTrue(index.search(" ", 5, null).isEmpty());
+        assertTrue(index.search("alpha", 0, null).isEmpty());
+        assertEquals(0, index.search("alpha gamma", 5, null).get(0).doc());
+    }
+
+    private static void assertTopK(List<ScoredDoc> expected, List<ScoredDoc> actual, String query) {
+        assertEquals(expected.size(), actual.size(), "hits for '" + query + "'");
+        for (int i = 0; i < expected.size(); i++) {
+            // Ties may be broken differently, so compare scores rank by rank
+            assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-4f, "rank " + i + " for '" + query + "'");
+        }
+    }
+
+    /**
+     * Scores every document of a fixed collection; null documents have been removed.
+     */
+    private static final class Corpus {
+        private final Map<String, Integer> docFreqs = new HashMap<>();
+        private final List<Map<String, Integer>> termFreqs = new ArrayList<>();
+        private final int[] lengths;
+        private final int live;
+        private final float avgLength;
+
+        Corpus(List<String> documents) {
+            lengths = new int[documents.size()];
+            long totalLength = 0;
+            int live = 0;
+            for (int doc = 0; doc < documents.size(); doc++) {
+                if (documents.get(doc) == null) {
+                    termFreqs.add(null);
+                    continue;
+                }
+                live++;
+                List<String> terms = WHITESPACE.tokenize(documents.get(doc));
+                lengths[doc] = terms.size();
+                totalLength += terms.size();
+                Map<String, Integer> freqs = new HashMap<>();
+                terms.forEach(term -> freqs.merge(term, 1, Integer::sum));
+                freqs.keySet().forEach(term -> docFreqs.merge(term, 1, Integer::sum));
+                termFreqs.add(freqs);
+            }
+            this.live = live;
+            avgLength = (float) totalLength / live;
+        }
+
+        int size() {
+            return live;
+        }
+
+        List<ScoredDoc> search(String query, int k, IntPredicate filter) {
+            TopK top = new TopK(k);
+            for (int doc = 0; doc < lengths.length; doc++) {
+                if (termFreqs.get(doc) == null || (filter != null && !filter.test(doc))) {
+                    continue;
+                }
+                float score = 0f;
+                boolean matched = false;
+                for (String term : new LinkedHashSet<>(WHITESPACE.tokenize(query))) {
+                    Integer tf = termFreqs.get(doc).get(term);
+                    if (tf == null) {
+                        continue;
+                    }
+                    int df = docFreqs.get(term);
+                    float idf = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                    float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    score += idf * (tf * (K1 + 1)) / (tf + norm);
+                    matched = true;
+                }
+                if (matched) {
+                    top.offer(doc, score);
+                }
+            }
+            return top.toSortedList();
+        }
+    }
+
+    // Zipf-like: term i is drawn with probability proportional to 1 / (i + 1)
+    private String randomText(int words) {
+        String[] text = new String[words];
+        for (int i = 0; i < words; i++) {
+            text[i] = "t" + (int) Math.floor(Math.exp(random.nextDouble() * Math.log(2000)) - 1);
+        }
+        return String.join(" ", text);
+    }
+}
@@ -0,0 +1,40 @@
+package com.vijay.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Fused scores and order, with items missing from a ranking or repeated in one.
+ */
+class ReciprocalRankFusionTest {
+
+    @Test
+    void itemsRankedByBothListsComeFirst() {
+        List<ReciprocalRankFusion.Fused> fused = ReciprocalRankFusion.fuse(60, List.of(
+                List.of("a", "b", "c"),
+                List.of("c", "d", "b")));
+        assertEquals(List.of("c", "b", "a", "d"), fused.stream().map(ReciprocalRankFusion.Fused::key).toList());
+        assertEquals(1f / 63 + 1f / 61, fused.get(0).score(), 1e-7f);
+        assertEquals(1f / 61, fused.get(2).score(), 1e-7f);
+    }
+
+    @Test
+    void repeatedItemsCountOnceAtTheirBestRank() {
+        List<ReciprocalRankFusion.Fused> fused = ReciprocalRankFusion.fuse(60, List.of(
+                List.of("a", "a", "b"),
+                List.of("a")));
+        assertEquals(2, fused.size());
+        assertEquals(2f / 61, fused.get(0).score(), 1e-7f);
+        // The repeat does not push b down a rank
+        assertEquals("b", fused.get(1).key());
+        assertEquals(1f / 62, fused.get(1).score(), 1e-7f);
+    }
+
+    @Test
+    void emptyRankingsFuseToNothing() {
+        assertEquals(List.of(), ReciprocalRankFusion.fuse(60, List.of(List.of(), List.of())));
+    }
+}
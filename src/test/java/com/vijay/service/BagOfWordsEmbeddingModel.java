@@ -0,0 +1,48 @@
+package com.vijay.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Deterministic embedding model for tests: words are hashed into buckets, so
+ * texts sharing words have similar embeddings.
+ */
+class BagOfWordsEmbeddingModel implements EmbeddingModel {
+
+    private static final int DIMENSIONS = 64;
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (String text : request.getInstructions()) {
+            embeddings.add(new Embedding(vector(text), embeddings.size()));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return vector(document.getText());
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return texts.stream().map(BagOfWordsEmbeddingModel::vector).toList();
+    }
+
+    static float[] vector(String text) {
+        float[] vector = new float[DIMENSIONS];
+        vector[0] = 0.01f;
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+            vector[Math.floorMod(word.hashCode(), DIMENSIONS)] += 1f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,217 @@
+package com.vijay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.EmbeddingCacheProperties;
+import com.vijay.config.McpStdioPoolProperties;
+import com.vijay.config.PreflightProperties;
+import com.vijay.config.RagProperties;
+import com.vijay.config.ToolSelectionProperties;
+import com.vijay.dto.ChatRequest;
+import com.vijay.rag.MetadataFilter;
+import com.vijay.tool.ToolCallbackDecorator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Retrieval runs while the fast path, tool selection and system prompt are
+ * prepared; the request goes ahead without RAG context when retrieval fails
+ * or misses the deadline, and retrieval is cancelled when the fast path
+ * answers or the filter is invalid.
+ */
+class ChatPreflightTest {
+
+    private final CountDownLatch retrievalStarted = new CountDownLatch(1);
+    private final CountDownLatch retrievalInterrupted = new CountDownLatch(1);
+    private final AtomicInteger retrievals = new AtomicInteger();
+    private final AtomicReference<MetadataFilter> retrievalFilter = new AtomicReference<>();
+    private volatile Retrieval retrieval = () -> "retrieved context";
+    private volatile Optional<ToolRouter.RoutedResponse> routed = Optional.empty();
+    private volatile boolean routeWaitsForRetrieval;
+
+    private final PreflightProperties properties = new PreflightProperties();
+    private GenericApplicationContext context;
+    private RAGService ragService;
+    private McpToolCatalog catalog;
+    private ChatPreflight preflight;
+
+    @BeforeEach
+    void open() {
+        context = new GenericApplicationContext();
+        context.refresh();
+        RagProperties ragProperties = new RagProperties();
+        ragProperties.getStore().setDirectory("");
+        EmbeddingCacheProperties cache = new EmbeddingCacheProperties();
+        cache.setEnabled(false);
+        ragService = new RAGService(ragProperties, context, new ObjectMapper(), new EmbeddingCache(cache)) {
+            @Override
+            public String generateRAGContext(String query, String model, MetadataFilter filter) {
+                retrievals.incrementAndGet();
+                retrievalFilter.set(filter);
+                retrievalStarted.countDown();
+                try {
+                    return retrieval.get();
+                } catch (InterruptedException e) {
+                    retrievalInterrupted.countDown();
+                    Thread.currentThread().interrupt();
+                    return "interrupted";
+                }
+            }
+        };
+        ToolRouter router = new ToolRouter(null, null, null, null, null, true, "") {
+            @Override
+            public Optional<ToolRouter.RoutedResponse> route(String userMessage) {
+                if (routeWaitsForRetrieval) {
+                    await(retrievalStarted);
+                }
+                return routed;
+            }
+        };
+
+        List<ToolCallback> tools = List.of(
+                new FakeToolCallback("listFaqs", "List the sample FAQs"),
+                new FakeToolCallback("createNote", "Create a note"));
+        catalog = new McpToolCatalog(() -> tools.toArray(new ToolCallback[0]), null, null,
+                new McpStdioProcessPool(new McpStdioPoolProperties(), "test", event -> { }),
+                new StaticListableBeanFactory().getBeanProvider(ToolCallbackDecorator.class),
+                event -> { });
+        catalog.init();
+        PromptLibraryService library = new PromptLibraryService("", event -> { });
+        library.init();
+        PromptTemplateService prompts = new PromptTemplateService(catalog, library);
+        prompts.init();
+        preflight = new ChatPreflight(ragService, router, new ToolSelector(catalog, new ToolSelectionProperties()),
+                prompts, new SystemMessageService(library), properties);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        preflight.shutdown();
+        catalog.shutdown();
+        ragService.close();
+        context.close();
+    }
+
+    @Test
+    void retrievalRunsWhileTheRestIsPrepared() {
+        routeWaitsForRetrieval = true;
+        ChatRequest request = request("list the faqs");
+        request.setRagFilter(Map.of("source", List.of("guide.md")));
+
+        ChatPreflight.Prepared prepared = preflight.prepare(request, "openai", "gpt-4", ChatPreflight.Plan.FULL);
+
+        assertTrue(prepared.routed().isEmpty());
+        assertEquals("retrieved context", prepared.ragContext());
+        assertEquals(Map.of("source", Set.of("guide.md")), retrievalFilter.get().clauses());
+        assertEquals(prepared.tools().tools().size(), prepared.systemPrompt().toolCount());
+        assertTrue(prepared.systemPrompt().text().contains("listFaqs"), prepared.systemPrompt().text());
+    }
+
+    @Test
+    void slowRetrievalIsDroppedAtTheDeadline() throws InterruptedException {
+        properties.setTimeout(Duration.ofMillis(100));
+        retrieval = () -> {
+            Thread.sleep(10_000);
+            return "too late";
+        };
+
+        long start = System.nanoTime();
+        ChatPreflight.Prepared prepared = preflight.prepare(request("hello"), "openai", "gpt-4", ChatPreflight.Plan.FULL);
+
+        assertEquals("", prepared.ragContext());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "waited past the deadline");
+        assertTrue(retrievalInterrupted.await(2, TimeUnit.SECONDS), "retrieval not cancelled");
+    }
+
+    @Test
+    void failedRetrievalLeavesTheContextEmpty() {
+        retrieval = () -> {
+            throw new IllegalStateException("embedding model unavailable");
+        };
+
+        ChatPreflight.Prepared prepared = preflight.prepare(request("hello"), "openai", "gpt-4", ChatPreflight.Plan.FULL);
+
+        assertEquals("", prepared.ragContext());
+        assertTrue(prepared.systemPrompt().text().length() > 0);
+    }
+
+    @Test
+    void aFastPathAnswerCancelsRetrieval() throws InterruptedException {
+        routeWaitsForRetrieval = true;
+        retrieval = () -> {
+            Thread.sleep(10_000);
+            return "unused";
+        };
+        routed = Optional.of(new ToolRouter.RoutedResponse("listFaqs", "Here are the sample FAQs", 5));
+
+        ChatPreflight.Prepared prepared = preflight.prepare(request("list faqs"), "openai", "gpt-4", ChatPreflight.Plan.FULL);
+
+        assertEquals("Here are the sample FAQs", prepared.routed().orElseThrow().content());
+        assertTrue(retrievalInterrupted.await(2, TimeUnit.SECONDS), "retrieval not cancelled");
+    }
+
+    @Test
+    void anInvalidFilterFailsTheRequestBeforeRetrieval() {
+        ChatRequest request = request("hello");
+        request.setRagFilter(Map.of("source", Arrays.asList("guide.md", null)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> preflight.prepare(request, "openai", "gpt-4", ChatPreflight.Plan.FULL));
+        request.setRagFilter(Map.of("source", List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> preflight.prepare(request, "openai", "gpt-4", ChatPreflight.Plan.FULL));
+        assertEquals(0, retrievals.get());
+    }
+
+    @Test
+    void plansLeaveOutTheStepsAProviderDoesNotUse() {
+        routed = Optional.of(new ToolRouter.RoutedResponse("listFaqs", "never routed", 5));
+
+        ChatPreflight.Prepared prepared = preflight.prepare(request("list faqs"), "openai", "gpt-4",
+                new ChatPreflight.Plan(false, false, false));
+
+        assertTrue(prepared.routed().isEmpty());
+        assertEquals("", prepared.ragContext());
+        assertEquals(0, retrievals.get());
+        assertTrue(!prepared.systemPrompt().text().contains("Available MCP Tools"), prepared.systemPrompt().text());
+    }
+
+    private static ChatRequest request(String message) {
+        ChatRequest request = new ChatRequest();
+        request.setMessage(message);
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(2, TimeUnit.SECONDS), "retrieval did not start before routing finished");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Retrieval {
+
+        String get() throws InterruptedException;
+    }
+}
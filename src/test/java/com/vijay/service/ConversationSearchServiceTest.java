@@ -0,0 +1,87 @@
+package com.vijay.service;
+
+import com.vijay.config.ConversationHistoryProperties;
+import com.vijay.dto.ConversationMessage;
+import com.vijay.dto.ConversationSearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Evicting the oldest messages must leave search results, scores and filters
+ * exactly as if only the retained messages had ever been appended.
+ */
+class ConversationSearchServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Test
+    void evictedMessagesAreNoLongerFound() {
+        ConversationSearchService service = service(10);
+        for (int i = 0; i < 25; i++) {
+            service.append(message(i, i % 2 == 0 ? "openai" : "claude"));
+        }
+        assertEquals(10, service.getIndexedMessageCount());
+        assertTrue(service.search("topic3", null, null, null, null, 10).isEmpty());
+        assertTrue(service.search("topic14", null, null, null, null, 10).isEmpty());
+        assertEquals(List.of("m15"), ids(service.search("topic15", null, null, null, null, 10)));
+        assertEquals(10, service.search("shared", null, null, null, null, 50).size());
+    }
+
+    @Test
+    void filtersStillMatchTheRetainedMessages() {
+        ConversationSearchService service = service(8);
+        for (int i = 0; i < 30; i++) {
+            service.append(message(i, i % 3 == 0 ? "openai" : "claude"));
+        }
+        List<String> openai = ids(service.search("shared", "openai", null, null, null, 50));
+        assertEquals(List.of("m24", "m27"), openai.stream().sorted().toList());
+        List<String> recent = ids(service.search("shared", null, null, START.plusMinutes(27), null, 50));
+        assertEquals(List.of("m27", "m28", "m29"), recent.stream().sorted().toList());
+    }
+
+    @Test
+    void scoresMatchAnIndexHoldingOnlyTheRetainedMessages() {
+        ConversationSearchService evicting = service(20);
+        ConversationSearchService fresh = service(20);
+        for (int i = 0; i < 65; i++) {
+            evicting.append(message(i, "openai"));
+            if (i >= 45) {
+                fresh.append(message(i, "openai"));
+            }
+        }
+        for (String query : List.of("shared", "topic50 shared", "even shared", "topic64 odd")) {
+            List<ConversationSearchHit> expected = fresh.search(query, null, null, null, null, 20);
+            List<ConversationSearchHit> actual = evicting.search(query, null, null, null, null, 20);
+            assertEquals(expected.size(), actual.size(), query);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-5f, query + " rank " + i);
+            }
+        }
+    }
+
+    private static ConversationSearchService service(int maxMessages) {
+        ConversationHistoryProperties properties = new ConversationHistoryProperties();
+        properties.setMaxMessages(maxMessages);
+        return new ConversationSearchService(properties);
+    }
+
+    private static ConversationMessage message(int i, String provider) {
+        return ConversationMessage.builder()
+                .id("m" + i)
+                .conversationId("c" + i / 4)
+                .role(i % 2 == 0 ? "user" : "assistant")
+                .content("shared topic" + i + (i % 2 == 0 ? " even" : " odd words here"))
+                .provider(provider)
+                .timestamp(START.plusMinutes(i))
+                .build();
+    }
+
+    private static List<String> ids(List<ConversationSearchHit> hits) {
+        return hits.stream().map(ConversationSearchHit::getMessageId).toList();
+    }
+}
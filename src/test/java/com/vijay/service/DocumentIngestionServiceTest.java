@@ -0,0 +1,175 @@
+package com.vijay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.EmbeddingCacheProperties;
+import com.vijay.config.RagProperties;
+import com.vijay.rag.IngestionJob;
+import com.vijay.rag.SegmentedVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads are ingested as documents named after their collection and file
+ * name, so only a file uploaded again to the same collection replaces one,
+ * and leave neither staged files nor manifest entries behind. Directories are
+ * re-ingested from the manifest: unchanged files are skipped, changed ones
+ * replaced and vanished ones deleted.
+ */
+class DocumentIngestionServiceTest {
+
+    @TempDir
+    Path state;
+
+    private Path documents;
+    private GenericApplicationContext context;
+    private RAGService ragService;
+    private DocumentIngestionService ingestion;
+
+    @BeforeEach
+    void open() throws IOException {
+        documents = Files.createDirectories(state.resolve("documents"));
+        context = new GenericApplicationContext();
+        context.registerBean("test", EmbeddingModel.class, BagOfWordsEmbeddingModel::new);
+        context.refresh();
+        start();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        stop();
+        context.close();
+    }
+
+    private void start() throws IOException {
+        RagProperties properties = new RagProperties();
+        properties.getStore().setDirectory(state.resolve("segments").toString());
+        properties.getIngest().setStateDirectory(state.toString());
+        properties.getIngest().setAllowedRoots(List.of(documents.toString()));
+        properties.getIngest().setBatchSize(2);
+        EmbeddingCacheProperties cache = new EmbeddingCacheProperties();
+        cache.setEnabled(false);
+        ragService = new RAGService(properties, context, new ObjectMapper(), new EmbeddingCache(cache));
+        ragService.open();
+        ingestion = new DocumentIngestionService(ragService, properties);
+        ingestion.init();
+    }
+
+    private void stop() throws IOException {
+        ingestion.shutdown();
+        ragService.close();
+    }
+
+    @Test
+    void sameFileNameInDifferentCollectionsIsTwoDocuments() throws Exception {
+        await(ingestion.ingestUploads(List.of(file("notes.md", "alpha release notes")), "team-a", Map.of()));
+        await(ingestion.ingestUploads(List.of(file("notes.md", "beta release notes")), "team-b", Map.of()));
+
+        assertEquals(Set.of("upload:team-a/notes.md", "upload:team-b/notes.md"), documentIds("release notes"));
+    }
+
+    @Test
+    void uploadingToTheSameCollectionAgainReplacesTheFile() throws Exception {
+        await(ingestion.ingestUploads(List.of(file("notes.md", "alpha release notes")), "team-a", Map.of()));
+        await(ingestion.ingestUploads(List.of(file("notes.md", "gamma release notes")), "team-a", Map.of()));
+
+        List<String> texts = ragService.searchRelevantDocuments("release notes", 10).stream().map(Document::getText).toList();
+        assertEquals(List.of("gamma release notes"), texts);
+    }
+
+    @Test
+    void uploadsWithoutACollectionReplaceNothing() throws Exception {
+        IngestionJob first = await(ingestion.ingestUploads(List.of(file("notes.md", "alpha release notes")), null, Map.of()));
+        IngestionJob second = await(ingestion.ingestUploads(List.of(file("notes.md", "beta release notes")), " ", Map.of()));
+
+        assertEquals(Set.of("upload:" + first.getId() + "/notes.md", "upload:" + second.getId() + "/notes.md"),
+                documentIds("release notes"));
+    }
+
+    @Test
+    void ambiguousUploadsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ingestion.ingestUploads(
+                List.of(file("notes.md", "one"), file("dir/notes.md", "two")), "team-a", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> ingestion.ingestUploads(
+                List.of(file("notes.md", "one")), "../team-a", Map.of()));
+    }
+
+    @Test
+    void stagedUploadsAreDeletedAndNotRecorded() throws Exception {
+        IngestionJob job = await(ingestion.ingestUploads(List.of(file("notes.md", "alpha release notes")), "team-a", Map.of()));
+
+        assertEquals(1L, job.toMap().get("filesIndexed"));
+        assertFalse(Files.exists(state.resolve("uploads").resolve(job.getId())));
+        Path manifest = state.resolve("ingested-files.tsv");
+        assertTrue(!Files.exists(manifest) || Files.readString(manifest).isBlank(), "manifest records the staged upload");
+    }
+
+    @Test
+    void stagingLeftByAnEarlierRunIsDeletedOnStartup() throws Exception {
+        Path leftover = Files.createDirectories(state.resolve("uploads").resolve("interrupted-job"));
+        Files.writeString(leftover.resolve("notes.md"), "never ingested");
+        stop();
+        start();
+
+        assertFalse(Files.exists(leftover));
+    }
+
+    @Test
+    void directoriesResumeFromTheManifestAcrossRestarts() throws Exception {
+        Files.writeString(documents.resolve("kept.md"), "kept release notes");
+        Files.writeString(documents.resolve("changed.md"), "first release notes");
+        Files.writeString(documents.resolve("removed.md"), "removed release notes");
+        IngestionJob first = await(ingestion.ingestDirectory(documents, Map.of()));
+        assertEquals(3L, first.toMap().get("filesIndexed"));
+
+        stop();
+        start();
+        Files.writeString(documents.resolve("changed.md"), "second, longer release notes");
+        Files.delete(documents.resolve("removed.md"));
+        IngestionJob second = await(ingestion.ingestDirectory(documents, Map.of()));
+
+        assertEquals(1L, second.toMap().get("filesSkipped"));
+        assertEquals(1L, second.toMap().get("filesIndexed"));
+        assertEquals(1L, second.toMap().get("filesDeleted"));
+        List<String> texts = ragService.searchRelevantDocuments("release notes", 10).stream().map(Document::getText).sorted().toList();
+        assertEquals(List.of("kept release notes", "second, longer release notes"), texts);
+    }
+
+    private Set<String> documentIds(String query) {
+        return ragService.searchRelevantDocuments(query, 10).stream()
+                .map(document -> String.valueOf(document.getMetadata().get(SegmentedVectorStore.DOCUMENT_ID)))
+                .collect(Collectors.toSet());
+    }
+
+    private static MultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, "text/markdown", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static IngestionJob await(IngestionJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && job.getStatus() == IngestionJob.Status.RUNNING; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(IngestionJob.Status.COMPLETED, job.getStatus(), job.toMap().toString());
+        return job;
+    }
+}
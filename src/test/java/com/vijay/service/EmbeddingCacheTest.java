@@ -0,0 +1,120 @@
+package com.vijay.service;
+
+import com.vijay.config.EmbeddingCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Each distinct text is embedded once per model: repeats and duplicates in a
+ * batch come from the cache, the memory tier evicts the least recently used
+ * vectors and the disk tier keeps them across restarts.
+ */
+class EmbeddingCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<List<String>> calls = new ArrayList<>();
+    private final Function<List<String>, List<float[]>> embedder = texts -> {
+        calls.add(texts);
+        return texts.stream().map(EmbeddingCacheTest::vector).toList();
+    };
+    private EmbeddingCache cache;
+
+    @AfterEach
+    void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void onlyTextsNotSeenBeforeAreEmbeddedInOneCall() {
+        cache = new EmbeddingCache(properties(100, ""));
+
+        assertVectors(List.of("alpha", "beta", "alpha"), cache.embed("model", List.of("alpha", "beta", "alpha"), embedder));
+        assertVectors(List.of("beta", "gamma", "  beta "), cache.embed("model", List.of("beta", "gamma", "  beta "), embedder));
+        assertVectors(List.of("gamma"), List.of(cache.embed("model", "gamma", embedder)));
+
+        assertEquals(List.of(List.of("alpha", "beta"), List.of("gamma")), calls);
+        assertEquals(3L, cache.getStats().get("memoryHits"));
+    }
+
+    @Test
+    void modelsDoNotShareVectors() {
+        cache = new EmbeddingCache(properties(100, ""));
+
+        cache.embed("small", List.of("alpha"), embedder);
+        cache.embed("large", List.of("alpha"), embedder);
+
+        assertEquals(List.of(List.of("alpha"), List.of("alpha")), calls);
+    }
+
+    @Test
+    void memoryEvictsTheLeastRecentlyUsed() {
+        cache = new EmbeddingCache(properties(2, ""));
+
+        cache.embed("model", List.of("alpha", "beta"), embedder);
+        cache.embed("model", List.of("alpha"), embedder);
+        cache.embed("model", List.of("gamma"), embedder);
+        cache.embed("model", List.of("alpha", "beta"), embedder);
+
+        assertEquals(List.of(List.of("alpha", "beta"), List.of("gamma"), List.of("beta")), calls);
+        assertEquals(2L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void diskKeepsVectorsAcrossRestarts() {
+        cache = new EmbeddingCache(properties(100, directory.toString()));
+        cache.embed("org/model:1", List.of("alpha", "beta"), embedder);
+        cache.close();
+
+        cache = new EmbeddingCache(properties(100, directory.toString()));
+        assertVectors(List.of("beta", "alpha"), cache.embed("org/model:1", List.of("beta", "alpha"), embedder));
+        cache.embed("other", List.of("alpha"), embedder);
+
+        assertEquals(List.of(List.of("alpha", "beta"), List.of("alpha")), calls);
+        assertEquals(2L, cache.getStats().get("diskHits"));
+    }
+
+    @Test
+    void disabledCacheEmbedsEverything() {
+        EmbeddingCacheProperties properties = properties(100, "");
+        properties.setEnabled(false);
+        cache = new EmbeddingCache(properties);
+
+        cache.embed("model", List.of("alpha", "alpha"), embedder);
+        cache.embed("model", List.of("alpha"), embedder);
+
+        assertEquals(List.of(List.of("alpha", "alpha"), List.of("alpha")), calls);
+    }
+
+    private static EmbeddingCacheProperties properties(int maxEntries, String diskDirectory) {
+        EmbeddingCacheProperties properties = new EmbeddingCacheProperties();
+        properties.setMaxEntries(maxEntries);
+        properties.setDiskDirectory(diskDirectory);
+        properties.setDiskEntries(64);
+        return properties;
+    }
+
+    private static void assertVectors(List<String> texts, List<float[]> vectors) {
+        assertEquals(texts.size(), vectors.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertArrayEquals(vector(texts.get(i)), vectors.get(i));
+        }
+    }
+
+    private static float[] vector(String text) {
+        String word = text.strip();
+        return new float[] {word.length(), word.charAt(0), word.hashCode()};
+    }
+}
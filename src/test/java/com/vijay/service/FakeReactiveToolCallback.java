@@ -0,0 +1,23 @@
+package com.vijay.service;
+
+import com.vijay.tool.ReactiveToolCallback;
+import org.springframework.ai.chat.model.ToolContext;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tool for tests that answers without a thread, with the given result.
+ */
+class FakeReactiveToolCallback extends FakeToolCallback implements ReactiveToolCallback {
+
+    private final Mono<String> result;
+
+    FakeReactiveToolCallback(String name, Mono<String> result) {
+        super(name, "Answers without a thread");
+        this.result = result;
+    }
+
+    @Override
+    public Mono<String> callAsync(String toolInput, ToolContext toolContext) {
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.vijay.service;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tool for tests: answers with a function of its arguments and counts its calls.
+ */
+class FakeToolCallback implements ToolCallback {
+
+    private final ToolDefinition definition;
+    private final Function<String, String> body;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    FakeToolCallback(String name, String description, Function<String, String> body) {
+        this.definition = ToolDefinition.builder()
+                .name(name)
+                .description(description)
+                .inputSchema("{\"type\":\"object\",\"properties\":{}}")
+                .build();
+        this.body = body;
+    }
+
+    FakeToolCallback(String name, String description) {
+        this(name, description, arguments -> name + " " + arguments);
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return definition;
+    }
+
+    @Override
+    public String call(String toolInput) {
+        calls.incrementAndGet();
+        return body.apply(toolInput);
+    }
+
+    // Like the MCP callbacks, ignore the tool context
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return call(toolInput);
+    }
+
+    int calls() {
+        return calls.get();
+    }
+}
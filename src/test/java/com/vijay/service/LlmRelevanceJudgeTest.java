@@ -0,0 +1,89 @@
+package com.vijay.service;
+
+import com.vijay.dto.ChatRequest;
+import com.vijay.dto.ChatResponse;
+import com.vijay.dto.ProviderInfo;
+import com.vijay.provider.AIProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ratings are read from the model's answer however loosely it follows the
+ * requested format; passages it leaves out rank last and an answer without
+ * any rating fails the batch.
+ */
+class LlmRelevanceJudgeTest {
+
+    private final List<String> prompts = new ArrayList<>();
+
+    @Test
+    void ratingsAreScaledAndUnratedPassagesRankLast() {
+        LlmRelevanceJudge judge = judge("Sure!\n1: 8\n  Passage 3 - 2.5\n4: 15\n1: 0\n9: 10", "judge-model");
+
+        float[] scores = judge.score("why do retries fail?", List.of("a", "b", "c", "d"));
+
+        assertArrayEquals(new float[] {0.8f, -1f, 0.25f, 1f}, scores);
+        assertTrue(prompts.get(0).contains("Question: why do retries fail?"), prompts.get(0));
+        assertTrue(prompts.get(0).contains("Passage 4:\nd"), prompts.get(0));
+    }
+
+    @Test
+    void longPassagesAreCutInThePrompt() {
+        judge("1: 5", null).score("query", List.of("x".repeat(5000)));
+
+        assertTrue(prompts.get(0).contains("x".repeat(1500) + "..."));
+        assertFalse(prompts.get(0).contains("x".repeat(1501)));
+    }
+
+    @Test
+    void answersWithoutRatingsFail() {
+        assertThrows(IllegalStateException.class, () -> judge("I cannot rate these.", null).score("query", List.of("a", "b")));
+        assertThrows(IllegalStateException.class, () -> judge(null, null).score("query", List.of("a")));
+        assertThrows(IllegalStateException.class, () -> new LlmRelevanceJudge(() -> null, null).score("query", List.of("a")));
+    }
+
+    private LlmRelevanceJudge judge(String answer, String expectedModel) {
+        AIProvider provider = new AIProvider() {
+            @Override
+            public String getProviderName() {
+                return "fake";
+            }
+
+            @Override
+            public ProviderInfo getProviderInfo() {
+                return null;
+            }
+
+            @Override
+            public ChatResponse generateResponse(ChatRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<String> getAvailableModels() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public String complete(String prompt, String model) {
+                assertEquals(expectedModel, model);
+                prompts.add(prompt);
+                return answer;
+            }
+        };
+        return new LlmRelevanceJudge(() -> provider, expectedModel);
+    }
+}
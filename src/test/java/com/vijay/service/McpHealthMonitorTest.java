@@ -0,0 +1,135 @@
+package com.vijay.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Health is probed in the background and served from memory; probes that
+ * overlap share one request, and a server that does not answer in time is
+ * reported unhealthy.
+ */
+class McpHealthMonitorTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long delayMillis;
+    private HttpServer server;
+
+    @BeforeEach
+    void open() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            sleep(delayMillis);
+            byte[] body = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void close() {
+        server.stop(0);
+    }
+
+    @Test
+    void statusIsServedFromTheLastProbe() throws InterruptedException {
+        McpHealthMonitor monitor = monitor(url(), 2000);
+        awaitProbe(monitor);
+
+        assertTrue(monitor.isAvailable("my-mcp-server"));
+        Map<String, Object> status = monitor.getStatus("my-mcp-server");
+        assertEquals("healthy", status.get("status"));
+        assertEquals("{\"status\":\"UP\"}", status.get("healthResponse"));
+        assertEquals(1, ((Map<?, ?>) status.get("latency")).get("samples"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void overlappingProbesShareOneRequest() throws InterruptedException {
+        McpHealthMonitor monitor = monitor(url(), 2000);
+        awaitProbe(monitor);
+        requests.set(0);
+        delayMillis = 300;
+
+        List<Boolean> results = Flux.range(0, 5)
+                .flatMap(i -> monitor.probe("my-mcp-server"))
+                .collectList()
+                .block();
+
+        assertEquals(List.of(true, true, true, true, true), results);
+        assertEquals(1, requests.get());
+        assertTrue(monitor.probe("my-mcp-server").block());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void slowServersAreUnhealthyAfterTheTimeout() {
+        delayMillis = 2000;
+        long start = System.currentTimeMillis();
+        McpHealthMonitor monitor = monitor(url(), 200);
+
+        // The first joins the probe init() started, the second sends its own request
+        assertFalse(monitor.probe("my-mcp-server").block());
+        assertFalse(monitor.probe("my-mcp-server").block());
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        Map<String, Object> status = monitor.getStatus("my-mcp-server");
+        assertEquals("unhealthy", status.get("status"));
+        assertEquals(2, status.get("consecutiveFailures"));
+        assertTrue(status.containsKey("error"));
+    }
+
+    @Test
+    void unknownServersAreNotConfigured() {
+        McpHealthMonitor monitor = monitor(url(), 2000);
+
+        assertFalse(monitor.probe("other").block());
+        assertFalse(monitor.isAvailable("other"));
+        assertEquals("not_configured", monitor.getStatus("other").get("status"));
+    }
+
+    private McpHealthMonitor monitor(String url, long timeoutMillis) {
+        McpHealthMonitor monitor = new McpHealthMonitor(WebClient.builder(), url, timeoutMillis);
+        monitor.init();
+        return monitor;
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void awaitProbe(McpHealthMonitor monitor) throws InterruptedException {
+        for (int i = 0; i < 200 && "unknown".equals(monitor.getStatus("my-mcp-server").get("status")); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
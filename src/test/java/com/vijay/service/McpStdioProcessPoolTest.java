@@ -0,0 +1,148 @@
+package com.vijay.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vijay.config.McpStdioPoolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.tool.ToolCallback;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A process that dies during a call is restarted in the background while the
+ * calls after it go to the other processes of the pool. The servers are
+ * {@link Server} processes started with the test class path.
+ */
+class McpStdioProcessPoolTest {
+
+    @TempDir
+    Path directory;
+
+    private McpStdioProcessPool pool;
+
+    @AfterEach
+    void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void callsMoveToTheOtherProcessWhileADeadOneIsRestarted() throws Exception {
+        Path crash = Files.createFile(directory.resolve("crash"));
+        pool = pool(2, crash);
+        ToolCallback tool = onlyTool();
+
+        // The process that takes the crash marker exits without answering
+        assertThrows(RuntimeException.class, () -> tool.call("{}"));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(tool.call("{}").contains("\"text\""));
+        }
+
+        for (int i = 0; i < 500 && restarts() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, restarts());
+        assertTrue(processes().stream().allMatch(process -> Boolean.TRUE.equals(process.get("healthy"))), processes().toString());
+    }
+
+    private McpStdioProcessPool pool(int size, Path crashMarker) {
+        McpStdioPoolProperties.Connection connection = new McpStdioPoolProperties.Connection();
+        connection.setCommand(ProcessHandle.current().info().command().orElse("java"));
+        connection.setArgs(List.of("-cp", System.getProperty("java.class.path"), Server.class.getName(), crashMarker.toString()));
+        connection.setSize(size);
+        McpStdioPoolProperties properties = new McpStdioPoolProperties();
+        properties.setRequestTimeout(Duration.ofSeconds(2));
+        properties.getConnections().put("fake", connection);
+        McpStdioProcessPool pool = new McpStdioProcessPool(properties, "spring-ai-mcp-client", event -> { });
+        pool.init();
+        return pool;
+    }
+
+    private ToolCallback onlyTool() {
+        List<ToolCallback> tools = pool.getToolCallbacks();
+        assertEquals(1, tools.size());
+        return tools.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> processes() {
+        return (List<Map<String, Object>>) pool.getStats().get("fake");
+    }
+
+    private int restarts() {
+        return processes().stream().mapToInt(process -> (Integer) process.get("restarts")).sum();
+    }
+
+    /**
+     * Minimal STDIO MCP server with one tool, {@code pid}, that answers with the process id. The first
+     * process to delete the crash marker file given as argument exits instead of answering.
+     */
+    public static final class Server {
+
+        public static void main(String[] args) throws IOException {
+            Path crashMarker = Path.of(args[0]);
+            ObjectMapper mapper = new ObjectMapper();
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode request = mapper.readTree(line);
+                if (!request.hasNonNull("id")) {
+                    continue; // notification
+                }
+                ObjectNode response = mapper.createObjectNode().put("jsonrpc", "2.0");
+                response.set("id", request.get("id"));
+                ObjectNode result = mapper.createObjectNode();
+                switch (request.path("method").asText()) {
+                    case "initialize" -> {
+                        result.put("protocolVersion", request.path("params").path("protocolVersion").asText());
+                        result.putObject("capabilities").putObject("tools");
+                        result.putObject("serverInfo").put("name", "fake").put("version", "1.0.0");
+                    }
+                    case "ping" -> { }
+                    case "tools/list" -> {
+                        ObjectNode tool = result.putArray("tools").addObject()
+                                .put("name", "pid")
+                                .put("description", "Process id of the server");
+                        tool.putObject("inputSchema").put("type", "object").putObject("properties");
+                    }
+                    case "tools/call" -> {
+                        if (Files.deleteIfExists(crashMarker)) {
+                            Runtime.getRuntime().halt(1);
+                        }
+                        result.putArray("content").addObject()
+                                .put("type", "text")
+                                .put("text", String.valueOf(ProcessHandle.current().pid()));
+                        result.put("isError", false);
+                    }
+                    default -> {
+                        response.putObject("error").put("code", -32601).put("message", "Method not found");
+                        result = null;
+                    }
+                }
+                if (result != null) {
+                    response.set("result", result);
+                }
+                System.out.println(mapper.writeValueAsString(response));
+                System.out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.vijay.service;
+
+import com.vijay.config.McpStdioPoolProperties;
+import com.vijay.event.McpToolsChangedEvent;
+import com.vijay.event.ToolCatalogChangedEvent;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolCatalogSnapshot;
+import com.vijay.tool.ToolDescriptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The catalog serves snapshots without calling the servers, publishes a change
+ * only when the tools differ, and keeps its last snapshot when listing fails.
+ */
+class McpToolCatalogTest {
+
+    private final List<ToolCallback> tools = new ArrayList<>(List.of(
+            new FakeToolCallback("spring_ai_mcp_client_coding_assistant_listFaqs", "List the sample FAQs"),
+            new FakeToolCallback("createNote", "Create a note")));
+    private final List<ToolCatalogChangedEvent> changes = new CopyOnWriteArrayList<>();
+    private final StaticListableBeanFactory decorators = new StaticListableBeanFactory();
+    private boolean failListing;
+    private McpToolCatalog catalog;
+
+    @AfterEach
+    void close() {
+        if (catalog != null) {
+            catalog.shutdown();
+        }
+    }
+
+    @Test
+    void snapshotsFindToolsByTheirUnprefixedName() {
+        open();
+        ToolCatalogSnapshot snapshot = catalog.snapshot();
+
+        assertEquals(2, snapshot.size());
+        assertEquals(List.of("spring_ai_mcp_client_coding_assistant_listFaqs", "createNote"),
+                snapshot.getTools().stream().map(ToolDescriptor::name).toList());
+        assertSame(tools.get(0), snapshot.findTool("listFaqs").orElseThrow());
+        assertSame(tools.get(1), snapshot.findTool("createNote").orElseThrow());
+        assertTrue(snapshot.findTool("Faqs").isEmpty());
+        assertEquals(2, snapshot.getCallbackArray().length);
+    }
+
+    @Test
+    void changesArePublishedOnlyWhenTheToolsDiffer() {
+        open();
+        assertEquals(1, changes.size());
+
+        catalog.refresh();
+        assertEquals(1, changes.size());
+        assertEquals(2, catalog.snapshot().getVersion());
+
+        tools.add(new FakeToolCallback("searchDocs", "Search the documentation"));
+        catalog.refresh();
+        assertEquals(2, changes.size());
+        assertSame(catalog.snapshot(), changes.get(1).getSnapshot());
+        assertEquals(3, catalog.snapshot().size());
+    }
+
+    @Test
+    void failedListingsKeepTheLastSnapshot() {
+        open();
+        ToolCatalogSnapshot snapshot = catalog.snapshot();
+
+        failListing = true;
+        catalog.refresh();
+
+        assertSame(snapshot, catalog.snapshot());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void toolChangeNotificationsRefreshInTheBackground() throws InterruptedException {
+        open();
+        tools.remove(1);
+
+        catalog.onToolsChanged(new McpToolsChangedEvent(this, "coding-assistant"));
+        for (int i = 0; i < 500 && catalog.snapshot().size() != 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, catalog.snapshot().size());
+    }
+
+    @Test
+    void callbacksAreWrappedByTheDecorators() {
+        decorators.addBean("upper", (ToolCallbackDecorator) (callback, descriptor) -> new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return callback.getToolDefinition();
+            }
+
+            @Override
+            public String call(String toolInput) {
+                return callback.call(toolInput).toUpperCase();
+            }
+        });
+        open();
+
+        assertEquals("CREATENOTE {}", catalog.snapshot().findTool("createNote").orElseThrow().call("{}"));
+    }
+
+    private void open() {
+        catalog = new McpToolCatalog(() -> {
+            if (failListing) {
+                throw new IllegalStateException("server unavailable");
+            }
+            return tools.toArray(new ToolCallback[0]);
+        }, null, null,
+                new McpStdioProcessPool(new McpStdioPoolProperties(), "test", event -> { }),
+                decorators.getBeanProvider(ToolCallbackDecorator.class),
+                event -> {
+                    if (event instanceof ToolCatalogChangedEvent change) {
+                        changes.add(change);
+                    }
+                });
+        catalog.init();
+    }
+}
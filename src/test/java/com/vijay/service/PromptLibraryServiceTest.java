@@ -0,0 +1,117 @@
+package com.vijay.service;
+
+import com.vijay.event.PromptLibraryChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prompts resolve from the most specific file, and edits to the directory are
+ * picked up without a restart; a file that no longer compiles keeps serving
+ * its previous version.
+ */
+class PromptLibraryServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger reloads = new AtomicInteger();
+    private PromptLibraryService library;
+
+    @AfterEach
+    void close() {
+        if (library != null) {
+            library.shutdown();
+        }
+    }
+
+    @Test
+    void resolvesModelThenProviderThenDefault() throws IOException {
+        write("default.st", "default prompt");
+        write("openai.st", "openai prompt");
+        write("openai/gpt-4.st", "gpt-4 prompt");
+        write("openrouter/openai/gpt-4.st", "routed gpt-4 prompt");
+        open();
+
+        assertEquals("gpt-4 prompt", resolve("OpenAI", "gpt-4"));
+        assertEquals("openai prompt", resolve("openai", "gpt-4o"));
+        assertEquals("routed gpt-4 prompt", resolve("openrouter", "openai/gpt-4"));
+        assertEquals("default prompt", resolve("groq", null));
+        assertEquals("default prompt", resolve(null, null));
+        assertEquals(List.of("default", "openai", "openai/gpt-4", "openrouter/openai/gpt-4"), library.getPromptNames());
+    }
+
+    @Test
+    void withoutADirectoryNothingResolves() {
+        library = new PromptLibraryService("", event -> { });
+        library.init();
+
+        assertTrue(library.resolve("openai", "gpt-4").isEmpty());
+        assertTrue(library.get("mcp-tools").isEmpty());
+    }
+
+    @Test
+    void editsAreReloaded() throws Exception {
+        write("openai.st", "first prompt for {provider}");
+        open();
+        assertEquals("first prompt for openai", resolve("openai", null));
+
+        write("openai.st", "second prompt for {provider}");
+        write("groq.st", "groq prompt");
+        await(() -> "groq prompt".equals(resolve("groq", null)));
+
+        assertEquals("second prompt for openai", resolve("openai", null));
+        assertEquals("groq prompt", resolve("groq", null));
+    }
+
+    @Test
+    void invalidEditsKeepThePreviousVersion() throws Exception {
+        write("openai.st", "valid prompt");
+        open();
+
+        write("openai.st", "broken {prompt");
+        write("groq.st", "broken {prompt");
+        await(() -> reloads.get() > 1);
+
+        assertEquals("valid prompt", resolve("openai", null));
+        assertTrue(library.get("groq").isEmpty());
+    }
+
+    private void open() {
+        library = new PromptLibraryService(directory.toString(), event -> {
+            if (event instanceof PromptLibraryChangedEvent) {
+                reloads.incrementAndGet();
+            }
+        });
+        library.init();
+        assertEquals(1, reloads.get());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean(), "library was not reloaded");
+    }
+
+    private String resolve(String provider, String model) {
+        return library.resolve(provider, model).map(template -> template.render(Map.of("provider", String.valueOf(provider)))).orElse(null);
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,91 @@
+package com.vijay.service;
+
+import com.vijay.config.McpStdioPoolProperties;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * System prompts are rendered once per provider, model and tool selection,
+ * and rendered again only after the tools or prompts change.
+ */
+class PromptTemplateServiceTest {
+
+    private final List<ToolCallback> tools = new ArrayList<>(List.of(
+            new FakeToolCallback("listFaqs", "List the sample FAQs"),
+            new FakeToolCallback("createNote", "Create a note")));
+    private McpToolCatalog catalog;
+    private PromptTemplateService service;
+
+    @BeforeEach
+    void open() {
+        catalog = new McpToolCatalog(() -> tools.toArray(new ToolCallback[0]), null, null,
+                new McpStdioProcessPool(new McpStdioPoolProperties(), "test", event -> { }),
+                new StaticListableBeanFactory().getBeanProvider(ToolCallbackDecorator.class),
+                event -> { });
+        catalog.init();
+        PromptLibraryService library = new PromptLibraryService("", event -> { });
+        library.init();
+        service = new PromptTemplateService(catalog, library);
+        service.init();
+    }
+
+    @AfterEach
+    void close() {
+        catalog.shutdown();
+    }
+
+    @Test
+    void promptsAreRenderedOncePerProviderAndModel() {
+        PromptTemplateService.SystemPrompt prompt = service.getSystemPrompt("openai", "gpt-4");
+
+        assertSame(prompt, service.getSystemPrompt("openai", "gpt-4"));
+        assertNotSame(prompt, service.getSystemPrompt("openai", "gpt-4o"));
+        assertNotSame(prompt, service.getSystemPrompt("groq", "gpt-4"));
+        assertEquals(2, prompt.toolCount());
+        assertTrue(prompt.text().contains("Available MCP Tools (2):"), prompt.text());
+        assertTrue(prompt.text().contains("- listFaqs: List the sample FAQs"), prompt.text());
+        assertTrue(prompt.text().contains("- createNote: Create a note"), prompt.text());
+    }
+
+    @Test
+    void changedToolsAreListedAfterInvalidation() {
+        PromptTemplateService.SystemPrompt before = service.getSystemPrompt("openai", "gpt-4");
+        tools.add(new FakeToolCallback("searchDocs", "Search the documentation"));
+        catalog.refresh();
+
+        assertSame(before, service.getSystemPrompt("openai", "gpt-4"));
+        service.invalidate();
+        PromptTemplateService.SystemPrompt after = service.getSystemPrompt("openai", "gpt-4");
+        assertEquals(3, after.toolCount());
+        assertTrue(after.text().contains("- searchDocs: Search the documentation"), after.text());
+    }
+
+    @Test
+    void selectionsListOnlyTheSelectedTools() {
+        var snapshot = catalog.snapshot();
+        ToolSelection selection = new ToolSelection(snapshot.getTools().subList(1, 2), snapshot.getCallbacks().subList(1, 2), snapshot.size());
+
+        PromptTemplateService.SystemPrompt prompt = service.getSystemPrompt("openai", "gpt-4", selection);
+        assertSame(prompt, service.getSystemPrompt("openai", "gpt-4", selection));
+        assertEquals(1, prompt.toolCount());
+        assertTrue(prompt.text().contains("- createNote: Create a note"), prompt.text());
+        assertFalse(prompt.text().contains("listFaqs"), prompt.text());
+
+        ToolSelection everything = new ToolSelection(snapshot.getTools(), snapshot.getCallbacks(), snapshot.size());
+        assertSame(service.getSystemPrompt("openai", "gpt-4"), service.getSystemPrompt("openai", "gpt-4", everything));
+    }
+}
@@ -0,0 +1,132 @@
+package com.vijay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.EmbeddingCacheProperties;
+import com.vijay.config.RagProperties;
+import com.vijay.rag.SegmentedVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The lexical index must follow the store as documents are re-ingested and
+ * deleted, so hybrid search neither ranks hidden chunks nor counts shared
+ * content twice. Contexts are packed within the budget of the model asking.
+ */
+class RAGServiceTest {
+
+    private GenericApplicationContext context;
+    private RAGService service;
+
+    @BeforeEach
+    void open() throws IOException {
+        context = new GenericApplicationContext();
+        context.registerBean("test", EmbeddingModel.class, BagOfWordsEmbeddingModel::new);
+        context.refresh();
+        RagProperties properties = new RagProperties();
+        properties.getStore().setDirectory("");
+        properties.getContext().getModelMaxTokens().put("small-model", 12);
+        EmbeddingCacheProperties cache = new EmbeddingCacheProperties();
+        cache.setEnabled(false);
+        service = new RAGService(properties, context, new ObjectMapper(), new EmbeddingCache(cache));
+        service.open();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        service.close();
+        context.close();
+    }
+
+    @Test
+    void reingestedDocumentsKeepOnlyTheirCurrentChunksSearchable() {
+        ingest("guide", List.of("configure the KafkaListener retries", "shared license notice"));
+        ingest("guide", List.of("configure the RabbitListener retries", "shared license notice"));
+
+        assertEquals(2, service.getStoreStats().get("lexicalChunks"));
+        List<String> texts = texts(service.searchRelevantDocuments("KafkaListener retries", 5));
+        assertTrue(texts.contains("configure the RabbitListener retries"), texts.toString());
+        assertFalse(texts.contains("configure the KafkaListener retries"), texts.toString());
+    }
+
+    @Test
+    void uncommittedVersionsStayOutOfTheLexicalIndex() {
+        ingest("guide", List.of("configure the KafkaListener retries"));
+        long version = service.nextDocumentVersion();
+        List<Document> chunks = chunks("guide", version, List.of("draft ERR_4711 notes"));
+        service.add(chunks, service.embed(texts(chunks)));
+
+        assertEquals(1, service.getStoreStats().get("lexicalChunks"));
+        service.abandonDocument("guide", version);
+        assertEquals(1, service.getStoreStats().get("lexicalChunks"));
+    }
+
+    @Test
+    void deletedDocumentsLeaveTheLexicalIndexUnlessAnotherHoldsTheContent() {
+        ingest("a", List.of("only in a ERR_4711", "shared license notice"));
+        ingest("b", List.of("only in b ERR_4712", "shared license notice"));
+        assertEquals(3, service.getStoreStats().get("lexicalChunks"));
+
+        assertTrue(service.deleteDocument("a"));
+        assertEquals(2, service.getStoreStats().get("lexicalChunks"));
+        assertTrue(texts(service.searchRelevantDocuments("ERR_4711", 5)).stream().noneMatch(text -> text.contains("only in a")));
+        assertTrue(service.deleteDocument("b"));
+        assertEquals(0, service.getStoreStats().get("lexicalChunks"));
+    }
+
+    @Test
+    void contentSharedByDocumentsIsFusedOnce() {
+        ingest("a", List.of("shared license notice", "alpha text"));
+        ingest("b", List.of("shared license notice", "beta text"));
+
+        List<Document> results = service.searchRelevantDocuments("shared license notice", 5);
+        List<String> texts = texts(results);
+        assertEquals(1, texts.stream().filter("shared license notice"::equals).count(), texts.toString());
+        // First in both rankings, counted once in each
+        assertEquals(2.0 / 61, results.get(0).getScore(), 1e-6);
+    }
+
+    @Test
+    void contextIsPackedWithinTheModelsTokenBudget() {
+        ingest("a", List.of("retries for the kafka listener", "retries for the rabbit listener", "unrelated text"));
+
+        String context = service.generateRAGContext("listener retries", null);
+        assertTrue(context.contains("kafka") && context.contains("rabbit"), context);
+        String small = service.generateRAGContext("listener retries", "small-model");
+        assertTrue(small.startsWith("[1]") && !small.contains("[2]"), small);
+        assertTrue(small.length() <= 12 * 4, small);
+    }
+
+    private void ingest(String documentId, List<String> texts) {
+        long version = service.nextDocumentVersion();
+        List<Document> chunks = chunks(documentId, version, texts);
+        service.add(chunks, service.embed(texts));
+        assertTrue(service.commitDocument(documentId, version));
+    }
+
+    private static List<Document> chunks(String documentId, long version, List<String> texts) {
+        List<Document> chunks = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            chunks.add(new Document(text, Map.of(
+                    SegmentedVectorStore.DOCUMENT_ID, documentId,
+                    SegmentedVectorStore.DOCUMENT_VERSION, version)));
+        }
+        return chunks;
+    }
+
+    private static List<String> texts(List<Document> documents) {
+        return documents.stream().map(Document::getText).toList();
+    }
+}
@@ -0,0 +1,152 @@
+package com.vijay.service;
+
+import com.vijay.config.ToolExecutionProperties;
+import com.vijay.tool.ToolExecution;
+import com.vijay.tool.ToolInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A turn's tool calls run side by side, and each one ends by its deadline,
+ * whether it is slow, fails, or never gets a thread.
+ */
+class ToolExecutionEngineTest {
+
+    private ToolExecutionEngine engine;
+
+    @AfterEach
+    void close() {
+        engine.shutdown();
+    }
+
+    @Test
+    void callsRunConcurrentlyAndReturnInOrder() {
+        engine = engine(4, 4);
+        List<ToolInvocation> invocations = List.of(
+                invocation(sleeping("a", 300)), invocation(sleeping("b", 300)),
+                invocation(sleeping("c", 300)), invocation(sleeping("d", 300)));
+
+        long start = System.nanoTime();
+        List<ToolExecution> executions = engine.executeAll(invocations, null);
+
+        assertTrue(elapsedMillis(start) < 1000, elapsedMillis(start) + "ms");
+        assertEquals(List.of("a", "b", "c", "d"), executions.stream().map(ToolExecution::result).toList());
+        assertTrue(executions.stream().allMatch(ToolExecution::isSuccess));
+    }
+
+    @Test
+    void slowCallsTimeOutAndAreInterrupted() throws InterruptedException {
+        engine = engine(4, 4);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ToolCallback slow = new FakeToolCallback("slow", "Never answers in time", arguments -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+
+        long start = System.nanoTime();
+        List<ToolExecution> executions = engine.executeAll(List.of(invocation(slow), invocation(sleeping("fast", 10))), null);
+
+        assertTrue(elapsedMillis(start) < 2000, elapsedMillis(start) + "ms");
+        assertEquals(ToolExecution.Status.TIMEOUT, executions.get(0).status());
+        assertEquals("Tool slow timed out after 200ms", executions.get(0).result());
+        assertEquals(ToolExecution.Status.SUCCESS, executions.get(1).status());
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failuresAreReportedToTheModel() {
+        engine = engine(4, 4);
+        ToolCallback failing = new FakeToolCallback("failing", "Always fails", arguments -> {
+            throw new IllegalStateException("database is down");
+        });
+
+        ToolExecution execution = engine.execute(invocation(failing), null);
+
+        assertEquals(ToolExecution.Status.ERROR, execution.status());
+        assertEquals("Tool failing failed: database is down", execution.result());
+    }
+
+    @Test
+    void callsThatCannotGetAThreadTimeOutByTheirDeadline() {
+        engine = engine(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        ToolCallback blocked = new FakeToolCallback("slow", "Waits for the test", arguments -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        });
+
+        try {
+            long start = System.nanoTime();
+            // One call takes the thread, one the queue slot, the third waits for a slot
+            List<ToolExecution> executions = engine.executeAll(
+                    List.of(invocation(blocked), invocation(blocked), invocation(blocked)), null);
+
+            assertTrue(elapsedMillis(start) < 2000, elapsedMillis(start) + "ms");
+            assertTrue(executions.stream().allMatch(execution -> execution.status() == ToolExecution.Status.TIMEOUT),
+                    executions.toString());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("b", engine.execute(invocation(sleeping("b", 10)), null).result());
+    }
+
+    @Test
+    void reactiveCallsAreDisposedWhenTheyTimeOut() throws InterruptedException {
+        engine = engine(1, 1);
+        CountDownLatch disposed = new CountDownLatch(1);
+        ToolCallback reactive = new FakeReactiveToolCallback("slow", Mono.<String>never().doOnCancel(disposed::countDown));
+
+        List<ToolExecution> executions = engine.executeAll(List.of(
+                invocation(reactive), invocation(new FakeReactiveToolCallback("quick", Mono.just("quick"))), invocation(sleeping("a", 10))), null);
+
+        assertEquals(ToolExecution.Status.TIMEOUT, executions.get(0).status());
+        assertEquals("quick", executions.get(1).result());
+        assertEquals("a", executions.get(2).result());
+        assertTrue(disposed.await(2, TimeUnit.SECONDS));
+    }
+
+    private static ToolExecutionEngine engine(int parallelism, int queueCapacity) {
+        ToolExecutionProperties properties = new ToolExecutionProperties();
+        properties.setParallelism(parallelism);
+        properties.setQueueCapacity(queueCapacity);
+        properties.getTimeouts().put("slow", Duration.ofMillis(200));
+        return new ToolExecutionEngine(properties);
+    }
+
+    private static ToolCallback sleeping(String name, long millis) {
+        return new FakeToolCallback(name, "Sleeps " + millis + "ms", arguments -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return name;
+        });
+    }
+
+    private static ToolInvocation invocation(ToolCallback callback) {
+        return new ToolInvocation(null, callback.getToolDefinition().name(), "{}", callback);
+    }
+
+    private static long elapsedMillis(long since) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - since);
+    }
+}
@@ -0,0 +1,172 @@
+package com.vijay.service;
+
+import com.vijay.config.ToolCacheProperties;
+import com.vijay.tool.CachingToolCallback;
+import com.vijay.tool.ToolDescriptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Only idempotent tools are cached, by canonical arguments, for the TTL and
+ * within the size bound; concurrent identical misses call the server once.
+ */
+class ToolResultCacheTest {
+
+    @Test
+    void onlyListedToolsAreWrapped() {
+        ToolResultCache cache = new ToolResultCache(properties());
+        ToolCallback faqs = new FakeToolCallback("spring_ai_mcp_client_coding_assistant_listFaqs", "List the sample FAQs");
+        ToolCallback note = new FakeToolCallback("createNote", "Create a note");
+
+        assertInstanceOf(CachingToolCallback.class, cache.decorate(faqs, descriptor(faqs, null)));
+        assertSame(note, cache.decorate(note, descriptor(note, null)));
+        assertSame(faqs, cache.decorate(faqs, descriptor(faqs, true)));
+
+        ToolCacheProperties disabled = properties();
+        disabled.setEnabled(false);
+        assertSame(faqs, new ToolResultCache(disabled).decorate(faqs, descriptor(faqs, null)));
+    }
+
+    @Test
+    void argumentsAreComparedInCanonicalForm() {
+        ToolResultCache cache = new ToolResultCache(properties());
+        FakeToolCallback tool = new FakeToolCallback("listFaqs", "List the sample FAQs");
+        ToolCallback cached = cache.decorate(tool, descriptor(tool, null));
+
+        assertEquals("listFaqs {\"a\":1,\"b\":[2,3]}", cached.call("{\"a\":1,\"b\":[2,3]}"));
+        assertEquals("listFaqs {\"a\":1,\"b\":[2,3]}", cached.call("{ \"b\": [2, 3],\n \"a\": 1 }"));
+        cached.call("{\"a\":2,\"b\":[2,3]}");
+
+        assertEquals(2, tool.calls());
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        ToolResultCache cache = new ToolResultCache(properties());
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> cache.get("listFaqs", "{}", () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("server unavailable");
+        }));
+        assertEquals("faqs 2", cache.get("listFaqs", "{}", () -> "faqs " + calls.incrementAndGet()));
+        assertEquals("faqs 2", cache.get("listFaqs", "{}", () -> "faqs " + calls.incrementAndGet()));
+    }
+
+    @Test
+    void entriesExpireAndAreBounded() throws InterruptedException {
+        ToolCacheProperties properties = properties();
+        properties.setTtl(Duration.ofMillis(100));
+        properties.setMaxEntries(2);
+        ToolResultCache cache = new ToolResultCache(properties);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (String arguments : List.of("{\"q\":1}", "{\"q\":2}", "{\"q\":3}", "{\"q\":3}")) {
+            cache.get("listFaqs", arguments, () -> "result " + calls.incrementAndGet());
+        }
+        assertEquals(3, calls.get());
+        assertEquals(1L, cache.getStats().get("evictions"));
+
+        cache.get("listFaqs", "{\"q\":1}", () -> "result " + calls.incrementAndGet());
+        assertEquals(4, calls.get());
+
+        Thread.sleep(150);
+        cache.get("listFaqs", "{\"q\":1}", () -> "result " + calls.incrementAndGet());
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void invalidatedResultsAreFetchedAgain() {
+        ToolResultCache cache = new ToolResultCache(properties());
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get("spring_ai_mcp_client_coding_assistant_listFaqs", "{}", () -> "faqs " + calls.incrementAndGet());
+        cache.get("searchDocs", "{}", () -> "docs " + calls.incrementAndGet());
+        cache.invalidate("listFaqs");
+
+        assertEquals("faqs 3", cache.get("spring_ai_mcp_client_coding_assistant_listFaqs", "{}", () -> "faqs " + calls.incrementAndGet()));
+        assertEquals("docs 2", cache.get("searchDocs", "{}", () -> "docs " + calls.incrementAndGet()));
+        cache.invalidateAll();
+        assertEquals("docs 4", cache.get("searchDocs", "{}", () -> "docs " + calls.incrementAndGet()));
+    }
+
+    @Test
+    void concurrentIdenticalMissesShareOneCall() throws Exception {
+        ToolResultCache cache = new ToolResultCache(properties());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return cache.get("listFaqs", "{}", () -> {
+                        calls.incrementAndGet();
+                        sleep(200);
+                        return "faqs";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("faqs", result.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void concurrentAsyncMissesShareOneCall() {
+        ToolResultCache cache = new ToolResultCache(properties());
+        AtomicInteger calls = new AtomicInteger();
+        List<Mono<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(cache.getAsync("listFaqs", "{}", () -> Mono.fromCallable(calls::incrementAndGet)
+                    .delayElement(Duration.ofMillis(100))
+                    .map(call -> "faqs " + call)));
+        }
+
+        assertEquals(List.of("faqs 1", "faqs 1", "faqs 1", "faqs 1"), Mono.zip(results, values -> List.of(values)).block());
+        assertEquals("faqs 1", cache.getAsync("listFaqs", "{}", () -> Mono.just("again")).block());
+        assertEquals(1, calls.get());
+    }
+
+    private static ToolCacheProperties properties() {
+        ToolCacheProperties properties = new ToolCacheProperties();
+        properties.setTools(List.of("listFaqs"));
+        properties.setNever(List.of("createNote"));
+        return properties;
+    }
+
+    private static ToolDescriptor descriptor(ToolCallback callback, Boolean destructive) {
+        var definition = callback.getToolDefinition();
+        return new ToolDescriptor(definition.name(), definition.description(), definition.inputSchema(), null, null, destructive);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.vijay.service;
+
+import com.vijay.config.McpStdioPoolProperties;
+import com.vijay.config.ToolSelectionProperties;
+import com.vijay.tool.ToolCallbackDecorator;
+import com.vijay.tool.ToolDescriptor;
+import com.vijay.tool.ToolSelection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Requests get the tools that best match the message, plus the always-on
+ * ones, with callbacks aligned to the tools; small catalogs are attached whole.
+ */
+class ToolSelectorTest {
+
+    private final List<ToolCallback> tools = new ArrayList<>(List.of(
+            new FakeToolCallback("spring_ai_mcp_client_coding_assistant_listFaqs", "List the sample FAQs"),
+            new FakeToolCallback("createNote", "Create a note with a title and body"),
+            new FakeToolCallback("searchDocs", "Search the project documentation"),
+            new FakeToolCallback("runUnitTests", "Execute a module and report failures"),
+            new FakeToolCallback("getWeather", "Current weather for a city"),
+            new FakeToolCallback("gitLog", "Show recent commits of a repository"),
+            new FakeToolCallback("formatCode", "Reformat Java source files")));
+    private final ToolSelectionProperties properties = new ToolSelectionProperties();
+    private McpToolCatalog catalog;
+    private ToolSelector selector;
+
+    @BeforeEach
+    void open() {
+        properties.setTopK(2);
+        properties.setAlwaysOn(List.of("listFaqs"));
+        catalog = new McpToolCatalog(() -> tools.toArray(new ToolCallback[0]), null, null,
+                new McpStdioProcessPool(new McpStdioPoolProperties(), "test", event -> { }),
+                new StaticListableBeanFactory().getBeanProvider(ToolCallbackDecorator.class),
+                event -> { });
+        catalog.init();
+        selector = new ToolSelector(catalog, properties);
+    }
+
+    @AfterEach
+    void close() {
+        catalog.shutdown();
+    }
+
+    @Test
+    void selectsTheBestMatchesAndTheAlwaysOnTools() {
+        ToolSelection selection = selector.select("search the documentation for the kafka listener");
+
+        assertEquals("searchDocs", selection.toolNames().get(0));
+        assertTrue(selection.toolNames().contains("spring_ai_mcp_client_coding_assistant_listFaqs"), selection.toolNames().toString());
+        assertTrue(selection.tools().size() <= 3, selection.toolNames().toString());
+        assertEquals(7, selection.catalogSize());
+        for (int i = 0; i < selection.tools().size(); i++) {
+            assertEquals(selection.tools().get(i).name(), selection.callbacks().get(i).getToolDefinition().name());
+        }
+    }
+
+    @Test
+    void camelCaseNamesMatchTheirWords() {
+        assertEquals("runUnitTests", selector.select("please run the unit tests").toolNames().get(0));
+        assertEquals("gitLog", selector.select("what is in the git log").toolNames().get(0));
+    }
+
+    @Test
+    void unrelatedMessagesGetOnlyTheAlwaysOnTools() {
+        assertEquals(List.of("spring_ai_mcp_client_coding_assistant_listFaqs"), selector.select("hello there").toolNames());
+    }
+
+    @Test
+    void smallCatalogsAndDisabledSelectionAttachEveryTool() {
+        properties.setTopK(6);
+        assertEquals(7, selector.select("search the documentation").tools().size());
+
+        properties.setTopK(2);
+        properties.setEnabled(false);
+        ToolSelection selection = selector.select("search the documentation");
+        assertEquals(catalog.snapshot().getTools(), selection.tools());
+        assertEquals(catalog.snapshot().getCallbacks(), selection.callbacks());
+    }
+
+    @Test
+    void newToolsAreSelectableAfterACatalogRefresh() {
+        selector.select("deploy the service");
+        tools.add(new FakeToolCallback("deployService", "Deploy a service to the cluster"));
+        catalog.refresh();
+
+        List<ToolDescriptor> selected = selector.select("deploy the service").tools();
+        assertEquals("deployService", selected.get(0).name());
+    }
+}
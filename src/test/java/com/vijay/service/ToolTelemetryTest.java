@@ -0,0 +1,115 @@
+package com.vijay.service;
+
+import com.vijay.tool.ReactiveToolCallback;
+import com.vijay.tool.ToolDescriptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every call through a decorated tool is timed and sized per tool and
+ * outcome, and attributed to its conversation when the tool context names one.
+ */
+class ToolTelemetryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ToolTelemetry telemetry = new ToolTelemetry(registry);
+
+    @Test
+    void callsAreTimedAndSizedPerToolAndOutcome() {
+        ToolCallback faqs = decorate(new FakeToolCallback("listFaqs", "List the sample FAQs", arguments -> "0123456789"));
+        ToolCallback failing = decorate(new FakeToolCallback("createNote", "Create a note", arguments -> {
+            throw new IllegalStateException("disk full");
+        }));
+
+        faqs.call("{}");
+        faqs.call("{\"n\":1}");
+        assertThrows(IllegalStateException.class, () -> failing.call("{}"));
+
+        Map<String, Map<String, Object>> tools = tools();
+        assertEquals(2L, tools.get("listFaqs").get("calls"));
+        assertEquals(0L, tools.get("listFaqs").get("errors"));
+        assertEquals(Map.of("mean", 10.0, "max", 10.0), tools.get("listFaqs").get("resultBytes"));
+        assertEquals(Map.of("mean", 4.5, "max", 7.0), tools.get("listFaqs").get("argumentBytes"));
+        assertTrue(tools.get("listFaqs").containsKey("p95Ms"));
+        assertEquals(1L, tools.get("createNote").get("calls"));
+        assertEquals(1L, tools.get("createNote").get("errors"));
+    }
+
+    @Test
+    void toolsAreListedSlowestFirst() {
+        decorate(new FakeToolCallback("fast", "Fast")).call("{}");
+        decorate(new FakeToolCallback("slow", "Slow", arguments -> {
+            sleep(50);
+            return "done";
+        })).call("{}");
+
+        assertEquals(List.of("slow", "fast"), toolList().stream().map(tool -> tool.get("tool")).toList());
+    }
+
+    @Test
+    void callsAreAttributedToTheirConversation() {
+        ToolCallback faqs = decorate(new FakeToolCallback("listFaqs", "List the sample FAQs"));
+        ToolCallback note = decorate(new FakeToolCallback("createNote", "Create a note"));
+
+        faqs.call("{}", new ToolContext(ToolTelemetry.toolContext("c1")));
+        note.call("{}", new ToolContext(ToolTelemetry.toolContext("c1")));
+        faqs.call("{}", new ToolContext(ToolTelemetry.toolContext("c2")));
+        faqs.call("{}", new ToolContext(ToolTelemetry.toolContext(null)));
+        faqs.call("{}");
+
+        Map<String, Object> stats = telemetry.getStats();
+        assertEquals(2, stats.get("trackedConversations"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> conversations = (List<Map<String, Object>>) stats.get("conversations");
+        Map<String, Object> first = conversations.stream().filter(c -> "c1".equals(c.get("conversationId"))).findFirst().orElseThrow();
+        assertEquals(2L, first.get("calls"));
+        assertEquals(Map.of("listFaqs", 1L, "createNote", 1L), first.get("callsPerTool"));
+        assertEquals(4L, tools().get("listFaqs").get("calls"));
+    }
+
+    @Test
+    void cancelledAsyncCallsAreRecordedAsErrors() {
+        ReactiveToolCallback slow = (ReactiveToolCallback) decorate(new FakeReactiveToolCallback("slow", Mono.never()));
+        ReactiveToolCallback quick = (ReactiveToolCallback) decorate(new FakeReactiveToolCallback("quick", Mono.just("answer")));
+
+        assertEquals("answer", quick.callAsync("{}", null).block());
+        assertThrows(RuntimeException.class, () -> slow.callAsync("{}", null).timeout(Duration.ofMillis(50)).block());
+
+        assertEquals(0L, tools().get("quick").get("errors"));
+        assertEquals(1L, tools().get("slow").get("errors"));
+    }
+
+    private ToolCallback decorate(ToolCallback callback) {
+        var definition = callback.getToolDefinition();
+        return telemetry.decorate(callback, new ToolDescriptor(definition.name(), definition.description(), definition.inputSchema(), null, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> toolList() {
+        return (List<Map<String, Object>>) telemetry.getStats().get("tools");
+    }
+
+    private Map<String, Map<String, Object>> tools() {
+        return toolList().stream().collect(Collectors.toMap(tool -> (String) tool.get("tool"), tool -> tool));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.vijay.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Overlapping, nested and case-folded matches, checked against a naive scan
+ * of every pattern.
+ */
+class AhoCorasickTest {
+
+    private static final Comparator<AhoCorasick.Match> ORDER = Comparator.comparingInt(AhoCorasick.Match::end)
+            .thenComparingInt(AhoCorasick.Match::start)
+            .thenComparingInt(AhoCorasick.Match::pattern);
+
+    @Test
+    void reportsOverlappingAndNestedPatterns() {
+        AhoCorasick matcher = new AhoCorasick(List.of("new york", "york city", "new york city", "city"));
+        List<AhoCorasick.Match> matches = sorted(matcher.scan("Flights to New York City today"));
+        assertEquals(List.of(
+                new AhoCorasick.Match(0, 11, 19),
+                new AhoCorasick.Match(2, 11, 24),
+                new AhoCorasick.Match(1, 15, 24),
+                new AhoCorasick.Match(3, 20, 24)), matches);
+    }
+
+    @Test
+    void onlyMatchesWholeWords() {
+        AhoCorasick matcher = new AhoCorasick(List.of("he", "she", "hers"));
+        assertEquals(List.of(new AhoCorasick.Match(1, 0, 3), new AhoCorasick.Match(2, 4, 8)),
+                sorted(matcher.scan("she hers; usher, ushers")));
+        assertTrue(matcher.scan("shehers").isEmpty());
+    }
+
+    @Test
+    void matchesCaseInsensitivelyIncludingNonAscii() {
+        AhoCorasick matcher = new AhoCorasick(List.of("Wetter", "Straße", "café"));
+        List<AhoCorasick.Match> matches = matcher.scan("WETTER in der straße, CAFÉ?");
+        assertEquals(List.of(0, 1, 2), matches.stream().map(AhoCorasick.Match::pattern).toList());
+    }
+
+    @Test
+    void matchesTheSameOccurrencesAsANaiveScan() {
+        List<String> patterns = List.of("a", "ab", "abc", "b c", "bc", "c a", "ca b", "abca", "x");
+        AhoCorasick matcher = new AhoCorasick(patterns);
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'b', 'c', 'A', 'B', ' ', ' ', '-'};
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertEquals(naive(patterns, text.toString()), sorted(matcher.scan(text)), "text '" + text + "'");
+        }
+    }
+
+    private static List<AhoCorasick.Match> naive(List<String> patterns, String text) {
+        String folded = text.toLowerCase(Locale.ROOT);
+        List<AhoCorasick.Match> matches = new ArrayList<>();
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p).toLowerCase(Locale.ROOT);
+            for (int start = folded.indexOf(pattern); start >= 0; start = folded.indexOf(pattern, start + 1)) {
+                int end = start + pattern.length();
+                boolean before = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+                boolean after = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+                if (before && after) {
+                    matches.add(new AhoCorasick.Match(p, start, end));
+                }
+            }
+        }
+        return sorted(matches);
+    }
+
+    private static List<AhoCorasick.Match> sorted(List<AhoCorasick.Match> matches) {
+        return matches.stream().sorted(ORDER).toList();
+    }
+}
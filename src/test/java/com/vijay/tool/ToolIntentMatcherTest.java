@@ -0,0 +1,97 @@
+package com.vijay.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vijay.config.ToolIntentProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Triggers route a message only when they start it, possibly after lead-ins;
+ * questions that merely mention a trigger phrase go to the model.
+ */
+class ToolIntentMatcherTest {
+
+    private final ToolIntentMatcher matcher = new ToolIntentMatcher(properties(), new ObjectMapper());
+
+    @Test
+    void matchesTriggersThatStartTheMessage() {
+        assertEquals(List.of("listFaqs"), tools("List FAQs"));
+        assertEquals(List.of("listFaqs"), tools("  show the faqs!"));
+
+        List<ToolIntentMatch> matches = matcher.match("Take a note: buy milk and eggs");
+        assertEquals(1, matches.size());
+        assertEquals("createNote", matches.get(0).toolName());
+        assertEquals("take a note", matches.get(0).trigger());
+        assertEquals("{\"title\":\"buy milk and eggs\",\"body\":\"buy milk and eggs\"}", matches.get(0).arguments());
+        assertEquals("Note created:\n", matches.get(0).responsePrefix());
+    }
+
+    @Test
+    void matchesTriggersAfterLeadIns() {
+        assertEquals(List.of("listFaqs"), tools("Please list faqs"));
+        assertEquals(List.of("listFaqs"), tools("Can you please list the FAQs?"));
+        assertEquals(List.of("listFaqs"), tools("could you, please, show sample faqs"));
+        assertEquals(List.of("createNote"), tools("I would like to take a note about the release"));
+        assertEquals("{\"title\":\"the release\",\"body\":\"the release\"}",
+                matcher.match("Would you make a note: the release").get(0).arguments());
+    }
+
+    @Test
+    void ignoresTriggersTheMessageOnlyMentions() {
+        for (String message : List.of(
+                "why does my FAQ page 404?",
+                "how do I take a note in Obsidian?",
+                "faqs",
+                "What is a FAQ?",
+                "I forgot to take a note yesterday",
+                "Can you explain how to list faqs in Hugo?",
+                "please explain why my list faqs endpoint fails",
+                "take a notebook to the meeting",
+                "pleaselist faqs",
+                "")) {
+            assertTrue(matcher.match(message).isEmpty(), message);
+        }
+    }
+
+    @Test
+    void prefersTheLongestTriggerAtTheStart() {
+        List<ToolIntentMatch> matches = matcher.match("list sample faqs");
+        assertEquals(List.of("listFaqs"), matches.stream().map(ToolIntentMatch::toolName).toList());
+        assertEquals("list sample faqs", matches.get(0).trigger());
+    }
+
+    @Test
+    void withoutLeadInsOnlyTheMessageStartCounts() {
+        ToolIntentProperties properties = properties();
+        properties.setLeadIns(List.of());
+        ToolIntentMatcher strict = new ToolIntentMatcher(properties, new ObjectMapper());
+
+        assertEquals(1, strict.match("list faqs").size());
+        assertTrue(strict.match("please list faqs").isEmpty());
+    }
+
+    private List<String> tools(String message) {
+        return matcher.match(message).stream().map(ToolIntentMatch::toolName).toList();
+    }
+
+    private static ToolIntentProperties properties() {
+        ToolIntentProperties properties = new ToolIntentProperties();
+        ToolIntentProperties.Intent faqs = new ToolIntentProperties.Intent();
+        faqs.setTool("listFaqs");
+        faqs.setTriggers(List.of("list faqs", "list the faqs", "list sample faqs", "show faqs", "show the faqs", "show sample faqs"));
+        faqs.setResponsePrefix("Here are the sample FAQs:\n");
+        ToolIntentProperties.Intent note = new ToolIntentProperties.Intent();
+        note.setTool("createNote");
+        note.setTriggers(List.of("create a note", "make a note", "take a note"));
+        note.getArguments().put("title", "title");
+        note.getArguments().put("body", "remainder");
+        note.setResponsePrefix("Note created:\n");
+        properties.getIntents().put("list-faqs", faqs);
+        properties.getIntents().put("create-note", note);
+        return properties;
+    }
+}